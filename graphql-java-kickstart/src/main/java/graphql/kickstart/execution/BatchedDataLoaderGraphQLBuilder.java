@@ -1,5 +1,7 @@
 package graphql.kickstart.execution;
 
+import static java.util.Collections.emptyList;
+
 import graphql.ExecutionInput;
 import graphql.GraphQL;
 import graphql.execution.instrumentation.Instrumentation;
@@ -7,15 +9,44 @@ import graphql.execution.instrumentation.dataloader.DataLoaderDispatcherInstrume
 import graphql.kickstart.execution.config.GraphQLBuilder;
 import graphql.kickstart.execution.input.GraphQLBatchedInvocationInput;
 import graphql.kickstart.execution.input.GraphQLSingleInvocationInput;
+import graphql.kickstart.execution.input.StreamingBatchedInvocationInput;
+import graphql.kickstart.execution.instrumentation.DataLoaderMetrics;
+import graphql.kickstart.execution.instrumentation.DispatchWindow;
 import java.util.List;
 import java.util.function.Supplier;
 
 public class BatchedDataLoaderGraphQLBuilder {
 
   private final Supplier<DataLoaderDispatcherInstrumentationOptions> optionsSupplier;
+  private final DispatchWindow dispatchWindow;
+  private final DataLoaderMetrics metrics;
 
   public BatchedDataLoaderGraphQLBuilder(
       Supplier<DataLoaderDispatcherInstrumentationOptions> optionsSupplier) {
+    this(optionsSupplier, null);
+  }
+
+  /**
+   * @param optionsSupplier the DataLoader dispatching instrumentation options
+   * @param dispatchWindow the dispatch window, or {@literal null} to only dispatch complete levels
+   */
+  public BatchedDataLoaderGraphQLBuilder(
+      Supplier<DataLoaderDispatcherInstrumentationOptions> optionsSupplier,
+      DispatchWindow dispatchWindow) {
+    this(optionsSupplier, dispatchWindow, null);
+  }
+
+  /**
+   * @param optionsSupplier the DataLoader dispatching instrumentation options
+   * @param dispatchWindow the dispatch window, or {@literal null} to only dispatch complete levels
+   * @param metrics the DataLoader metrics to record to, or {@literal null} to not record any
+   */
+  public BatchedDataLoaderGraphQLBuilder(
+      Supplier<DataLoaderDispatcherInstrumentationOptions> optionsSupplier,
+      DispatchWindow dispatchWindow,
+      DataLoaderMetrics metrics) {
+    this.dispatchWindow = dispatchWindow;
+    this.metrics = metrics;
     if (optionsSupplier != null) {
       this.optionsSupplier = optionsSupplier;
     } else {
@@ -24,8 +55,18 @@ public class BatchedDataLoaderGraphQLBuilder {
   }
 
   GraphQL newGraphQL(GraphQLBatchedInvocationInput invocationInput, GraphQLBuilder graphQLBuilder) {
+    if (invocationInput instanceof StreamingBatchedInvocationInput) {
+      // streamed batches never track the whole request, so the inputs are not needed up front
+      Supplier<Instrumentation> supplier =
+          augment(invocationInput, emptyList(), graphQLBuilder.getInstrumentationSupplier());
+      return graphQLBuilder.build(
+          ((StreamingBatchedInvocationInput) invocationInput).getSchema(), supplier);
+    }
     Supplier<Instrumentation> supplier =
-        augment(invocationInput, graphQLBuilder.getInstrumentationSupplier());
+        augment(
+            invocationInput,
+            invocationInput.getExecutionInputs(),
+            graphQLBuilder.getInstrumentationSupplier());
     return invocationInput.getInvocationInputs().stream()
         .findFirst()
         .map(GraphQLSingleInvocationInput::getSchema)
@@ -38,11 +79,15 @@ public class BatchedDataLoaderGraphQLBuilder {
 
   private Supplier<Instrumentation> augment(
       GraphQLBatchedInvocationInput batchedInvocationInput,
+      List<ExecutionInput> executionInputs,
       Supplier<Instrumentation> instrumentationSupplier) {
-    List<ExecutionInput> executionInputs = batchedInvocationInput.getExecutionInputs();
     return batchedInvocationInput
         .getContextSetting()
         .configureInstrumentationForContext(
-            instrumentationSupplier, executionInputs, optionsSupplier.get());
+            instrumentationSupplier,
+            executionInputs,
+            optionsSupplier.get(),
+            dispatchWindow,
+            metrics);
   }
 }
@@ -2,25 +2,65 @@ package graphql.kickstart.execution;
 
 import graphql.ExecutionResult;
 import graphql.kickstart.execution.input.GraphQLInvocationInput;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 
-@RequiredArgsConstructor
 class FutureBatchedExecutionResult implements FutureExecutionResult {
 
   @Getter
   private final GraphQLInvocationInput invocationInput;
   private final CompletableFuture<List<ExecutionResult>> batched;
+  private final List<CompletableFuture<ExecutionResult>> results;
+
+  FutureBatchedExecutionResult(
+      GraphQLInvocationInput invocationInput, CompletableFuture<List<ExecutionResult>> batched) {
+    this.invocationInput = invocationInput;
+    this.batched = batched;
+    this.results = null;
+  }
+
+  FutureBatchedExecutionResult(
+      GraphQLInvocationInput invocationInput, List<CompletableFuture<ExecutionResult>> results) {
+    this.invocationInput = invocationInput;
+    this.batched = sequence(results);
+    this.results = results;
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  static <T> CompletableFuture<List<T>> sequence(List<CompletableFuture<T>> futures) {
+    CompletableFuture[] futuresArray = futures.toArray(new CompletableFuture[0]);
+    return CompletableFuture.allOf(futuresArray)
+        .thenApply(
+            aVoid -> {
+              List<T> result = new ArrayList<>(futures.size());
+              for (CompletableFuture future : futuresArray) {
+                assert future.isDone(); // per the API contract of allOf()
+                result.add((T) future.join());
+              }
+              return result;
+            });
+  }
 
   @Override
   public CompletableFuture<GraphQLQueryResult> thenApplyQueryResult() {
     return batched.thenApply(GraphQLQueryResult::create);
   }
 
+  @Override
+  public CompletableFuture<GraphQLQueryResult> thenApplyStreamingQueryResult() {
+    if (results == null) {
+      return thenApplyQueryResult();
+    }
+    return CompletableFuture.completedFuture(GraphQLQueryResult.createStreaming(results));
+  }
+
   @Override
   public void cancel() {
     batched.cancel(true);
+    if (results != null) {
+      results.forEach(result -> result.cancel(true));
+    }
   }
 }
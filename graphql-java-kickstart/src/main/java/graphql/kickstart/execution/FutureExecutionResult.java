@@ -17,12 +17,25 @@ public interface FutureExecutionResult {
     return new FutureBatchedExecutionResult(invocationInput, batched);
   }
 
+  static FutureExecutionResult batched(
+      GraphQLInvocationInput invocationInput, List<CompletableFuture<ExecutionResult>> results) {
+    return new FutureBatchedExecutionResult(invocationInput, results);
+  }
+
   static FutureExecutionResult error(GraphQLErrorQueryResult result) {
     return new FutureErrorExecutionResult(result);
   }
 
   CompletableFuture<GraphQLQueryResult> thenApplyQueryResult();
 
+  /**
+   * Like {@link #thenApplyQueryResult()}, except that a batch completes right away with a result
+   * whose {@link GraphQLQueryResult#getResultFutures() futures} complete one by one.
+   */
+  default CompletableFuture<GraphQLQueryResult> thenApplyStreamingQueryResult() {
+    return thenApplyQueryResult();
+  }
+
   GraphQLInvocationInput getInvocationInput();
 
   void cancel();
@@ -8,6 +8,7 @@ import graphql.kickstart.execution.config.GraphQLBuilder;
 import graphql.kickstart.execution.input.GraphQLBatchedInvocationInput;
 import graphql.kickstart.execution.input.GraphQLInvocationInput;
 import graphql.kickstart.execution.input.GraphQLSingleInvocationInput;
+import graphql.kickstart.execution.input.StreamingBatchedInvocationInput;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
@@ -28,7 +29,7 @@ public class GraphQLInvoker {
           invocationInput, executeAsync((GraphQLSingleInvocationInput) invocationInput));
     }
     return FutureExecutionResult.batched(
-        invocationInput, executeAsync((GraphQLBatchedInvocationInput) invocationInput));
+        invocationInput, start((GraphQLBatchedInvocationInput) invocationInput));
   }
 
   public CompletableFuture<ExecutionResult> executeAsync(
@@ -53,26 +54,38 @@ public class GraphQLInvoker {
 
   private CompletableFuture<List<ExecutionResult>> executeAsync(
       GraphQLBatchedInvocationInput batchedInvocationInput) {
+    return FutureBatchedExecutionResult.sequence(start(batchedInvocationInput));
+  }
+
+  /** @return the result of each query of the batch, in request order */
+  private List<CompletableFuture<ExecutionResult>> start(
+      GraphQLBatchedInvocationInput batchedInvocationInput) {
     GraphQL graphQL =
         batchedDataLoaderGraphQLBuilder.newGraphQL(batchedInvocationInput, graphQLBuilder);
-    return sequence(
-        batchedInvocationInput.getExecutionInputs().stream()
-            .map(executionInput -> proxy.executeAsync(graphQL, executionInput))
-            .collect(toList()));
+    if (batchedInvocationInput instanceof StreamingBatchedInvocationInput) {
+      return start(graphQL, (StreamingBatchedInvocationInput) batchedInvocationInput);
+    }
+    return batchedInvocationInput.getExecutionInputs().stream()
+        .map(executionInput -> proxy.executeAsync(graphQL, executionInput))
+        .collect(toList());
   }
 
-  @SuppressWarnings({"unchecked", "rawtypes"})
-  private <T> CompletableFuture<List<T>> sequence(List<CompletableFuture<T>> futures) {
-    CompletableFuture[] futuresArray = futures.toArray(new CompletableFuture[0]);
-    return CompletableFuture.allOf(futuresArray)
-        .thenApply(
-            aVoid -> {
-              List<T> result = new ArrayList<>(futures.size());
-              for (CompletableFuture future : futuresArray) {
-                assert future.isDone(); // per the API contract of allOf()
-                result.add((T) future.join());
-              }
-              return result;
-            });
+  /** Starts each query as soon as it has been read, while the rest of the batch is still read. */
+  private List<CompletableFuture<ExecutionResult>> start(
+      GraphQL graphQL, StreamingBatchedInvocationInput batchedInvocationInput) {
+    List<CompletableFuture<ExecutionResult>> futures = new ArrayList<>();
+    try {
+      for (GraphQLSingleInvocationInput invocationInput : batchedInvocationInput) {
+        futures.add(proxy.executeAsync(graphQL, invocationInput.getExecutionInput()));
+      }
+    } catch (RuntimeException e) {
+      futures.forEach(future -> future.cancel(true));
+      throw e;
+    }
+    if (futures.isEmpty()) {
+      throw new IllegalArgumentException(
+          "Batched invocation input must contain at least one query");
+    }
+    return futures;
   }
 }
@@ -2,10 +2,12 @@ package graphql.kickstart.execution;
 
 import static java.util.stream.Collectors.toList;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import graphql.ExecutionResult;
 import graphql.ExecutionResultImpl;
 import graphql.GraphQLError;
@@ -85,6 +87,15 @@ public class GraphQLObjectMapper {
     return requests;
   }
 
+  /**
+   * @param inputStream a JSON array of requests
+   * @return an iterator reading the requests one at a time, as they are consumed
+   */
+  public MappingIterator<GraphQLRequest> streamBatchedGraphQLRequest(InputStream inputStream)
+      throws IOException {
+    return getGraphQLRequestMapper().readValues(inputStream);
+  }
+
   public List<GraphQLRequest> readBatchedGraphQLRequest(String query) throws IOException {
     MappingIterator<GraphQLRequest> iterator = getGraphQLRequestMapper().readValues(query);
     List<GraphQLRequest> requests = new ArrayList<>();
@@ -106,6 +117,18 @@ public class GraphQLObjectMapper {
     getJacksonMapper().writeValue(writer, createResultFromExecutionResult(executionResult));
   }
 
+  /**
+   * Writes a result to the generator without flushing or closing it, so several results can be
+   * written to the same stream.
+   */
+  public void serializeResultAsJson(JsonGenerator generator, ExecutionResult executionResult)
+      throws IOException {
+    getJacksonMapper()
+        .writer()
+        .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+        .writeValue(generator, createResultFromExecutionResult(executionResult));
+  }
+
   /**
    * Serializes result as bytes in UTF-8 encoding instead of string.
    *
@@ -9,6 +9,8 @@ import graphql.execution.preparsed.PreparsedDocumentProvider;
 import graphql.kickstart.execution.config.DefaultExecutionStrategyProvider;
 import graphql.kickstart.execution.config.ExecutionStrategyProvider;
 import graphql.kickstart.execution.config.GraphQLBuilder;
+import graphql.kickstart.execution.instrumentation.DataLoaderMetrics;
+import graphql.kickstart.execution.instrumentation.DispatchWindow;
 import java.util.List;
 import java.util.function.Supplier;
 
@@ -21,16 +23,50 @@ public class GraphQLQueryInvoker {
   private final Supplier<Instrumentation> getInstrumentation;
   private final Supplier<PreparsedDocumentProvider> getPreparsedDocumentProvider;
   private final Supplier<DataLoaderDispatcherInstrumentationOptions> optionsSupplier;
+  private final DispatchWindow dispatchWindow;
+  private final DataLoaderMetrics dataLoaderMetrics;
 
   protected GraphQLQueryInvoker(
       Supplier<ExecutionStrategyProvider> getExecutionStrategyProvider,
       Supplier<Instrumentation> getInstrumentation,
       Supplier<PreparsedDocumentProvider> getPreparsedDocumentProvider,
       Supplier<DataLoaderDispatcherInstrumentationOptions> optionsSupplier) {
+    this(
+        getExecutionStrategyProvider,
+        getInstrumentation,
+        getPreparsedDocumentProvider,
+        optionsSupplier,
+        null);
+  }
+
+  protected GraphQLQueryInvoker(
+      Supplier<ExecutionStrategyProvider> getExecutionStrategyProvider,
+      Supplier<Instrumentation> getInstrumentation,
+      Supplier<PreparsedDocumentProvider> getPreparsedDocumentProvider,
+      Supplier<DataLoaderDispatcherInstrumentationOptions> optionsSupplier,
+      DispatchWindow dispatchWindow) {
+    this(
+        getExecutionStrategyProvider,
+        getInstrumentation,
+        getPreparsedDocumentProvider,
+        optionsSupplier,
+        dispatchWindow,
+        null);
+  }
+
+  protected GraphQLQueryInvoker(
+      Supplier<ExecutionStrategyProvider> getExecutionStrategyProvider,
+      Supplier<Instrumentation> getInstrumentation,
+      Supplier<PreparsedDocumentProvider> getPreparsedDocumentProvider,
+      Supplier<DataLoaderDispatcherInstrumentationOptions> optionsSupplier,
+      DispatchWindow dispatchWindow,
+      DataLoaderMetrics dataLoaderMetrics) {
     this.getExecutionStrategyProvider = getExecutionStrategyProvider;
     this.getInstrumentation = getInstrumentation;
     this.getPreparsedDocumentProvider = getPreparsedDocumentProvider;
     this.optionsSupplier = optionsSupplier;
+    this.dispatchWindow = dispatchWindow;
+    this.dataLoaderMetrics = dataLoaderMetrics;
   }
 
   public static Builder newBuilder() {
@@ -43,7 +79,9 @@ public class GraphQLQueryInvoker {
             .executionStrategyProvider(getExecutionStrategyProvider)
             .instrumentation(getInstrumentation)
             .preparsedDocumentProvider(getPreparsedDocumentProvider);
-    return new GraphQLInvoker(graphQLBuilder, new BatchedDataLoaderGraphQLBuilder(optionsSupplier));
+    return new GraphQLInvoker(
+        graphQLBuilder,
+        new BatchedDataLoaderGraphQLBuilder(optionsSupplier, dispatchWindow, dataLoaderMetrics));
   }
 
   public static class Builder {
@@ -57,11 +95,18 @@ public class GraphQLQueryInvoker {
     private Supplier<DataLoaderDispatcherInstrumentationOptions>
         dataLoaderDispatcherInstrumentationOptionsSupplier =
             DataLoaderDispatcherInstrumentationOptions::newOptions;
+    private DispatchWindow dispatchWindow;
+    private DataLoaderMetrics dataLoaderMetrics;
 
     public Builder withExecutionStrategyProvider(ExecutionStrategyProvider provider) {
       return withExecutionStrategyProvider(() -> provider);
     }
 
+    /**
+     * The supplier is called once per schema when the {@link graphql.GraphQL} instance for it is
+     * built, and again for every batched request. A value it returns later, for example from a
+     * replaced provider, is only picked up once the configuration is rebuilt.
+     */
     public Builder withExecutionStrategyProvider(Supplier<ExecutionStrategyProvider> supplier) {
       this.getExecutionStrategyProvider = supplier;
       return this;
@@ -71,6 +116,11 @@ public class GraphQLQueryInvoker {
       return withInstrumentation(() -> instrumentation);
     }
 
+    /**
+     * The supplier is called once per schema when the {@link graphql.GraphQL} instance for it is
+     * built, and again for every batched request. A value it returns later, for example from a
+     * replaced provider, is only picked up once the configuration is rebuilt.
+     */
     public Builder withInstrumentation(Supplier<Instrumentation> supplier) {
       this.getInstrumentation = supplier;
       return this;
@@ -92,6 +142,11 @@ public class GraphQLQueryInvoker {
       return withPreparsedDocumentProvider(() -> provider);
     }
 
+    /**
+     * The supplier is called once per schema when the {@link graphql.GraphQL} instance for it is
+     * built, and again for every batched request. A value it returns later, for example from a
+     * replaced provider, is only picked up once the configuration is rebuilt.
+     */
     public Builder withPreparsedDocumentProvider(Supplier<PreparsedDocumentProvider> supplier) {
       this.getPreparsedDocumentProvider = supplier;
       return this;
@@ -108,12 +163,39 @@ public class GraphQLQueryInvoker {
       return this;
     }
 
+    /**
+     * Also dispatches the data loaders of batched requests when the dispatch window closes, before
+     * a level is complete.
+     *
+     * @param dispatchWindow the dispatch window, or {@literal null} to only dispatch complete
+     *     levels
+     * @return this builder
+     */
+    public Builder withDispatchWindow(DispatchWindow dispatchWindow) {
+      this.dispatchWindow = dispatchWindow;
+      return this;
+    }
+
+    /**
+     * Records the batches and loads of the data loaders of batched requests, by loader and
+     * operation.
+     *
+     * @param dataLoaderMetrics the metrics to record to, or {@literal null} to not record any
+     * @return this builder
+     */
+    public Builder withDataLoaderMetrics(DataLoaderMetrics dataLoaderMetrics) {
+      this.dataLoaderMetrics = dataLoaderMetrics;
+      return this;
+    }
+
     public GraphQLQueryInvoker build() {
       return new GraphQLQueryInvoker(
           getExecutionStrategyProvider,
           getInstrumentation,
           getPreparsedDocumentProvider,
-          dataLoaderDispatcherInstrumentationOptionsSupplier);
+          dataLoaderDispatcherInstrumentationOptionsSupplier,
+          dispatchWindow,
+          dataLoaderMetrics);
     }
   }
 }
@@ -1,9 +1,11 @@
 package graphql.kickstart.execution;
 
 import static java.util.Collections.emptyList;
+import static java.util.stream.Collectors.toList;
 
 import graphql.ExecutionResult;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface GraphQLQueryResult {
 
@@ -15,6 +17,14 @@ public interface GraphQLQueryResult {
     return new GraphQLBatchedQueryResult(results);
   }
 
+  /**
+   * @param results the pending results of a batch, in request order
+   * @return a batched result that can be written while the executions are still running
+   */
+  static GraphQLQueryResult createStreaming(List<CompletableFuture<ExecutionResult>> results) {
+    return new GraphQLStreamingBatchedQueryResult(results);
+  }
+
   static GraphQLErrorQueryResult createError(int statusCode, String message) {
     return new GraphQLErrorQueryResult(statusCode, message);
   }
@@ -31,6 +41,16 @@ public interface GraphQLQueryResult {
     return emptyList();
   }
 
+  /** @return whether the results of this batch may still be pending, see {@link #getResultFutures()} */
+  default boolean isStreaming() {
+    return false;
+  }
+
+  /** @return the results of a batch as futures, in request order */
+  default List<CompletableFuture<ExecutionResult>> getResultFutures() {
+    return getResults().stream().map(CompletableFuture::completedFuture).collect(toList());
+  }
+
   default boolean isError() {
     return false;
   }
@@ -22,6 +22,10 @@ public class GraphQLRequest {
 
   private String operationName;
 
+  // the operation name found in the query, extracted once and reset when the query changes
+  private String extractedOperationName;
+  private volatile boolean operationNameExtracted;
+
   public GraphQLRequest() {}
 
   public GraphQLRequest(
@@ -57,6 +61,7 @@ public class GraphQLRequest {
 
   public void setQuery(String query) {
     this.query = query;
+    this.operationNameExtracted = false;
   }
 
   public Map<String, Object> getVariables() {
@@ -80,10 +85,15 @@ public class GraphQLRequest {
   }
 
   public String getOperationName() {
-    return extractOperationName(query, operationName, null);
+    if (!operationNameExtracted) {
+      extractedOperationName = extractOperationName(query, operationName, null);
+      operationNameExtracted = true;
+    }
+    return extractedOperationName;
   }
 
   public void setOperationName(String operationName) {
     this.operationName = operationName;
+    this.operationNameExtracted = false;
   }
 }
@@ -0,0 +1,37 @@
+package graphql.kickstart.execution;
+
+import static java.util.stream.Collectors.toList;
+
+import graphql.ExecutionResult;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/** A batched result handed out before all of its executions have completed. */
+@RequiredArgsConstructor
+class GraphQLStreamingBatchedQueryResult implements GraphQLQueryResult {
+
+  @Getter private final List<CompletableFuture<ExecutionResult>> resultFutures;
+
+  @Override
+  public boolean isBatched() {
+    return true;
+  }
+
+  @Override
+  public boolean isAsynchronous() {
+    return false;
+  }
+
+  @Override
+  public boolean isStreaming() {
+    return true;
+  }
+
+  /** Waits for every execution of the batch to complete. */
+  @Override
+  public List<ExecutionResult> getResults() {
+    return resultFutures.stream().map(CompletableFuture::join).collect(toList());
+  }
+}
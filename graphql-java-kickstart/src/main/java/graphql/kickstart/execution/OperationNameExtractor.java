@@ -19,6 +19,10 @@ class OperationNameExtractor {
       return requestedOperationName;
     }
     if (isNotEmpty(gqlQuery)) {
+      Scanner scanner = new Scanner(gqlQuery);
+      if (scanner.scan()) {
+        return scanner.operationName != null ? scanner.operationName : defaultIfNotFound;
+      }
       return parseForOperationName(gqlQuery, defaultIfNotFound);
     }
     return defaultIfNotFound;
@@ -40,4 +44,186 @@ class OperationNameExtractor {
     }
     return defaultIfNotFound;
   }
+
+  /**
+   * Finds the name of the only operation of a document on the token level, without building the
+   * syntax tree. Only the top level of the document is looked at, the selection sets, arguments
+   * and strings are skipped. Documents that are not plain executable documents, such as documents
+   * with type definitions or syntax errors, are left to the parser.
+   */
+  private static final class Scanner {
+
+    private final String query;
+    private final int length;
+    private int pos;
+    private char[] brackets = new char[16];
+    private int depth;
+    private boolean expectDefinition = true;
+    private int operations;
+    private String operationName;
+
+    private Scanner(String query) {
+      this.query = query;
+      this.length = query.length();
+    }
+
+    /** @return whether the document could be scanned, otherwise it has to be parsed */
+    private boolean scan() {
+      while (skipIgnored()) {
+        char c = query.charAt(pos);
+        if (depth > 0) {
+          if (!skipNested(c)) {
+            return false;
+          }
+        } else if (!scanTopLevel(c)) {
+          return false;
+        } else if (operations > 1) {
+          // the operation to execute has to be given, there is no single operation name
+          operationName = null;
+          return true;
+        }
+      }
+      return depth == 0 && expectDefinition && operations > 0;
+    }
+
+    private boolean scanTopLevel(char c) {
+      if (c == '{') {
+        if (expectDefinition) {
+          // query shorthand, an anonymous operation
+          operations++;
+          expectDefinition = false;
+        }
+        return open(c);
+      }
+      if (c == '(') {
+        return open(c);
+      }
+      if (c == '@') {
+        pos++;
+        return skipIgnored() && readName() != null;
+      }
+      String name = readName();
+      if (name == null) {
+        return false;
+      }
+      if (!expectDefinition) {
+        return true;
+      }
+      expectDefinition = false;
+      switch (name) {
+        case "query":
+        case "mutation":
+        case "subscription":
+          operations++;
+          if (skipIgnored()) {
+            operationName = readName();
+          }
+          return true;
+        case "fragment":
+          return true;
+        default:
+          return false;
+      }
+    }
+
+    private boolean skipNested(char c) {
+      switch (c) {
+        case '{':
+        case '(':
+        case '[':
+          return open(c);
+        case '}':
+          return close('{');
+        case ')':
+          return close('(');
+        case ']':
+          return close('[');
+        case '"':
+          return skipString();
+        default:
+          pos++;
+          return true;
+      }
+    }
+
+    private boolean open(char c) {
+      if (depth == brackets.length) {
+        char[] grown = new char[depth * 2];
+        System.arraycopy(brackets, 0, grown, 0, depth);
+        brackets = grown;
+      }
+      brackets[depth++] = c;
+      pos++;
+      return true;
+    }
+
+    private boolean close(char opening) {
+      if (brackets[--depth] != opening) {
+        return false;
+      }
+      pos++;
+      if (depth == 0 && opening == '{') {
+        expectDefinition = true;
+      }
+      return true;
+    }
+
+    /** @return whether a token follows */
+    private boolean skipIgnored() {
+      while (pos < length) {
+        char c = query.charAt(pos);
+        if (c == '#') {
+          while (pos < length && query.charAt(pos) != '\n' && query.charAt(pos) != '\r') {
+            pos++;
+          }
+        } else if (c == ' ' || c == ',' || c == '\t' || c == '\n' || c == '\r' || c == '\uFEFF') {
+          pos++;
+        } else {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private String readName() {
+      int start = pos;
+      while (pos < length && isNameChar(query.charAt(pos), pos == start)) {
+        pos++;
+      }
+      return pos > start ? query.substring(start, pos) : null;
+    }
+
+    private static boolean isNameChar(char c, boolean first) {
+      return c == '_'
+          || (c >= 'A' && c <= 'Z')
+          || (c >= 'a' && c <= 'z')
+          || (!first && c >= '0' && c <= '9');
+    }
+
+    private boolean skipString() {
+      if (query.startsWith("\"\"\"", pos)) {
+        int end = pos + 3;
+        while ((end = query.indexOf("\"\"\"", end)) > 0 && query.charAt(end - 1) == '\\') {
+          end += 3;
+        }
+        if (end < 0) {
+          return false;
+        }
+        pos = end + 3;
+        return true;
+      }
+      for (pos++; pos < length; pos++) {
+        char c = query.charAt(pos);
+        if (c == '\\') {
+          pos++;
+        } else if (c == '"') {
+          pos++;
+          return true;
+        } else if (c == '\n' || c == '\r') {
+          return false;
+        }
+      }
+      return false;
+    }
+  }
 }
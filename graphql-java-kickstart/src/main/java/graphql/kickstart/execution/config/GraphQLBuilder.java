@@ -8,12 +8,33 @@ import graphql.execution.instrumentation.SimplePerformantInstrumentation;
 import graphql.execution.instrumentation.dataloader.DataLoaderDispatcherInstrumentation;
 import graphql.execution.preparsed.NoOpPreparsedDocumentProvider;
 import graphql.execution.preparsed.PreparsedDocumentProvider;
+import graphql.kickstart.execution.preparsed.SchemaAwarePreparsedDocumentProvider;
 import graphql.schema.GraphQLSchema;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.function.Supplier;
 import lombok.Getter;
 
 public class GraphQLBuilder {
 
+  /**
+   * Upper bound of distinct schemas for which a built {@link GraphQL} instance is kept. Schema
+   * providers usually hand out a small, fixed set of schemas (e.g. the full and the read-only
+   * one), so reaching this limit means schemas are being replaced and the least recently used
+   * ones are dropped.
+   */
+  private static final int MAX_CACHED_ENGINES = 16;
+
+  /**
+   * {@link GraphQLSchema} does not override equals, so the schema instance is the key. In access
+   * order, guarded by itself.
+   */
+  private final LinkedHashMap<GraphQLSchema, GraphQL> engines =
+      new LinkedHashMap<>(16, 0.75f, true);
+
+  // incremented by invalidate(), so an instance built from replaced suppliers is not kept
+  private long generation;
+
   private Supplier<ExecutionStrategyProvider> executionStrategyProviderSupplier =
       DefaultExecutionStrategyProvider::new;
   private Supplier<PreparsedDocumentProvider> preparsedDocumentProviderSupplier =
@@ -25,30 +46,50 @@ public class GraphQLBuilder {
 
   private Supplier<GraphQLBuilderConfigurer> graphQLBuilderConfigurerSupplier = () -> builder -> {};
 
+  /**
+   * The supplier is called when a {@link GraphQL} instance is built, once per schema for {@link
+   * #build(GraphQLSchema)}, not for every execution. Replacing it discards the built instances.
+   */
   public GraphQLBuilder executionStrategyProvider(Supplier<ExecutionStrategyProvider> supplier) {
     if (supplier != null) {
       executionStrategyProviderSupplier = supplier;
+      invalidate();
     }
     return this;
   }
 
+  /**
+   * The supplier is called when a {@link GraphQL} instance is built, once per schema for {@link
+   * #build(GraphQLSchema)}, not for every execution. Replacing it discards the built instances.
+   */
   public GraphQLBuilder preparsedDocumentProvider(Supplier<PreparsedDocumentProvider> supplier) {
     if (supplier != null) {
       preparsedDocumentProviderSupplier = supplier;
+      invalidate();
     }
     return this;
   }
 
+  /**
+   * The supplier is called when a {@link GraphQL} instance is built, once per schema for {@link
+   * #build(GraphQLSchema)}, not for every execution. Replacing it discards the built instances.
+   */
   public GraphQLBuilder instrumentation(Supplier<Instrumentation> supplier) {
     if (supplier != null) {
       instrumentationSupplier = supplier;
+      invalidate();
     }
     return this;
   }
 
+  /**
+   * The supplier is called when a {@link GraphQL} instance is built, once per schema for {@link
+   * #build(GraphQLSchema)}, not for every execution. Replacing it discards the built instances.
+   */
   public GraphQLBuilder graphQLBuilderConfigurer(Supplier<GraphQLBuilderConfigurer> supplier) {
     if (supplier != null) {
       graphQLBuilderConfigurerSupplier = supplier;
+      invalidate();
     }
     return this;
   }
@@ -57,10 +98,57 @@ public class GraphQLBuilder {
     return build(schemaProvider.getSchema());
   }
 
+  /**
+   * Returns the {@link GraphQL} instance for the given schema. The instance is built once per
+   * schema and reused for subsequent calls with the same schema instance, until one of the
+   * suppliers of this builder is replaced. The suppliers are therefore only consulted when the
+   * instance is (re)built. Suppliers that return a different object on every call, for example
+   * to pick up a replaced instrumentation provider, need {@link #invalidate()} to take effect.
+   *
+   * @param schema the schema to execute against
+   * @return the (possibly cached) GraphQL instance
+   */
   public GraphQL build(GraphQLSchema schema) {
-    return build(schema, instrumentationSupplier);
+    long builtGeneration;
+    synchronized (engines) {
+      GraphQL graphQL = engines.get(schema);
+      if (graphQL != null) {
+        return graphQL;
+      }
+      builtGeneration = generation;
+    }
+    // built outside of the lock, a concurrent build for the same schema is discarded
+    GraphQL built = build(schema, instrumentationSupplier);
+    synchronized (engines) {
+      if (builtGeneration != generation) {
+        return built;
+      }
+      GraphQL graphQL = engines.putIfAbsent(schema, built);
+      if (graphQL != null) {
+        return graphQL;
+      }
+      Iterator<GraphQLSchema> eldest = engines.keySet().iterator();
+      while (engines.size() > MAX_CACHED_ENGINES) {
+        eldest.next();
+        eldest.remove();
+      }
+      return built;
+    }
   }
 
+  /** Discards all cached {@link GraphQL} instances, they are rebuilt on next use. */
+  public void invalidate() {
+    synchronized (engines) {
+      engines.clear();
+      generation++;
+    }
+  }
+
+  /**
+   * Always builds a new {@link GraphQL} instance using the given instrumentation supplier. Used for
+   * executions that need their own instrumentation, e.g. batched requests with per request
+   * DataLoader dispatching, so the result is never cached.
+   */
   public GraphQL build(
       GraphQLSchema schema, Supplier<Instrumentation> configuredInstrumentationSupplier) {
     ExecutionStrategyProvider executionStrategyProvider = executionStrategyProviderSupplier.get();
@@ -72,8 +160,7 @@ public class GraphQLBuilder {
         executionStrategyProvider.getSubscriptionExecutionStrategy();
 
     GraphQL.Builder builder =
-        GraphQL.newGraphQL(schema)
-            .preparsedDocumentProvider(preparsedDocumentProviderSupplier.get());
+        GraphQL.newGraphQL(schema).preparsedDocumentProvider(preparsedDocumentProvider(schema));
 
     if (queryExecutionStrategy != null) {
       builder.queryExecutionStrategy(queryExecutionStrategy);
@@ -96,6 +183,14 @@ public class GraphQLBuilder {
     return builder.build();
   }
 
+  private PreparsedDocumentProvider preparsedDocumentProvider(GraphQLSchema schema) {
+    PreparsedDocumentProvider provider = preparsedDocumentProviderSupplier.get();
+    if (provider instanceof SchemaAwarePreparsedDocumentProvider) {
+      return ((SchemaAwarePreparsedDocumentProvider) provider).forSchema(schema);
+    }
+    return provider;
+  }
+
   private boolean containsDispatchInstrumentation(Instrumentation instrumentation) {
     if (instrumentation instanceof ChainedInstrumentation) {
       return ((ChainedInstrumentation) instrumentation)
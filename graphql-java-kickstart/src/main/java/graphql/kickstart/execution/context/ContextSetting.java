@@ -9,12 +9,19 @@ import graphql.kickstart.execution.GraphQLRequest;
 import graphql.kickstart.execution.input.GraphQLBatchedInvocationInput;
 import graphql.kickstart.execution.input.PerQueryBatchedInvocationInput;
 import graphql.kickstart.execution.input.PerRequestBatchedInvocationInput;
+import graphql.kickstart.execution.input.StreamingBatchedInvocationInput;
 import graphql.kickstart.execution.instrumentation.ConfigurableDispatchInstrumentation;
+import graphql.kickstart.execution.instrumentation.DataLoaderMetrics;
+import graphql.kickstart.execution.instrumentation.DispatchWindow;
 import graphql.kickstart.execution.instrumentation.FieldLevelTrackingApproach;
+import graphql.kickstart.execution.instrumentation.MeteredDataLoaderRegistry;
 import graphql.kickstart.execution.instrumentation.RequestLevelTrackingApproach;
 import graphql.schema.GraphQLSchema;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import org.dataloader.DataLoaderRegistry;
@@ -32,7 +39,13 @@ public enum ContextSetting {
   PER_REQUEST_WITHOUT_INSTRUMENTATION,
   /** Each GraphQL execution should always have its own context. */
   PER_QUERY_WITH_INSTRUMENTATION,
-  PER_QUERY_WITHOUT_INSTRUMENTATION;
+  PER_QUERY_WITHOUT_INSTRUMENTATION,
+  /**
+   * Each GraphQL execution has its own context, but the dataloaders of all executions in a http
+   * request are dispatched together, once per level. The loaders of a {@link DataLoaderBatchBus}
+   * then load the keys of all executions with one batch.
+   */
+  PER_QUERY_WITH_REQUEST_INSTRUMENTATION;
 
   /**
    * Creates a set of inputs with the correct context based on the setting.
@@ -53,6 +66,8 @@ public enum ContextSetting {
       case PER_QUERY_WITH_INSTRUMENTATION:
         // Intentional fallthrough
       case PER_QUERY_WITHOUT_INSTRUMENTATION:
+        // Intentional fallthrough
+      case PER_QUERY_WITH_REQUEST_INSTRUMENTATION:
         return new PerQueryBatchedInvocationInput(requests, schema, contextSupplier, root, this);
       case PER_REQUEST_WITHOUT_INSTRUMENTATION:
         // Intentional fallthrough
@@ -63,6 +78,42 @@ public enum ContextSetting {
     }
   }
 
+  /**
+   * Creates a batch input that reads the requests while the batch is executed. Dispatching
+   * DataLoaders across the whole request needs every query up front, so for {@link
+   * #PER_REQUEST_WITH_INSTRUMENTATION} and {@link #PER_QUERY_WITH_REQUEST_INSTRUMENTATION} all
+   * requests are read before the batch is returned.
+   *
+   * @param requests the GraphQL requests to execute, read lazily.
+   * @param schema the GraphQL schema to execute the requests against.
+   * @param contextSupplier method that returns the context to use for each execution or for the
+   *     request as a whole.
+   * @param root the root object to use for each execution.
+   * @return a configured batch input.
+   */
+  public GraphQLBatchedInvocationInput getBatch(
+      Iterator<GraphQLRequest> requests,
+      GraphQLSchema schema,
+      Supplier<GraphQLKickstartContext> contextSupplier,
+      Object root) {
+    switch (this) {
+      case PER_QUERY_WITH_INSTRUMENTATION:
+        // Intentional fallthrough
+      case PER_QUERY_WITHOUT_INSTRUMENTATION:
+        // Intentional fallthrough
+      case PER_REQUEST_WITHOUT_INSTRUMENTATION:
+        return new StreamingBatchedInvocationInput(requests, schema, contextSupplier, root, this);
+      case PER_REQUEST_WITH_INSTRUMENTATION:
+        // Intentional fallthrough
+      case PER_QUERY_WITH_REQUEST_INSTRUMENTATION:
+        List<GraphQLRequest> list = new ArrayList<>();
+        requests.forEachRemaining(list::add);
+        return getBatch(list, schema, contextSupplier, root);
+      default:
+        throw new ContextSettingNotConfiguredException();
+    }
+  }
+
   /**
    * Augments the provided instrumentation supplier to also supply the correct dispatching
    * instrumentation.
@@ -76,6 +127,45 @@ public enum ContextSetting {
       Supplier<Instrumentation> instrumentation,
       List<ExecutionInput> executionInputs,
       DataLoaderDispatcherInstrumentationOptions options) {
+    return configureInstrumentationForContext(instrumentation, executionInputs, options, null);
+  }
+
+  /**
+   * Augments the provided instrumentation supplier to also supply the correct dispatching
+   * instrumentation, which also dispatches when the dispatch window closes.
+   *
+   * @param instrumentation the instrumentation supplier to augment
+   * @param executionInputs the inputs that will be dispatched by the instrumentation
+   * @param options the DataLoader dispatching instrumentation options that will be used.
+   * @param dispatchWindow the dispatch window, or {@literal null} to only dispatch complete levels
+   * @return augmented instrumentation supplier.
+   */
+  public Supplier<Instrumentation> configureInstrumentationForContext(
+      Supplier<Instrumentation> instrumentation,
+      List<ExecutionInput> executionInputs,
+      DataLoaderDispatcherInstrumentationOptions options,
+      DispatchWindow dispatchWindow) {
+    return configureInstrumentationForContext(
+        instrumentation, executionInputs, options, dispatchWindow, null);
+  }
+
+  /**
+   * Augments the provided instrumentation supplier to also supply the correct dispatching
+   * instrumentation, which also records the batches and loads of the executions to the metrics.
+   *
+   * @param instrumentation the instrumentation supplier to augment
+   * @param executionInputs the inputs that will be dispatched by the instrumentation
+   * @param options the DataLoader dispatching instrumentation options that will be used.
+   * @param dispatchWindow the dispatch window, or {@literal null} to only dispatch complete levels
+   * @param metrics the DataLoader metrics to record to, or {@literal null} to not record any
+   * @return augmented instrumentation supplier.
+   */
+  public Supplier<Instrumentation> configureInstrumentationForContext(
+      Supplier<Instrumentation> instrumentation,
+      List<ExecutionInput> executionInputs,
+      DataLoaderDispatcherInstrumentationOptions options,
+      DispatchWindow dispatchWindow,
+      DataLoaderMetrics metrics) {
     ConfigurableDispatchInstrumentation dispatchInstrumentation;
     switch (this) {
       case PER_REQUEST_WITH_INSTRUMENTATION:
@@ -89,14 +179,35 @@ public enum ContextSetting {
                 .map(ExecutionInput::getExecutionId)
                 .collect(Collectors.toList());
         RequestLevelTrackingApproach requestTrackingApproach =
-            new RequestLevelTrackingApproach(executionIds, registry);
+            new RequestLevelTrackingApproach(
+                executionIds,
+                MeteredDataLoaderRegistry.meter(registry, operationName(executionInputs), metrics));
         dispatchInstrumentation =
             new ConfigurableDispatchInstrumentation(
-                options, (dataLoaderRegistry -> requestTrackingApproach));
+                options, (dataLoaderRegistry -> requestTrackingApproach), dispatchWindow, metrics);
+        break;
+      case PER_QUERY_WITH_REQUEST_INSTRUMENTATION:
+        List<DataLoaderRegistry> registries =
+            executionInputs.stream()
+                .map(
+                    input ->
+                        MeteredDataLoaderRegistry.meter(
+                            input.getDataLoaderRegistry(), input.getOperationName(), metrics))
+                .collect(Collectors.toList());
+        RequestLevelTrackingApproach queriesTrackingApproach =
+            new RequestLevelTrackingApproach(
+                executionInputs.stream()
+                    .map(ExecutionInput::getExecutionId)
+                    .collect(Collectors.toList()),
+                new RequestDataLoaderRegistry(registries));
+        dispatchInstrumentation =
+            new ConfigurableDispatchInstrumentation(
+                options, (dataLoaderRegistry -> queriesTrackingApproach), dispatchWindow, metrics);
         break;
       case PER_QUERY_WITH_INSTRUMENTATION:
         dispatchInstrumentation =
-            new ConfigurableDispatchInstrumentation(options, FieldLevelTrackingApproach::new);
+            new ConfigurableDispatchInstrumentation(
+                options, FieldLevelTrackingApproach::new, dispatchWindow, metrics);
         break;
       case PER_REQUEST_WITHOUT_INSTRUMENTATION:
         // Intentional fallthrough
@@ -108,4 +219,20 @@ public enum ContextSetting {
     return () ->
         new ChainedInstrumentation(Arrays.asList(dispatchInstrumentation, instrumentation.get()));
   }
+
+  // the batches of a registry shared by different operations are recorded for all of them
+  // together, under a fixed name so the clients can not create new names with their batches
+  private static String operationName(List<ExecutionInput> executionInputs) {
+    List<String> names =
+        executionInputs.stream()
+            .map(ExecutionInput::getOperationName)
+            .filter(Objects::nonNull)
+            .distinct()
+            .limit(2)
+            .collect(Collectors.toList());
+    if (names.size() <= 1) {
+      return names.isEmpty() ? null : names.get(0);
+    }
+    return DataLoaderMetrics.SHARED_OPERATIONS;
+  }
 }
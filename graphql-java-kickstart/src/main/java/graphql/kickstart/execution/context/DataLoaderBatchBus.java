@@ -0,0 +1,408 @@
+package graphql.kickstart.execution.context;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import lombok.NonNull;
+import org.dataloader.BatchLoader;
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderFactory;
+import org.dataloader.DataLoaderRegistry;
+
+/**
+ * Batches the loads of concurrent requests together. Each request gets its own data loaders, with
+ * their own cache, but the keys they dispatch for a loader registered on the bus are collected
+ * from all requests during a short window and loaded with one call of the shared batch loader.
+ * The values are then handed back to each request.
+ *
+ * <p>Only loaders registered on the bus are shared. The shared batch loaders do not see the
+ * context of any request, so loaders whose results depend on the user, or that must not be shared
+ * for any other reason, should be registered in the registry of each request instead.
+ *
+ * <p>A batch is sent when its window closes or once it is full. The timer only closes the windows:
+ * the batches are sent and the loads of every request completed on an executor, the common pool by
+ * default, so a slow batch loader or request does not hold back the other batches.
+ *
+ * <p>With {@link ContextSetting#PER_QUERY_WITH_REQUEST_INSTRUMENTATION} the queries of a batched
+ * request dispatch their data loaders together, once per level, and the keys they dispatch for a
+ * loader of the bus are added to the window as one load.
+ */
+public class DataLoaderBatchBus {
+
+  /** The loads collected on this thread while the queries of a request dispatch together. */
+  private static final ThreadLocal<Map<Object, Collected<?, ?>>> COLLECTED = new ThreadLocal<>();
+
+  private final Map<String, Channel<?, ?>> channels;
+  private final long windowNanos;
+  private final int maxBatchSize;
+  private final ScheduledExecutorService timer;
+  private final Executor executor;
+
+  private DataLoaderBatchBus(Builder builder) {
+    this.windowNanos = builder.window.toNanos();
+    this.maxBatchSize = builder.maxBatchSize;
+    this.timer = builder.timer != null ? builder.timer : SharedTimer.INSTANCE;
+    this.executor = builder.executor != null ? builder.executor : ForkJoinPool.commonPool();
+    Map<String, Channel<?, ?>> map = new LinkedHashMap<>();
+    builder.batchLoaders.forEach((name, batchLoader) -> map.put(name, new Channel<>(batchLoader)));
+    this.channels = Collections.unmodifiableMap(map);
+  }
+
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  /** @return the names of the loaders registered on the bus */
+  public Set<String> getNames() {
+    return channels.keySet();
+  }
+
+  /** @return a new registry with a data loader of the request for every loader on the bus */
+  public DataLoaderRegistry newRegistry() {
+    return registerAll(new DataLoaderRegistry());
+  }
+
+  /**
+   * Registers a data loader of the request for every loader on the bus, next to the loaders of the
+   * request that are not shared.
+   *
+   * @param registry the registry of a request
+   * @return the registry
+   */
+  public DataLoaderRegistry registerAll(@NonNull DataLoaderRegistry registry) {
+    channels.keySet().forEach(name -> registry.register(name, newDataLoader(name)));
+    return registry;
+  }
+
+  /**
+   * @param name the name of a loader registered on the bus
+   * @return a new data loader for one request, that loads its keys through the bus
+   */
+  @SuppressWarnings("unchecked")
+  public <K, V> DataLoader<K, V> newDataLoader(String name) {
+    Channel<K, V> channel = (Channel<K, V>) channels.get(name);
+    if (channel == null) {
+      throw new IllegalArgumentException(
+          String.format("No loader named %s registered on the batch bus", name));
+    }
+    return DataLoaderFactory.newDataLoader((BatchLoader<K, V>) channel::load);
+  }
+
+  /**
+   * Runs the dispatch of the data loaders of several queries. The keys the loaders of any bus
+   * dispatch meanwhile are added to the window once it returns, as one load per loader.
+   *
+   * @param dispatch dispatches the data loaders, on the calling thread
+   */
+  static void dispatchTogether(Runnable dispatch) {
+    if (COLLECTED.get() != null) {
+      dispatch.run();
+      return;
+    }
+    Map<Object, Collected<?, ?>> collected = new LinkedHashMap<>();
+    COLLECTED.set(collected);
+    try {
+      dispatch.run();
+    } finally {
+      COLLECTED.remove();
+    }
+    collected.values().forEach(Collected::load);
+  }
+
+  /** Completes the loads of each request on its own, so one request does not hold the others. */
+  private void completeAsync(Runnable completion) {
+    try {
+      executor.execute(completion);
+    } catch (RejectedExecutionException e) {
+      completion.run();
+    }
+  }
+
+  private final class Channel<K, V> {
+
+    private final BatchLoader<K, V> batchLoader;
+    private Batch<K, V> pending;
+
+    private Channel(BatchLoader<K, V> batchLoader) {
+      this.batchLoader = batchLoader;
+    }
+
+    @SuppressWarnings("unchecked")
+    private CompletionStage<List<V>> load(List<K> keys) {
+      Map<Object, Collected<?, ?>> collected = COLLECTED.get();
+      if (collected != null) {
+        return ((Collected<K, V>) collected.computeIfAbsent(this, c -> new Collected<>(this)))
+            .add(keys);
+      }
+      return enqueue(keys);
+    }
+
+    private CompletionStage<List<V>> enqueue(List<K> keys) {
+      List<Batch<K, V>> full = new ArrayList<>();
+      List<CompletableFuture<List<V>>> parts = new ArrayList<>();
+      synchronized (this) {
+        // the keys that do not fit in the pending batch go to the next one
+        int from = 0;
+        do {
+          if (pending == null) {
+            Batch<K, V> batch = new Batch<>(batchLoader);
+            pending = batch;
+            timer.schedule(() -> close(batch), windowNanos, TimeUnit.NANOSECONDS);
+          }
+          int to = pending.addKeys(keys, from, maxBatchSize);
+          parts.add(pending.addRequest(keys.subList(from, to)));
+          from = to;
+          if (pending.size() >= maxBatchSize) {
+            full.add(pending);
+            pending = null;
+          }
+        } while (from < keys.size());
+      }
+      full.forEach(this::send);
+      return parts.size() == 1 ? parts.get(0) : join(parts);
+    }
+
+    private void close(Batch<K, V> batch) {
+      synchronized (this) {
+        if (pending != batch) {
+          // already sent because it was full
+          return;
+        }
+        pending = null;
+      }
+      send(batch);
+    }
+
+    private void send(Batch<K, V> batch) {
+      try {
+        executor.execute(batch::send);
+      } catch (RejectedExecutionException e) {
+        batch.complete(null, e);
+      }
+    }
+
+    private CompletableFuture<List<V>> join(List<CompletableFuture<List<V>>> parts) {
+      return CompletableFuture.allOf(parts.toArray(new CompletableFuture<?>[0]))
+          .thenApply(
+              done ->
+                  parts.stream()
+                      .flatMap(part -> part.join().stream())
+                      .collect(Collectors.toList()));
+    }
+  }
+
+  private final class Batch<K, V> {
+
+    private final BatchLoader<K, V> batchLoader;
+    private final Map<K, Integer> indexes = new HashMap<>();
+    private final List<K> keys = new ArrayList<>();
+    private final List<List<K>> requestKeys = new ArrayList<>();
+    private final List<CompletableFuture<List<V>>> requestValues = new ArrayList<>();
+
+    private Batch(BatchLoader<K, V> batchLoader) {
+      this.batchLoader = batchLoader;
+    }
+
+    /**
+     * Adds the keys from the given index on, until the batch holds the given number of distinct
+     * keys.
+     *
+     * @return the index of the first key that was not added
+     */
+    private int addKeys(List<K> requested, int from, int maxSize) {
+      int index = from;
+      for (; index < requested.size(); index++) {
+        K key = requested.get(index);
+        if (!indexes.containsKey(key)) {
+          if (keys.size() >= maxSize) {
+            break;
+          }
+          indexes.put(key, keys.size());
+          keys.add(key);
+        }
+      }
+      return index;
+    }
+
+    private CompletableFuture<List<V>> addRequest(List<K> requested) {
+      CompletableFuture<List<V>> values = new CompletableFuture<>();
+      requestKeys.add(requested);
+      requestValues.add(values);
+      return values;
+    }
+
+    private int size() {
+      return keys.size();
+    }
+
+    private void send() {
+      CompletionStage<List<V>> loaded;
+      try {
+        loaded = batchLoader.load(Collections.unmodifiableList(keys));
+      } catch (RuntimeException e) {
+        loaded = CompletableFuture.failedFuture(e);
+      }
+      loaded.whenComplete(this::complete);
+    }
+
+    private void complete(List<V> values, Throwable error) {
+      if (error == null && values.size() != keys.size()) {
+        error =
+            new IllegalStateException(
+                String.format(
+                    "Batch loader returned %d values for %d keys", values.size(), keys.size()));
+      }
+      for (int i = 0; i < requestValues.size(); i++) {
+        CompletableFuture<List<V>> request = requestValues.get(i);
+        if (error != null) {
+          Throwable failure = error;
+          completeAsync(() -> request.completeExceptionally(failure));
+          continue;
+        }
+        List<V> requested = new ArrayList<>(requestKeys.get(i).size());
+        for (K key : requestKeys.get(i)) {
+          requested.add(values.get(indexes.get(key)));
+        }
+        completeAsync(() -> request.complete(requested));
+      }
+    }
+  }
+
+  /** The keys several queries dispatched for a loader while dispatching together. */
+  private final class Collected<K, V> {
+
+    private final Channel<K, V> channel;
+    private final List<K> keys = new ArrayList<>();
+    private final List<Integer> ends = new ArrayList<>();
+    private final List<CompletableFuture<List<V>>> loads = new ArrayList<>();
+
+    private Collected(Channel<K, V> channel) {
+      this.channel = channel;
+    }
+
+    private CompletableFuture<List<V>> add(List<K> requested) {
+      keys.addAll(requested);
+      ends.add(keys.size());
+      CompletableFuture<List<V>> values = new CompletableFuture<>();
+      loads.add(values);
+      return values;
+    }
+
+    private void load() {
+      channel
+          .enqueue(keys)
+          .whenComplete(
+              (values, error) -> {
+                int from = 0;
+                for (int i = 0; i < loads.size(); i++) {
+                  CompletableFuture<List<V>> load = loads.get(i);
+                  if (error != null) {
+                    load.completeExceptionally(error);
+                    continue;
+                  }
+                  int to = ends.get(i);
+                  List<V> requested = new ArrayList<>(values.subList(from, to));
+                  from = to;
+                  completeAsync(() -> load.complete(requested));
+                }
+              });
+    }
+  }
+
+  public static class Builder {
+
+    private final Map<String, BatchLoader<?, ?>> batchLoaders = new LinkedHashMap<>();
+    private Duration window = Duration.ofMillis(1);
+    private int maxBatchSize = Integer.MAX_VALUE;
+    private ScheduledExecutorService timer;
+    private Executor executor;
+
+    /**
+     * Registers a loader whose keys are batched across requests.
+     *
+     * @param name the name of the data loader in the registry of each request
+     * @param batchLoader the batch loader shared by all requests
+     * @return this builder
+     */
+    public Builder withBatchLoader(@NonNull String name, @NonNull BatchLoader<?, ?> batchLoader) {
+      batchLoaders.put(name, batchLoader);
+      return this;
+    }
+
+    /**
+     * @param window the time to collect keys for a batch after its first key, 1 millisecond by
+     *     default
+     * @return this builder
+     */
+    public Builder withWindow(@NonNull Duration window) {
+      if (window.isNegative() || window.isZero()) {
+        throw new IllegalArgumentException("window must be positive");
+      }
+      this.window = window;
+      return this;
+    }
+
+    /**
+     * @param maxBatchSize send a batch as soon as it holds this many distinct keys, unbounded by
+     *     default. The keys of a request that do not fit are sent with the next batch.
+     * @return this builder
+     */
+    public Builder withMaxBatchSize(int maxBatchSize) {
+      if (maxBatchSize < 1) {
+        throw new IllegalArgumentException("maxBatchSize must be positive");
+      }
+      this.maxBatchSize = maxBatchSize;
+      return this;
+    }
+
+    /**
+     * @param timer the executor to close the windows on, instead of the shared timer thread
+     * @return this builder
+     */
+    public Builder withTimer(@NonNull ScheduledExecutorService timer) {
+      this.timer = timer;
+      return this;
+    }
+
+    /**
+     * @param executor the executor to send the batches and complete the loads on, instead of the
+     *     common pool
+     * @return this builder
+     */
+    public Builder withExecutor(@NonNull Executor executor) {
+      this.executor = executor;
+      return this;
+    }
+
+    public DataLoaderBatchBus build() {
+      return new DataLoaderBatchBus(this);
+    }
+  }
+
+  /** Holds the timer thread, so it is only started when a bus without a timer is built. */
+  private static final class SharedTimer {
+
+    private static final ScheduledExecutorService INSTANCE =
+        new ScheduledThreadPoolExecutor(
+            1,
+            runnable -> {
+              Thread thread = new Thread(runnable, "GraphQLDataLoaderBatchBus");
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+}
@@ -3,8 +3,29 @@ package graphql.kickstart.execution.context;
 /** Returns an empty context. */
 public class DefaultGraphQLContextBuilder implements GraphQLContextBuilder {
 
+  private final DataLoaderBatchBus batchBus;
+
+  public DefaultGraphQLContextBuilder() {
+    this(null);
+  }
+
+  /**
+   * @param batchBus the bus whose loaders are registered in the registry of every context, or
+   *     {@literal null} for an empty registry
+   */
+  public DefaultGraphQLContextBuilder(DataLoaderBatchBus batchBus) {
+    this.batchBus = batchBus;
+  }
+
   @Override
   public GraphQLKickstartContext build() {
-    return new DefaultGraphQLContext();
+    return batchBus != null
+        ? new DefaultGraphQLContext(batchBus.newRegistry())
+        : new DefaultGraphQLContext();
+  }
+
+  /** @return the bus whose loaders are registered in every context, may be {@literal null} */
+  protected DataLoaderBatchBus getBatchBus() {
+    return batchBus;
   }
 }
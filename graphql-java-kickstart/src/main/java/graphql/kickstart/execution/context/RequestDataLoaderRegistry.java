@@ -0,0 +1,64 @@
+package graphql.kickstart.execution.context;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderRegistry;
+import org.dataloader.stats.Statistics;
+
+/**
+ * Dispatches the registries of all queries of a request together, so the loaders of a {@link
+ * DataLoaderBatchBus} send the keys of all queries as one load. The registries are only dispatched,
+ * data loaders are registered and looked up in the registry of each query.
+ */
+class RequestDataLoaderRegistry extends DataLoaderRegistry {
+
+  private final List<DataLoaderRegistry> registries;
+
+  RequestDataLoaderRegistry(List<DataLoaderRegistry> registries) {
+    this.registries = registries;
+  }
+
+  @Override
+  public void dispatchAll() {
+    dispatchAllWithCount();
+  }
+
+  @Override
+  public int dispatchAllWithCount() {
+    int[] count = new int[1];
+    DataLoaderBatchBus.dispatchTogether(
+        () -> registries.forEach(registry -> count[0] += registry.dispatchAllWithCount()));
+    return count[0];
+  }
+
+  @Override
+  public int dispatchDepth() {
+    return registries.stream().mapToInt(DataLoaderRegistry::dispatchDepth).sum();
+  }
+
+  @Override
+  public Set<String> getKeys() {
+    Set<String> keys = new LinkedHashSet<>();
+    registries.forEach(registry -> keys.addAll(registry.getKeys()));
+    return keys;
+  }
+
+  @Override
+  public List<DataLoader<?, ?>> getDataLoaders() {
+    List<DataLoader<?, ?>> dataLoaders = new ArrayList<>();
+    registries.forEach(registry -> dataLoaders.addAll(registry.getDataLoaders()));
+    return dataLoaders;
+  }
+
+  @Override
+  public Statistics getStatistics() {
+    Statistics statistics = new Statistics();
+    for (DataLoaderRegistry registry : registries) {
+      statistics = statistics.combine(registry.getStatistics());
+    }
+    return statistics;
+  }
+}
@@ -1,5 +1,7 @@
 package graphql.kickstart.execution.input;
 
+import static graphql.execution.preparsed.persisted.PersistedQuerySupport.PERSISTED_QUERY_MARKER;
+import static graphql.kickstart.execution.preparsed.PersistedQueryDocumentProvider.getPersistedQueryHash;
 import static java.util.Collections.singletonList;
 
 import graphql.ExecutionInput;
@@ -30,7 +32,7 @@ public class GraphQLSingleInvocationInput implements GraphQLInvocationInput {
   private ExecutionInput createExecutionInput(
       GraphQLRequest graphQLRequest, GraphQLKickstartContext context, Object root) {
     return ExecutionInput.newExecutionInput()
-        .query(graphQLRequest.getQuery())
+        .query(getQuery(graphQLRequest))
         .operationName(graphQLRequest.getOperationName())
         .context(context)
         .graphQLContext(context.getMapOfContext())
@@ -42,6 +44,19 @@ public class GraphQLSingleInvocationInput implements GraphQLInvocationInput {
         .build();
   }
 
+  /**
+   * Requests of automatic persisted queries may only carry the query hash, the query itself is
+   * then resolved by the {@link graphql.execution.preparsed.PreparsedDocumentProvider}.
+   */
+  private String getQuery(GraphQLRequest graphQLRequest) {
+    String query = graphQLRequest.getQuery();
+    if ((query == null || query.isEmpty())
+        && getPersistedQueryHash(graphQLRequest.getExtensions()) != null) {
+      return PERSISTED_QUERY_MARKER;
+    }
+    return query;
+  }
+
   public ExecutionInput getExecutionInput() {
     return executionInput;
   }
@@ -0,0 +1,115 @@
+package graphql.kickstart.execution.input;
+
+import static java.util.stream.Collectors.toList;
+
+import graphql.GraphQLException;
+import graphql.kickstart.execution.GraphQLRequest;
+import graphql.kickstart.execution.context.ContextSetting;
+import graphql.kickstart.execution.context.GraphQLKickstartContext;
+import graphql.schema.GraphQLSchema;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Supplier;
+import lombok.Getter;
+
+/**
+ * A batched input whose requests are read one by one while the batch is being executed, so the
+ * execution of the first queries overlaps with parsing the remaining ones. Iterating this input
+ * yields the invocation inputs in request order; {@link #getInvocationInputs()} and {@link
+ * #getQueries()} read the remaining requests first.
+ *
+ * <p>Each query gets its own context, unless the context setting is a {@code PER_REQUEST_*} one in
+ * which case all queries share a single context.
+ */
+public class StreamingBatchedInvocationInput
+    implements GraphQLBatchedInvocationInput, Iterable<GraphQLSingleInvocationInput> {
+
+  private final Iterator<GraphQLRequest> requests;
+  @Getter private final GraphQLSchema schema;
+  private final Supplier<GraphQLKickstartContext> contextSupplier;
+  private final Object root;
+  @Getter private final ContextSetting contextSetting;
+  private final List<GraphQLSingleInvocationInput> invocationInputs = new ArrayList<>();
+
+  public StreamingBatchedInvocationInput(
+      Iterator<GraphQLRequest> requests,
+      GraphQLSchema schema,
+      Supplier<GraphQLKickstartContext> contextSupplier,
+      Object root,
+      ContextSetting contextSetting) {
+    this.requests = requests;
+    this.schema = schema;
+    this.root = root;
+    this.contextSetting = contextSetting;
+    if (contextSetting == ContextSetting.PER_REQUEST_WITH_INSTRUMENTATION
+        || contextSetting == ContextSetting.PER_REQUEST_WITHOUT_INSTRUMENTATION) {
+      GraphQLKickstartContext context = contextSupplier.get();
+      this.contextSupplier = () -> context;
+    } else {
+      this.contextSupplier = contextSupplier;
+    }
+  }
+
+  @Override
+  public synchronized List<GraphQLSingleInvocationInput> getInvocationInputs() {
+    while (read()) {
+      // read all remaining requests
+    }
+    return new ArrayList<>(invocationInputs);
+  }
+
+  @Override
+  public List<String> getQueries() {
+    return getInvocationInputs().stream()
+        .map(GraphQLSingleInvocationInput::getQueries)
+        .flatMap(List::stream)
+        .collect(toList());
+  }
+
+  @Override
+  public Iterator<GraphQLSingleInvocationInput> iterator() {
+    return new Iterator<GraphQLSingleInvocationInput>() {
+
+      private int index;
+
+      @Override
+      public boolean hasNext() {
+        return get(index) != null;
+      }
+
+      @Override
+      public GraphQLSingleInvocationInput next() {
+        GraphQLSingleInvocationInput invocationInput = get(index);
+        if (invocationInput == null) {
+          throw new NoSuchElementException();
+        }
+        index++;
+        return invocationInput;
+      }
+    };
+  }
+
+  private synchronized GraphQLSingleInvocationInput get(int index) {
+    if (index >= invocationInputs.size() && !read()) {
+      return null;
+    }
+    return invocationInputs.get(index);
+  }
+
+  private boolean read() {
+    GraphQLRequest request;
+    try {
+      if (!requests.hasNext()) {
+        return false;
+      }
+      request = requests.next();
+    } catch (RuntimeException e) {
+      throw new GraphQLException("Cannot read batched request", e);
+    }
+    invocationInputs.add(
+        new GraphQLSingleInvocationInput(request, schema, contextSupplier.get(), root));
+    return true;
+  }
+}
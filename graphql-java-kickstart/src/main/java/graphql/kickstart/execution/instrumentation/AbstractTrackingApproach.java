@@ -10,6 +10,7 @@ import graphql.execution.instrumentation.parameters.InstrumentationExecutionStra
 import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 import lombok.extern.slf4j.Slf4j;
 import org.dataloader.DataLoaderRegistry;
 
@@ -21,10 +22,21 @@ public abstract class AbstractTrackingApproach implements TrackingApproach {
 
   private final RequestStack stack = new RequestStack();
 
+  // a dispatch runs outside of the stack lock, these make sure only one thread dispatches at a
+  // time and that a dispatch requested while one is running, possibly from a batch loader that
+  // completed synchronously on the dispatching thread, is run once the current one is done
+  private final AtomicBoolean dispatching = new AtomicBoolean();
+  private final AtomicBoolean dispatchRequested = new AtomicBoolean();
+
   protected AbstractTrackingApproach(DataLoaderRegistry dataLoaderRegistry) {
     this.dataLoaderRegistry = dataLoaderRegistry;
   }
 
+  /** @return the registry this approach dispatches */
+  DataLoaderRegistry getDataLoaderRegistry() {
+    return dataLoaderRegistry;
+  }
+
   /** @return allows extending classes to modify the stack. */
   protected RequestStack getStack() {
     return stack;
@@ -38,10 +50,9 @@ public abstract class AbstractTrackingApproach implements TrackingApproach {
     int parentLevel = path.getLevel();
     int curLevel = parentLevel + 1;
     int fieldCount = parameters.getExecutionStrategyParameters().getFields().size();
-    synchronized (stack) {
-      stack.increaseExpectedFetchCount(executionId, curLevel, fieldCount);
-      stack.increaseHappenedStrategyCalls(executionId, curLevel);
-    }
+    // the expected fetches must be known before the strategy call is seen as happened
+    stack.increaseExpectedFetchCount(executionId, curLevel, fieldCount);
+    stack.increaseHappenedStrategyCalls(executionId, curLevel);
 
     return new ExecutionStrategyInstrumentationContext() {
       @Override
@@ -56,27 +67,28 @@ public abstract class AbstractTrackingApproach implements TrackingApproach {
 
       @Override
       public void onFieldValuesInfo(List<FieldValueInfo> fieldValueInfoList) {
+        handleOnFieldValuesInfo(fieldValueInfoList, stack, executionId, curLevel);
+        boolean dispatch;
         synchronized (stack) {
-          stack.setStatus(
-              executionId,
-              handleOnFieldValuesInfo(fieldValueInfoList, stack, executionId, curLevel));
-          if (stack.allReady()) {
-            dispatchWithoutLocking();
-          }
+          stack.setStatus(executionId, dispatchIfNeeded(stack, executionId, curLevel + 1));
+          dispatch = resetIfAllReady();
+        }
+        if (dispatch) {
+          dispatchOutsideLock();
         }
       }
     };
   }
 
   //
-  // thread safety : called with synchronised(stack)
+  // thread safety : lock free, the expected strategy calls of the next level must be known before
+  // the field value call is seen as happened
   //
-  private boolean handleOnFieldValuesInfo(
+  private void handleOnFieldValuesInfo(
       List<FieldValueInfo> fieldValueInfoList,
       RequestStack stack,
       ExecutionId executionId,
       int curLevel) {
-    stack.increaseHappenedOnFieldValueCalls(executionId, curLevel);
     int expectedStrategyCalls = 0;
     for (FieldValueInfo fieldValueInfo : fieldValueInfoList) {
       if (fieldValueInfo.getCompleteValueType() == FieldValueInfo.CompleteValueType.OBJECT) {
@@ -86,7 +98,7 @@ public abstract class AbstractTrackingApproach implements TrackingApproach {
       }
     }
     stack.increaseExpectedStrategyCalls(executionId, curLevel + 1, expectedStrategyCalls);
-    return dispatchIfNeeded(stack, executionId, curLevel + 1);
+    stack.increaseHappenedOnFieldValueCalls(executionId, curLevel);
   }
 
   private int getCountForList(FieldValueInfo fieldValueInfo) {
@@ -107,17 +119,19 @@ public abstract class AbstractTrackingApproach implements TrackingApproach {
     ExecutionId executionId = parameters.getExecutionContext().getExecutionId();
     ResultPath path = parameters.getEnvironment().getExecutionStepInfo().getPath();
     int level = path.getLevel();
+    MeteredDataLoaderRegistry.fetched(dataLoaderRegistry);
     return new InstrumentationContext<Object>() {
 
       @Override
       public void onDispatched(CompletableFuture result) {
+        stack.increaseFetchCount(executionId, level);
+        boolean dispatch;
         synchronized (stack) {
-          stack.increaseFetchCount(executionId, level);
           stack.setStatus(executionId, dispatchIfNeeded(stack, executionId, level));
-
-          if (stack.allReady()) {
-            dispatchWithoutLocking();
-          }
+          dispatch = resetIfAllReady();
+        }
+        if (dispatch) {
+          dispatchOutsideLock();
         }
       }
 
@@ -130,11 +144,13 @@ public abstract class AbstractTrackingApproach implements TrackingApproach {
 
   @Override
   public void removeTracking(ExecutionId executionId) {
+    boolean dispatch;
     synchronized (stack) {
       stack.removeExecution(executionId);
-      if (stack.allReady()) {
-        dispatchWithoutLocking();
-      }
+      dispatch = resetIfAllReady();
+    }
+    if (dispatch) {
+      dispatchOutsideLock();
     }
   }
 
@@ -165,13 +181,37 @@ public abstract class AbstractTrackingApproach implements TrackingApproach {
   @Override
   public void dispatch() {
     synchronized (stack) {
-      dispatchWithoutLocking();
+      stack.allReset();
     }
+    dispatchOutsideLock();
   }
 
-  private void dispatchWithoutLocking() {
-    log.debug("Dispatching data loaders ({})", dataLoaderRegistry.getKeys());
-    dataLoaderRegistry.dispatchAll();
-    stack.allReset();
+  //
+  // thread safety : called with synchronised(stack). The status is reset before the data loaders
+  // are dispatched, so executions that become ready during the dispatch count for the next one
+  //
+  private boolean resetIfAllReady() {
+    if (stack.allReady()) {
+      stack.allReset();
+      return true;
+    }
+    return false;
+  }
+
+  //
+  // thread safety : must not be called with synchronised(stack), batch loaders may complete on
+  // this thread and call back into this approach
+  //
+  private void dispatchOutsideLock() {
+    dispatchRequested.set(true);
+    while (dispatchRequested.get() && dispatching.compareAndSet(false, true)) {
+      try {
+        dispatchRequested.set(false);
+        log.debug("Dispatching data loaders ({})", dataLoaderRegistry.getKeys());
+        dataLoaderRegistry.dispatchAll();
+      } finally {
+        dispatching.set(false);
+      }
+    }
   }
 }
@@ -1,5 +1,6 @@
 package graphql.kickstart.execution.instrumentation;
 
+import graphql.ExecutionInput;
 import graphql.ExecutionResult;
 import graphql.ExecutionResultImpl;
 import graphql.execution.AsyncExecutionStrategy;
@@ -21,6 +22,7 @@ import graphql.schema.DataFetcher;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 import lombok.extern.slf4j.Slf4j;
@@ -35,6 +37,10 @@ public class ConfigurableDispatchInstrumentation extends DataLoaderDispatcherIns
 
   private final Function<DataLoaderRegistry, TrackingApproach> approachFunction;
 
+  private final DispatchWindow dispatchWindow;
+
+  private final DataLoaderMetrics metrics;
+
   /** Creates a DataLoaderDispatcherInstrumentation with the default options */
   public ConfigurableDispatchInstrumentation(
       Function<DataLoaderRegistry, TrackingApproach> approachFunction) {
@@ -49,17 +55,57 @@ public class ConfigurableDispatchInstrumentation extends DataLoaderDispatcherIns
   public ConfigurableDispatchInstrumentation(
       DataLoaderDispatcherInstrumentationOptions options,
       Function<DataLoaderRegistry, TrackingApproach> approachFunction) {
+    this(options, approachFunction, null);
+  }
+
+  /**
+   * Creates a DataLoaderDispatcherInstrumentation with the specified options that also dispatches
+   * when the dispatch window closes, before the tracking approach considers a level complete.
+   *
+   * @param options the options to control the behaviour
+   * @param dispatchWindow the dispatch window, or {@literal null} to only dispatch complete levels
+   */
+  public ConfigurableDispatchInstrumentation(
+      DataLoaderDispatcherInstrumentationOptions options,
+      Function<DataLoaderRegistry, TrackingApproach> approachFunction,
+      DispatchWindow dispatchWindow) {
+    this(options, approachFunction, dispatchWindow, null);
+  }
+
+  /**
+   * Creates a DataLoaderDispatcherInstrumentation with the specified options that also records
+   * the batches and loads of every execution to the given metrics.
+   *
+   * @param options the options to control the behaviour
+   * @param dispatchWindow the dispatch window, or {@literal null} to only dispatch complete levels
+   * @param metrics the metrics to record to, or {@literal null} to not record any
+   */
+  public ConfigurableDispatchInstrumentation(
+      DataLoaderDispatcherInstrumentationOptions options,
+      Function<DataLoaderRegistry, TrackingApproach> approachFunction,
+      DispatchWindow dispatchWindow,
+      DataLoaderMetrics metrics) {
     this.options = options;
     this.approachFunction = approachFunction;
+    this.dispatchWindow = dispatchWindow;
+    this.metrics = metrics;
   }
 
   @Override
   public InstrumentationState createState(InstrumentationCreateStateParameters parameters) {
-    DataLoaderRegistry registry = parameters.getExecutionInput().getDataLoaderRegistry();
-    return new DataLoaderDispatcherInstrumentationState(
-        registry,
-        approachFunction.apply(registry),
-        parameters.getExecutionInput().getExecutionId());
+    ExecutionInput executionInput = parameters.getExecutionInput();
+    DataLoaderRegistry registry = executionInput.getDataLoaderRegistry();
+    DataLoaderDispatcherInstrumentationState state =
+        new DataLoaderDispatcherInstrumentationState(
+            registry,
+            approachFunction.apply(
+                MeteredDataLoaderRegistry.meter(
+                    registry, executionInput.getOperationName(), metrics)),
+            executionInput.getExecutionId());
+    if (metrics != null) {
+      state.startMetrics(executionInput.getOperationName());
+    }
+    return state;
   }
 
   @Override
@@ -70,7 +116,15 @@ public class ConfigurableDispatchInstrumentation extends DataLoaderDispatcherIns
     DataLoaderDispatcherInstrumentationState state =
         InstrumentationState.ofState(instrumentationState);
     if (state.isAggressivelyBatching()) {
-      return dataFetcher;
+      if (dispatchWindow == null) {
+        return dataFetcher;
+      }
+      return (DataFetcher<Object>)
+          environment -> {
+            Object obj = dataFetcher.get(environment);
+            dispatchWindow.afterFetch(state);
+            return obj;
+          };
     }
     //
     // currently only AsyncExecutionStrategy with DataLoader and hence this allows us to "dispatch"
@@ -161,6 +215,9 @@ public class ConfigurableDispatchInstrumentation extends DataLoaderDispatcherIns
     DataLoaderDispatcherInstrumentationState state =
         InstrumentationState.ofState(instrumentationState);
     state.getApproach().removeTracking(parameters.getExecutionInput().getExecutionId());
+    if (metrics != null) {
+      recordMetrics(state);
+    }
     if (!options.isIncludeStatistics()) {
       return CompletableFuture.completedFuture(executionResult);
     } else {
@@ -178,6 +235,42 @@ public class ConfigurableDispatchInstrumentation extends DataLoaderDispatcherIns
     }
   }
 
+  private void recordMetrics(DataLoaderDispatcherInstrumentationState state) {
+    if (state.hasNoDataLoaders()) {
+      return;
+    }
+    metrics.recordExecution(state.getOperationName());
+    DataLoaderRegistry dispatched =
+        state.getApproach() instanceof AbstractTrackingApproach
+            ? ((AbstractTrackingApproach) state.getApproach()).getDataLoaderRegistry()
+            : null;
+    if (dispatched instanceof MeteredDataLoaderRegistry) {
+      // the batches of a registry shared by different operations are recorded under another
+      // name, as one execution per request
+      MeteredDataLoaderRegistry metered = (MeteredDataLoaderRegistry) dispatched;
+      if (!Objects.equals(metered.getOperationName(), state.getOperationName())
+          && metered.claimExecution()) {
+        metrics.recordExecution(metered.getOperationName());
+      }
+    }
+    state
+        .getDataLoaderRegistry()
+        .getDataLoadersMap()
+        .forEach(
+            (name, dataLoader) -> {
+              Statistics start = state.getStatisticsAtStart(name);
+              Statistics end = dataLoader.getStatistics();
+              long loads = end.getLoadCount() - start.getLoadCount();
+              if (loads > 0) {
+                metrics.recordLoads(
+                    name,
+                    state.getOperationName(),
+                    loads,
+                    end.getCacheHitCount() - start.getCacheHitCount());
+              }
+            });
+  }
+
   private Map<Object, Object> buildStatisticsMap(DataLoaderDispatcherInstrumentationState state) {
     DataLoaderRegistry dataLoaderRegistry = state.getDataLoaderRegistry();
     Statistics allStats = dataLoaderRegistry.getStatistics();
@@ -2,15 +2,25 @@ package graphql.kickstart.execution.instrumentation;
 
 import graphql.execution.ExecutionId;
 import graphql.execution.instrumentation.InstrumentationState;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.dataloader.DataLoaderRegistry;
+import org.dataloader.stats.Statistics;
 
 /** A base class that keeps track of whether aggressive batching can be used */
 public class DataLoaderDispatcherInstrumentationState implements InstrumentationState {
 
+  private static final Statistics EMPTY_STATISTICS = new Statistics();
+
   private final TrackingApproach approach;
   private final DataLoaderRegistry dataLoaderRegistry;
   private final boolean hasNoDataLoaders;
   private boolean aggressivelyBatching = true;
+  private final AtomicBoolean dispatchWindowOpen = new AtomicBoolean();
+  private String operationName;
+  private Map<String, Statistics> statisticsAtStart = Collections.emptyMap();
 
   public DataLoaderDispatcherInstrumentationState(
       DataLoaderRegistry dataLoaderRegistry, TrackingApproach approach, ExecutionId executionId) {
@@ -29,6 +39,42 @@ public class DataLoaderDispatcherInstrumentationState implements Instrumentation
     this.aggressivelyBatching = aggressivelyBatching;
   }
 
+  /** @return if no dispatch window was open, only one window is open at a time */
+  boolean openDispatchWindow() {
+    return dispatchWindowOpen.compareAndSet(false, true);
+  }
+
+  void closeDispatchWindow() {
+    dispatchWindowOpen.set(false);
+  }
+
+  /**
+   * Remembers the statistics of the data loaders, so only the loads of this execution are
+   * recorded to the metrics.
+   *
+   * @param operationName the name of the operation, or {@literal null} if it is anonymous
+   */
+  void startMetrics(String operationName) {
+    this.operationName = operationName;
+    Map<String, Statistics> statistics = new HashMap<>();
+    dataLoaderRegistry
+        .getDataLoadersMap()
+        .forEach((name, dataLoader) -> statistics.put(name, dataLoader.getStatistics()));
+    this.statisticsAtStart = statistics;
+  }
+
+  String getOperationName() {
+    return operationName;
+  }
+
+  /**
+   * @param name the name of a data loader
+   * @return the statistics of the data loader when the execution started
+   */
+  Statistics getStatisticsAtStart(String name) {
+    return statisticsAtStart.getOrDefault(name, EMPTY_STATISTICS);
+  }
+
   TrackingApproach getApproach() {
     return approach;
   }
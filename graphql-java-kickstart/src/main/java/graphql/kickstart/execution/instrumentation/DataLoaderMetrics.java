@@ -0,0 +1,48 @@
+package graphql.kickstart.execution.instrumentation;
+
+/**
+ * Receives the DataLoader metrics recorded by {@link ConfigurableDispatchInstrumentation}, by
+ * loader name and operation name. Implementations are called from the executing threads and
+ * should only update counters. {@link StripedDataLoaderMetrics} aggregates them in memory and
+ * exports them through JMX, other implementations can forward them to a metrics registry.
+ */
+public interface DataLoaderMetrics {
+
+  /**
+   * The operation name the batches of a registry shared by different operations are recorded
+   * under, as one execution per request.
+   */
+  String SHARED_OPERATIONS = "(shared)";
+
+  /**
+   * Called for every batch a data loader dispatched.
+   *
+   * @param loaderName the name of the data loader in the registry
+   * @param operationName the operation the registry belongs to, or {@literal null} if it is
+   *     anonymous
+   * @param batchSize the number of keys in the batch
+   * @param dispatchDelayNanos the time from the first data fetch after the previous dispatch, which
+   *     queued the first key of the batch at the earliest, to the dispatch
+   */
+  void recordBatch(String loaderName, String operationName, int batchSize, long dispatchDelayNanos);
+
+  /**
+   * Called when an execution with data loaders completed. A registry shared by different
+   * operations is also recorded once per request as an execution of {@link #SHARED_OPERATIONS}.
+   *
+   * @param operationName the name of the operation, or {@literal null} if it is anonymous
+   */
+  void recordExecution(String operationName);
+
+  /**
+   * Called when an execution completed, for every data loader the execution loaded keys with.
+   * Only data loaders that collect statistics report their loads. Executions sharing a registry
+   * see the loads of each other.
+   *
+   * @param loaderName the name of the data loader in the registry
+   * @param operationName the name of the operation, or {@literal null} if it is anonymous
+   * @param loads the number of keys loaded during the execution
+   * @param cacheHits the number of loads served from the cache of the data loader
+   */
+  void recordLoads(String loaderName, String operationName, long loads, long cacheHits);
+}
@@ -0,0 +1,13 @@
+package graphql.kickstart.execution.instrumentation;
+
+import java.util.List;
+
+/** The JMX interface of {@link StripedDataLoaderMetrics}. */
+public interface DataLoaderMetricsMXBean {
+
+  /** @return the metrics of every loader and operation recorded so far */
+  List<DataLoaderMetricsSnapshot> getLoaderMetrics();
+
+  /** Discards the metrics recorded so far. */
+  void reset();
+}
@@ -0,0 +1,52 @@
+package graphql.kickstart.execution.instrumentation;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/** The metrics aggregated by {@link StripedDataLoaderMetrics} for a loader and an operation. */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+public class DataLoaderMetricsSnapshot {
+
+  private final String loaderName;
+  /** {@literal null} for anonymous operations */
+  private final String operationName;
+  /** the executions of the operation */
+  private final long executions;
+  /** only counted for data loaders that collect statistics */
+  private final long loads;
+  private final long cacheHits;
+  private final long batches;
+  private final long batchedKeys;
+  /**
+   * the number of batches by size, bucket {@code i} counts the batches of at most {@code 2^i} keys
+   * that do not fit the previous bucket, the last bucket counts all larger batches
+   */
+  private final long[] batchSizeHistogram;
+  private final long totalDispatchDelayNanos;
+  private final long maxDispatchDelayNanos;
+
+  /** @return the mean number of batches per execution of the operation, the N in N+1 */
+  public double getDispatchesPerExecution() {
+    return ratio(batches, executions);
+  }
+
+  /** @return the share of loads served from the cache of the data loader */
+  public double getCacheHitRatio() {
+    return ratio(cacheHits, loads);
+  }
+
+  public double getMeanBatchSize() {
+    return ratio(batchedKeys, batches);
+  }
+
+  /** @return the mean time from the first load of a batch to its dispatch */
+  public double getMeanDispatchDelayMillis() {
+    return ratio(totalDispatchDelayNanos, batches) / 1_000_000d;
+  }
+
+  private static double ratio(long count, long total) {
+    return total == 0 ? 0 : (double) count / total;
+  }
+}
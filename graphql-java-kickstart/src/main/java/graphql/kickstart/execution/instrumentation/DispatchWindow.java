@@ -0,0 +1,165 @@
+package graphql.kickstart.execution.instrumentation;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A dispatch policy that dispatches the data loaders of an execution before the tracking approach
+ * considers a level complete. The loaders are dispatched as soon as the given number of keys is
+ * pending in the registry, or when the given delay passed since a load was queued, whichever comes
+ * first. This gives up some batching for a lower latency, as a slow data fetcher on a level no
+ * longer holds back the loads of the other fields.
+ *
+ * <p>The delays of all executions are scheduled on one shared timer thread, unless another timer
+ * is given. The timer only closes the windows, the data loaders are dispatched on an executor,
+ * the common pool by default, so a slow batch loader does not hold back the other windows.
+ */
+@Slf4j
+public class DispatchWindow {
+
+  private final int maxPendingKeys;
+  private final long maxDelayNanos;
+  private final ScheduledExecutorService timer;
+  private final Executor executor;
+
+  private DispatchWindow(
+      int maxPendingKeys, long maxDelayNanos, ScheduledExecutorService timer, Executor executor) {
+    this.maxPendingKeys = maxPendingKeys;
+    this.maxDelayNanos = maxDelayNanos;
+    this.timer = timer;
+    this.executor = executor;
+  }
+
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  /** @return the number of pending keys that triggers a dispatch */
+  public int getMaxPendingKeys() {
+    return maxPendingKeys;
+  }
+
+  /** @return the time after which pending keys are dispatched */
+  public Duration getMaxDelay() {
+    return Duration.ofNanos(maxDelayNanos);
+  }
+
+  /**
+   * Called after a data fetcher of the execution ran, which may have queued loads.
+   *
+   * @param state the instrumentation state of the execution
+   */
+  void afterFetch(DataLoaderDispatcherInstrumentationState state) {
+    int pendingKeys = state.getDataLoaderRegistry().dispatchDepth();
+    if (pendingKeys == 0) {
+      return;
+    }
+    if (pendingKeys >= maxPendingKeys) {
+      state.getApproach().dispatch();
+    } else if (state.openDispatchWindow()) {
+      timer.schedule(() -> submitClose(state), maxDelayNanos, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private void submitClose(DataLoaderDispatcherInstrumentationState state) {
+    try {
+      executor.execute(() -> close(state));
+    } catch (RejectedExecutionException e) {
+      // the pending keys are still dispatched once the tracking approach completes the level
+      state.closeDispatchWindow();
+      log.warn("Dispatch at the end of a dispatch window was rejected", e);
+    }
+  }
+
+  private void close(DataLoaderDispatcherInstrumentationState state) {
+    state.closeDispatchWindow();
+    try {
+      state.getApproach().dispatch();
+    } catch (RuntimeException e) {
+      log.error("Error dispatching data loaders at the end of a dispatch window", e);
+    }
+  }
+
+  public static class Builder {
+
+    private int maxPendingKeys = Integer.MAX_VALUE;
+    private Duration maxDelay = Duration.ofMillis(1);
+    private ScheduledExecutorService timer;
+    private Executor executor;
+
+    /**
+     * @param maxPendingKeys dispatch as soon as this many keys are pending in the registry of an
+     *     execution, unbounded by default
+     * @return this builder
+     */
+    public Builder withMaxPendingKeys(int maxPendingKeys) {
+      if (maxPendingKeys < 1) {
+        throw new IllegalArgumentException("maxPendingKeys must be positive");
+      }
+      this.maxPendingKeys = maxPendingKeys;
+      return this;
+    }
+
+    /**
+     * @param maxDelay dispatch once this time passed since a key was queued, 1 millisecond by
+     *     default
+     * @return this builder
+     */
+    public Builder withMaxDelay(@NonNull Duration maxDelay) {
+      if (maxDelay.isNegative() || maxDelay.isZero()) {
+        throw new IllegalArgumentException("maxDelay must be positive");
+      }
+      this.maxDelay = maxDelay;
+      return this;
+    }
+
+    /**
+     * @param timer the executor to schedule the delays on, instead of the shared timer thread
+     * @return this builder
+     */
+    public Builder withTimer(@NonNull ScheduledExecutorService timer) {
+      this.timer = timer;
+      return this;
+    }
+
+    /**
+     * @param executor the executor to dispatch on when a window closes, instead of the common pool
+     * @return this builder
+     */
+    public Builder withExecutor(@NonNull Executor executor) {
+      this.executor = executor;
+      return this;
+    }
+
+    public DispatchWindow build() {
+      return new DispatchWindow(
+          maxPendingKeys,
+          maxDelay.toNanos(),
+          timer != null ? timer : SharedTimer.INSTANCE,
+          executor != null ? executor : ForkJoinPool.commonPool());
+    }
+  }
+
+  /** Holds the timer thread, so it is only started when a window without a timer is built. */
+  private static final class SharedTimer {
+
+    private static final ScheduledExecutorService INSTANCE = create();
+
+    private static ScheduledExecutorService create() {
+      return new ScheduledThreadPoolExecutor(
+          1,
+          runnable -> {
+            Thread thread = new Thread(runnable, "GraphQLDispatchWindow");
+            thread.setDaemon(true);
+            return thread;
+          });
+    }
+  }
+}
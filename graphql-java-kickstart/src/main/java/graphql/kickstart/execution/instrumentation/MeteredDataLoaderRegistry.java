@@ -0,0 +1,176 @@
+package graphql.kickstart.execution.instrumentation;
+
+import graphql.Internal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderRegistry;
+import org.dataloader.stats.Statistics;
+
+/**
+ * A view of a registry that records every batch its data loaders dispatch to {@link
+ * DataLoaderMetrics}. The tracking approaches report the data fetches, the time from the first data
+ * fetch after a dispatch to the next dispatch is recorded as the dispatch delay of its batches.
+ */
+@Internal
+public class MeteredDataLoaderRegistry extends DataLoaderRegistry {
+
+  private static final long NO_FETCH = Long.MIN_VALUE;
+
+  private final DataLoaderRegistry registry;
+  private final String operationName;
+  private final DataLoaderMetrics metrics;
+  private final AtomicLong firstFetchNanos = new AtomicLong(NO_FETCH);
+  private final AtomicBoolean executionClaimed = new AtomicBoolean();
+
+  private MeteredDataLoaderRegistry(
+      DataLoaderRegistry registry, String operationName, DataLoaderMetrics metrics) {
+    this.registry = registry;
+    this.operationName = operationName;
+    this.metrics = metrics;
+  }
+
+  /**
+   * Registries of other types, such as scheduled registries, decide themselves when to dispatch
+   * and are returned as they are.
+   *
+   * @param registry the registry to meter
+   * @param operationName the operation the registry belongs to, or {@literal null}
+   * @param metrics the metrics to record to, or {@literal null} to not meter the registry
+   * @return a metered view of the registry
+   */
+  public static DataLoaderRegistry meter(
+      DataLoaderRegistry registry, String operationName, DataLoaderMetrics metrics) {
+    if (metrics == null || registry.getClass() != DataLoaderRegistry.class) {
+      return registry;
+    }
+    return new MeteredDataLoaderRegistry(registry, operationName, metrics);
+  }
+
+  /** @return the operation the batches of this registry are recorded under */
+  String getOperationName() {
+    return operationName;
+  }
+
+  /**
+   * A registry shared by several executions is recorded as one execution, by the first execution
+   * that completes.
+   *
+   * @return {@literal true} only for the first call
+   */
+  boolean claimExecution() {
+    return executionClaimed.compareAndSet(false, true);
+  }
+
+  /**
+   * Called before a data fetcher that may load keys with the registry runs.
+   *
+   * @param registry the registry a tracking approach dispatches
+   */
+  static void fetched(DataLoaderRegistry registry) {
+    if (registry instanceof MeteredDataLoaderRegistry) {
+      ((MeteredDataLoaderRegistry) registry).fetched();
+    }
+  }
+
+  private void fetched() {
+    if (firstFetchNanos.get() == NO_FETCH) {
+      firstFetchNanos.compareAndSet(NO_FETCH, System.nanoTime());
+    }
+  }
+
+  /** @return the time since the first fetch after the previous dispatch, or -1 if none was seen */
+  private long startDispatch() {
+    long first = firstFetchNanos.getAndSet(NO_FETCH);
+    return first == NO_FETCH ? -1 : System.nanoTime() - first;
+  }
+
+  /**
+   * @param name the name of the data loader
+   * @param dataLoader the data loader to dispatch
+   * @param dispatchDelayNanos the value returned by {@link #startDispatch()}, without a fetch the
+   *     time since the previous dispatch of the data loader is recorded
+   * @return the number of keys dispatched
+   */
+  private int dispatch(String name, DataLoader<?, ?> dataLoader, long dispatchDelayNanos) {
+    long delay =
+        dispatchDelayNanos >= 0 ? dispatchDelayNanos : dataLoader.getTimeSinceDispatch().toNanos();
+    int keys = dataLoader.dispatchWithCounts().getKeysCount();
+    if (keys > 0) {
+      metrics.recordBatch(name, operationName, keys, delay);
+    }
+    return keys;
+  }
+
+  @Override
+  public void dispatchAll() {
+    dispatchAllWithCount();
+  }
+
+  @Override
+  public int dispatchAllWithCount() {
+    long dispatchDelayNanos = startDispatch();
+    int count = 0;
+    for (Map.Entry<String, DataLoader<?, ?>> entry : registry.getDataLoadersMap().entrySet()) {
+      count += dispatch(entry.getKey(), entry.getValue(), dispatchDelayNanos);
+    }
+    return count;
+  }
+
+  @Override
+  public int dispatchDepth() {
+    return registry.dispatchDepth();
+  }
+
+  @Override
+  public DataLoaderRegistry register(String key, DataLoader<?, ?> dataLoader) {
+    registry.register(key, dataLoader);
+    return this;
+  }
+
+  @Override
+  public <K, V> DataLoader<K, V> computeIfAbsent(
+      String key, Function<String, DataLoader<?, ?>> mappingFunction) {
+    return registry.computeIfAbsent(key, mappingFunction);
+  }
+
+  @Override
+  public DataLoaderRegistry combine(DataLoaderRegistry registry) {
+    return this.registry.combine(registry);
+  }
+
+  @Override
+  public List<DataLoader<?, ?>> getDataLoaders() {
+    return registry.getDataLoaders();
+  }
+
+  @Override
+  public Map<String, DataLoader<?, ?>> getDataLoadersMap() {
+    return registry.getDataLoadersMap();
+  }
+
+  @Override
+  public DataLoaderRegistry unregister(String key) {
+    registry.unregister(key);
+    return this;
+  }
+
+  @Override
+  public <K, V> DataLoader<K, V> getDataLoader(String key) {
+    return registry.getDataLoader(key);
+  }
+
+  @Override
+  public Set<String> getKeys() {
+    return registry.getKeys();
+  }
+
+  @Override
+  public Statistics getStatistics() {
+    return registry.getStatistics();
+  }
+}
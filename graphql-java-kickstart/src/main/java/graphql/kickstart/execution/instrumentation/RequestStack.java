@@ -1,19 +1,47 @@
 package graphql.kickstart.execution.instrumentation;
 
-import graphql.Assert;
 import graphql.execution.ExecutionId;
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
-import java.util.List;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.Objects;
-
-/** Manages sets of call stack state for ongoing executions. */
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Manages sets of call stack state for ongoing executions.
+ *
+ * <p>The fetch and strategy call counters are atomic and can be updated concurrently without
+ * locking. The dispatch state, that is {@link #setStatus(ExecutionId, boolean)}, {@link
+ * #allReady()}, {@link #allReset()}, {@link #dispatchIfNotDispatchedBefore(ExecutionId, int)},
+ * {@link #clearAndMarkCurrentLevelAsReady(ExecutionId, int)} and adding or removing executions,
+ * must be accessed while holding the lock of this stack.
+ */
 public class RequestStack {
 
-  private final Map<ExecutionId, CallStack> activeRequests = new LinkedHashMap<>();
+  // executions of inputs without an id are tracked under this key, the map can not hold null
+  private static final Object NO_EXECUTION_ID = new Object();
+
+  private final Map<Object, CallStack> activeRequests = new ConcurrentHashMap<>();
+
+  // guarded by this: the number of executions that are not ready to be dispatched, and the number
+  // of executions per set of dispatched levels, so allReady() does not visit every execution
+  private int notReadyCount;
+  private final Map<BitSet, Integer> dispatchedLevelSets = new HashMap<>();
+
+  private static Object key(ExecutionId executionId) {
+    return executionId != null ? executionId : NO_EXECUTION_ID;
+  }
 
-  private final Map<ExecutionId, Boolean> status = new LinkedHashMap<>();
+  private CallStack getCallStack(ExecutionId executionId, String action) {
+    CallStack callStack = activeRequests.get(key(executionId));
+    if (callStack == null) {
+      throw new IllegalStateException(
+          String.format(
+              "Execution %s not managed by this RequestStack, can not %s", executionId, action));
+    }
+    return callStack;
+  }
 
   /**
    * Sets the status indicating if a specific execution is ready for dispatching.
@@ -22,27 +50,28 @@ public class RequestStack {
    * @param toState if ready to dispatch
    */
   public void setStatus(ExecutionId executionId, boolean toState) {
-    if (!activeRequests.containsKey(executionId)) {
+    CallStack callStack = activeRequests.get(key(executionId));
+    if (callStack == null) {
       throw new IllegalStateException(
           String.format(
               "Can not set status for execution %s, it is not managed by this request stack",
               executionId));
     }
-    if (toState) {
-      status.put(executionId, true);
+    if (toState && !callStack.ready) {
+      callStack.ready = true;
+      notReadyCount--;
     }
   }
 
   /** @return if all managed executions are ready to be dispatched. */
   public boolean allReady() {
-    return status.values().stream().noneMatch(Boolean.FALSE::equals)
-        && activeRequests.values().stream().map(CallStack::getDispatchedLevels).distinct().count()
-            <= 1;
+    return notReadyCount == 0 && dispatchedLevelSets.size() <= 1;
   }
 
   /** Removes all dispatch status. Should be used after a call to dispatch. */
   public void allReset() {
-    status.keySet().forEach(key -> status.put(key, false));
+    activeRequests.values().forEach(callStack -> callStack.ready = false);
+    notReadyCount = activeRequests.size();
   }
 
   /**
@@ -52,7 +81,7 @@ public class RequestStack {
    * @return if an active execution
    */
   public boolean contains(ExecutionId executionId) {
-    return activeRequests.containsKey(executionId);
+    return activeRequests.containsKey(key(executionId));
   }
 
   /**
@@ -61,8 +90,13 @@ public class RequestStack {
    * @param executionId no restrictions
    */
   public void removeExecution(ExecutionId executionId) {
-    activeRequests.remove(executionId);
-    status.remove(executionId);
+    CallStack callStack = activeRequests.remove(key(executionId));
+    if (callStack != null) {
+      if (!callStack.ready) {
+        notReadyCount--;
+      }
+      removeDispatchedLevels(callStack.dispatchedLevels);
+    }
   }
 
   /**
@@ -71,13 +105,21 @@ public class RequestStack {
    * @param executionId can not already be managed by this RequestStack
    */
   public void addExecution(ExecutionId executionId) {
-    if (activeRequests.containsKey(executionId)) {
+    CallStack callStack = new CallStack();
+    if (activeRequests.putIfAbsent(key(executionId), callStack) != null) {
       throw new IllegalStateException(
           String.format("An execution already exists for %s, can not create one", executionId));
     }
-    CallStack callStack = new CallStack();
-    status.put(executionId, false);
-    activeRequests.put(executionId, callStack);
+    notReadyCount++;
+    addDispatchedLevels(callStack.dispatchedLevels);
+  }
+
+  private void addDispatchedLevels(BitSet levels) {
+    dispatchedLevelSets.merge(levels, 1, Integer::sum);
+  }
+
+  private void removeDispatchedLevels(BitSet levels) {
+    dispatchedLevelSets.computeIfPresent(levels, (key, count) -> count > 1 ? count - 1 : null);
   }
 
   /**
@@ -88,13 +130,8 @@ public class RequestStack {
    * @param fieldCount the amount to increase the expected amount
    */
   public void increaseExpectedFetchCount(ExecutionId executionId, int curLevel, int fieldCount) {
-    if (!activeRequests.containsKey(executionId)) {
-      throw new IllegalStateException(
-          String.format(
-              "Execution %s not managed by this RequestStack, can not increase expected fetch count",
-              executionId));
-    }
-    activeRequests.get(executionId).increaseExpectedFetchCount(curLevel, fieldCount);
+    getCallStack(executionId, "increase expected fetch count")
+        .add(curLevel, CallStack.EXPECTED_FETCHES, fieldCount);
   }
 
   /**
@@ -104,13 +141,8 @@ public class RequestStack {
    * @param curLevel level to increment
    */
   public void increaseHappenedStrategyCalls(ExecutionId executionId, int curLevel) {
-    if (!activeRequests.containsKey(executionId)) {
-      throw new IllegalStateException(
-          String.format(
-              "Execution %s not managed by this RequestStack, can not increase happened happened strategy calls",
-              executionId));
-    }
-    activeRequests.get(executionId).increaseHappenedStrategyCalls(curLevel);
+    getCallStack(executionId, "increase happened strategy calls")
+        .add(curLevel, CallStack.STRATEGY_CALLS, 1);
   }
 
   /**
@@ -120,13 +152,8 @@ public class RequestStack {
    * @param curLevel level to increment
    */
   public void increaseHappenedOnFieldValueCalls(ExecutionId executionId, int curLevel) {
-    if (!activeRequests.containsKey(executionId)) {
-      throw new IllegalStateException(
-          String.format(
-              "Execution %s not managed by this RequestStack, can not increase happened on field calls",
-              executionId));
-    }
-    activeRequests.get(executionId).increaseHappenedOnFieldValueCalls(curLevel);
+    getCallStack(executionId, "increase happened on field calls")
+        .add(curLevel, CallStack.FIELD_VALUE_CALLS, 1);
   }
 
   /**
@@ -138,13 +165,8 @@ public class RequestStack {
    */
   public void increaseExpectedStrategyCalls(
       ExecutionId executionId, int curLevel, int expectedStrategyCalls) {
-    if (!activeRequests.containsKey(executionId)) {
-      throw new IllegalStateException(
-          String.format(
-              "Execution %s not managed by this RequestStack, can not increase expected strategy calls",
-              executionId));
-    }
-    activeRequests.get(executionId).increaseExpectedStrategyCalls(curLevel, expectedStrategyCalls);
+    getCallStack(executionId, "increase expected strategy calls")
+        .add(curLevel, CallStack.EXPECTED_STRATEGY_CALLS, expectedStrategyCalls);
   }
 
   /**
@@ -155,13 +177,9 @@ public class RequestStack {
    * @return allFetchesHappened
    */
   public boolean allFetchesHappened(ExecutionId executionId, int level) {
-    if (!activeRequests.containsKey(executionId)) {
-      throw new IllegalStateException(
-          String.format(
-              "Execution %s not managed by this RequestStack, can not get all fetches happened value",
-              executionId));
-    }
-    return activeRequests.get(executionId).allFetchesHappened(level);
+    CallStack callStack = getCallStack(executionId, "get all fetches happened value");
+    return callStack.get(level, CallStack.FETCHES)
+        == callStack.get(level, CallStack.EXPECTED_FETCHES);
   }
 
   /**
@@ -172,13 +190,9 @@ public class RequestStack {
    * @return allOnFieldCallsHappened
    */
   public boolean allOnFieldCallsHappened(ExecutionId executionId, int level) {
-    if (!activeRequests.containsKey(executionId)) {
-      throw new IllegalStateException(
-          String.format(
-              "Execution %s not managed by this RequestStack, can not get all on field calls happened value",
-              executionId));
-    }
-    return activeRequests.get(executionId).allOnFieldCallsHappened(level);
+    CallStack callStack = getCallStack(executionId, "get all on field calls happened value");
+    return callStack.get(level, CallStack.FIELD_VALUE_CALLS)
+        == callStack.get(level, CallStack.EXPECTED_STRATEGY_CALLS);
   }
 
   /**
@@ -189,30 +203,30 @@ public class RequestStack {
    * @return allStrategyCallsHappened
    */
   public boolean allStrategyCallsHappened(ExecutionId executionId, int level) {
-    if (!activeRequests.containsKey(executionId)) {
-      throw new IllegalStateException(
-          String.format(
-              "Execution %s not managed by this RequestStack, can not get all strategy calls happened value",
-              executionId));
-    }
-    return activeRequests.get(executionId).allStrategyCallsHappened(level);
+    CallStack callStack = getCallStack(executionId, "get all strategy calls happened value");
+    return callStack.get(level, CallStack.STRATEGY_CALLS)
+        == callStack.get(level, CallStack.EXPECTED_STRATEGY_CALLS);
   }
 
   /**
-   * Get the dispatch if not dispatched before value of a specific level.
+   * Marks a level as dispatched, unless it was dispatched before. Levels are checked outside of
+   * the lock, so several threads can find the same level ready, only the first one dispatches it.
    *
    * @param executionId must be managed by this RequestStack
    * @param level the level to get the value of
-   * @return dispatchIfNotDispattchedBefore
+   * @return {@literal true} if the level was not dispatched before
    */
   public boolean dispatchIfNotDispatchedBefore(ExecutionId executionId, int level) {
-    if (!activeRequests.containsKey(executionId)) {
-      throw new IllegalStateException(
-          String.format(
-              "Execution %s not managed by this RequestStack, can not get dispatch if not dispatched before value",
-              executionId));
+    CallStack callStack = getCallStack(executionId, "get dispatch if not dispatched before value");
+    if (callStack.dispatchedLevels.get(level)) {
+      return false;
     }
-    return activeRequests.get(executionId).dispatchIfNotDispatchedBefore(level);
+    removeDispatchedLevels(callStack.dispatchedLevels);
+    BitSet dispatchedLevels = (BitSet) callStack.dispatchedLevels.clone();
+    dispatchedLevels.set(level);
+    callStack.dispatchedLevels = dispatchedLevels;
+    addDispatchedLevels(dispatchedLevels);
+    return true;
   }
 
   /**
@@ -222,13 +236,7 @@ public class RequestStack {
    * @param level the level to increment
    */
   public void increaseFetchCount(ExecutionId executionId, int level) {
-    if (!activeRequests.containsKey(executionId)) {
-      throw new IllegalStateException(
-          String.format(
-              "Execution %s not managed by this RequestStack, can not increase fetch count",
-              executionId));
-    }
-    activeRequests.get(executionId).increaseFetchCount(level);
+    getCallStack(executionId, "increase fetch count").add(level, CallStack.FETCHES, 1);
   }
 
   /**
@@ -238,110 +246,79 @@ public class RequestStack {
    * @param level the level to clear and mark
    */
   public void clearAndMarkCurrentLevelAsReady(ExecutionId executionId, int level) {
-    if (!activeRequests.containsKey(executionId)) {
-      throw new IllegalStateException(
-          String.format(
-              "Execution %s not managed by this RequestStack, can not clea and mark current level as ready",
-              executionId));
-    }
-    activeRequests.get(executionId).clearAndMarkCurrentLevelAsReady(level);
+    CallStack callStack = getCallStack(executionId, "clear and mark current level as ready");
+    removeDispatchedLevels(callStack.dispatchedLevels);
+    callStack.clearAndMarkCurrentLevelAsReady(level);
+    addDispatchedLevels(callStack.dispatchedLevels);
   }
 
   private static class CallStack {
 
-    private final Map<Integer, Integer> expectedFetchCountPerLevel = new LinkedHashMap<>();
-    private final Map<Integer, Integer> fetchCountPerLevel = new LinkedHashMap<>();
-    private final Map<Integer, Integer> expectedStrategyCallsPerLevel = new LinkedHashMap<>();
-    private final Map<Integer, Integer> happenedStrategyCallsPerLevel = new LinkedHashMap<>();
-    private final Map<Integer, Integer> happenedOnFieldValueCallsPerLevel = new LinkedHashMap<>();
-
-    private final List<Integer> dispatchedLevels = new ArrayList<>();
+    private static final int EXPECTED_FETCHES = 0;
+    private static final int FETCHES = 1;
+    private static final int EXPECTED_STRATEGY_CALLS = 2;
+    private static final int STRATEGY_CALLS = 3;
+    private static final int FIELD_VALUE_CALLS = 4;
+    private static final int COUNTERS = 5;
 
-    private CallStack() {
-      expectedStrategyCallsPerLevel.put(1, 1);
-    }
+    // the counters of each level, indexed by level. Levels are added by copying the array, the
+    // counters of a level are never copied so no concurrent update is lost.
+    private volatile AtomicIntegerArray[] levels = new AtomicIntegerArray[8];
 
-    private void increaseExpectedFetchCount(int level, int count) {
-      expectedFetchCountPerLevel.put(
-          level, expectedFetchCountPerLevel.getOrDefault(level, 0) + count);
-    }
-
-    private void increaseFetchCount(int level) {
-      fetchCountPerLevel.put(level, fetchCountPerLevel.getOrDefault(level, 0) + 1);
-    }
+    // guarded by the RequestStack, replaced instead of modified as it is a key of
+    // dispatchedLevelSets
+    private BitSet dispatchedLevels = new BitSet();
+    private boolean ready;
 
-    private void increaseExpectedStrategyCalls(int level, int count) {
-      expectedStrategyCallsPerLevel.put(
-          level, expectedStrategyCallsPerLevel.getOrDefault(level, 0) + count);
+    private CallStack() {
+      add(1, EXPECTED_STRATEGY_CALLS, 1);
     }
 
-    private void increaseHappenedStrategyCalls(int level) {
-      happenedStrategyCallsPerLevel.put(
-          level, happenedStrategyCallsPerLevel.getOrDefault(level, 0) + 1);
+    private void add(int level, int counter, int delta) {
+      AtomicIntegerArray[] current = levels;
+      AtomicIntegerArray counters = level < current.length ? current[level] : null;
+      if (counters == null) {
+        counters = createLevel(level);
+      }
+      counters.addAndGet(counter, delta);
     }
 
-    private void increaseHappenedOnFieldValueCalls(int level) {
-      happenedOnFieldValueCallsPerLevel.put(
-          level, happenedOnFieldValueCallsPerLevel.getOrDefault(level, 0) + 1);
+    private int get(int level, int counter) {
+      AtomicIntegerArray[] current = levels;
+      AtomicIntegerArray counters = level < current.length ? current[level] : null;
+      return counters != null ? counters.get(counter) : 0;
     }
 
-    private boolean allStrategyCallsHappened(int level) {
-      return Objects.equals(
-          happenedStrategyCallsPerLevel.get(level), expectedStrategyCallsPerLevel.get(level));
+    private synchronized AtomicIntegerArray createLevel(int level) {
+      AtomicIntegerArray[] current = levels;
+      if (level < current.length && current[level] != null) {
+        return current[level];
+      }
+      AtomicIntegerArray[] copy =
+          Arrays.copyOf(current, Math.max(current.length, Integer.highestOneBit(level) << 1));
+      copy[level] = new AtomicIntegerArray(COUNTERS);
+      levels = copy;
+      return copy[level];
     }
 
-    private boolean allOnFieldCallsHappened(int level) {
-      return Objects.equals(
-          happenedOnFieldValueCallsPerLevel.get(level), expectedStrategyCallsPerLevel.get(level));
-    }
+    private synchronized void clearAndMarkCurrentLevelAsReady(int level) {
+      levels = new AtomicIntegerArray[levels.length];
+      dispatchedLevels = new BitSet();
 
-    private boolean allFetchesHappened(int level) {
-      return Objects.equals(fetchCountPerLevel.get(level), expectedFetchCountPerLevel.get(level));
-    }
-
-    private List<Integer> getDispatchedLevels() {
-      return dispatchedLevels;
+      // make sure the level is ready
+      add(level, EXPECTED_FETCHES, 1);
+      add(level, EXPECTED_STRATEGY_CALLS, 1);
+      add(level, STRATEGY_CALLS, 1);
     }
 
     @Override
     public String toString() {
       return "CallStack{"
-          + "expectedFetchCountPerLevel="
-          + expectedFetchCountPerLevel
-          + ", fetchCountPerLevel="
-          + fetchCountPerLevel
-          + ", expectedStrategyCallsPerLevel="
-          + expectedStrategyCallsPerLevel
-          + ", happenedStrategyCallsPerLevel="
-          + happenedStrategyCallsPerLevel
-          + ", happenedOnFieldValueCallsPerLevel="
-          + happenedOnFieldValueCallsPerLevel
-          + ", dispatchedLevels"
+          + "levels="
+          + Arrays.toString(levels)
+          + ", dispatchedLevels="
           + dispatchedLevels
           + '}';
     }
-
-    private boolean dispatchIfNotDispatchedBefore(int level) {
-      if (dispatchedLevels.contains(level)) {
-        Assert.assertShouldNeverHappen("level " + level + " already dispatched");
-        return false;
-      }
-      dispatchedLevels.add(level);
-      return true;
-    }
-
-    private void clearAndMarkCurrentLevelAsReady(int level) {
-      expectedFetchCountPerLevel.clear();
-      fetchCountPerLevel.clear();
-      expectedStrategyCallsPerLevel.clear();
-      happenedStrategyCallsPerLevel.clear();
-      happenedOnFieldValueCallsPerLevel.clear();
-      dispatchedLevels.clear();
-
-      // make sure the level is ready
-      expectedFetchCountPerLevel.put(level, 1);
-      expectedStrategyCallsPerLevel.put(level, 1);
-      happenedStrategyCallsPerLevel.put(level, 1);
-    }
   }
 }
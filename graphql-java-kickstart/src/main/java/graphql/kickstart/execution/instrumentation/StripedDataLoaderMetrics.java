@@ -0,0 +1,190 @@
+package graphql.kickstart.execution.instrumentation;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import lombok.NonNull;
+import lombok.Value;
+
+/**
+ * Aggregates DataLoader metrics in memory, by loader name and operation name. The counters are
+ * striped, so recording from many threads at once does not contend. A loader whose dispatches per
+ * execution grow with the size of the result is an N+1 problem the batching does not catch.
+ *
+ * <p>Operation names are chosen by the clients, so only a limited number of distinct operations is
+ * kept. The metrics of any further operation are recorded under {@link #OTHER_OPERATIONS}.
+ */
+public class StripedDataLoaderMetrics implements DataLoaderMetrics, DataLoaderMetricsMXBean {
+
+  /** The name the metrics are registered under by {@link #registerMBean(MBeanServer)}. */
+  public static final String OBJECT_NAME = "graphql.kickstart:type=DataLoaderMetrics";
+
+  /** The number of buckets of the batch size histogram. */
+  public static final int BATCH_SIZE_BUCKETS = 12;
+
+  /** The operation name the metrics of operations beyond the maximum number are recorded under. */
+  public static final String OTHER_OPERATIONS = "(other)";
+
+  private final int maxOperations;
+  private final Set<String> operationNames = ConcurrentHashMap.newKeySet();
+  private final Map<Key, Counters> counters = new ConcurrentHashMap<>();
+  private final Map<Key, LongAdder> executions = new ConcurrentHashMap<>();
+
+  /** Keeps the metrics of up to 100 distinct operations. */
+  public StripedDataLoaderMetrics() {
+    this(100);
+  }
+
+  /** @param maxOperations the number of distinct operation names to keep the metrics of */
+  public StripedDataLoaderMetrics(int maxOperations) {
+    if (maxOperations < 0) {
+      throw new IllegalArgumentException("maxOperations must not be negative");
+    }
+    this.maxOperations = maxOperations;
+  }
+
+  @Override
+  public void recordBatch(
+      String loaderName, String operationName, int batchSize, long dispatchDelayNanos) {
+    Counters c = counters(loaderName, operationName);
+    c.batches.increment();
+    c.batchedKeys.add(batchSize);
+    c.batchSizeHistogram[bucket(batchSize)].increment();
+    c.totalDispatchDelayNanos.add(dispatchDelayNanos);
+    c.maxDispatchDelayNanos.accumulate(dispatchDelayNanos);
+  }
+
+  @Override
+  public void recordExecution(String operationName) {
+    executions.computeIfAbsent(operation(operationName), key -> new LongAdder()).increment();
+  }
+
+  @Override
+  public void recordLoads(String loaderName, String operationName, long loads, long cacheHits) {
+    Counters c = counters(loaderName, operationName);
+    c.loads.add(loads);
+    c.cacheHits.add(cacheHits);
+  }
+
+  /**
+   * @param loaderName the name of the data loader in the registry
+   * @param operationName the name of the operation, {@literal null} if it is anonymous, or {@link
+   *     #OTHER_OPERATIONS}
+   * @return the metrics of the loader and operation, or {@literal null} if none were recorded
+   */
+  public DataLoaderMetricsSnapshot getMetrics(String loaderName, String operationName) {
+    Key key = new Key(loaderName, operationName);
+    Counters c = counters.get(key);
+    return c != null ? snapshot(key, c) : null;
+  }
+
+  @Override
+  public List<DataLoaderMetricsSnapshot> getLoaderMetrics() {
+    return counters.entrySet().stream()
+        .map(entry -> snapshot(entry.getKey(), entry.getValue()))
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public void reset() {
+    counters.clear();
+    executions.clear();
+    operationNames.clear();
+  }
+
+  /**
+   * Exports the metrics through JMX under {@link #OBJECT_NAME}.
+   *
+   * @param server the server to register the metrics with, usually the platform MBean server
+   * @return the name the metrics were registered under
+   * @throws JMException if the metrics could not be registered
+   */
+  public ObjectName registerMBean(@NonNull MBeanServer server) throws JMException {
+    ObjectName name = new ObjectName(OBJECT_NAME);
+    server.registerMBean(this, name);
+    return name;
+  }
+
+  private Counters counters(String loaderName, String operationName) {
+    return counters.computeIfAbsent(
+        new Key(loaderName, limit(operationName)), key -> new Counters());
+  }
+
+  // the executions are counted by operation, under a key without a loader
+  private Key operation(String operationName) {
+    return new Key(null, limit(operationName));
+  }
+
+  private String limit(String operationName) {
+    if (operationName == null
+        || DataLoaderMetrics.SHARED_OPERATIONS.equals(operationName)
+        || operationNames.contains(operationName)) {
+      return operationName;
+    }
+    synchronized (operationNames) {
+      if (operationNames.size() < maxOperations || operationNames.contains(operationName)) {
+        operationNames.add(operationName);
+        return operationName;
+      }
+    }
+    return OTHER_OPERATIONS;
+  }
+
+  private DataLoaderMetricsSnapshot snapshot(Key key, Counters c) {
+    LongAdder operationExecutions = executions.get(new Key(null, key.getOperationName()));
+    return c.snapshot(key, operationExecutions != null ? operationExecutions.sum() : 0);
+  }
+
+  // batches of 1, 2, 3 to 4, 5 to 8 and so on keys, up to more than 1024 keys
+  static int bucket(int batchSize) {
+    return Math.min(BATCH_SIZE_BUCKETS - 1, 32 - Integer.numberOfLeadingZeros(batchSize - 1));
+  }
+
+  @Value
+  private static class Key {
+    String loaderName;
+    String operationName;
+  }
+
+  private static class Counters {
+
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedKeys = new LongAdder();
+    private final LongAdder[] batchSizeHistogram = new LongAdder[BATCH_SIZE_BUCKETS];
+    private final LongAdder totalDispatchDelayNanos = new LongAdder();
+    private final LongAccumulator maxDispatchDelayNanos = new LongAccumulator(Math::max, 0);
+
+    private Counters() {
+      for (int i = 0; i < BATCH_SIZE_BUCKETS; i++) {
+        batchSizeHistogram[i] = new LongAdder();
+      }
+    }
+
+    private DataLoaderMetricsSnapshot snapshot(Key key, long executions) {
+      long[] histogram = new long[BATCH_SIZE_BUCKETS];
+      for (int i = 0; i < BATCH_SIZE_BUCKETS; i++) {
+        histogram[i] = batchSizeHistogram[i].sum();
+      }
+      return new DataLoaderMetricsSnapshot(
+          key.getLoaderName(),
+          key.getOperationName(),
+          executions,
+          loads.sum(),
+          cacheHits.sum(),
+          batches.sum(),
+          batchedKeys.sum(),
+          histogram,
+          totalDispatchDelayNanos.sum(),
+          maxDispatchDelayNanos.get());
+    }
+  }
+}
@@ -0,0 +1,375 @@
+package graphql.kickstart.execution.preparsed;
+
+import graphql.ExecutionInput;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.execution.preparsed.PreparsedDocumentProvider;
+import graphql.schema.GraphQLSchema;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * A bounded {@link PreparsedDocumentProvider} keeping parsed and validated documents in memory, so
+ * identical queries are parsed and validated only once.
+ *
+ * <p>Entries are keyed on the normalized query text and the operation name, and are evicted in
+ * least recently used order when either the maximum number of entries or the maximum total weight
+ * (the length of the normalized query texts) is exceeded. Entries optionally expire a fixed time
+ * after they were created. The cache is split in independently locked segments, and concurrent
+ * requests for a document that is not cached yet wait for a single parse and validation.
+ *
+ * <p>Validation depends on the schema, so when this provider is configured through {@link
+ * graphql.kickstart.execution.config.GraphQLBuilder} every schema gets its own key space. When
+ * building {@link graphql.GraphQL} instances manually use {@link #forSchema(GraphQLSchema)}.
+ */
+public class CachingPreparsedDocumentProvider implements SchemaAwarePreparsedDocumentProvider {
+
+  private final Segment[] segments;
+  private final int segmentMask;
+  private final long maximumSizePerSegment;
+  private final long maximumWeightPerSegment;
+  private final long expireAfterWriteNanos;
+
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+  private final LongAdder evictionCount = new LongAdder();
+
+  protected CachingPreparsedDocumentProvider(
+      long maximumSize, long maximumWeight, Duration expireAfterWrite, int concurrencyLevel) {
+    int segmentCount =
+        Integer.highestOneBit((int) Math.max(1, Math.min(concurrencyLevel, maximumSize)));
+    this.segments = new Segment[segmentCount];
+    for (int i = 0; i < segmentCount; i++) {
+      segments[i] = new Segment();
+    }
+    this.segmentMask = segmentCount - 1;
+    this.maximumSizePerSegment = ceilDiv(maximumSize, segmentCount);
+    this.maximumWeightPerSegment = ceilDiv(maximumWeight, segmentCount);
+    this.expireAfterWriteNanos = expireAfterWrite != null ? expireAfterWrite.toNanos() : 0;
+  }
+
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  private static long ceilDiv(long value, int divisor) {
+    return value == Long.MAX_VALUE ? value : (value + divisor - 1) / divisor;
+  }
+
+  @Override
+  public PreparsedDocumentProvider forSchema(GraphQLSchema schema) {
+    return new SchemaScopedProvider(schema);
+  }
+
+  /** @deprecated use {@link #getDocumentAsync(ExecutionInput, Function)} */
+  @Override
+  @Deprecated
+  @SuppressWarnings("deprecation")
+  public PreparsedDocumentEntry getDocument(
+      ExecutionInput executionInput,
+      Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidateFunction) {
+    return join(getDocumentAsync(null, executionInput, parseAndValidateFunction));
+  }
+
+  @Override
+  public CompletableFuture<PreparsedDocumentEntry> getDocumentAsync(
+      ExecutionInput executionInput,
+      Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidateFunction) {
+    return getDocumentAsync(null, executionInput, parseAndValidateFunction);
+  }
+
+  private CompletableFuture<PreparsedDocumentEntry> getDocumentAsync(
+      GraphQLSchema schema,
+      ExecutionInput executionInput,
+      Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidateFunction) {
+    DocumentKey key =
+        new DocumentKey(
+            schema,
+            QueryNormalizer.normalize(executionInput.getQuery()),
+            executionInput.getOperationName());
+    Segment segment = segments[spread(key.hash) & segmentMask];
+    long now = System.nanoTime();
+
+    CacheEntry entry;
+    boolean computeHere = false;
+    segment.lock.lock();
+    try {
+      entry = segment.entries.get(key);
+      if (entry != null && isExpired(entry, now)) {
+        segment.remove(entry);
+        evictionCount.increment();
+        entry = null;
+      }
+      if (entry == null) {
+        entry = new CacheEntry(key, now);
+        segment.add(entry);
+        evictOverflow(segment, entry);
+        computeHere = true;
+      }
+    } finally {
+      segment.lock.unlock();
+    }
+
+    if (!computeHere) {
+      hitCount.increment();
+      return entry.document;
+    }
+
+    missCount.increment();
+    try {
+      entry.document.complete(parseAndValidateFunction.apply(executionInput));
+    } catch (RuntimeException e) {
+      discard(segment, entry);
+      entry.document.completeExceptionally(e);
+      throw e;
+    }
+    return entry.document;
+  }
+
+  private boolean isExpired(CacheEntry entry, long now) {
+    return expireAfterWriteNanos > 0 && now - entry.createdAt >= expireAfterWriteNanos;
+  }
+
+  private void evictOverflow(Segment segment, CacheEntry added) {
+    Iterator<CacheEntry> iterator = segment.entries.values().iterator();
+    while (iterator.hasNext()
+        && (segment.entries.size() > maximumSizePerSegment
+            || segment.weight > maximumWeightPerSegment)) {
+      CacheEntry eldest = iterator.next();
+      iterator.remove();
+      segment.weight -= eldest.weight;
+      if (eldest != added) {
+        evictionCount.increment();
+      }
+    }
+  }
+
+  private void discard(Segment segment, CacheEntry entry) {
+    segment.lock.lock();
+    try {
+      if (segment.entries.get(entry.key) == entry) {
+        segment.remove(entry);
+      }
+    } finally {
+      segment.lock.unlock();
+    }
+  }
+
+  private static int spread(int hash) {
+    return hash ^ (hash >>> 16);
+  }
+
+  static PreparsedDocumentEntry join(CompletableFuture<PreparsedDocumentEntry> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  /** @return the number of lookups that were served from the cache */
+  public long getHitCount() {
+    return hitCount.sum();
+  }
+
+  /** @return the number of lookups that required parsing and validating the query */
+  public long getMissCount() {
+    return missCount.sum();
+  }
+
+  /** @return the number of entries removed because of the size, weight or time bounds */
+  public long getEvictionCount() {
+    return evictionCount.sum();
+  }
+
+  /** @return the current number of cached documents */
+  public long size() {
+    long size = 0;
+    for (Segment segment : segments) {
+      segment.lock.lock();
+      try {
+        size += segment.entries.size();
+      } finally {
+        segment.lock.unlock();
+      }
+    }
+    return size;
+  }
+
+  /** Removes all cached documents. */
+  public void invalidateAll() {
+    for (Segment segment : segments) {
+      segment.lock.lock();
+      try {
+        segment.entries.clear();
+        segment.weight = 0;
+      } finally {
+        segment.lock.unlock();
+      }
+    }
+  }
+
+  private static final class Segment {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<DocumentKey, CacheEntry> entries =
+        new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+
+    private void add(CacheEntry entry) {
+      entries.put(entry.key, entry);
+      weight += entry.weight;
+    }
+
+    private void remove(CacheEntry entry) {
+      entries.remove(entry.key);
+      weight -= entry.weight;
+    }
+  }
+
+  private static final class CacheEntry {
+
+    private final DocumentKey key;
+    private final long createdAt;
+    private final int weight;
+    private final CompletableFuture<PreparsedDocumentEntry> document = new CompletableFuture<>();
+
+    private CacheEntry(DocumentKey key, long createdAt) {
+      this.key = key;
+      this.createdAt = createdAt;
+      this.weight = Math.max(1, key.query.length());
+    }
+  }
+
+  private static final class DocumentKey {
+
+    private final GraphQLSchema schema;
+    private final String query;
+    private final String operationName;
+    private final int hash;
+
+    private DocumentKey(GraphQLSchema schema, String query, String operationName) {
+      this.schema = schema;
+      this.query = query;
+      this.operationName = operationName;
+      this.hash =
+          31 * (31 * System.identityHashCode(schema) + query.hashCode())
+              + Objects.hashCode(operationName);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof DocumentKey)) {
+        return false;
+      }
+      DocumentKey other = (DocumentKey) o;
+      return hash == other.hash
+          && schema == other.schema
+          && query.equals(other.query)
+          && Objects.equals(operationName, other.operationName);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
+  private final class SchemaScopedProvider implements PreparsedDocumentProvider {
+
+    private final GraphQLSchema schema;
+
+    private SchemaScopedProvider(GraphQLSchema schema) {
+      this.schema = schema;
+    }
+
+    @Override
+    @Deprecated
+    @SuppressWarnings("deprecation")
+    public PreparsedDocumentEntry getDocument(
+        ExecutionInput executionInput,
+        Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidateFunction) {
+      return join(getDocumentAsync(executionInput, parseAndValidateFunction));
+    }
+
+    @Override
+    public CompletableFuture<PreparsedDocumentEntry> getDocumentAsync(
+        ExecutionInput executionInput,
+        Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidateFunction) {
+      return CachingPreparsedDocumentProvider.this.getDocumentAsync(
+          schema, executionInput, parseAndValidateFunction);
+    }
+  }
+
+  public static class Builder {
+
+    private long maximumSize = 1000;
+    private long maximumWeight = Long.MAX_VALUE;
+    private Duration expireAfterWrite;
+    private int concurrencyLevel = 16;
+
+    /**
+     * @param maximumSize the maximum number of cached documents
+     * @return this builder
+     */
+    public Builder withMaximumSize(long maximumSize) {
+      if (maximumSize < 1) {
+        throw new IllegalArgumentException("maximumSize must be positive");
+      }
+      this.maximumSize = maximumSize;
+      return this;
+    }
+
+    /**
+     * @param maximumWeight the maximum total length of the cached (normalized) query texts
+     * @return this builder
+     */
+    public Builder withMaximumWeight(long maximumWeight) {
+      if (maximumWeight < 1) {
+        throw new IllegalArgumentException("maximumWeight must be positive");
+      }
+      this.maximumWeight = maximumWeight;
+      return this;
+    }
+
+    /**
+     * @param expireAfterWrite time after which a cached document is parsed and validated again,
+     *     {@literal null} to keep documents until they are evicted
+     * @return this builder
+     */
+    public Builder withExpireAfterWrite(Duration expireAfterWrite) {
+      this.expireAfterWrite = expireAfterWrite;
+      return this;
+    }
+
+    /**
+     * @param concurrencyLevel the number of independently locked segments, rounded down to a power
+     *     of two
+     * @return this builder
+     */
+    public Builder withConcurrencyLevel(int concurrencyLevel) {
+      if (concurrencyLevel < 1) {
+        throw new IllegalArgumentException("concurrencyLevel must be positive");
+      }
+      this.concurrencyLevel = concurrencyLevel;
+      return this;
+    }
+
+    public CachingPreparsedDocumentProvider build() {
+      return new CachingPreparsedDocumentProvider(
+          maximumSize, maximumWeight, expireAfterWrite, concurrencyLevel);
+    }
+  }
+}
@@ -0,0 +1,146 @@
+package graphql.kickstart.execution.preparsed;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded in memory {@link PersistedQueryStore}. Query texts are evicted in least recently used
+ * order when either the maximum number of queries or their maximum total length is exceeded. The
+ * store is split in independently locked segments.
+ */
+public class InMemoryPersistedQueryStore implements PersistedQueryStore {
+
+  private final Segment[] segments;
+  private final int segmentMask;
+  private final long maximumSizePerSegment;
+  private final long maximumWeightPerSegment;
+
+  protected InMemoryPersistedQueryStore(long maximumSize, long maximumWeight, int concurrencyLevel) {
+    int segmentCount =
+        Integer.highestOneBit((int) Math.max(1, Math.min(concurrencyLevel, maximumSize)));
+    this.segments = new Segment[segmentCount];
+    for (int i = 0; i < segmentCount; i++) {
+      segments[i] = new Segment();
+    }
+    this.segmentMask = segmentCount - 1;
+    this.maximumSizePerSegment = ceilDiv(maximumSize, segmentCount);
+    this.maximumWeightPerSegment = ceilDiv(maximumWeight, segmentCount);
+  }
+
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  private static long ceilDiv(long value, int divisor) {
+    return value == Long.MAX_VALUE ? value : (value + divisor - 1) / divisor;
+  }
+
+  @Override
+  public String getQuery(String hash) {
+    Segment segment = segmentFor(hash);
+    segment.lock.lock();
+    try {
+      return segment.queries.get(hash);
+    } finally {
+      segment.lock.unlock();
+    }
+  }
+
+  @Override
+  public void putQuery(String hash, String query) {
+    Segment segment = segmentFor(hash);
+    segment.lock.lock();
+    try {
+      String previous = segment.queries.put(hash, query);
+      if (previous != null) {
+        segment.weight -= previous.length();
+      }
+      segment.weight += query.length();
+      Iterator<Map.Entry<String, String>> iterator = segment.queries.entrySet().iterator();
+      while (iterator.hasNext()
+          && (segment.queries.size() > maximumSizePerSegment
+              || segment.weight > maximumWeightPerSegment)) {
+        segment.weight -= iterator.next().getValue().length();
+        iterator.remove();
+      }
+    } finally {
+      segment.lock.unlock();
+    }
+  }
+
+  private Segment segmentFor(String hash) {
+    int h = hash.hashCode();
+    return segments[(h ^ (h >>> 16)) & segmentMask];
+  }
+
+  /** @return the current number of registered queries */
+  public long size() {
+    long size = 0;
+    for (Segment segment : segments) {
+      segment.lock.lock();
+      try {
+        size += segment.queries.size();
+      } finally {
+        segment.lock.unlock();
+      }
+    }
+    return size;
+  }
+
+  private static final class Segment {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, String> queries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+  }
+
+  public static class Builder {
+
+    private long maximumSize = 10_000;
+    private long maximumWeight = Long.MAX_VALUE;
+    private int concurrencyLevel = 16;
+
+    /**
+     * @param maximumSize the maximum number of registered queries
+     * @return this builder
+     */
+    public Builder withMaximumSize(long maximumSize) {
+      if (maximumSize < 1) {
+        throw new IllegalArgumentException("maximumSize must be positive");
+      }
+      this.maximumSize = maximumSize;
+      return this;
+    }
+
+    /**
+     * @param maximumWeight the maximum total length of the registered query texts
+     * @return this builder
+     */
+    public Builder withMaximumWeight(long maximumWeight) {
+      if (maximumWeight < 1) {
+        throw new IllegalArgumentException("maximumWeight must be positive");
+      }
+      this.maximumWeight = maximumWeight;
+      return this;
+    }
+
+    /**
+     * @param concurrencyLevel the number of independently locked segments, rounded down to a power
+     *     of two
+     * @return this builder
+     */
+    public Builder withConcurrencyLevel(int concurrencyLevel) {
+      if (concurrencyLevel < 1) {
+        throw new IllegalArgumentException("concurrencyLevel must be positive");
+      }
+      this.concurrencyLevel = concurrencyLevel;
+      return this;
+    }
+
+    public InMemoryPersistedQueryStore build() {
+      return new InMemoryPersistedQueryStore(maximumSize, maximumWeight, concurrencyLevel);
+    }
+  }
+}
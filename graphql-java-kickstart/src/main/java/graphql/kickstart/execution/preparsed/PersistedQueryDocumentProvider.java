@@ -0,0 +1,179 @@
+package graphql.kickstart.execution.preparsed;
+
+import static graphql.execution.preparsed.persisted.PersistedQuerySupport.PERSISTED_QUERY_MARKER;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import graphql.ExecutionInput;
+import graphql.GraphqlErrorBuilder;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.execution.preparsed.PreparsedDocumentProvider;
+import graphql.execution.preparsed.persisted.PersistedQueryError;
+import graphql.execution.preparsed.persisted.PersistedQueryIdInvalid;
+import graphql.execution.preparsed.persisted.PersistedQueryNotFound;
+import graphql.schema.GraphQLSchema;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Implements Apollo style automatic persisted queries. Requests carrying a {@code
+ * persistedQuery.sha256Hash} extension are resolved against a {@link PersistedQueryStore}: when only
+ * the hash is sent and the store does not know it, a {@code PersistedQueryNotFound} error is
+ * returned, and when the client retries with the full query the query is verified against the hash
+ * and registered.
+ *
+ * <p>Resolved queries are handed to a delegate provider, by default a {@link
+ * CachingPreparsedDocumentProvider}, so a query known to the store is not parsed and validated
+ * again.
+ */
+public class PersistedQueryDocumentProvider implements SchemaAwarePreparsedDocumentProvider {
+
+  private static final String PERSISTED_QUERY = "persistedQuery";
+  private static final String SHA256_HASH = "sha256Hash";
+  private static final String PERSISTED_QUERY_ID = "persistedQueryId";
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  private final PersistedQueryStore store;
+  private final PreparsedDocumentProvider delegate;
+
+  protected PersistedQueryDocumentProvider(
+      PersistedQueryStore store, PreparsedDocumentProvider delegate) {
+    this.store = store;
+    this.delegate = delegate;
+  }
+
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  /**
+   * @param extensions the extensions of a GraphQL request
+   * @return the persisted query hash contained in the extensions in lower case, or {@literal null}
+   *     if the request is not a persisted query
+   */
+  public static String getPersistedQueryHash(Map<String, Object> extensions) {
+    if (extensions == null) {
+      return null;
+    }
+    Object persistedQuery = extensions.get(PERSISTED_QUERY);
+    if (!(persistedQuery instanceof Map)) {
+      return null;
+    }
+    Object hash = ((Map<?, ?>) persistedQuery).get(SHA256_HASH);
+    return hash instanceof String ? ((String) hash).toLowerCase(Locale.ROOT) : null;
+  }
+
+  @Override
+  public PreparsedDocumentProvider forSchema(GraphQLSchema schema) {
+    if (delegate instanceof SchemaAwarePreparsedDocumentProvider) {
+      return new PersistedQueryDocumentProvider(
+          store, ((SchemaAwarePreparsedDocumentProvider) delegate).forSchema(schema));
+    }
+    return this;
+  }
+
+  /** @deprecated use {@link #getDocumentAsync(ExecutionInput, Function)} */
+  @Override
+  @Deprecated
+  @SuppressWarnings("deprecation")
+  public PreparsedDocumentEntry getDocument(
+      ExecutionInput executionInput,
+      Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidateFunction) {
+    return CachingPreparsedDocumentProvider.join(
+        getDocumentAsync(executionInput, parseAndValidateFunction));
+  }
+
+  @Override
+  public CompletableFuture<PreparsedDocumentEntry> getDocumentAsync(
+      ExecutionInput executionInput,
+      Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidateFunction) {
+    String hash = getPersistedQueryHash(executionInput.getExtensions());
+    if (hash == null) {
+      return delegate.getDocumentAsync(executionInput, parseAndValidateFunction);
+    }
+
+    String query = executionInput.getQuery();
+    if (query == null || query.isBlank() || PERSISTED_QUERY_MARKER.equals(query)) {
+      String registered = store.getQuery(hash);
+      if (registered == null) {
+        return CompletableFuture.completedFuture(error(new PersistedQueryNotFound(hash), hash));
+      }
+      return delegate.getDocumentAsync(
+          executionInput.transform(builder -> builder.query(registered)),
+          parseAndValidateFunction);
+    }
+
+    if (!hash.equals(sha256(query))) {
+      return CompletableFuture.completedFuture(error(new PersistedQueryIdInvalid(hash), hash));
+    }
+    return delegate
+        .getDocumentAsync(executionInput, parseAndValidateFunction)
+        .thenApply(
+            entry -> {
+              if (!entry.hasErrors()) {
+                store.putQuery(hash, query);
+              }
+              return entry;
+            });
+  }
+
+  private static PreparsedDocumentEntry error(PersistedQueryError error, String hash) {
+    return new PreparsedDocumentEntry(
+        GraphqlErrorBuilder.newError()
+            .errorType(error)
+            .message(error.getMessage())
+            .extensions(Collections.singletonMap(PERSISTED_QUERY_ID, hash))
+            .build());
+  }
+
+  private static String sha256(String query) {
+    byte[] digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256").digest(query.getBytes(UTF_8));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not supported", e);
+    }
+    char[] hex = new char[digest.length * 2];
+    for (int i = 0; i < digest.length; i++) {
+      hex[i * 2] = HEX[(digest[i] >> 4) & 0xF];
+      hex[i * 2 + 1] = HEX[digest[i] & 0xF];
+    }
+    return new String(hex);
+  }
+
+  public static class Builder {
+
+    private PersistedQueryStore store;
+    private PreparsedDocumentProvider delegate;
+
+    /**
+     * @param store the store registered queries are kept in, defaults to an {@link
+     *     InMemoryPersistedQueryStore}
+     * @return this builder
+     */
+    public Builder withStore(PersistedQueryStore store) {
+      this.store = store;
+      return this;
+    }
+
+    /**
+     * @param delegate the provider resolved queries are parsed and validated with, defaults to a
+     *     {@link CachingPreparsedDocumentProvider}
+     * @return this builder
+     */
+    public Builder withPreparsedDocumentProvider(PreparsedDocumentProvider delegate) {
+      this.delegate = delegate;
+      return this;
+    }
+
+    public PersistedQueryDocumentProvider build() {
+      return new PersistedQueryDocumentProvider(
+          store != null ? store : InMemoryPersistedQueryStore.newBuilder().build(),
+          delegate != null ? delegate : CachingPreparsedDocumentProvider.newBuilder().build());
+    }
+  }
+}
@@ -0,0 +1,22 @@
+package graphql.kickstart.execution.preparsed;
+
+/**
+ * Storage of the query texts registered through automatic persisted queries, keyed by the SHA-256
+ * hash of the query text. Implementations are expected to be bounded and thread safe.
+ */
+public interface PersistedQueryStore {
+
+  /**
+   * @param hash the lower case hex encoded SHA-256 hash of the query text
+   * @return the registered query text, or {@literal null} if it is not (or no longer) known
+   */
+  String getQuery(String hash);
+
+  /**
+   * Registers a query text. Only called once the hash has been verified against the query.
+   *
+   * @param hash the lower case hex encoded SHA-256 hash of the query text
+   * @param query the query text
+   */
+  void putQuery(String hash, String query);
+}
@@ -0,0 +1,91 @@
+package graphql.kickstart.execution.preparsed;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Normalizes GraphQL query text so that queries differing only in insignificant whitespace, commas
+ * or comments map to the same cache key. String values, including block strings, are kept as is.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class QueryNormalizer {
+
+  static String normalize(String query) {
+    if (query == null) {
+      return "";
+    }
+    StringBuilder normalized = new StringBuilder(query.length());
+    boolean pendingSeparator = false;
+    int length = query.length();
+    int i = 0;
+    while (i < length) {
+      char c = query.charAt(i);
+      if (isIgnored(c)) {
+        pendingSeparator = normalized.length() > 0;
+        i++;
+        continue;
+      }
+      if (c == '#') {
+        i = skipComment(query, i);
+        pendingSeparator = normalized.length() > 0;
+        continue;
+      }
+      if (pendingSeparator) {
+        normalized.append(' ');
+        pendingSeparator = false;
+      }
+      if (c == '"') {
+        i = appendString(query, i, normalized);
+      } else {
+        normalized.append(c);
+        i++;
+      }
+    }
+    return normalized.toString();
+  }
+
+  private static boolean isIgnored(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == ',' || c == '\uFEFF';
+  }
+
+  private static int skipComment(String query, int start) {
+    int i = start;
+    while (i < query.length() && query.charAt(i) != '\n' && query.charAt(i) != '\r') {
+      i++;
+    }
+    return i;
+  }
+
+  /** Copies the string literal starting at {@code start} and returns the index following it. */
+  private static int appendString(String query, int start, StringBuilder target) {
+    int length = query.length();
+    boolean block = query.startsWith("\"\"\"", start);
+    int i = start + (block ? 3 : 1);
+    while (i < length) {
+      char c = query.charAt(i);
+      if (block) {
+        if (c == '\\' && query.startsWith("\\\"\"\"", i)) {
+          i += 4;
+          continue;
+        }
+        if (query.startsWith("\"\"\"", i)) {
+          i += 3;
+          break;
+        }
+      } else {
+        if (c == '\\') {
+          i += 2;
+          continue;
+        }
+        if (c == '"' || c == '\n' || c == '\r') {
+          i++;
+          break;
+        }
+      }
+      i++;
+    }
+    int end = Math.min(i, length);
+    target.append(query, start, end);
+    return end;
+  }
+}
@@ -0,0 +1,18 @@
+package graphql.kickstart.execution.preparsed;
+
+import graphql.execution.preparsed.PreparsedDocumentProvider;
+import graphql.schema.GraphQLSchema;
+
+/**
+ * A {@link PreparsedDocumentProvider} keeping state that depends on the schema documents are
+ * validated against. {@link graphql.kickstart.execution.config.GraphQLBuilder} hands every schema
+ * its own view through {@link #forSchema(GraphQLSchema)}.
+ */
+public interface SchemaAwarePreparsedDocumentProvider extends PreparsedDocumentProvider {
+
+  /**
+   * @param schema the schema documents are validated against
+   * @return a provider sharing the storage of this provider, scoped to the given schema
+   */
+  PreparsedDocumentProvider forSchema(GraphQLSchema schema);
+}
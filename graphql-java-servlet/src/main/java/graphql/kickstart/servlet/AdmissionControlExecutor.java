@@ -0,0 +1,332 @@
+package graphql.kickstart.servlet;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Async executor admitting a bounded number of concurrently running and waiting requests. Once the
+ * queue is full new requests are either rejected, answered with status 503 by {@link
+ * HttpRequestInvokerImpl}, or admitted by shedding the request waiting the longest.
+ *
+ * <p>Requests of an operation with a concurrency limit wait while that many requests of the same
+ * operation are running, without holding back requests of other operations. Waiting requests are
+ * started in arrival order on the delegate executor.
+ *
+ * <p>Set it with {@link GraphQLConfiguration.Builder#with(java.util.concurrent.Executor)}.
+ */
+@Slf4j
+public class AdmissionControlExecutor implements Executor {
+
+  public enum RejectionPolicy {
+    /** Rejects the new request. */
+    FAIL_FAST,
+    /** Rejects the request waiting the longest, and queues the new request. */
+    SHED_OLDEST
+  }
+
+  private final Executor delegate;
+  private final int maxConcurrency;
+  private final int maxQueueSize;
+  private final RejectionPolicy rejectionPolicy;
+  private final Map<String, Integer> operationLimits;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Deque<Pending> queue = new ArrayDeque<>();
+  private final Map<String, Integer> runningByOperation = new HashMap<>();
+  private int running;
+
+  private final LongAdder admittedCount = new LongAdder();
+  private final LongAdder rejectedCount = new LongAdder();
+  private final LongAdder totalQueueTimeNanos = new LongAdder();
+  private final AtomicLong maxQueueTimeNanos = new AtomicLong();
+
+  protected AdmissionControlExecutor(
+      Executor delegate,
+      int maxConcurrency,
+      int maxQueueSize,
+      RejectionPolicy rejectionPolicy,
+      Map<String, Integer> operationLimits) {
+    this.delegate = delegate;
+    this.maxConcurrency = maxConcurrency;
+    this.maxQueueSize = maxQueueSize;
+    this.rejectionPolicy = rejectionPolicy;
+    this.operationLimits = operationLimits;
+  }
+
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  @Override
+  public void execute(@NonNull Runnable command) {
+    Pending pending = new Pending(command, getOperationName(command), System.nanoTime());
+    List<Pending> startable;
+    Pending rejected = null;
+    lock.lock();
+    try {
+      queue.addLast(pending);
+      startable = pollStartable();
+      if (queue.size() > maxQueueSize) {
+        // requests that timed out while waiting are answered already and do not count
+        queue.removeIf(Pending::isCancelled);
+      }
+      if (queue.size() > maxQueueSize) {
+        rejected = rejectionPolicy == RejectionPolicy.FAIL_FAST ? pending : queue.peekFirst();
+        queue.remove(rejected);
+      }
+    } finally {
+      lock.unlock();
+    }
+    startAll(startable);
+    if (rejected == pending) {
+      rejectedCount.increment();
+      throw new RejectedExecutionException("Too many requests waiting for execution");
+    }
+    if (rejected != null) {
+      reject(rejected, new RejectedExecutionException("Request shed to admit a newer request"));
+    }
+  }
+
+  private String getOperationName(Runnable command) {
+    return command instanceof AsyncRequestTask
+        ? ((AsyncRequestTask) command).getOperationName()
+        : null;
+  }
+
+  /**
+   * Removes the waiting tasks that may start now from the queue, dropping the cancelled ones on the
+   * way, must hold the lock.
+   */
+  private List<Pending> pollStartable() {
+    List<Pending> startable = new ArrayList<>();
+    Iterator<Pending> iterator = queue.iterator();
+    while (running < maxConcurrency && iterator.hasNext()) {
+      Pending pending = iterator.next();
+      if (pending.isCancelled()) {
+        iterator.remove();
+        continue;
+      }
+      if (pending.operationName != null) {
+        Integer limit = operationLimits.get(pending.operationName);
+        int runningOperations = runningByOperation.getOrDefault(pending.operationName, 0);
+        if (limit != null && runningOperations >= limit) {
+          continue;
+        }
+        runningByOperation.put(pending.operationName, runningOperations + 1);
+      }
+      iterator.remove();
+      running++;
+      startable.add(pending);
+    }
+    return startable;
+  }
+
+  private void startAll(List<Pending> startable) {
+    for (Pending pending : startable) {
+      try {
+        delegate.execute(() -> run(pending));
+      } catch (RejectedExecutionException e) {
+        finished(pending);
+        reject(pending, e);
+      }
+    }
+  }
+
+  private void run(Pending pending) {
+    long queueTime = System.nanoTime() - pending.queuedAt;
+    admittedCount.increment();
+    totalQueueTimeNanos.add(queueTime);
+    maxQueueTimeNanos.accumulateAndGet(queueTime, Math::max);
+    try {
+      pending.command.run();
+    } finally {
+      finished(pending);
+    }
+  }
+
+  private void finished(Pending pending) {
+    List<Pending> startable;
+    lock.lock();
+    try {
+      running--;
+      if (pending.operationName != null) {
+        runningByOperation.computeIfPresent(
+            pending.operationName, (name, count) -> count > 1 ? count - 1 : null);
+      }
+      startable = pollStartable();
+    } finally {
+      lock.unlock();
+    }
+    startAll(startable);
+  }
+
+  private void reject(Pending pending, RejectedExecutionException e) {
+    if (pending.isCancelled()) {
+      return;
+    }
+    rejectedCount.increment();
+    if (pending.command instanceof AsyncRequestTask) {
+      ((AsyncRequestTask) pending.command).reject(e);
+    } else {
+      log.warn("Dropped task {}", pending.command, e);
+    }
+  }
+
+  /** @return the number of tasks that were started */
+  public long getAdmittedCount() {
+    return admittedCount.sum();
+  }
+
+  /** @return the number of tasks that were rejected or shed */
+  public long getRejectedCount() {
+    return rejectedCount.sum();
+  }
+
+  /** @return the average time started tasks waited in the queue */
+  public Duration getAverageQueueTime() {
+    long admitted = admittedCount.sum();
+    return Duration.ofNanos(admitted == 0 ? 0 : totalQueueTimeNanos.sum() / admitted);
+  }
+
+  /** @return the longest time a started task waited in the queue */
+  public Duration getMaxQueueTime() {
+    return Duration.ofNanos(maxQueueTimeNanos.get());
+  }
+
+  /** @return the number of tasks currently waiting */
+  public int getQueueSize() {
+    lock.lock();
+    try {
+      return queue.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** @return the number of tasks currently running */
+  public int getActiveCount() {
+    lock.lock();
+    try {
+      return running;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private static final class Pending {
+
+    private final Runnable command;
+    private final String operationName;
+    private final long queuedAt;
+
+    private Pending(Runnable command, String operationName, long queuedAt) {
+      this.command = command;
+      this.operationName = operationName;
+      this.queuedAt = queuedAt;
+    }
+
+    // a request that timed out while waiting is answered already
+    private boolean isCancelled() {
+      return command instanceof AsyncRequestTask && ((AsyncRequestTask) command).isCancelled();
+    }
+  }
+
+  public static class Builder {
+
+    private Executor executor;
+    private int maxConcurrency = 200;
+    private int maxQueueSize = 1000;
+    private RejectionPolicy rejectionPolicy = RejectionPolicy.FAIL_FAST;
+    private final Map<String, Integer> operationLimits = new HashMap<>();
+
+    /**
+     * @param executor executor running the admitted tasks, by default a pool of {@code
+     *     maxConcurrency} threads
+     * @return this builder
+     */
+    public Builder withExecutor(Executor executor) {
+      this.executor = executor;
+      return this;
+    }
+
+    /**
+     * @param maxConcurrency the maximum number of tasks running at the same time
+     * @return this builder
+     */
+    public Builder withMaxConcurrency(int maxConcurrency) {
+      if (maxConcurrency < 1) {
+        throw new IllegalArgumentException("maxConcurrency must be positive");
+      }
+      this.maxConcurrency = maxConcurrency;
+      return this;
+    }
+
+    /**
+     * @param maxQueueSize the maximum number of tasks waiting to be started
+     * @return this builder
+     */
+    public Builder withMaxQueueSize(int maxQueueSize) {
+      if (maxQueueSize < 0) {
+        throw new IllegalArgumentException("maxQueueSize must not be negative");
+      }
+      this.maxQueueSize = maxQueueSize;
+      return this;
+    }
+
+    /**
+     * @param rejectionPolicy what to do with a task when the queue is full
+     * @return this builder
+     */
+    public Builder withRejectionPolicy(@NonNull RejectionPolicy rejectionPolicy) {
+      this.rejectionPolicy = rejectionPolicy;
+      return this;
+    }
+
+    /**
+     * @param operationName name of the GraphQL operation
+     * @param maxConcurrency the maximum number of requests of that operation running at the same
+     *     time
+     * @return this builder
+     */
+    public Builder withOperationLimit(@NonNull String operationName, int maxConcurrency) {
+      if (maxConcurrency < 1) {
+        throw new IllegalArgumentException("maxConcurrency must be positive");
+      }
+      operationLimits.put(operationName, maxConcurrency);
+      return this;
+    }
+
+    public AdmissionControlExecutor build() {
+      return new AdmissionControlExecutor(
+          executor != null ? executor : createExecutor(),
+          maxConcurrency,
+          maxQueueSize,
+          rejectionPolicy,
+          new HashMap<>(operationLimits));
+    }
+
+    private Executor createExecutor() {
+      ThreadPoolExecutor threadPoolExecutor =
+          new ThreadPoolExecutor(
+              maxConcurrency, maxConcurrency, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+      threadPoolExecutor.allowCoreThreadTimeOut(true);
+      return threadPoolExecutor;
+    }
+  }
+}
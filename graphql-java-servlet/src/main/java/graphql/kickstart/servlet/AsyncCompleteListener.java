@@ -0,0 +1,14 @@
+package graphql.kickstart.servlet;
+
+import java.io.IOException;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+
+interface AsyncCompleteListener extends AsyncListener {
+
+  default void onTimeout(AsyncEvent event) throws IOException {}
+
+  default void onError(AsyncEvent event) throws IOException {}
+
+  default void onStartAsync(AsyncEvent event) throws IOException {}
+}
@@ -0,0 +1,101 @@
+package graphql.kickstart.servlet;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Listens to an async context on behalf of the listeners added once the container dispatch that
+ * started it has returned. The Servlet specification only allows setting the timeout of the
+ * context and adding listeners during that dispatch, so a request that is executed later, from
+ * another thread, starts its context with {@link #startAsync} and adds its listeners here.
+ */
+public final class AsyncContextListeners implements AsyncListener {
+
+  private static final String ATTRIBUTE = AsyncContextListeners.class.getName();
+
+  private final List<AsyncListener> listeners = new ArrayList<>();
+  private boolean done;
+
+  private AsyncContextListeners() {}
+
+  /**
+   * Starts the async context of the request if needed and, the first time, sets its timeout and
+   * registers the listeners of the request with it. Must be called during the container dispatch
+   * the first time, later calls reuse the configured context from any thread.
+   *
+   * @param timeout the timeout of the context in milliseconds
+   * @return the async context of the request
+   */
+  public static AsyncContext startAsync(
+      HttpServletRequest request, HttpServletResponse response, long timeout) {
+    AsyncContext asyncContext =
+        request.isAsyncStarted()
+            ? request.getAsyncContext()
+            : request.startAsync(request, response);
+    if (of(request) == null) {
+      AsyncContextListeners listeners = new AsyncContextListeners();
+      asyncContext.setTimeout(timeout);
+      asyncContext.addListener(listeners);
+      request.setAttribute(ATTRIBUTE, listeners);
+    }
+    return asyncContext;
+  }
+
+  /**
+   * @return the listeners of the async context started with {@link #startAsync}, or {@literal
+   *     null} if the context was not started with it
+   */
+  public static AsyncContextListeners of(HttpServletRequest request) {
+    return (AsyncContextListeners) request.getAttribute(ATTRIBUTE);
+  }
+
+  /**
+   * @param listener the listener to call when the context completes, times out or fails
+   * @return {@literal false} when the context already completed, timed out or failed, the
+   *     listener is then not called
+   */
+  public synchronized boolean add(AsyncListener listener) {
+    if (done) {
+      return false;
+    }
+    listeners.add(listener);
+    return true;
+  }
+
+  private synchronized List<AsyncListener> finish() {
+    done = true;
+    return new ArrayList<>(listeners);
+  }
+
+  @Override
+  public void onComplete(AsyncEvent event) throws IOException {
+    for (AsyncListener listener : finish()) {
+      listener.onComplete(event);
+    }
+  }
+
+  @Override
+  public void onTimeout(AsyncEvent event) throws IOException {
+    for (AsyncListener listener : finish()) {
+      listener.onTimeout(event);
+    }
+  }
+
+  @Override
+  public void onError(AsyncEvent event) throws IOException {
+    for (AsyncListener listener : finish()) {
+      listener.onError(event);
+    }
+  }
+
+  @Override
+  public void onStartAsync(AsyncEvent event) {
+    // the context is only started once
+  }
+}
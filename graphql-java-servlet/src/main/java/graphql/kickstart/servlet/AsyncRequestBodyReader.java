@@ -0,0 +1,199 @@
+package graphql.kickstart.servlet;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+
+/**
+ * Reads a request body through a {@link ReadListener} into chunks of a {@link
+ * RequestBodyBufferPool}, so no container thread blocks on a slow client. Requires an async started
+ * request. Once the last byte has arrived the returned future completes with a request whose body
+ * is served from memory. The chunks must be returned to the pool with {@link #release()} once that
+ * request is no longer used.
+ */
+class AsyncRequestBodyReader implements ReadListener {
+
+  private final HttpServletRequest request;
+  private final ServletInputStream inputStream;
+  private final RequestBodyBufferPool bufferPool;
+  private final long maxRequestBodySize;
+  private final List<byte[]> chunks = new ArrayList<>();
+  private final CompletableFuture<HttpServletRequest> body = new CompletableFuture<>();
+  private byte[] chunk;
+  private int position;
+  private long length;
+  private boolean released;
+
+  private AsyncRequestBodyReader(
+      HttpServletRequest request, RequestBodyBufferPool bufferPool, long maxRequestBodySize)
+      throws IOException {
+    this.request = request;
+    this.inputStream = request.getInputStream();
+    this.bufferPool = bufferPool;
+    this.maxRequestBodySize = maxRequestBodySize;
+  }
+
+  static AsyncRequestBodyReader start(
+      HttpServletRequest request, RequestBodyBufferPool bufferPool, long maxRequestBodySize)
+      throws IOException {
+    AsyncRequestBodyReader reader =
+        new AsyncRequestBodyReader(request, bufferPool, maxRequestBodySize);
+    reader.inputStream.setReadListener(reader);
+    return reader;
+  }
+
+  /** @return a future completing with the request backed by the buffered body */
+  CompletableFuture<HttpServletRequest> getBody() {
+    return body;
+  }
+
+  /** Returns the buffered chunks to the pool. */
+  synchronized void release() {
+    if (!released) {
+      released = true;
+      bufferPool.release(chunks);
+      chunks.clear();
+    }
+  }
+
+  @Override
+  public synchronized void onDataAvailable() throws IOException {
+    while (!released && !body.isDone() && inputStream.isReady()) {
+      if (chunk == null || position == chunk.length) {
+        chunk = bufferPool.acquire();
+        chunks.add(chunk);
+        position = 0;
+      }
+      int read = inputStream.read(chunk, position, chunk.length - position);
+      if (read == -1) {
+        return;
+      }
+      position += read;
+      length += read;
+      if (length > maxRequestBodySize) {
+        body.completeExceptionally(new RequestBodyTooLargeException(maxRequestBodySize));
+      }
+    }
+  }
+
+  @Override
+  public synchronized void onAllDataRead() {
+    body.complete(new BufferedBodyRequest(request, new ArrayList<>(chunks), length));
+  }
+
+  @Override
+  public void onError(Throwable t) {
+    body.completeExceptionally(t);
+  }
+
+  private static class BufferedBodyRequest extends HttpServletRequestWrapper {
+
+    private final List<byte[]> chunks;
+    private final long length;
+
+    BufferedBodyRequest(HttpServletRequest request, List<byte[]> chunks, long length) {
+      super(request);
+      this.chunks = chunks;
+      this.length = length;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() {
+      return new ChunkInputStream(chunks, length);
+    }
+
+    @Override
+    public BufferedReader getReader() {
+      String encoding = getCharacterEncoding();
+      Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+      return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+    }
+
+    @Override
+    public int getContentLength() {
+      return length > Integer.MAX_VALUE ? -1 : (int) length;
+    }
+
+    @Override
+    public long getContentLengthLong() {
+      return length;
+    }
+  }
+
+  private static class ChunkInputStream extends ServletInputStream {
+
+    private final List<byte[]> chunks;
+    private long remaining;
+    private int index;
+    private int position;
+
+    ChunkInputStream(List<byte[]> chunks, long length) {
+      this.chunks = chunks;
+      this.remaining = length;
+    }
+
+    @Override
+    public int read() {
+      if (remaining == 0) {
+        return -1;
+      }
+      byte[] chunk = nextChunk();
+      remaining--;
+      return chunk[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+      if (len == 0) {
+        return 0;
+      }
+      if (remaining == 0) {
+        return -1;
+      }
+      byte[] chunk = nextChunk();
+      int read = (int) Math.min(Math.min(len, chunk.length - position), remaining);
+      System.arraycopy(chunk, position, b, off, read);
+      position += read;
+      remaining -= read;
+      return read;
+    }
+
+    @Override
+    public int available() {
+      return (int) Math.min(remaining, Integer.MAX_VALUE);
+    }
+
+    private byte[] nextChunk() {
+      byte[] chunk = chunks.get(index);
+      if (position == chunk.length) {
+        chunk = chunks.get(++index);
+        position = 0;
+      }
+      return chunk;
+    }
+
+    @Override
+    public boolean isFinished() {
+      return remaining == 0;
+    }
+
+    @Override
+    public boolean isReady() {
+      return true;
+    }
+
+    @Override
+    public void setReadListener(ReadListener readListener) {
+      throw new IllegalStateException("The request body has already been read");
+    }
+  }
+}
@@ -0,0 +1,82 @@
+package graphql.kickstart.servlet;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Task executing an async request, carrying what an {@link AdmissionControlExecutor} needs to
+ * schedule it and to answer the request when the task is shed. A task runs, is rejected or is
+ * cancelled at most once, also across the copies made by {@link #decorate(AsyncTaskDecorator)}.
+ */
+class AsyncRequestTask implements Runnable {
+
+  private static final int NEW = 0;
+  private static final int DONE = 1;
+  private static final int CANCELLED = 2;
+
+  private final String operationName;
+  private final Runnable runnable;
+  private final Consumer<RejectedExecutionException> rejectionHandler;
+  private final AtomicInteger state;
+
+  AsyncRequestTask(
+      String operationName,
+      Runnable runnable,
+      Consumer<RejectedExecutionException> rejectionHandler) {
+    this(operationName, runnable, rejectionHandler, new AtomicInteger(NEW));
+  }
+
+  private AsyncRequestTask(
+      String operationName,
+      Runnable runnable,
+      Consumer<RejectedExecutionException> rejectionHandler,
+      AtomicInteger state) {
+    this.operationName = operationName;
+    this.runnable = runnable;
+    this.rejectionHandler = rejectionHandler;
+    this.state = state;
+  }
+
+  String getOperationName() {
+    return operationName;
+  }
+
+  /**
+   * Cancels the task if it has neither run nor been rejected yet, e.g. when the request timed out
+   * while waiting for execution.
+   *
+   * @return whether the task was cancelled, otherwise it already ran or was rejected
+   */
+  boolean cancel() {
+    return state.compareAndSet(NEW, CANCELLED);
+  }
+
+  boolean isCancelled() {
+    return state.get() == CANCELLED;
+  }
+
+  /** Called instead of {@link #run()} when the task is dropped without being executed. */
+  void reject(RejectedExecutionException e) {
+    if (state.compareAndSet(NEW, DONE)) {
+      rejectionHandler.accept(e);
+    }
+  }
+
+  /**
+   * The decorator wraps the request itself, so the decorated task still runs at most once.
+   *
+   * @return this task running the request decorated by the given decorator instead
+   */
+  AsyncRequestTask decorate(AsyncTaskDecorator taskDecorator) {
+    return new AsyncRequestTask(
+        operationName, taskDecorator.decorate(runnable), rejectionHandler, state);
+  }
+
+  @Override
+  public void run() {
+    if (state.compareAndSet(NEW, DONE)) {
+      runnable.run();
+    }
+  }
+}
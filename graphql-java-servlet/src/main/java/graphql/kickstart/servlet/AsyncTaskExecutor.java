@@ -13,8 +13,10 @@ class AsyncTaskExecutor implements Executor {
   @Override
   public void execute(@NonNull Runnable command) {
     if (taskDecorator != null) {
-      Runnable decorated = taskDecorator.decorate(command);
-      executor.execute(decorated);
+      executor.execute(
+          command instanceof AsyncRequestTask
+              ? ((AsyncRequestTask) command).decorate(taskDecorator)
+              : taskDecorator.decorate(command));
     } else {
       executor.execute(command);
     }
@@ -3,9 +3,11 @@ package graphql.kickstart.servlet;
 import graphql.ExecutionResult;
 import graphql.kickstart.execution.GraphQLObjectMapper;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
@@ -16,9 +18,38 @@ import lombok.extern.slf4j.Slf4j;
 class BatchedQueryResponseWriter implements QueryResponseWriter {
   private final List<ExecutionResult> results;
   private final GraphQLObjectMapper graphQLObjectMapper;
+  private final boolean nonBlocking;
+
+  BatchedQueryResponseWriter(
+      List<ExecutionResult> results, GraphQLObjectMapper graphQLObjectMapper) {
+    this(results, graphQLObjectMapper, false);
+  }
 
   @Override
   public void write(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    for (byte[] result : prepare(response)) {
+      response.getOutputStream().write(result);
+    }
+  }
+
+  @Override
+  public CompletableFuture<Void> writeAsync(
+      HttpServletRequest request, HttpServletResponse response) {
+    if (!nonBlocking || !request.isAsyncStarted()) {
+      return QueryResponseWriter.super.writeAsync(request, response);
+    }
+    try {
+      List<byte[]> serializedResults = prepare(response);
+      NonBlockingResponseOutput output = NonBlockingResponseOutput.start(response);
+      serializedResults.forEach(output::add);
+      output.close();
+      return output.getCompletion();
+    } catch (IOException e) {
+      return CompletableFuture.failedFuture(new UncheckedIOException(e));
+    }
+  }
+
+  private List<byte[]> prepare(HttpServletResponse response) {
     response.setCharacterEncoding(StandardCharsets.UTF_8.name());
     response.setContentType(HttpRequestHandler.APPLICATION_JSON_UTF8);
     response.setStatus(HttpRequestHandler.STATUS_OK);
@@ -52,9 +83,6 @@ class BatchedQueryResponseWriter implements QueryResponseWriter {
           "Response size exceed 2GiB. Query will fail. Seen size: " + totalLength);
     }
     response.setContentLength((int) totalLength);
-
-    for (byte[] result : serializedResults) {
-      response.getOutputStream().write(result);
-    }
+    return serializedResults;
   }
 }
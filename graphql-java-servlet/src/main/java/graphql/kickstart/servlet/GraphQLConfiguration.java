@@ -23,7 +23,9 @@ import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
 
+@Slf4j
 public class GraphQLConfiguration {
 
   private final GraphQLInvocationInputFactory invocationInputFactory;
@@ -35,7 +37,19 @@ public class GraphQLConfiguration {
   @Getter private final long asyncTimeout;
   private final ContextSetting contextSetting;
   private final GraphQLResponseCacheManager responseCacheManager;
+  @Getter private final long responseCacheCoalescingTimeout;
+  @Getter private final int responseCacheCompressionThreshold;
   @Getter private final Executor asyncExecutor;
+  @Getter private final boolean streamingRequestBody;
+  @Getter private final long maxRequestBodySize;
+  @Getter private final boolean incrementalBatchExecution;
+  @Getter private final boolean streamingBatchedResponse;
+  @Getter private final boolean flushStreamedResults;
+  @Getter private final boolean nonBlockingResponse;
+  @Getter private final boolean asyncRequestBody;
+  @Getter private final boolean etag;
+  @Getter private final String readOnlyCacheControl;
+  private final RequestBodyBufferPool requestBodyBufferPool;
   private HttpRequestHandler requestHandler;
 
   private GraphQLConfiguration(
@@ -49,9 +63,31 @@ public class GraphQLConfiguration {
       ContextSetting contextSetting,
       Supplier<BatchInputPreProcessor> batchInputPreProcessor,
       GraphQLResponseCacheManager responseCacheManager,
-      Executor asyncExecutor) {
+      long responseCacheCoalescingTimeout,
+      int responseCacheCompressionThreshold,
+      Executor asyncExecutor,
+      boolean streamingRequestBody,
+      long maxRequestBodySize,
+      boolean incrementalBatchExecution,
+      boolean streamingBatchedResponse,
+      boolean flushStreamedResults,
+      boolean nonBlockingResponse,
+      boolean asyncRequestBody,
+      RequestBodyBufferPool requestBodyBufferPool,
+      boolean etag,
+      String readOnlyCacheControl) {
     this.invocationInputFactory = invocationInputFactory;
     this.asyncExecutor = asyncExecutor;
+    this.streamingRequestBody = streamingRequestBody;
+    this.maxRequestBodySize = maxRequestBodySize;
+    this.incrementalBatchExecution = incrementalBatchExecution;
+    this.streamingBatchedResponse = streamingBatchedResponse;
+    this.flushStreamedResults = flushStreamedResults;
+    this.nonBlockingResponse = nonBlockingResponse;
+    this.asyncRequestBody = asyncRequestBody;
+    this.requestBodyBufferPool = requestBodyBufferPool;
+    this.etag = etag;
+    this.readOnlyCacheControl = readOnlyCacheControl;
     this.graphQLInvoker = graphQLInvoker != null ? graphQLInvoker : queryInvoker.toGraphQLInvoker();
     this.objectMapper = objectMapper;
     this.listeners = listeners;
@@ -60,6 +96,8 @@ public class GraphQLConfiguration {
     this.contextSetting = contextSetting;
     this.batchInputPreProcessor = batchInputPreProcessor;
     this.responseCacheManager = responseCacheManager;
+    this.responseCacheCoalescingTimeout = responseCacheCoalescingTimeout;
+    this.responseCacheCompressionThreshold = responseCacheCompressionThreshold;
   }
 
   public static GraphQLConfiguration.Builder with(GraphQLSchema schema) {
@@ -115,6 +153,10 @@ public class GraphQLConfiguration {
     return responseCacheManager;
   }
 
+  RequestBodyBufferPool getRequestBodyBufferPool() {
+    return requestBodyBufferPool;
+  }
+
   public HttpRequestHandler getHttpRequestHandler() {
     if (requestHandler == null) {
       requestHandler = createHttpRequestHandler();
@@ -144,10 +186,24 @@ public class GraphQLConfiguration {
     private Supplier<BatchInputPreProcessor> batchInputPreProcessorSupplier =
         NoOpBatchInputPreProcessor::new;
     private GraphQLResponseCacheManager responseCacheManager;
+    private long responseCacheCoalescingTimeout = 0;
+    private int responseCacheCompressionThreshold = -1;
     private int asyncCorePoolSize = 10;
     private int asyncMaxPoolSize = 200;
     private Executor asyncExecutor;
+    private boolean asyncVirtualThreads = false;
     private AsyncTaskDecorator asyncTaskDecorator;
+    private boolean streamingRequestBody = false;
+    private long maxRequestBodySize = Long.MAX_VALUE;
+    private boolean incrementalBatchExecution = false;
+    private boolean streamingBatchedResponse = false;
+    private boolean flushStreamedResults = false;
+    private boolean nonBlockingResponse = false;
+    private boolean asyncRequestBody = false;
+    private boolean etag = false;
+    private String readOnlyCacheControl;
+    private int requestBodyChunkSize = 8192;
+    private int maxPooledRequestBodyChunks = 1024;
 
     private Builder(GraphQLInvocationInputFactory.Builder invocationInputFactoryBuilder) {
       this.invocationInputFactoryBuilder = invocationInputFactoryBuilder;
@@ -218,6 +274,17 @@ public class GraphQLConfiguration {
       return this;
     }
 
+    /**
+     * Executes async requests on a virtual thread per task instead of the platform thread pool.
+     * Runtimes without virtual threads (before Java 21) fall back to a pool growing up to {@link
+     * #asyncMaxPoolSize(int)} threads. Ignored when an executor is set with {@link
+     * #with(Executor)}.
+     */
+    public Builder asyncVirtualThreads(boolean asyncVirtualThreads) {
+      this.asyncVirtualThreads = asyncVirtualThreads;
+      return this;
+    }
+
     public Builder with(ContextSetting contextSetting) {
       if (contextSetting != null) {
         this.contextSetting = contextSetting;
@@ -244,15 +311,167 @@ public class GraphQLConfiguration {
       return this;
     }
 
+    /**
+     * Coalesces identical concurrent cacheable requests missing the response cache: a single one is
+     * executed while the others wait up to the given time for its response, and execute on their
+     * own if it fails or takes longer. Requires a {@link GraphQLResponseCacheManager} providing
+     * cache keys, 0 (the default) disables coalescing.
+     *
+     * @param waitTimeout maximum time in milliseconds to wait for the response of an identical
+     *     request
+     * @return this builder
+     */
+    public Builder responseCacheCoalescingTimeout(long waitTimeout) {
+      if (waitTimeout < 0) {
+        throw new IllegalArgumentException("waitTimeout must not be negative");
+      }
+      this.responseCacheCoalescingTimeout = waitTimeout;
+      return this;
+    }
+
+    /**
+     * Cached responses of at least the given size are also stored compressed with gzip and deflate
+     * when they are cached, and served compressed to clients accepting it. Negative values (the
+     * default) disable compression.
+     *
+     * @param minimumSize minimum size in bytes of a response body to compress
+     * @return this builder
+     */
+    public Builder responseCacheCompressionThreshold(int minimumSize) {
+      this.responseCacheCompressionThreshold = minimumSize;
+      return this;
+    }
+
     public Builder with(AsyncTaskDecorator asyncTaskDecorator) {
       this.asyncTaskDecorator = asyncTaskDecorator;
       return this;
     }
 
+    /**
+     * When enabled, POST bodies are parsed directly from the request input stream instead of being
+     * read into a String first. JSON bodies are then decoded according to their byte order mark
+     * (UTF-8 by default) rather than the request character encoding.
+     */
+    public Builder streamingRequestBody(boolean streamingRequestBody) {
+      this.streamingRequestBody = streamingRequestBody;
+      return this;
+    }
+
+    /** Maximum size in bytes of a POST body, larger requests are rejected with status 413. */
+    public Builder maxRequestBodySize(long maxRequestBodySize) {
+      if (maxRequestBodySize < 1) {
+        throw new IllegalArgumentException("maxRequestBodySize must be positive");
+      }
+      this.maxRequestBodySize = maxRequestBodySize;
+      return this;
+    }
+
+    /**
+     * When enabled together with {@link #streamingRequestBody(boolean)}, the queries of a batched
+     * POST body are executed as soon as they are read, instead of after the whole body has been
+     * parsed. Results are still returned in request order.
+     */
+    public Builder incrementalBatchExecution(boolean incrementalBatchExecution) {
+      this.incrementalBatchExecution = incrementalBatchExecution;
+      return this;
+    }
+
+    /**
+     * When enabled, batched responses are written as a chunked JSON array, each result as soon as
+     * it completes, instead of being buffered to compute the content length.
+     */
+    public Builder streamingBatchedResponse(boolean streamingBatchedResponse) {
+      this.streamingBatchedResponse = streamingBatchedResponse;
+      return this;
+    }
+
+    /** Flushes the response after each result of a streamed batched response. */
+    public Builder flushStreamedResults(boolean flushStreamedResults) {
+      this.flushStreamedResults = flushStreamedResults;
+      return this;
+    }
+
+    /**
+     * When enabled, responses of async requests are written through a {@link
+     * jakarta.servlet.WriteListener}, so a slow client does not block an async executor thread.
+     */
+    public Builder nonBlockingResponse(boolean nonBlockingResponse) {
+      this.nonBlockingResponse = nonBlockingResponse;
+      return this;
+    }
+
+    /**
+     * When enabled, POST bodies of requests supporting async processing are read through a {@link
+     * jakarta.servlet.ReadListener} into pooled buffers after starting the async context, so a slow
+     * client does not block a container thread. The request is parsed and executed once the whole
+     * body has arrived. Multipart requests are still read by the container.
+     */
+    public Builder asyncRequestBody(boolean asyncRequestBody) {
+      this.asyncRequestBody = asyncRequestBody;
+      return this;
+    }
+
+    /**
+     * Sizes the buffer pool used by {@link #asyncRequestBody(boolean)}.
+     *
+     * @param chunkSize size in bytes of a pooled buffer chunk
+     * @param maxPooledChunks maximum number of chunks kept for reuse
+     * @return this builder
+     */
+    public Builder requestBodyBufferPool(int chunkSize, int maxPooledChunks) {
+      if (chunkSize < 1) {
+        throw new IllegalArgumentException("chunkSize must be positive");
+      }
+      if (maxPooledChunks < 0) {
+        throw new IllegalArgumentException("maxPooledChunks must not be negative");
+      }
+      this.requestBodyChunkSize = chunkSize;
+      this.maxPooledRequestBodyChunks = maxPooledChunks;
+      return this;
+    }
+
+    /**
+     * When enabled, successful responses to single GET queries get an {@code ETag} header computed
+     * from the response body, and are answered with status 304 and no body when the request has a
+     * matching {@code If-None-Match} header.
+     */
+    public Builder etag(boolean etag) {
+      this.etag = etag;
+      return this;
+    }
+
+    /**
+     * @param cacheControl value of the {@code Cache-Control} header of successful responses to
+     *     single GET queries, which are executed against the read only schema, for example {@code
+     *     "public, max-age=60"}. No header is set when {@literal null} (the default).
+     * @return this builder
+     */
+    public Builder readOnlyCacheControl(String cacheControl) {
+      this.readOnlyCacheControl = cacheControl;
+      return this;
+    }
+
     private Executor getAsyncExecutor() {
       if (asyncExecutor != null) {
         return asyncExecutor;
       }
+      if (asyncVirtualThreads) {
+        if (VirtualThreads.isSupported()) {
+          return VirtualThreads.newVirtualThreadPerTaskExecutor();
+        }
+        log.info(
+            "Virtual threads are not supported by this runtime, using up to {} platform threads",
+            asyncMaxPoolSize);
+        ThreadPoolExecutor executor =
+            new ThreadPoolExecutor(
+                asyncMaxPoolSize,
+                asyncMaxPoolSize,
+                60,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(Integer.MAX_VALUE));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+      }
       return new ThreadPoolExecutor(
           asyncCorePoolSize,
           asyncMaxPoolSize,
@@ -279,7 +498,21 @@ public class GraphQLConfiguration {
           contextSetting,
           batchInputPreProcessorSupplier,
           responseCacheManager,
-          getAsyncTaskExecutor());
+          responseCacheCoalescingTimeout,
+          responseCacheCompressionThreshold,
+          getAsyncTaskExecutor(),
+          streamingRequestBody,
+          maxRequestBodySize,
+          incrementalBatchExecution,
+          streamingBatchedResponse,
+          flushStreamedResults,
+          nonBlockingResponse,
+          asyncRequestBody,
+          asyncRequestBody
+              ? new RequestBodyBufferPool(requestBodyChunkSize, maxPooledRequestBodyChunks)
+              : null,
+          etag,
+          readOnlyCacheControl);
     }
   }
 }
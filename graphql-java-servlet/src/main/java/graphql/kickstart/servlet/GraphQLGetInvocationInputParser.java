@@ -1,5 +1,7 @@
 package graphql.kickstart.servlet;
 
+import static graphql.kickstart.execution.preparsed.PersistedQueryDocumentProvider.getPersistedQueryHash;
+
 import graphql.GraphQLException;
 import graphql.kickstart.execution.GraphQLObjectMapper;
 import graphql.kickstart.execution.GraphQLRequest;
@@ -33,11 +35,11 @@ class GraphQLGetInvocationInputParser extends AbstractGraphQLInvocationInputPars
     }
 
     String query = request.getParameter("query");
-    if (query == null) {
+    if (query == null && !isPersistedQuery(request)) {
       throw new GraphQLException("Query parameter not found in GET request");
     }
 
-    if (isSingleQuery(query)) {
+    if (query == null || isSingleQuery(query)) {
       Map<String, Object> variables = getVariables(request);
       Map<String, Object> extensions = getExtensions(request);
       String operationName = request.getParameter("operationName");
@@ -57,6 +59,12 @@ class GraphQLGetInvocationInputParser extends AbstractGraphQLInvocationInputPars
     return path.contentEquals("/schema.json");
   }
 
+  /** Automatic persisted queries are sent as a hash in the extensions, without the query. */
+  private boolean isPersistedQuery(HttpServletRequest request) {
+    return request.getParameter("extensions") != null
+        && getPersistedQueryHash(getExtensions(request)) != null;
+  }
+
   private Map<String, Object> getVariables(HttpServletRequest request) {
     return Optional.ofNullable(request.getParameter("variables"))
         .map(graphQLObjectMapper::deserializeVariables)
@@ -12,11 +12,11 @@ import jakarta.servlet.http.HttpServletResponse;
 interface GraphQLInvocationInputParser {
 
   static GraphQLInvocationInputParser create(
-      HttpServletRequest request,
-      GraphQLInvocationInputFactory invocationInputFactory,
-      GraphQLObjectMapper graphQLObjectMapper,
-      ContextSetting contextSetting)
-      throws IOException {
+      HttpServletRequest request, GraphQLConfiguration configuration) throws IOException {
+    GraphQLInvocationInputFactory invocationInputFactory =
+        configuration.getInvocationInputFactory();
+    GraphQLObjectMapper graphQLObjectMapper = configuration.getObjectMapper();
+    ContextSetting contextSetting = configuration.getContextSetting();
     if ("GET".equalsIgnoreCase(request.getMethod())) {
       return new GraphQLGetInvocationInputParser(
           invocationInputFactory, graphQLObjectMapper, contextSetting);
@@ -29,7 +29,7 @@ interface GraphQLInvocationInputParser {
               || request.getParts().isEmpty();
       if (notMultipartRequest) {
         return new GraphQLPostInvocationInputParser(
-            invocationInputFactory, graphQLObjectMapper, contextSetting);
+            invocationInputFactory, graphQLObjectMapper, contextSetting, configuration);
       }
       return new GraphQLMultipartInvocationInputParser(
           invocationInputFactory, graphQLObjectMapper, contextSetting);
@@ -8,7 +8,16 @@ import graphql.kickstart.execution.GraphQLRequest;
 import graphql.kickstart.execution.context.ContextSetting;
 import graphql.kickstart.execution.input.GraphQLInvocationInput;
 import graphql.kickstart.servlet.input.GraphQLInvocationInputFactory;
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PushbackInputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
 import java.util.List;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -17,23 +26,38 @@ class GraphQLPostInvocationInputParser extends AbstractGraphQLInvocationInputPar
 
   private static final String APPLICATION_GRAPHQL = "application/graphql";
 
+  private final boolean streaming;
+  private final boolean incremental;
+  private final long maxRequestBodySize;
+
   GraphQLPostInvocationInputParser(
       GraphQLInvocationInputFactory invocationInputFactory,
       GraphQLObjectMapper graphQLObjectMapper,
-      ContextSetting contextSetting) {
+      ContextSetting contextSetting,
+      GraphQLConfiguration configuration) {
     super(invocationInputFactory, graphQLObjectMapper, contextSetting);
+    this.streaming = configuration.isStreamingRequestBody();
+    this.incremental = configuration.isIncrementalBatchExecution();
+    this.maxRequestBodySize = configuration.getMaxRequestBodySize();
   }
 
   public GraphQLInvocationInput getGraphQLInvocationInput(
       HttpServletRequest request, HttpServletResponse response) throws IOException {
+    if (request.getContentLengthLong() > maxRequestBodySize) {
+      throw new RequestBodyTooLargeException(maxRequestBodySize);
+    }
+    if (streaming) {
+      return getStreamedInvocationInput(request, response);
+    }
+
     String contentType = request.getContentType();
     if (contentType != null && APPLICATION_GRAPHQL.equals(contentType.split(";")[0].trim())) {
-      String query = request.getReader().lines().collect(joining(" "));
+      String query = readBody(request);
       GraphQLRequest graphqlRequest = GraphQLRequest.createQueryOnlyRequest(query);
       return invocationInputFactory.create(graphqlRequest, request, response);
     }
 
-    String body = request.getReader().lines().collect(joining(" "));
+    String body = readBody(request);
     if (isSingleQuery(body)) {
       GraphQLRequest graphqlRequest = graphQLObjectMapper.readGraphQLRequest(body);
       return invocationInputFactory.create(graphqlRequest, request, response);
@@ -46,4 +70,109 @@ class GraphQLPostInvocationInputParser extends AbstractGraphQLInvocationInputPar
 
     throw new GraphQLException("No valid query found in request");
   }
+
+  /**
+   * Reads the body as text, counting the bytes of the input stream so the size limit also holds for
+   * requests without a content length.
+   */
+  private String readBody(HttpServletRequest request) throws IOException {
+    InputStream body = new LimitedInputStream(request.getInputStream(), maxRequestBodySize);
+    BufferedReader reader = new BufferedReader(new InputStreamReader(body, getCharset(request)));
+    try {
+      return reader.lines().collect(joining(" "));
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * Parses the body straight from the request input stream. The first significant byte tells a
+   * single request from a batch, so the body is never copied into a String.
+   */
+  private GraphQLInvocationInput getStreamedInvocationInput(
+      HttpServletRequest request, HttpServletResponse response) throws IOException {
+    InputStream body = new LimitedInputStream(request.getInputStream(), maxRequestBodySize);
+
+    String contentType = request.getContentType();
+    if (contentType != null && APPLICATION_GRAPHQL.equals(contentType.split(";")[0].trim())) {
+      String query = new String(body.readAllBytes(), getCharset(request));
+      GraphQLRequest graphqlRequest = GraphQLRequest.createQueryOnlyRequest(query);
+      return invocationInputFactory.create(graphqlRequest, request, response);
+    }
+
+    PushbackInputStream json = new PushbackInputStream(body, 1);
+    int first = skipInsignificantBytes(json);
+    if (first == -1) {
+      throw new GraphQLException("No valid query found in request");
+    }
+    json.unread(first);
+
+    if (first == '[' && incremental) {
+      Iterator<GraphQLRequest> requests = graphQLObjectMapper.streamBatchedGraphQLRequest(json);
+      return invocationInputFactory.create(contextSetting, requests, request, response);
+    }
+    if (first == '[') {
+      List<GraphQLRequest> requests = graphQLObjectMapper.readBatchedGraphQLRequest(json);
+      return invocationInputFactory.create(contextSetting, requests, request, response);
+    }
+    GraphQLRequest graphqlRequest = graphQLObjectMapper.readGraphQLRequest(json);
+    return invocationInputFactory.create(graphqlRequest, request, response);
+  }
+
+  /** Skips leading JSON whitespace and a UTF-8 byte order mark, returns the first other byte. */
+  private static int skipInsignificantBytes(InputStream inputStream) throws IOException {
+    int b = inputStream.read();
+    while (b == ' ' || b == '\t' || b == '\n' || b == '\r' || b == 0xEF || b == 0xBB || b == 0xBF) {
+      b = inputStream.read();
+    }
+    return b;
+  }
+
+  private static Charset getCharset(HttpServletRequest request) {
+    String encoding = request.getCharacterEncoding();
+    return encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+  }
+
+  private static class LimitedInputStream extends FilterInputStream {
+
+    private final long limit;
+    private long count;
+
+    LimitedInputStream(InputStream in, long limit) {
+      super(in);
+      this.limit = limit;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if (b != -1) {
+        count(1);
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int read = super.read(b, off, len);
+      if (read > 0) {
+        count(read);
+      }
+      return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      long skipped = super.skip(n);
+      count(skipped);
+      return skipped;
+    }
+
+    private void count(long read) throws RequestBodyTooLargeException {
+      count += read;
+      if (count > limit) {
+        throw new RequestBodyTooLargeException(limit);
+      }
+    }
+  }
 }
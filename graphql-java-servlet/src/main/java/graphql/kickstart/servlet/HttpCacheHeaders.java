@@ -0,0 +1,104 @@
+package graphql.kickstart.servlet;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.function.Supplier;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Sets the {@code ETag} and {@code Cache-Control} headers of successful responses to single GET
+ * queries, and answers conditional requests with a matching {@code If-None-Match} header with
+ * status 304. Responses to other requests are left untouched, as are results with errors, whose
+ * content may change with the next attempt.
+ */
+public class HttpCacheHeaders {
+
+  /** Sets no headers. */
+  public static final HttpCacheHeaders NONE = new HttpCacheHeaders(false, null);
+
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+  // 128 bits keep collisions between versions of a response out of reach of a strong validator
+  private static final int ETAG_DIGEST_BYTES = 16;
+
+  private final boolean etag;
+  private final String cacheControl;
+
+  public HttpCacheHeaders(boolean etag, String cacheControl) {
+    this.etag = etag;
+    this.cacheControl = cacheControl;
+  }
+
+  public static HttpCacheHeaders of(GraphQLConfiguration configuration) {
+    if (!configuration.isEtag() && configuration.getReadOnlyCacheControl() == null) {
+      return NONE;
+    }
+    return new HttpCacheHeaders(configuration.isEtag(), configuration.getReadOnlyCacheControl());
+  }
+
+  /**
+   * @param content the response body
+   * @return a strong entity tag made of the length of the content and the first 128 bits of its
+   *     SHA-256 digest
+   */
+  public static String etagOf(byte[] content) {
+    byte[] digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256").digest(content);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not supported", e);
+    }
+    StringBuilder etag = new StringBuilder(ETAG_DIGEST_BYTES * 2 + 12);
+    etag.append('"').append(Integer.toHexString(content.length)).append('-');
+    for (int i = 0; i < ETAG_DIGEST_BYTES; i++) {
+      etag.append(HEX[(digest[i] >> 4) & 0xF]).append(HEX[digest[i] & 0xF]);
+    }
+    return etag.append('"').toString();
+  }
+
+  /**
+   * Sets the headers of a successful response without errors, before its body is written.
+   *
+   * @param etagSupplier provides the entity tag of the response body, only called when needed
+   * @return {@literal true} when the response has been completed with status 304 and the body must
+   *     not be written
+   */
+  public boolean writeHeaders(
+      HttpServletRequest request, HttpServletResponse response, Supplier<String> etagSupplier) {
+    if ((!etag && cacheControl == null) || !"GET".equalsIgnoreCase(request.getMethod())) {
+      return false;
+    }
+    if (cacheControl != null) {
+      response.setHeader("Cache-Control", cacheControl);
+    }
+    if (!etag) {
+      return false;
+    }
+    String entityTag = etagSupplier.get();
+    response.setHeader("ETag", entityTag);
+    if (matches(request.getHeader("If-None-Match"), entityTag)) {
+      response.setStatus(HttpRequestHandler.STATUS_NOT_MODIFIED);
+      return true;
+    }
+    return false;
+  }
+
+  /** Weak comparison of the entity tags of an {@code If-None-Match} header with the given tag. */
+  static boolean matches(String ifNoneMatch, String entityTag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    String opaqueTag = stripWeakPrefix(entityTag);
+    for (String candidate : ifNoneMatch.split(",")) {
+      String tag = candidate.trim();
+      if (tag.equals("*") || stripWeakPrefix(tag).equals(opaqueTag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static String stripWeakPrefix(String tag) {
+    return tag.startsWith("W/") ? tag.substring(2) : tag;
+  }
+}
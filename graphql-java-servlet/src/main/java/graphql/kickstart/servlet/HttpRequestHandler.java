@@ -10,8 +10,11 @@ public interface HttpRequestHandler {
   String APPLICATION_EVENT_STREAM_UTF8 = "text/event-stream;charset=UTF-8";
 
   int STATUS_OK = 200;
+  int STATUS_NOT_MODIFIED = 304;
   int STATUS_BAD_REQUEST = 400;
+  int STATUS_PAYLOAD_TOO_LARGE = 413;
   int STATUS_INTERNAL_SERVER_ERROR = 500;
+  int STATUS_SERVICE_UNAVAILABLE = 503;
 
   void handle(HttpServletRequest request, HttpServletResponse response) throws IOException;
 }
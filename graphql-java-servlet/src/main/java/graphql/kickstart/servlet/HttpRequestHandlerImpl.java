@@ -4,6 +4,7 @@ import graphql.GraphQLException;
 import graphql.kickstart.execution.input.GraphQLInvocationInput;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import jakarta.servlet.AsyncContext;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
@@ -38,11 +39,77 @@ class HttpRequestHandlerImpl implements HttpRequestHandler {
     ListenerHandler listenerHandler =
       ListenerHandler.start(request, response, configuration.getListeners());
 
+    if (readsBodyAsync(request)) {
+      handleAsync(request, response, listenerHandler);
+    } else {
+      handle(request, response, listenerHandler, null);
+    }
+  }
+
+  private boolean readsBodyAsync(HttpServletRequest request) {
+    String contentType = request.getContentType();
+    return configuration.isAsyncRequestBody()
+        && request.isAsyncSupported()
+        && !request.isAsyncStarted()
+        && "POST".equalsIgnoreCase(request.getMethod())
+        && (contentType == null || !contentType.startsWith("multipart/form-data"));
+  }
+
+  /**
+   * Starts the async context and reads the body without blocking, the request is parsed and
+   * executed once the last byte has arrived.
+   */
+  private void handleAsync(
+      HttpServletRequest request, HttpServletResponse response, ListenerHandler listenerHandler)
+      throws IOException {
+    // the request executes after this dispatch has returned, configure its context for it now
+    AsyncContext asyncContext =
+        AsyncContextListeners.startAsync(request, response, configuration.getAsyncTimeout());
+    AsyncRequestBodyReader bodyReader;
     try {
+      bodyReader =
+          AsyncRequestBodyReader.start(
+              request,
+              configuration.getRequestBodyBufferPool(),
+              configuration.getMaxRequestBodySize());
+    } catch (IOException | RuntimeException e) {
+      asyncContext.complete();
+      throw e;
+    }
+    // an incrementally executed batch may still read the body while the request executes
+    AsyncContextListeners.of(request).add((AsyncCompleteListener) event -> bodyReader.release());
+    bodyReader
+        .getBody()
+        .whenComplete(
+            (bufferedRequest, readFailure) -> {
+              try {
+                handle(
+                    readFailure == null ? bufferedRequest : request,
+                    response,
+                    listenerHandler,
+                    readFailure);
+              } catch (Exception e) {
+                log.error("Error executing GraphQL request!", e);
+                asyncContext.complete();
+              }
+            });
+  }
+
+  private void handle(
+      HttpServletRequest request,
+      HttpServletResponse response,
+      ListenerHandler listenerHandler,
+      Throwable readFailure)
+      throws IOException {
+    try {
+      if (readFailure != null) {
+        throw new InvocationInputParseException(readFailure);
+      }
       GraphQLInvocationInput invocationInput = parseInvocationInput(request, response);
       requestInvoker.execute(invocationInput, request, response, listenerHandler);
     } catch (InvocationInputParseException e) {
-      response.setStatus(STATUS_BAD_REQUEST);
+      response.setStatus(
+          isRequestBodyTooLarge(e) ? STATUS_PAYLOAD_TOO_LARGE : STATUS_BAD_REQUEST);
       log.info("Bad request: cannot parse http request", e);
       listenerHandler.onParseError(e);
       throw e;
@@ -62,14 +129,19 @@ class HttpRequestHandlerImpl implements HttpRequestHandler {
       HttpServletResponse response) {
     try {
       GraphQLInvocationInputParser invocationInputParser =
-        GraphQLInvocationInputParser.create(
-          request,
-          configuration.getInvocationInputFactory(),
-          configuration.getObjectMapper(),
-          configuration.getContextSetting());
+        GraphQLInvocationInputParser.create(request, configuration);
       return invocationInputParser.getGraphQLInvocationInput(request, response);
     } catch (Exception e) {
       throw new InvocationInputParseException(e);
     }
   }
+
+  private boolean isRequestBodyTooLarge(Throwable throwable) {
+    for (Throwable t = throwable; t != null; t = t.getCause()) {
+      if (t instanceof RequestBodyTooLargeException) {
+        return true;
+      }
+    }
+    return false;
+  }
 }
@@ -2,6 +2,7 @@ package graphql.kickstart.servlet;
 
 import static graphql.kickstart.servlet.HttpRequestHandler.STATUS_BAD_REQUEST;
 import static graphql.kickstart.servlet.HttpRequestHandler.STATUS_INTERNAL_SERVER_ERROR;
+import static graphql.kickstart.servlet.HttpRequestHandler.STATUS_SERVICE_UNAVAILABLE;
 
 import graphql.ExecutionResult;
 import graphql.ExecutionResultImpl;
@@ -17,10 +18,13 @@ import graphql.kickstart.servlet.input.BatchInputPreProcessResult;
 import graphql.kickstart.servlet.input.BatchInputPreProcessor;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import jakarta.servlet.AsyncContext;
 import jakarta.servlet.http.HttpServletRequest;
@@ -55,11 +59,10 @@ public class HttpRequestInvokerImpl implements HttpRequestInvoker {
       HttpServletResponse response,
       ListenerHandler listenerHandler) {
     AsyncContext asyncContext =
-        request.isAsyncStarted()
-            ? request.getAsyncContext()
-            : request.startAsync(request, response);
-    asyncContext.setTimeout(configuration.getAsyncTimeout());
+        AsyncContextListeners.startAsync(request, response, configuration.getAsyncTimeout());
     AtomicReference<FutureExecutionResult> futureHolder = new AtomicReference<>();
+    AtomicBoolean timedOut = new AtomicBoolean();
+    AtomicReference<AsyncRequestTask> taskHolder = new AtomicReference<>();
     AsyncTimeoutListener timeoutListener =
         event -> {
           log.warn(
@@ -67,36 +70,93 @@ public class HttpRequestInvokerImpl implements HttpRequestInvoker {
                   + configuration.getAsyncTimeout()
                   + " millis was reached. The following query was being executed when this happened:\n{}",
               String.join("\n", invocationInput.getQueries()));
+          timedOut.set(true);
+          AsyncRequestTask task = taskHolder.get();
+          if (task != null && task.cancel()) {
+            // still waiting for execution, it must neither run nor be rejected anymore
+            writeErrorResponse(
+                invocationInput, request, response, listenerHandler, new CancellationException());
+            listenerHandler.onFinally();
+            asyncContext.complete();
+            return;
+          }
           FutureExecutionResult futureResult = futureHolder.get();
           if (futureResult != null) {
             futureResult.cancel();
-          } else {
-            writeErrorResponse(
-                invocationInput, request, response, listenerHandler, new CancellationException());
           }
         };
-    asyncContext.addListener(timeoutListener);
-    configuration
-        .getAsyncExecutor()
-        .execute(
-            () -> {
-              try {
-                FutureExecutionResult futureResult = invoke(invocationInput, request, response);
-                futureHolder.set(futureResult);
-                handleInternal(futureResult, request, response, listenerHandler)
-                    .thenAccept(it -> asyncContext.complete());
-              } catch (GraphQLException e) {
-                response.setStatus(STATUS_BAD_REQUEST);
-                log.info("Bad request: cannot handle http request", e);
-                listenerHandler.onError(e);
-                asyncContext.complete();
-              } catch (Exception e) {
-                response.setStatus(STATUS_INTERNAL_SERVER_ERROR);
-                log.error("Cannot handle http request", e);
-                listenerHandler.onError(e);
-                asyncContext.complete();
-              }
-            });
+    if (!AsyncContextListeners.of(request).add(timeoutListener)) {
+      log.warn("Cannot handle http request: the async context already timed out or completed");
+      listenerHandler.onFinally();
+      return;
+    }
+    Runnable runnable =
+        () -> {
+          try {
+            FutureExecutionResult futureResult = invoke(invocationInput, request, response);
+            futureHolder.set(futureResult);
+            if (timedOut.get()) {
+              // the timeout fired before the execution was published
+              futureResult.cancel();
+            }
+            handleInternal(futureResult, request, response, listenerHandler)
+                .thenAccept(it -> asyncContext.complete());
+          } catch (GraphQLException e) {
+            response.setStatus(STATUS_BAD_REQUEST);
+            log.info("Bad request: cannot handle http request", e);
+            listenerHandler.onError(e);
+            asyncContext.complete();
+          } catch (Exception e) {
+            response.setStatus(STATUS_INTERNAL_SERVER_ERROR);
+            log.error("Cannot handle http request", e);
+            listenerHandler.onError(e);
+            asyncContext.complete();
+          }
+        };
+    AsyncRequestTask task =
+        new AsyncRequestTask(
+            getOperationName(invocationInput),
+            runnable,
+            e -> writeRejectedResponse(asyncContext, response, listenerHandler, e));
+    taskHolder.set(task);
+    try {
+      configuration.getAsyncExecutor().execute(task);
+    } catch (RejectedExecutionException e) {
+      writeRejectedResponse(asyncContext, response, listenerHandler, e);
+    }
+  }
+
+  private String getOperationName(GraphQLInvocationInput invocationInput) {
+    return invocationInput instanceof GraphQLSingleInvocationInput
+        ? ((GraphQLSingleInvocationInput) invocationInput).getExecutionInput().getOperationName()
+        : null;
+  }
+
+  /** Answers a request the async executor did not accept with status 503. */
+  private void writeRejectedResponse(
+      AsyncContext asyncContext,
+      HttpServletResponse response,
+      ListenerHandler listenerHandler,
+      RejectedExecutionException e) {
+    log.warn("Cannot handle http request: {}", e.getMessage());
+    try {
+      if (!response.isCommitted()) {
+        ExecutionResult result =
+            new ExecutionResultImpl(new GenericGraphQLError("Server is too busy, try again later"));
+        byte[] contentBytes = configuration.getObjectMapper().serializeResultAsBytes(result);
+        response.setStatus(STATUS_SERVICE_UNAVAILABLE);
+        response.setContentType(HttpRequestHandler.APPLICATION_JSON_UTF8);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setContentLength(contentBytes.length);
+        response.getOutputStream().write(contentBytes);
+      }
+    } catch (IOException ioException) {
+      log.debug("Cannot write rejection response", ioException);
+    } finally {
+      listenerHandler.onError(e);
+      listenerHandler.onFinally();
+      asyncContext.complete();
+    }
   }
 
   private void handle(
@@ -127,12 +187,16 @@ public class HttpRequestInvokerImpl implements HttpRequestInvoker {
       HttpServletRequest request,
       HttpServletResponse response,
       ListenerHandler listenerHandler) {
-    return futureResult
-        .thenApplyQueryResult()
-        .thenAccept(
+    CompletableFuture<GraphQLQueryResult> queryResult =
+        configuration.isStreamingBatchedResponse()
+            ? futureResult.thenApplyStreamingQueryResult()
+            : futureResult.thenApplyQueryResult();
+    return queryResult
+        .thenCompose(
             it -> {
               listenerHandler.beforeFlush();
-              writeResultResponse(futureResult.getInvocationInput(), it, request, response);
+              return createWriter(futureResult.getInvocationInput(), it)
+                  .writeAsync(request, response);
             })
         .thenAccept(it -> listenerHandler.onSuccess())
         .exceptionally(
@@ -64,19 +64,19 @@ public class ListenerHandler {
     runCallbacks(it -> it.onParseError(request, response, throwable));
   }
 
-  void beforeFlush() {
+  public void beforeFlush() {
     runCallbacks(it -> it.beforeFlush(request, response));
   }
 
-  void onSuccess() {
+  public void onSuccess() {
     runCallbacks(it -> it.onSuccess(request, response));
   }
 
-  void onError(Throwable throwable) {
+  public void onError(Throwable throwable) {
     runCallbacks(it -> it.onError(request, response, throwable));
   }
 
-  void onFinally() {
+  public void onFinally() {
     runCallbacks(it -> it.onFinally(request, response));
   }
 }
@@ -0,0 +1,86 @@
+package graphql.kickstart.servlet;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Writes queued chunks to the response through a {@link WriteListener}, so no thread blocks on a
+ * slow client. Chunks are written whenever the container reports the output stream as ready, either
+ * from the container's callback or from the thread adding a chunk. Requires an async started
+ * request.
+ */
+class NonBlockingResponseOutput implements WriteListener {
+
+  private final ServletOutputStream outputStream;
+  private final Queue<byte[]> chunks = new ArrayDeque<>();
+  private final CompletableFuture<Void> completion = new CompletableFuture<>();
+  private boolean started;
+  private boolean waitingForContainer;
+  private boolean closed;
+
+  private NonBlockingResponseOutput(ServletOutputStream outputStream) {
+    this.outputStream = outputStream;
+  }
+
+  static NonBlockingResponseOutput start(HttpServletResponse response) throws IOException {
+    NonBlockingResponseOutput output = new NonBlockingResponseOutput(response.getOutputStream());
+    output.outputStream.setWriteListener(output);
+    return output;
+  }
+
+  /** Queues a chunk, writing it right away if the output stream is ready. */
+  synchronized void add(byte[] chunk) {
+    chunks.add(chunk);
+    drain();
+  }
+
+  /** Marks the end of the output, the completion future completes once every chunk is written. */
+  synchronized void close() {
+    closed = true;
+    drain();
+  }
+
+  /** @return a future that completes once all chunks have been handed to the container */
+  CompletableFuture<Void> getCompletion() {
+    return completion;
+  }
+
+  @Override
+  public synchronized void onWritePossible() {
+    started = true;
+    waitingForContainer = false;
+    drain();
+  }
+
+  @Override
+  public void onError(Throwable t) {
+    completion.completeExceptionally(t);
+  }
+
+  private void drain() {
+    if (!started || waitingForContainer || completion.isDone()) {
+      return;
+    }
+    try {
+      while (outputStream.isReady()) {
+        byte[] chunk = chunks.poll();
+        if (chunk == null) {
+          if (closed) {
+            completion.complete(null);
+          }
+          return;
+        }
+        outputStream.write(chunk);
+      }
+      // the container calls onWritePossible once the stream is ready again
+      waitingForContainer = true;
+    } catch (IOException e) {
+      completion.completeExceptionally(e);
+    }
+  }
+}
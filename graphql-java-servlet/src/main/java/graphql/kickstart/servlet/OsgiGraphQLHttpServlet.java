@@ -55,7 +55,7 @@ public class OsgiGraphQLHttpServlet extends AbstractGraphQLHttpServlet {
 
   @Override
   protected GraphQLConfiguration getConfiguration() {
-    return schemaBuilder.buildConfiguration();
+    return schemaBuilder.getConfiguration();
   }
 
   protected void updateSchema() {
@@ -174,19 +174,23 @@ public class OsgiGraphQLHttpServlet extends AbstractGraphQLHttpServlet {
   @Reference(cardinality = ReferenceCardinality.OPTIONAL, policy = ReferencePolicy.DYNAMIC)
   public void setContextBuilder(GraphQLServletContextBuilder contextBuilder) {
     schemaBuilder.setContextBuilder(contextBuilder);
+    schemaBuilder.updateConfiguration();
   }
 
   public void unsetContextBuilder(GraphQLServletContextBuilder contextBuilder) {
     schemaBuilder.setContextBuilder(new DefaultGraphQLServletContextBuilder());
+    schemaBuilder.updateConfiguration();
   }
 
   @Reference(cardinality = ReferenceCardinality.OPTIONAL, policy = ReferencePolicy.DYNAMIC)
   public void setRootObjectBuilder(GraphQLServletRootObjectBuilder rootObjectBuilder) {
     schemaBuilder.setRootObjectBuilder(rootObjectBuilder);
+    schemaBuilder.updateConfiguration();
   }
 
   public void unsetRootObjectBuilder(GraphQLRootObjectBuilder rootObjectBuilder) {
     schemaBuilder.setRootObjectBuilder(new DefaultGraphQLRootObjectBuilder());
+    schemaBuilder.updateConfiguration();
   }
 
   @Reference(
@@ -195,10 +199,12 @@ public class OsgiGraphQLHttpServlet extends AbstractGraphQLHttpServlet {
       policyOption = ReferencePolicyOption.GREEDY)
   public void setExecutionStrategyProvider(ExecutionStrategyProvider provider) {
     schemaBuilder.setExecutionStrategyProvider(provider);
+    schemaBuilder.updateConfiguration();
   }
 
   public void unsetExecutionStrategyProvider(ExecutionStrategyProvider provider) {
     schemaBuilder.setExecutionStrategyProvider(new DefaultExecutionStrategyProvider());
+    schemaBuilder.updateConfiguration();
   }
 
   @Reference(
@@ -207,10 +213,12 @@ public class OsgiGraphQLHttpServlet extends AbstractGraphQLHttpServlet {
       policyOption = ReferencePolicyOption.GREEDY)
   public void setInstrumentationProvider(InstrumentationProvider provider) {
     schemaBuilder.setInstrumentationProvider(provider);
+    schemaBuilder.updateConfiguration();
   }
 
   public void unsetInstrumentationProvider(InstrumentationProvider provider) {
     schemaBuilder.setInstrumentationProvider(new NoOpInstrumentationProvider());
+    schemaBuilder.updateConfiguration();
   }
 
   @Reference(
@@ -219,10 +227,12 @@ public class OsgiGraphQLHttpServlet extends AbstractGraphQLHttpServlet {
       policyOption = ReferencePolicyOption.GREEDY)
   public void setErrorHandler(GraphQLErrorHandler errorHandler) {
     schemaBuilder.setErrorHandler(errorHandler);
+    schemaBuilder.updateConfiguration();
   }
 
   public void unsetErrorHandler(GraphQLErrorHandler errorHandler) {
     schemaBuilder.setErrorHandler(new DefaultGraphQLErrorHandler());
+    schemaBuilder.updateConfiguration();
   }
 
   @Reference(
@@ -231,10 +241,12 @@ public class OsgiGraphQLHttpServlet extends AbstractGraphQLHttpServlet {
       policyOption = ReferencePolicyOption.GREEDY)
   public void setPreparsedDocumentProvider(PreparsedDocumentProvider preparsedDocumentProvider) {
     schemaBuilder.setPreparsedDocumentProvider(preparsedDocumentProvider);
+    schemaBuilder.updateConfiguration();
   }
 
   public void unsetPreparsedDocumentProvider(PreparsedDocumentProvider preparsedDocumentProvider) {
     schemaBuilder.setPreparsedDocumentProvider(NoOpPreparsedDocumentProvider.INSTANCE);
+    schemaBuilder.updateConfiguration();
   }
 
   @Reference(
@@ -39,9 +39,12 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import lombok.Setter;
 
@@ -53,7 +56,7 @@ class OsgiSchemaBuilder {
   private final List<GraphQLSubscriptionProvider> subscriptionProviders = new ArrayList<>();
   private final List<GraphQLTypesProvider> typesProviders = new ArrayList<>();
   private final List<GraphQLDirectiveProvider> directiveProviders = new ArrayList<>();
-  private final List<GraphQLServletListener> listeners = new ArrayList<>();
+  private final List<GraphQLServletListener> listeners = new CopyOnWriteArrayList<>();
 
   private GraphQLServletContextBuilder contextBuilder = new DefaultGraphQLServletContextBuilder();
   private GraphQLServletRootObjectBuilder rootObjectBuilder = new DefaultGraphQLRootObjectBuilder();
@@ -66,7 +69,18 @@ class OsgiSchemaBuilder {
   private GraphQLCodeRegistryProvider codeRegistryProvider =
       () -> GraphQLCodeRegistry.newCodeRegistry().build();
 
-  private GraphQLSchemaServletProvider schemaProvider;
+  private volatile GraphQLSchemaServletProvider schemaProvider;
+
+  /**
+   * The configuration handed out to requests. It is rebuilt whenever the schema or one of the
+   * configured components changes, so requests that already obtained a configuration keep using
+   * it until they complete.
+   */
+  private volatile GraphQLConfiguration configuration;
+
+  /** Shared by all configuration snapshots so rebuilding them does not create new thread pools. */
+  private final ThreadPoolExecutor asyncExecutor =
+      new ThreadPoolExecutor(10, 200, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
 
   private ScheduledExecutorService executor;
   private ScheduledFuture<?> updateFuture;
@@ -83,6 +97,7 @@ class OsgiSchemaBuilder {
     if (executor != null) {
       executor.shutdown();
     }
+    asyncExecutor.shutdown();
   }
 
   void updateSchema() {
@@ -98,7 +113,7 @@ class OsgiSchemaBuilder {
     }
   }
 
-  private void doUpdateSchema() {
+  private synchronized void doUpdateSchema() {
     this.schemaProvider =
         new DefaultGraphQLSchemaServletProvider(
             newSchema()
@@ -109,6 +124,12 @@ class OsgiSchemaBuilder {
                 .additionalDirectives(buildDirectives())
                 .codeRegistry(codeRegistryProvider.getCodeRegistry())
                 .build());
+    updateConfiguration();
+  }
+
+  /** Rebuilds the configuration snapshot from the current schema and components. */
+  synchronized void updateConfiguration() {
+    this.configuration = buildConfiguration();
   }
 
   private GraphQLObjectType buildQueryType() {
@@ -214,16 +235,21 @@ class OsgiSchemaBuilder {
     return schemaProvider;
   }
 
-  GraphQLConfiguration buildConfiguration() {
+  GraphQLConfiguration getConfiguration() {
+    return configuration;
+  }
+
+  private GraphQLConfiguration buildConfiguration() {
     return GraphQLConfiguration.with(buildInvocationInputFactory())
         .with(buildQueryInvoker())
         .with(buildObjectMapper())
         .with(listeners)
+        .with(asyncExecutor)
         .build();
   }
 
   private GraphQLInvocationInputFactory buildInvocationInputFactory() {
-    return GraphQLInvocationInputFactory.newBuilder(this::getSchemaProvider)
+    return GraphQLInvocationInputFactory.newBuilder(schemaProvider)
         .withGraphQLContextBuilder(contextBuilder)
         .withGraphQLRootObjectBuilder(rootObjectBuilder)
         .build();
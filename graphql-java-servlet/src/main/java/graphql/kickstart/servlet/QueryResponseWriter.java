@@ -1,10 +1,28 @@
 package graphql.kickstart.servlet;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 public interface QueryResponseWriter {
 
   void write(HttpServletRequest request, HttpServletResponse response) throws IOException;
+
+  /**
+   * Writes the response, possibly completing later on another thread, e.g. when results are written
+   * as they become available.
+   *
+   * @return a future that completes once the response has been written
+   */
+  default CompletableFuture<Void> writeAsync(
+      HttpServletRequest request, HttpServletResponse response) {
+    try {
+      write(request, response);
+      return CompletableFuture.completedFuture(null);
+    } catch (IOException e) {
+      return CompletableFuture.failedFuture(new UncheckedIOException(e));
+    }
+  }
 }
@@ -13,9 +13,18 @@ public class QueryResponseWriterFactoryImpl implements QueryResponseWriterFactor
       GraphQLConfiguration configuration) {
     Objects.requireNonNull(queryResult, "GraphQL query result cannot be null");
 
+    if (queryResult.isBatched() && queryResult.isStreaming()) {
+      return new StreamingBatchedQueryResponseWriter(
+          queryResult.getResultFutures(),
+          configuration.getObjectMapper(),
+          configuration.isFlushStreamedResults(),
+          configuration.isNonBlockingResponse());
+    }
     if (queryResult.isBatched()) {
       return new BatchedQueryResponseWriter(
-          queryResult.getResults(), configuration.getObjectMapper());
+          queryResult.getResults(),
+          configuration.getObjectMapper(),
+          configuration.isNonBlockingResponse());
     }
     if (queryResult.isAsynchronous()) {
       return new SingleAsynchronousQueryResponseWriter(
@@ -26,6 +35,10 @@ public class QueryResponseWriterFactoryImpl implements QueryResponseWriterFactor
     if (queryResult.isError()) {
       return new ErrorQueryResponseWriter(queryResult.getStatusCode(), queryResult.getMessage());
     }
-    return new SingleQueryResponseWriter(queryResult.getResult(), configuration.getObjectMapper());
+    return new SingleQueryResponseWriter(
+        queryResult.getResult(),
+        configuration.getObjectMapper(),
+        configuration.isNonBlockingResponse(),
+        HttpCacheHeaders.of(configuration));
   }
 }
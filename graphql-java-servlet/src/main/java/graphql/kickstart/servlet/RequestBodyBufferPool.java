@@ -0,0 +1,47 @@
+package graphql.kickstart.servlet;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of fixed size byte chunks that request bodies are read into, so reading a body does not
+ * allocate a new buffer for every request. At most {@code maxPooledChunks} chunks are retained.
+ */
+class RequestBodyBufferPool {
+
+  private final int chunkSize;
+  private final int maxPooledChunks;
+  private final Queue<byte[]> chunks = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger pooled = new AtomicInteger();
+
+  RequestBodyBufferPool(int chunkSize, int maxPooledChunks) {
+    this.chunkSize = chunkSize;
+    this.maxPooledChunks = maxPooledChunks;
+  }
+
+  byte[] acquire() {
+    byte[] chunk = chunks.poll();
+    if (chunk == null) {
+      return new byte[chunkSize];
+    }
+    pooled.decrementAndGet();
+    return chunk;
+  }
+
+  void release(List<byte[]> released) {
+    for (byte[] chunk : released) {
+      if (pooled.incrementAndGet() <= maxPooledChunks) {
+        chunks.offer(chunk);
+      } else {
+        pooled.decrementAndGet();
+        return;
+      }
+    }
+  }
+
+  int getChunkSize() {
+    return chunkSize;
+  }
+}
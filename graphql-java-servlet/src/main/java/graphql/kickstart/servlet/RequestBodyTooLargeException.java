@@ -0,0 +1,12 @@
+package graphql.kickstart.servlet;
+
+import java.io.IOException;
+
+class RequestBodyTooLargeException extends IOException {
+
+  private static final long serialVersionUID = 1L;
+
+  RequestBodyTooLargeException(long maxRequestBodySize) {
+    super("Request body exceeds the maximum size of " + maxRequestBodySize + " bytes");
+  }
+}
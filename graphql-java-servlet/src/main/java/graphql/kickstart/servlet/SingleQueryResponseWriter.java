@@ -3,7 +3,9 @@ package graphql.kickstart.servlet;
 import graphql.ExecutionResult;
 import graphql.kickstart.execution.GraphQLObjectMapper;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
@@ -13,16 +15,60 @@ class SingleQueryResponseWriter implements QueryResponseWriter {
 
   private final ExecutionResult result;
   private final GraphQLObjectMapper graphQLObjectMapper;
+  private final boolean nonBlocking;
+  private final HttpCacheHeaders httpCacheHeaders;
+
+  SingleQueryResponseWriter(ExecutionResult result, GraphQLObjectMapper graphQLObjectMapper) {
+    this(result, graphQLObjectMapper, false);
+  }
+
+  SingleQueryResponseWriter(
+      ExecutionResult result, GraphQLObjectMapper graphQLObjectMapper, boolean nonBlocking) {
+    this(result, graphQLObjectMapper, nonBlocking, HttpCacheHeaders.NONE);
+  }
 
   @Override
   public void write(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    byte[] contentBytes = prepare(request, response);
+    if (contentBytes == null) {
+      return;
+    }
+    response.getOutputStream().write(contentBytes);
+    response.getOutputStream().flush();
+  }
+
+  @Override
+  public CompletableFuture<Void> writeAsync(
+      HttpServletRequest request, HttpServletResponse response) {
+    if (!nonBlocking || !request.isAsyncStarted()) {
+      return QueryResponseWriter.super.writeAsync(request, response);
+    }
+    try {
+      byte[] contentBytes = prepare(request, response);
+      if (contentBytes == null) {
+        return CompletableFuture.completedFuture(null);
+      }
+      NonBlockingResponseOutput output = NonBlockingResponseOutput.start(response);
+      output.add(contentBytes);
+      output.close();
+      return output.getCompletion();
+    } catch (IOException e) {
+      return CompletableFuture.failedFuture(new UncheckedIOException(e));
+    }
+  }
+
+  /** @return the bytes to write, {@literal null} when the response is not modified */
+  private byte[] prepare(HttpServletRequest request, HttpServletResponse response) {
+    byte[] contentBytes = graphQLObjectMapper.serializeResultAsBytes(result);
+    if (result.getErrors().isEmpty()
+        && httpCacheHeaders.writeHeaders(
+            request, response, () -> HttpCacheHeaders.etagOf(contentBytes))) {
+      return null;
+    }
     response.setContentType(HttpRequestHandler.APPLICATION_JSON_UTF8);
     response.setStatus(HttpRequestHandler.STATUS_OK);
     response.setCharacterEncoding(StandardCharsets.UTF_8.name());
-
-    byte[] contentBytes = graphQLObjectMapper.serializeResultAsBytes(result);
     response.setContentLength(contentBytes.length);
-    response.getOutputStream().write(contentBytes);
-    response.getOutputStream().flush();
+    return contentBytes;
   }
 }
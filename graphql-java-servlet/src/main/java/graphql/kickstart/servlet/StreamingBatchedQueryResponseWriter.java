@@ -0,0 +1,198 @@
+package graphql.kickstart.servlet;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import graphql.ExecutionResult;
+import graphql.kickstart.execution.GraphQLObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Writes a batched response as a chunked JSON array, writing each result in request order as soon
+ * as it and all results before it are available. Only a single result is held in memory at a time.
+ * Blocking writes wait for the results on the calling thread. In non-blocking mode the serialized
+ * results are handed to a {@link NonBlockingResponseOutput} by the threads completing them.
+ */
+@RequiredArgsConstructor
+class StreamingBatchedQueryResponseWriter implements QueryResponseWriter {
+
+  private final List<CompletableFuture<ExecutionResult>> results;
+  private final GraphQLObjectMapper graphQLObjectMapper;
+  private final boolean flushEachResult;
+  private final boolean nonBlocking;
+
+  StreamingBatchedQueryResponseWriter(
+      List<CompletableFuture<ExecutionResult>> results,
+      GraphQLObjectMapper graphQLObjectMapper,
+      boolean flushEachResult) {
+    this(results, graphQLObjectMapper, flushEachResult, false);
+  }
+
+  /** Waits for the results on the calling thread, writing each one as soon as it is available. */
+  @Override
+  public void write(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    prepare(response);
+    Target target = new BlockingTarget(response);
+    try {
+      target.generator.writeStartArray();
+      target.endOfChunk();
+      for (CompletableFuture<ExecutionResult> result : results) {
+        graphQLObjectMapper.serializeResultAsJson(target.generator, result.join());
+        target.endOfChunk();
+      }
+      target.generator.writeEndArray();
+      target.close();
+    } catch (IOException | RuntimeException e) {
+      resetBuffer(response);
+      throw e;
+    }
+  }
+
+  @Override
+  public CompletableFuture<Void> writeAsync(
+      HttpServletRequest request, HttpServletResponse response) {
+    if (!nonBlocking || !request.isAsyncStarted()) {
+      // blocking writes must not run on the threads completing the executions
+      return QueryResponseWriter.super.writeAsync(request, response);
+    }
+    Target target;
+    try {
+      prepare(response);
+      target = new NonBlockingTarget(NonBlockingResponseOutput.start(response));
+      target.generator.writeStartArray();
+      target.endOfChunk();
+    } catch (IOException e) {
+      return CompletableFuture.failedFuture(new UncheckedIOException(e));
+    }
+
+    CompletableFuture<Void> written = CompletableFuture.completedFuture(null);
+    for (CompletableFuture<ExecutionResult> result : results) {
+      written = written.thenCompose(it -> result).thenAccept(it -> writeResult(target, it));
+    }
+    return written
+        .thenCompose(
+            it -> {
+              try {
+                target.generator.writeEndArray();
+                return target.close();
+              } catch (IOException e) {
+                throw new UncheckedIOException(e);
+              }
+            })
+        .whenComplete(
+            (it, t) -> {
+              if (t != null) {
+                resetBuffer(response);
+              }
+            });
+  }
+
+  private static void prepare(HttpServletResponse response) {
+    response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+    response.setContentType(HttpRequestHandler.APPLICATION_JSON_UTF8);
+    response.setStatus(HttpRequestHandler.STATUS_OK);
+  }
+
+  // drop the partial array, so an error response can still be written
+  private static void resetBuffer(HttpServletResponse response) {
+    if (!response.isCommitted()) {
+      response.resetBuffer();
+    }
+  }
+
+  private void writeResult(Target target, ExecutionResult result) {
+    try {
+      graphQLObjectMapper.serializeResultAsJson(target.generator, result);
+      target.endOfChunk();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private JsonGenerator createGenerator(OutputStream outputStream) throws IOException {
+    return graphQLObjectMapper
+        .getJacksonMapper()
+        .getFactory()
+        .createGenerator(outputStream, JsonEncoding.UTF8)
+        .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+  }
+
+  private abstract static class Target {
+
+    final JsonGenerator generator;
+
+    Target(JsonGenerator generator) {
+      this.generator = generator;
+    }
+
+    abstract void endOfChunk() throws IOException;
+
+    abstract CompletableFuture<Void> close() throws IOException;
+  }
+
+  /** Writes straight to the servlet output stream. */
+  private class BlockingTarget extends Target {
+
+    private final HttpServletResponse response;
+
+    BlockingTarget(HttpServletResponse response) throws IOException {
+      super(createGenerator(response.getOutputStream()));
+      this.response = response;
+    }
+
+    @Override
+    void endOfChunk() throws IOException {
+      if (flushEachResult) {
+        generator.flush();
+      }
+    }
+
+    @Override
+    CompletableFuture<Void> close() throws IOException {
+      generator.close();
+      response.getOutputStream().flush();
+      return CompletableFuture.completedFuture(null);
+    }
+  }
+
+  /** Hands each serialized result to the container through a {@link NonBlockingResponseOutput}. */
+  private class NonBlockingTarget extends Target {
+
+    private final ByteArrayOutputStream buffer;
+    private final NonBlockingResponseOutput output;
+
+    NonBlockingTarget(NonBlockingResponseOutput output) throws IOException {
+      this(new ByteArrayOutputStream(), output);
+    }
+
+    private NonBlockingTarget(ByteArrayOutputStream buffer, NonBlockingResponseOutput output)
+        throws IOException {
+      super(createGenerator(buffer));
+      this.buffer = buffer;
+      this.output = output;
+    }
+
+    @Override
+    void endOfChunk() throws IOException {
+      generator.flush();
+      output.add(buffer.toByteArray());
+      buffer.reset();
+    }
+
+    @Override
+    CompletableFuture<Void> close() throws IOException {
+      generator.close();
+      output.add(buffer.toByteArray());
+      output.close();
+      return output.getCompletion();
+    }
+  }
+}
@@ -2,9 +2,9 @@ package graphql.kickstart.servlet.cache;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.util.Arrays;
 import jakarta.servlet.ServletOutputStream;
 import jakarta.servlet.WriteListener;
 import jakarta.servlet.http.HttpServletResponse;
@@ -18,11 +18,24 @@ public class BufferedHttpServletResponse extends HttpServletResponseWrapper {
   private ServletOutputStream outputStream;
   private PrintWriter writer;
   private String errorMessage;
+  private int contentLength = -1;
 
   public BufferedHttpServletResponse(HttpServletResponse response) {
     super(response);
   }
 
+  @Override
+  public void setContentLength(int len) {
+    super.setContentLength(len);
+    contentLength = len;
+  }
+
+  @Override
+  public void setContentLengthLong(long len) {
+    super.setContentLengthLong(len);
+    contentLength = len <= Integer.MAX_VALUE ? (int) len : -1;
+  }
+
   @Override
   public void sendError(int sc, String msg) throws IOException {
     errorMessage = msg;
@@ -42,7 +55,7 @@ public class BufferedHttpServletResponse extends HttpServletResponseWrapper {
 
     if (outputStream == null) {
       outputStream = getResponse().getOutputStream();
-      copier = new BufferedOutputStream(outputStream);
+      copier = new BufferedOutputStream(outputStream, contentLength);
     }
 
     return copier;
@@ -56,7 +69,7 @@ public class BufferedHttpServletResponse extends HttpServletResponseWrapper {
     }
 
     if (writer == null) {
-      copier = new BufferedOutputStream(getResponse().getOutputStream());
+      copier = new BufferedOutputStream(getResponse().getOutputStream(), contentLength);
       writer =
           new PrintWriter(
               new OutputStreamWriter(copier, getResponse().getCharacterEncoding()), true);
@@ -101,11 +114,13 @@ public class BufferedHttpServletResponse extends HttpServletResponseWrapper {
 
   private static final class BufferedOutputStream extends ServletOutputStream {
 
-    private final OutputStream delegate;
-    private final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+    private final ServletOutputStream delegate;
+    private final ContentBuffer buf;
 
-    public BufferedOutputStream(OutputStream delegate) {
+    public BufferedOutputStream(ServletOutputStream delegate, int contentLength) {
       this.delegate = delegate;
+      // sized up front when the length is known, so the content is never copied to grow or trim
+      this.buf = new ContentBuffer(contentLength > 0 ? contentLength : 32);
     }
 
     public void write(int b) throws IOException {
@@ -113,6 +128,12 @@ public class BufferedHttpServletResponse extends HttpServletResponseWrapper {
       delegate.write(b);
     }
 
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      buf.write(b, off, len);
+      delegate.write(b, off, len);
+    }
+
     @Override
     public void flush() throws IOException {
       buf.flush();
@@ -127,16 +148,29 @@ public class BufferedHttpServletResponse extends HttpServletResponseWrapper {
 
     @Override
     public boolean isReady() {
-      return true;
+      return delegate.isReady();
     }
 
+    // the content is copied as it is written, so non-blocking writes go straight to the response
     @Override
     public void setWriteListener(WriteListener writeListener) {
-      // write listener not supported
+      delegate.setWriteListener(writeListener);
     }
 
     public byte[] toByteArray() {
-      return buf.toByteArray();
+      return buf.getContent();
+    }
+  }
+
+  private static final class ContentBuffer extends ByteArrayOutputStream {
+
+    private ContentBuffer(int size) {
+      super(size);
+    }
+
+    /** @return the written bytes, without copying them when the buffer is exactly full */
+    private synchronized byte[] getContent() {
+      return count == buf.length ? buf : Arrays.copyOf(buf, count);
     }
   }
 }
@@ -1,9 +1,11 @@
 package graphql.kickstart.servlet.cache;
 
 import graphql.kickstart.execution.input.GraphQLInvocationInput;
+import graphql.kickstart.servlet.HttpCacheHeaders;
 import graphql.kickstart.servlet.HttpRequestHandler;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.Locale;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
@@ -11,6 +13,16 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class CacheReader {
 
+  private final HttpCacheHeaders httpCacheHeaders;
+
+  public CacheReader() {
+    this(HttpCacheHeaders.NONE);
+  }
+
+  public CacheReader(HttpCacheHeaders httpCacheHeaders) {
+    this.httpCacheHeaders = httpCacheHeaders;
+  }
+
   /**
    * Response from cache if possible, if nothing in cache will not produce any response
    *
@@ -27,7 +39,7 @@ public class CacheReader {
     try {
       CachedResponse cachedResponse = cacheManager.get(request, invocationInput);
       if (cachedResponse != null) {
-        write(response, cachedResponse);
+        write(request, response, cachedResponse);
         return true;
       }
     } catch (Exception t) {
@@ -37,16 +49,87 @@ public class CacheReader {
     return false;
   }
 
-  private void write(HttpServletResponse response, CachedResponse cachedResponse)
+  void write(
+      HttpServletRequest request, HttpServletResponse response, CachedResponse cachedResponse)
       throws IOException {
     if (cachedResponse.isError()) {
       response.sendError(cachedResponse.getErrorStatusCode(), cachedResponse.getErrorMessage());
     } else {
+      String contentEncoding = null;
+      if (cachedResponse.isCompressed()) {
+        response.addHeader("Vary", "Accept-Encoding");
+        contentEncoding = negotiateContentEncoding(request.getHeader("Accept-Encoding"));
+      }
+      String etagSuffix = contentEncoding != null ? "-" + contentEncoding : "";
+      if (httpCacheHeaders.writeHeaders(
+          request, response, () -> cachedResponse.getEtag(etagSuffix))) {
+        return;
+      }
       response.setContentType(HttpRequestHandler.APPLICATION_JSON_UTF8);
       response.setStatus(HttpRequestHandler.STATUS_OK);
       response.setCharacterEncoding(StandardCharsets.UTF_8.name());
-      response.setContentLength(cachedResponse.getContentBytes().length);
-      response.getOutputStream().write(cachedResponse.getContentBytes());
+      if (contentEncoding != null) {
+        response.setHeader("Content-Encoding", contentEncoding);
+      }
+      if (cachedResponse instanceof OffHeapCachedResponse) {
+        OffHeapCachedResponse offHeapResponse = (OffHeapCachedResponse) cachedResponse;
+        response.setContentLength(offHeapResponse.getContentLength(contentEncoding));
+        offHeapResponse.writeContent(contentEncoding, response.getOutputStream());
+        return;
+      }
+      byte[] contentBytes =
+          contentEncoding != null
+              ? cachedResponse.getContentBytes(contentEncoding)
+              : cachedResponse.getContentBytes();
+      response.setContentLength(contentBytes.length);
+      response.getOutputStream().write(contentBytes);
+    }
+  }
+
+  /**
+   * @param acceptEncoding the {@code Accept-Encoding} request header
+   * @return the preferred of {@value CachedResponse#GZIP} and {@value CachedResponse#DEFLATE}, or
+   *     {@literal null} to send the response uncompressed
+   */
+  static String negotiateContentEncoding(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return null;
+    }
+    Double gzip = null;
+    Double deflate = null;
+    double any = 0;
+    for (String part : acceptEncoding.split(",")) {
+      String[] parameters = part.split(";");
+      String coding = parameters[0].trim().toLowerCase(Locale.ROOT);
+      double quality = getQuality(parameters);
+      if (CachedResponse.GZIP.equals(coding) || "x-gzip".equals(coding)) {
+        gzip = quality;
+      } else if (CachedResponse.DEFLATE.equals(coding)) {
+        deflate = quality;
+      } else if ("*".equals(coding)) {
+        any = quality;
+      }
+    }
+    // codings that are not listed get the quality of the wildcard
+    gzip = gzip != null ? gzip : any;
+    deflate = deflate != null ? deflate : any;
+    if (gzip > 0 && gzip >= deflate) {
+      return CachedResponse.GZIP;
+    }
+    return deflate > 0 ? CachedResponse.DEFLATE : null;
+  }
+
+  private static double getQuality(String[] parameters) {
+    for (int i = 1; i < parameters.length; i++) {
+      String parameter = parameters[i].trim();
+      if (parameter.startsWith("q=")) {
+        try {
+          return Double.parseDouble(parameter.substring(2).trim());
+        } catch (NumberFormatException e) {
+          return 0;
+        }
+      }
     }
+    return 1;
   }
 }
@@ -0,0 +1,50 @@
+package graphql.kickstart.servlet.cache;
+
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimpleInstrumentationContext;
+import graphql.execution.instrumentation.SimplePerformantInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationCreateStateParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters;
+import graphql.schema.DataFetchingEnvironment;
+import graphql.schema.GraphQLNamedType;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records which object types and root fields an execution touched, as the tags of its cached
+ * response. A response is tagged with {@link CacheTags#ofType(String)} for every object type one of
+ * its fields was resolved on, and with {@link CacheTags#ofField(String, String)} for every root
+ * field. Those responses can then be evicted with {@link
+ * InMemoryGraphQLResponseCacheManager#invalidateTag(String)}.
+ */
+public class CacheTagInstrumentation extends SimplePerformantInstrumentation {
+
+  @Override
+  public InstrumentationState createState(InstrumentationCreateStateParameters parameters) {
+    TagState state = new TagState();
+    parameters.getExecutionInput().getGraphQLContext().put(CacheTags.CONTEXT_KEY, state.tags);
+    return state;
+  }
+
+  @Override
+  public InstrumentationContext<Object> beginFieldFetch(
+      InstrumentationFieldFetchParameters parameters, InstrumentationState state) {
+    if (state instanceof TagState) {
+      Set<String> tags = ((TagState) state).tags;
+      DataFetchingEnvironment environment = parameters.getEnvironment();
+      String typeName = ((GraphQLNamedType) environment.getParentType()).getName();
+      if (environment.getExecutionStepInfo().getPath().getLevel() == 1) {
+        tags.add(CacheTags.ofField(typeName, environment.getFieldDefinition().getName()));
+      } else if (!typeName.startsWith("__")) {
+        tags.add(CacheTags.ofType(typeName));
+      }
+    }
+    return SimpleInstrumentationContext.noOp();
+  }
+
+  private static final class TagState implements InstrumentationState {
+
+    private final Set<String> tags = ConcurrentHashMap.newKeySet();
+  }
+}
@@ -0,0 +1,58 @@
+package graphql.kickstart.servlet.cache;
+
+import graphql.kickstart.execution.input.GraphQLBatchedInvocationInput;
+import graphql.kickstart.execution.input.GraphQLInvocationInput;
+import graphql.kickstart.execution.input.GraphQLSingleInvocationInput;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/** Tags identifying the schema parts a cached response depends on. */
+public final class CacheTags {
+
+  /** Key of the tags recorded by {@link CacheTagInstrumentation} in the GraphQL context. */
+  static final String CONTEXT_KEY = CacheTags.class.getName();
+
+  private CacheTags() {}
+
+  /**
+   * @param typeName name of an object type
+   * @return the tag of the responses containing an object of that type
+   */
+  public static String ofType(String typeName) {
+    return typeName;
+  }
+
+  /**
+   * @param typeName name of a root operation type, for example {@code Query}
+   * @param fieldName name of a field of that type
+   * @return the tag of the responses selecting that root field
+   */
+  public static String ofField(String typeName, String fieldName) {
+    return typeName + "." + fieldName;
+  }
+
+  /**
+   * @return the tags recorded by {@link CacheTagInstrumentation} during the execution of the
+   *     invocation input, empty when the instrumentation is not installed
+   */
+  public static Set<String> of(GraphQLInvocationInput invocationInput) {
+    if (invocationInput instanceof GraphQLSingleInvocationInput) {
+      return of((GraphQLSingleInvocationInput) invocationInput);
+    }
+    if (invocationInput instanceof GraphQLBatchedInvocationInput) {
+      Set<String> tags = new HashSet<>();
+      for (GraphQLSingleInvocationInput input :
+          ((GraphQLBatchedInvocationInput) invocationInput).getInvocationInputs()) {
+        tags.addAll(of(input));
+      }
+      return tags;
+    }
+    return Collections.emptySet();
+  }
+
+  private static Set<String> of(GraphQLSingleInvocationInput invocationInput) {
+    Set<String> tags = invocationInput.getExecutionInput().getGraphQLContext().get(CONTEXT_KEY);
+    return tags != null ? tags : Collections.emptySet();
+  }
+}
@@ -1,24 +1,61 @@
 package graphql.kickstart.servlet.cache;
 
+import graphql.kickstart.servlet.HttpCacheHeaders;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Objects;
+import java.util.Set;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
 
 public class CachedResponse implements Serializable {
 
   private static final long serialVersionUID = 5894555791705575139L;
 
+  public static final String GZIP = "gzip";
+  public static final String DEFLATE = "deflate";
+
   private final byte[] contentBytes;
+  private final byte[] gzipBytes;
+  private final byte[] deflateBytes;
 
   private final boolean error;
   private final Integer errorStatusCode;
   private final String errorMessage;
+  private final Set<String> tags;
+  private transient volatile String etag;
 
   private CachedResponse(
       byte[] contentBytes, boolean error, Integer errorStatusCode, String errorMessage) {
+    this(contentBytes, null, null, error, errorStatusCode, errorMessage, Collections.emptySet());
+  }
+
+  /** Constructor for subclasses keeping the content elsewhere. */
+  CachedResponse(Set<String> tags) {
+    this(null, null, null, false, null, null, tags);
+  }
+
+  private CachedResponse(
+      byte[] contentBytes,
+      byte[] gzipBytes,
+      byte[] deflateBytes,
+      boolean error,
+      Integer errorStatusCode,
+      String errorMessage,
+      Set<String> tags) {
     this.contentBytes = contentBytes;
+    this.gzipBytes = gzipBytes;
+    this.deflateBytes = deflateBytes;
     this.error = error;
     this.errorStatusCode = errorStatusCode;
     this.errorMessage = errorMessage;
+    this.tags = tags;
   }
 
   /**
@@ -42,6 +79,55 @@ public class CachedResponse implements Serializable {
     return new CachedResponse(null, true, errorStatusCode, errorMessage);
   }
 
+  /** Creates a success response with the given variants of the content. */
+  static CachedResponse ofContent(
+      byte[] contentBytes, byte[] gzipBytes, byte[] deflateBytes, Set<String> tags) {
+    return new CachedResponse(contentBytes, gzipBytes, deflateBytes, false, null, null, tags);
+  }
+
+  /**
+   * @return a copy of this response that also holds its content compressed with gzip and deflate,
+   *     or this response when it is an error
+   */
+  public CachedResponse withCompressedContent() {
+    if (error || gzipBytes != null) {
+      return this;
+    }
+    return new CachedResponse(
+        contentBytes,
+        compress(new ByteArrayOutputStream(), GZIP),
+        compress(new ByteArrayOutputStream(), DEFLATE),
+        false,
+        null,
+        null,
+        tags);
+  }
+
+  /**
+   * @param tags the tags of the schema parts this response depends on, see {@link CacheTags}
+   * @return a copy of this response with the given tags
+   */
+  public CachedResponse withTags(Collection<String> tags) {
+    return new CachedResponse(
+        contentBytes,
+        gzipBytes,
+        deflateBytes,
+        error,
+        errorStatusCode,
+        errorMessage,
+        tags.isEmpty() ? Collections.emptySet() : Collections.unmodifiableSet(new HashSet<>(tags)));
+  }
+
+  private byte[] compress(ByteArrayOutputStream target, String encoding) {
+    try (OutputStream outputStream =
+        GZIP.equals(encoding) ? new GZIPOutputStream(target) : new DeflaterOutputStream(target)) {
+      outputStream.write(contentBytes);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return target.toByteArray();
+  }
+
   /** @return {@literal true} when this request was failed */
   public boolean isError() {
     return error;
@@ -55,6 +141,57 @@ public class CachedResponse implements Serializable {
     return contentBytes;
   }
 
+  /**
+   * @param contentEncoding {@value #GZIP} or {@value #DEFLATE}
+   * @return the response body compressed with the given encoding, {@literal null} when not
+   *     available
+   */
+  public byte[] getContentBytes(String contentEncoding) {
+    if (GZIP.equals(contentEncoding)) {
+      return gzipBytes;
+    }
+    return DEFLATE.equals(contentEncoding) ? deflateBytes : null;
+  }
+
+  /**
+   * @param suffix appended to the opaque tag, to tell apart the representations of the content
+   * @return the entity tag of the content, computed once
+   */
+  public String getEtag(String suffix) {
+    String contentEtag = getContentEtag();
+    return suffix.isEmpty()
+        ? contentEtag
+        : contentEtag.substring(0, contentEtag.length() - 1) + suffix + "\"";
+  }
+
+  String getContentEtag() {
+    String contentEtag = etag;
+    if (contentEtag == null) {
+      contentEtag = HttpCacheHeaders.etagOf(contentBytes);
+      etag = contentEtag;
+    }
+    return contentEtag;
+  }
+
+  /** @return {@literal true} when the body is also available compressed */
+  public boolean isCompressed() {
+    return gzipBytes != null;
+  }
+
+  /** @return the total size in bytes of the body and its compressed variants */
+  public long getSize() {
+    return length(contentBytes) + length(gzipBytes) + length(deflateBytes);
+  }
+
+  private static int length(byte[] bytes) {
+    return bytes != null ? bytes.length : 0;
+  }
+
+  /** @return the tags of the schema parts this response depends on */
+  public Set<String> getTags() {
+    return tags != null ? tags : Collections.emptySet();
+  }
+
   /** @return the response error code */
   public Integer getErrorStatusCode() {
     return errorStatusCode;
@@ -3,11 +3,21 @@ package graphql.kickstart.servlet.cache;
 import static graphql.kickstart.servlet.HttpRequestHandler.STATUS_BAD_REQUEST;
 
 import graphql.kickstart.execution.input.GraphQLInvocationInput;
+import graphql.kickstart.servlet.AsyncContextListeners;
 import graphql.kickstart.servlet.GraphQLConfiguration;
+import graphql.kickstart.servlet.HttpCacheHeaders;
 import graphql.kickstart.servlet.HttpRequestInvoker;
 import graphql.kickstart.servlet.HttpRequestInvokerImpl;
 import graphql.kickstart.servlet.ListenerHandler;
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.AccessLevel;
@@ -18,9 +28,14 @@ import lombok.extern.slf4j.Slf4j;
 @RequiredArgsConstructor(access = AccessLevel.PROTECTED)
 public class CachingHttpRequestInvoker implements HttpRequestInvoker {
 
+  private static final String FLIGHT_ATTRIBUTE =
+      CachingHttpRequestInvoker.class.getName() + ".flight";
+
   private final GraphQLConfiguration configuration;
   private final HttpRequestInvoker requestInvoker;
   private final CacheReader cacheReader;
+  private final ConcurrentMap<Object, CompletableFuture<CachedResponse>> inFlight =
+      new ConcurrentHashMap<>();
 
   public CachingHttpRequestInvoker(GraphQLConfiguration configuration) {
     this(
@@ -29,7 +44,7 @@ public class CachingHttpRequestInvoker implements HttpRequestInvoker {
             configuration,
             configuration.getGraphQLInvoker(),
             new CachingQueryResponseWriterFactory()),
-        new CacheReader());
+        new CacheReader(HttpCacheHeaders.of(configuration)));
   }
 
   /** Try to return value from cache if cache exists, otherwise process the query normally */
@@ -40,13 +55,178 @@ public class CachingHttpRequestInvoker implements HttpRequestInvoker {
       HttpServletResponse response,
       ListenerHandler listenerHandler) {
     try {
-      if (!cacheReader.responseFromCache(
+      if (cacheReader.responseFromCache(
           invocationInput, request, response, configuration.getResponseCacheManager())) {
-        requestInvoker.execute(invocationInput, request, response, listenerHandler);
+        if (request.isAsyncStarted()) {
+          // started while the body was read asynchronously, nothing else completes it
+          request.getAsyncContext().complete();
+        }
+      } else {
+        Object key = getCoalescingKey(invocationInput, request);
+        if (key == null) {
+          requestInvoker.execute(invocationInput, request, response, listenerHandler);
+          return;
+        }
+        CompletableFuture<CachedResponse> flight = new CompletableFuture<>();
+        CompletableFuture<CachedResponse> leading = inFlight.putIfAbsent(key, flight);
+        if (leading == null) {
+          executeLeading(key, flight, invocationInput, request, response, listenerHandler);
+        } else {
+          awaitLeading(key, leading, invocationInput, request, response, listenerHandler);
+        }
       }
     } catch (IOException e) {
       response.setStatus(STATUS_BAD_REQUEST);
       log.warn("Unexpected error happened during response from cache", e);
     }
   }
+
+  /**
+   * Passes the response written for a coalesced request on to the identical requests waiting for
+   * it.
+   */
+  @SuppressWarnings("unchecked")
+  static void completeFlight(HttpServletRequest request, CachedResponse cachedResponse) {
+    Object flight = request.getAttribute(FLIGHT_ATTRIBUTE);
+    if (flight instanceof CompletableFuture) {
+      ((CompletableFuture<CachedResponse>) flight).complete(cachedResponse);
+    }
+  }
+
+  private Object getCoalescingKey(
+      GraphQLInvocationInput invocationInput, HttpServletRequest request) {
+    // a waiting request must not hold its thread, so only requests that can go async coalesce
+    if (configuration.getResponseCacheCoalescingTimeout() <= 0 || !request.isAsyncSupported()) {
+      return null;
+    }
+    return configuration.getResponseCacheManager().getCacheKey(request, invocationInput);
+  }
+
+  private void executeLeading(
+      Object key,
+      CompletableFuture<CachedResponse> flight,
+      GraphQLInvocationInput invocationInput,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      ListenerHandler listenerHandler) {
+    flight.whenComplete((it, t) -> inFlight.remove(key, flight));
+    request.setAttribute(FLIGHT_ATTRIBUTE, flight);
+    try {
+      requestInvoker.execute(invocationInput, request, response, listenerHandler);
+    } finally {
+      completeFlightWithRequest(flight, request);
+    }
+  }
+
+  private void completeFlightWithRequest(
+      CompletableFuture<CachedResponse> flight, HttpServletRequest request) {
+    if (!request.isAsyncStarted()) {
+      flight.complete(null);
+      return;
+    }
+    // no response to share when the request completes without writing a cacheable one
+    FlightCompletionListener listener = new FlightCompletionListener(flight);
+    AsyncContextListeners listeners = AsyncContextListeners.of(request);
+    if (listeners == null) {
+      request.getAsyncContext().addListener(listener);
+    } else if (!listeners.add(listener)) {
+      flight.complete(null);
+    }
+  }
+
+  private void awaitLeading(
+      Object key,
+      CompletableFuture<CachedResponse> flight,
+      GraphQLInvocationInput invocationInput,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      ListenerHandler listenerHandler) {
+    CompletableFuture<CachedResponse> waiting =
+        flight
+            .copy()
+            .orTimeout(configuration.getResponseCacheCoalescingTimeout(), TimeUnit.MILLISECONDS)
+            .whenComplete(
+                (it, t) -> {
+                  if (t != null) {
+                    // let later requests lead instead of waiting on a stuck execution
+                    inFlight.remove(key, flight);
+                  }
+                });
+    // configured now, the execution that may follow runs after this dispatch has returned
+    AsyncContext asyncContext =
+        AsyncContextListeners.startAsync(request, response, configuration.getAsyncTimeout());
+    waiting.whenComplete(
+        (cachedResponse, t) -> {
+          // keep the writes of the waiting requests off the thread of the leading request
+          Runnable responder =
+              () -> {
+                if (respond(cachedResponse, invocationInput, request, response, listenerHandler)) {
+                  asyncContext.complete();
+                }
+              };
+          try {
+            configuration.getAsyncExecutor().execute(responder);
+          } catch (RejectedExecutionException e) {
+            responder.run();
+          }
+        });
+  }
+
+  /**
+   * Writes the response of the identical request, running the listener callbacks as the execution
+   * would, or executes this request when there is none.
+   *
+   * @return {@literal true} when the response was written
+   */
+  private boolean respond(
+      CachedResponse cachedResponse,
+      GraphQLInvocationInput invocationInput,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      ListenerHandler listenerHandler) {
+    if (cachedResponse == null || cachedResponse.isError()) {
+      requestInvoker.execute(invocationInput, request, response, listenerHandler);
+      return false;
+    }
+    try {
+      listenerHandler.beforeFlush();
+      cacheReader.write(request, response, cachedResponse);
+      listenerHandler.onSuccess();
+    } catch (IOException e) {
+      log.warn("Cannot write coalesced response", e);
+      listenerHandler.onError(e);
+    } finally {
+      listenerHandler.onFinally();
+    }
+    return true;
+  }
+
+  private static class FlightCompletionListener implements AsyncListener {
+
+    private final CompletableFuture<CachedResponse> flight;
+
+    FlightCompletionListener(CompletableFuture<CachedResponse> flight) {
+      this.flight = flight;
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+      flight.complete(null);
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+      flight.complete(null);
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+      flight.complete(null);
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+      // not interested in restarts
+    }
+  }
 }
@@ -3,6 +3,8 @@ package graphql.kickstart.servlet.cache;
 import graphql.kickstart.execution.input.GraphQLInvocationInput;
 import graphql.kickstart.servlet.QueryResponseWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
@@ -14,16 +16,40 @@ public class CachingQueryResponseWriter implements QueryResponseWriter {
   private final GraphQLResponseCacheManager responseCache;
   private final GraphQLInvocationInput invocationInput;
   private final boolean error;
+  private final int compressionThreshold;
 
   public CachingQueryResponseWriter(
       QueryResponseWriter delegate,
       GraphQLResponseCacheManager responseCache,
       GraphQLInvocationInput invocationInput,
       boolean error) {
+    this(delegate, responseCache, invocationInput, error, -1);
+  }
+
+  /**
+   * @param compressionThreshold minimum size in bytes of a response to also cache it compressed,
+   *     negative to never compress
+   */
+  public CachingQueryResponseWriter(
+      QueryResponseWriter delegate,
+      GraphQLResponseCacheManager responseCache,
+      GraphQLInvocationInput invocationInput,
+      boolean error,
+      int compressionThreshold) {
     this.delegate = delegate;
     this.responseCache = responseCache;
     this.invocationInput = invocationInput;
     this.error = error;
+    this.compressionThreshold = compressionThreshold;
+  }
+
+  static CachedResponse compress(CachedResponse cachedResponse, int compressionThreshold) {
+    if (compressionThreshold < 0
+        || cachedResponse.isError()
+        || cachedResponse.getContentBytes().length < compressionThreshold) {
+      return cachedResponse;
+    }
+    return cachedResponse.withCompressedContent();
   }
 
   @Override
@@ -34,26 +60,54 @@ public class CachingQueryResponseWriter implements QueryResponseWriter {
 
       delegate.write(request, cachingResponseWrapper);
 
-      try {
-        if (error) {
-          int errorStatusCode = cachingResponseWrapper.getStatus();
-          String errorMessage = cachingResponseWrapper.getErrorMessage();
-
-          responseCache.put(
-              request, invocationInput, CachedResponse.ofError(errorStatusCode, errorMessage));
-        } else {
-          byte[] contentBytes = cachingResponseWrapper.getContentAsByteArray();
-
-          responseCache.put(request, invocationInput, CachedResponse.ofContent(contentBytes));
-        }
-      } catch (Exception t) {
-        log.warn("Ignore read from cache, unexpected error happened", t);
-      }
-
+      cache(request, cachingResponseWrapper);
       cachingResponseWrapper.flushBuffer();
       cachingResponseWrapper.close();
     } else {
       delegate.write(request, response);
     }
   }
+
+  @Override
+  public CompletableFuture<Void> writeAsync(
+      HttpServletRequest request, HttpServletResponse response) {
+    if (!responseCache.isCacheable(request, invocationInput)) {
+      return delegate.writeAsync(request, response);
+    }
+    BufferedHttpServletResponse cachingResponseWrapper = new BufferedHttpServletResponse(response);
+    return delegate
+        .writeAsync(request, cachingResponseWrapper)
+        .thenRun(
+            () -> {
+              cache(request, cachingResponseWrapper);
+              try {
+                cachingResponseWrapper.close();
+              } catch (IOException e) {
+                throw new UncheckedIOException(e);
+              }
+            });
+  }
+
+  private void cache(
+      HttpServletRequest request, BufferedHttpServletResponse cachingResponseWrapper) {
+    try {
+      CachedResponse cachedResponse;
+      if (error) {
+        int errorStatusCode = cachingResponseWrapper.getStatus();
+        String errorMessage = cachingResponseWrapper.getErrorMessage();
+
+        cachedResponse = CachedResponse.ofError(errorStatusCode, errorMessage);
+      } else {
+        byte[] contentBytes = cachingResponseWrapper.getContentAsByteArray();
+
+        cachedResponse =
+            compress(CachedResponse.ofContent(contentBytes), compressionThreshold)
+                .withTags(CacheTags.of(invocationInput));
+      }
+      CachingHttpRequestInvoker.completeFlight(request, cachedResponse);
+      responseCache.put(request, invocationInput, cachedResponse);
+    } catch (Exception t) {
+      log.warn("Ignore read from cache, unexpected error happened", t);
+    }
+  }
 }
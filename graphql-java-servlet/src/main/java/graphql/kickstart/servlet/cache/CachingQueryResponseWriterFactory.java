@@ -3,6 +3,7 @@ package graphql.kickstart.servlet.cache;
 import graphql.kickstart.execution.GraphQLQueryResult;
 import graphql.kickstart.execution.input.GraphQLInvocationInput;
 import graphql.kickstart.servlet.GraphQLConfiguration;
+import graphql.kickstart.servlet.HttpCacheHeaders;
 import graphql.kickstart.servlet.QueryResponseWriter;
 import graphql.kickstart.servlet.QueryResponseWriterFactory;
 import graphql.kickstart.servlet.QueryResponseWriterFactoryImpl;
@@ -19,10 +20,33 @@ public class CachingQueryResponseWriterFactory implements QueryResponseWriterFac
       GraphQLConfiguration configuration) {
     QueryResponseWriter writer =
         queryResponseWriterFactory.createWriter(invocationInput, queryResult, configuration);
+    if (configuration.getResponseCacheManager() != null
+        && isBlockingSingleResult(queryResult, configuration)) {
+      return new CachingSingleQueryResponseWriter(
+          writer,
+          queryResult.getResult(),
+          configuration.getObjectMapper(),
+          configuration.getResponseCacheManager(),
+          invocationInput,
+          configuration.getResponseCacheCompressionThreshold(),
+          new CacheReader(HttpCacheHeaders.of(configuration)));
+    }
     if (configuration.getResponseCacheManager() != null) {
       return new CachingQueryResponseWriter(
-          writer, configuration.getResponseCacheManager(), invocationInput, queryResult.isError());
+          writer,
+          configuration.getResponseCacheManager(),
+          invocationInput,
+          queryResult.isError(),
+          configuration.getResponseCacheCompressionThreshold());
     }
     return writer;
   }
+
+  private boolean isBlockingSingleResult(
+      GraphQLQueryResult queryResult, GraphQLConfiguration configuration) {
+    return !queryResult.isBatched()
+        && !queryResult.isAsynchronous()
+        && !queryResult.isError()
+        && !configuration.isNonBlockingResponse();
+  }
 }
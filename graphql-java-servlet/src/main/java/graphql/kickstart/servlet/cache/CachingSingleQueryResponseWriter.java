@@ -0,0 +1,51 @@
+package graphql.kickstart.servlet.cache;
+
+import graphql.ExecutionResult;
+import graphql.kickstart.execution.GraphQLObjectMapper;
+import graphql.kickstart.execution.input.GraphQLInvocationInput;
+import graphql.kickstart.servlet.QueryResponseWriter;
+import java.io.IOException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Writes a single result and caches it without buffering the response: the result is serialized
+ * once, and the same bytes are cached and written to the client.
+ */
+@Slf4j
+@RequiredArgsConstructor
+class CachingSingleQueryResponseWriter implements QueryResponseWriter {
+
+  private final QueryResponseWriter delegate;
+  private final ExecutionResult result;
+  private final GraphQLObjectMapper graphQLObjectMapper;
+  private final GraphQLResponseCacheManager responseCache;
+  private final GraphQLInvocationInput invocationInput;
+  private final int compressionThreshold;
+  private final CacheReader cacheReader;
+
+  @Override
+  public void write(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    // a result with errors is neither cached nor answered with cache headers
+    if (!result.getErrors().isEmpty() || !responseCache.isCacheable(request, invocationInput)) {
+      delegate.write(request, response);
+      return;
+    }
+
+    CachedResponse cachedResponse =
+        CachingQueryResponseWriter.compress(
+                CachedResponse.ofContent(graphQLObjectMapper.serializeResultAsBytes(result)),
+                compressionThreshold)
+            .withTags(CacheTags.of(invocationInput));
+    try {
+      CachingHttpRequestInvoker.completeFlight(request, cachedResponse);
+      responseCache.put(request, invocationInput, cachedResponse);
+    } catch (Exception t) {
+      log.warn("Ignore write to cache, unexpected error happened", t);
+    }
+    cacheReader.write(request, response, cachedResponse);
+    response.getOutputStream().flush();
+  }
+}
@@ -35,4 +35,16 @@ public interface GraphQLResponseCacheManager {
       HttpServletRequest request,
       GraphQLInvocationInput invocationInput,
       CachedResponse cachedResponse);
+
+  /**
+   * Key under which the response of this request is cached, used to coalesce identical concurrent
+   * requests. Requests with equal keys must get the same response.
+   *
+   * @param request the http request
+   * @param invocationInput input data
+   * @return the cache key, or {@literal null} when identical requests must not be coalesced
+   */
+  default Object getCacheKey(HttpServletRequest request, GraphQLInvocationInput invocationInput) {
+    return null;
+  }
 }
@@ -0,0 +1,461 @@
+package graphql.kickstart.servlet.cache;
+
+import graphql.kickstart.execution.input.GraphQLInvocationInput;
+import graphql.kickstart.execution.input.GraphQLSingleInvocationInput;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.NonNull;
+
+/**
+ * A bounded in-memory {@link GraphQLResponseCacheManager}.
+ *
+ * <p>Responses are keyed on the schema, query, operation name, variables and an optional request
+ * scope (for example the value of an authorization header), and are evicted in least recently used
+ * order when either the maximum number of entries or the maximum total weight is exceeded. The
+ * weight of an entry is the size of the cached response body, including its compressed variant,
+ * plus the size of the query text and the variables of its key. Entries optionally expire a fixed
+ * time after they were cached. The cache is split in independently locked segments.
+ *
+ * <p>Responses tagged by {@link CacheTagInstrumentation} with the object types and root fields they
+ * depend on can be evicted by tag, for example after a mutation changed objects of a type.
+ *
+ * <p>By default only single queries sent with GET are cached, those are executed against the read
+ * only schema.
+ */
+public class InMemoryGraphQLResponseCacheManager implements GraphQLResponseCacheManager {
+
+  private final Segment[] segments;
+  private final int segmentMask;
+  private final long maximumSizePerSegment;
+  private final long maximumWeightPerSegment;
+  private final long expireAfterWriteNanos;
+  private final Function<HttpServletRequest, Object> scopeKeyProvider;
+  private final BiPredicate<HttpServletRequest, GraphQLInvocationInput> cacheablePredicate;
+
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+  private final LongAdder evictionCount = new LongAdder();
+
+  protected InMemoryGraphQLResponseCacheManager(
+      long maximumSize,
+      long maximumWeight,
+      Duration expireAfterWrite,
+      int concurrencyLevel,
+      Function<HttpServletRequest, Object> scopeKeyProvider,
+      BiPredicate<HttpServletRequest, GraphQLInvocationInput> cacheablePredicate) {
+    int segmentCount =
+        Integer.highestOneBit((int) Math.max(1, Math.min(concurrencyLevel, maximumSize)));
+    this.segments = new Segment[segmentCount];
+    for (int i = 0; i < segmentCount; i++) {
+      segments[i] = new Segment();
+    }
+    this.segmentMask = segmentCount - 1;
+    this.maximumSizePerSegment = ceilDiv(maximumSize, segmentCount);
+    this.maximumWeightPerSegment = ceilDiv(maximumWeight, segmentCount);
+    this.expireAfterWriteNanos = expireAfterWrite != null ? expireAfterWrite.toNanos() : 0;
+    this.scopeKeyProvider = scopeKeyProvider;
+    this.cacheablePredicate = cacheablePredicate;
+  }
+
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  private static long ceilDiv(long value, int divisor) {
+    return value == Long.MAX_VALUE ? value : (value + divisor - 1) / divisor;
+  }
+
+  /** Caches single queries sent with GET. */
+  public static boolean isReadOnlyQuery(
+      HttpServletRequest request, GraphQLInvocationInput invocationInput) {
+    return "GET".equalsIgnoreCase(request.getMethod())
+        && invocationInput instanceof GraphQLSingleInvocationInput;
+  }
+
+  @Override
+  public boolean isCacheable(HttpServletRequest request, GraphQLInvocationInput invocationInput) {
+    return invocationInput instanceof GraphQLSingleInvocationInput
+        && cacheablePredicate.test(request, invocationInput);
+  }
+
+  @Override
+  public CachedResponse get(HttpServletRequest request, GraphQLInvocationInput invocationInput) {
+    CacheEntry entry = getEntry(request, invocationInput);
+    return entry != null ? entry.response : null;
+  }
+
+  /** Looks up the cached response like {@link #get}, together with the time it was written. */
+  CacheEntry getEntry(HttpServletRequest request, GraphQLInvocationInput invocationInput) {
+    if (!isCacheable(request, invocationInput)) {
+      return null;
+    }
+    ResponseCacheKey key = createKey(request, invocationInput);
+    Segment segment = segmentFor(key);
+    long now = System.nanoTime();
+    segment.lock.lock();
+    try {
+      CacheEntry entry = segment.entries.get(key);
+      if (entry != null && isExpired(entry, now)) {
+        segment.remove(entry);
+        evictionCount.increment();
+        entry = null;
+      }
+      if (entry == null) {
+        missCount.increment();
+        return null;
+      }
+      hitCount.increment();
+      return entry;
+    } finally {
+      segment.lock.unlock();
+    }
+  }
+
+  @Override
+  public void put(
+      HttpServletRequest request,
+      GraphQLInvocationInput invocationInput,
+      CachedResponse cachedResponse) {
+    put(request, invocationInput, cachedResponse, System.nanoTime());
+  }
+
+  /**
+   * Caches a response written earlier, to another cache, so it expires when it would have expired
+   * there.
+   *
+   * @param createdAt the {@link System#nanoTime()} the response was first written at
+   */
+  void put(
+      HttpServletRequest request,
+      GraphQLInvocationInput invocationInput,
+      CachedResponse cachedResponse,
+      long createdAt) {
+    if (!isCacheable(request, invocationInput)) {
+      return;
+    }
+    CacheEntry entry =
+        new CacheEntry(createKey(request, invocationInput), cachedResponse, createdAt);
+    Segment segment = segmentFor(entry.key);
+    segment.lock.lock();
+    try {
+      CacheEntry previous = segment.entries.get(entry.key);
+      if (previous != null) {
+        segment.remove(previous);
+      }
+      segment.add(entry);
+      evictOverflow(segment, entry);
+    } finally {
+      segment.lock.unlock();
+    }
+  }
+
+  @Override
+  public Object getCacheKey(HttpServletRequest request, GraphQLInvocationInput invocationInput) {
+    return isCacheable(request, invocationInput) ? createKey(request, invocationInput) : null;
+  }
+
+  private ResponseCacheKey createKey(
+      HttpServletRequest request, GraphQLInvocationInput invocationInput) {
+    return ResponseCacheKey.of(
+        (GraphQLSingleInvocationInput) invocationInput, scopeKeyProvider.apply(request));
+  }
+
+  private Segment segmentFor(ResponseCacheKey key) {
+    int hash = key.hashCode();
+    return segments[(hash ^ (hash >>> 16)) & segmentMask];
+  }
+
+  private boolean isExpired(CacheEntry entry, long now) {
+    return expireAfterWriteNanos > 0 && now - entry.createdAt >= expireAfterWriteNanos;
+  }
+
+  private void evictOverflow(Segment segment, CacheEntry added) {
+    Iterator<CacheEntry> iterator = segment.entries.values().iterator();
+    while (iterator.hasNext()
+        && (segment.entries.size() > maximumSizePerSegment
+            || segment.weight > maximumWeightPerSegment)) {
+      CacheEntry eldest = iterator.next();
+      iterator.remove();
+      segment.weight -= eldest.weight;
+      segment.unindex(eldest);
+      if (eldest != added) {
+        evictionCount.increment();
+      }
+    }
+  }
+
+  /**
+   * Removes the cached responses with the given tag.
+   *
+   * @param tag a tag created with {@link CacheTags}
+   * @return the number of removed responses
+   */
+  public long invalidateTag(String tag) {
+    long removed = 0;
+    for (Segment segment : segments) {
+      segment.lock.lock();
+      try {
+        Set<ResponseCacheKey> keys = segment.tagIndex.get(tag);
+        if (keys != null) {
+          for (ResponseCacheKey key : new ArrayList<>(keys)) {
+            segment.remove(segment.entries.get(key));
+            removed++;
+          }
+        }
+      } finally {
+        segment.lock.unlock();
+      }
+    }
+    return removed;
+  }
+
+  /**
+   * Removes the cached responses containing an object of the given type.
+   *
+   * @param typeName name of an object type
+   * @return the number of removed responses
+   */
+  public long invalidateType(String typeName) {
+    return invalidateTag(CacheTags.ofType(typeName));
+  }
+
+  /**
+   * Removes the cached responses selecting the given root field.
+   *
+   * @param typeName name of a root operation type, for example {@code Query}
+   * @param fieldName name of a field of that type
+   * @return the number of removed responses
+   */
+  public long invalidateField(String typeName, String fieldName) {
+    return invalidateTag(CacheTags.ofField(typeName, fieldName));
+  }
+
+  /** @return the number of lookups that were served from the cache */
+  public long getHitCount() {
+    return hitCount.sum();
+  }
+
+  /** @return the number of lookups of cacheable requests that found no response */
+  public long getMissCount() {
+    return missCount.sum();
+  }
+
+  /** @return the number of entries removed because of the size, weight or time bounds */
+  public long getEvictionCount() {
+    return evictionCount.sum();
+  }
+
+  /** @return the current number of cached responses */
+  public long size() {
+    long size = 0;
+    for (Segment segment : segments) {
+      segment.lock.lock();
+      try {
+        size += segment.entries.size();
+      } finally {
+        segment.lock.unlock();
+      }
+    }
+    return size;
+  }
+
+  /** @return the total weight of the cached responses and their keys */
+  public long weight() {
+    long weight = 0;
+    for (Segment segment : segments) {
+      segment.lock.lock();
+      try {
+        weight += segment.weight;
+      } finally {
+        segment.lock.unlock();
+      }
+    }
+    return weight;
+  }
+
+  /** Removes all cached responses. */
+  public void invalidateAll() {
+    for (Segment segment : segments) {
+      segment.lock.lock();
+      try {
+        segment.entries.clear();
+        segment.tagIndex.clear();
+        segment.weight = 0;
+      } finally {
+        segment.lock.unlock();
+      }
+    }
+  }
+
+  private static final class Segment {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<ResponseCacheKey, CacheEntry> entries =
+        new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Set<ResponseCacheKey>> tagIndex = new HashMap<>();
+    private long weight;
+
+    private void add(CacheEntry entry) {
+      entries.put(entry.key, entry);
+      weight += entry.weight;
+      for (String tag : entry.tags) {
+        tagIndex.computeIfAbsent(tag, t -> new HashSet<>()).add(entry.key);
+      }
+    }
+
+    private void remove(CacheEntry entry) {
+      entries.remove(entry.key);
+      weight -= entry.weight;
+      unindex(entry);
+    }
+
+    private void unindex(CacheEntry entry) {
+      for (String tag : entry.tags) {
+        Set<ResponseCacheKey> keys = tagIndex.get(tag);
+        if (keys != null && keys.remove(entry.key) && keys.isEmpty()) {
+          tagIndex.remove(tag);
+        }
+      }
+    }
+  }
+
+  static final class CacheEntry {
+
+    private final ResponseCacheKey key;
+    private final CachedResponse response;
+    private final long createdAt;
+    private final int weight;
+    private final Set<String> tags;
+
+    private CacheEntry(ResponseCacheKey key, CachedResponse response, long createdAt) {
+      this.key = key;
+      this.response = response;
+      this.createdAt = createdAt;
+      this.weight =
+          (int) Math.max(1, Math.min(response.getSize() + key.weight(), Integer.MAX_VALUE));
+      this.tags = response.getTags();
+    }
+
+    CachedResponse getResponse() {
+      return response;
+    }
+
+    long getCreatedAt() {
+      return createdAt;
+    }
+  }
+
+  public static class Builder {
+
+    private long maximumSize = 10_000;
+    private long maximumWeight = 64L * 1024 * 1024;
+    private Duration expireAfterWrite;
+    private int concurrencyLevel = 16;
+    private Function<HttpServletRequest, Object> scopeKeyProvider = request -> null;
+    private BiPredicate<HttpServletRequest, GraphQLInvocationInput> cacheablePredicate =
+        InMemoryGraphQLResponseCacheManager::isReadOnlyQuery;
+
+    /**
+     * @param maximumSize the maximum number of cached responses
+     * @return this builder
+     */
+    public Builder withMaximumSize(long maximumSize) {
+      if (maximumSize < 1) {
+        throw new IllegalArgumentException("maximumSize must be positive");
+      }
+      this.maximumSize = maximumSize;
+      return this;
+    }
+
+    /**
+     * @param maximumWeight the maximum total size in bytes of the cached response bodies and the
+     *     query texts and variables they are keyed on
+     * @return this builder
+     */
+    public Builder withMaximumWeight(long maximumWeight) {
+      if (maximumWeight < 1) {
+        throw new IllegalArgumentException("maximumWeight must be positive");
+      }
+      this.maximumWeight = maximumWeight;
+      return this;
+    }
+
+    /**
+     * @param expireAfterWrite time after which a cached response is no longer served, {@literal
+     *     null} to keep responses until they are evicted
+     * @return this builder
+     */
+    public Builder withExpireAfterWrite(Duration expireAfterWrite) {
+      this.expireAfterWrite = expireAfterWrite;
+      return this;
+    }
+
+    /**
+     * @param concurrencyLevel the number of independently locked segments, rounded down to a power
+     *     of two
+     * @return this builder
+     */
+    public Builder withConcurrencyLevel(int concurrencyLevel) {
+      if (concurrencyLevel < 1) {
+        throw new IllegalArgumentException("concurrencyLevel must be positive");
+      }
+      this.concurrencyLevel = concurrencyLevel;
+      return this;
+    }
+
+    /**
+     * @param scopeKeyProvider provides the part of the key separating responses that must not be
+     *     shared between requests, for example per user. Responses are shared by all requests when
+     *     it returns {@literal null}.
+     * @return this builder
+     */
+    public Builder withScopeKeyProvider(
+        @NonNull Function<HttpServletRequest, Object> scopeKeyProvider) {
+      this.scopeKeyProvider = scopeKeyProvider;
+      return this;
+    }
+
+    /**
+     * Scopes cached responses by the value of a request header, for example {@code Authorization}.
+     *
+     * @param headerName name of the request header
+     * @return this builder
+     */
+    public Builder withScopeHeader(@NonNull String headerName) {
+      return withScopeKeyProvider(request -> request.getHeader(headerName));
+    }
+
+    /**
+     * @param cacheablePredicate decides which requests are cached, by default {@link
+     *     #isReadOnlyQuery(HttpServletRequest, GraphQLInvocationInput)}. Batched requests are never
+     *     cached.
+     * @return this builder
+     */
+    public Builder withCacheablePredicate(
+        @NonNull BiPredicate<HttpServletRequest, GraphQLInvocationInput> cacheablePredicate) {
+      this.cacheablePredicate = cacheablePredicate;
+      return this;
+    }
+
+    public InMemoryGraphQLResponseCacheManager build() {
+      return new InMemoryGraphQLResponseCacheManager(
+          maximumSize,
+          maximumWeight,
+          expireAfterWrite,
+          concurrencyLevel,
+          scopeKeyProvider,
+          cacheablePredicate);
+    }
+  }
+}
@@ -0,0 +1,192 @@
+package graphql.kickstart.servlet.cache;
+
+import java.io.IOException;
+import java.io.ObjectStreamException;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import jakarta.servlet.ServletOutputStream;
+
+/**
+ * A success response whose content and compressed variants are kept in a single direct buffer. The
+ * buffer is never reused, so it can be written to a response while the entry is evicted, and its
+ * memory is released only when the garbage collector collects the buffer once no response refers
+ * to it anymore.
+ */
+final class OffHeapCachedResponse extends CachedResponse {
+
+  private static final long serialVersionUID = -2786417393925012371L;
+
+  private static final int TRANSFER_CHUNK_SIZE = 8192;
+
+  /** {@code ServletOutputStream.write(ByteBuffer)}, available since Servlet 6.1. */
+  private static final MethodHandle WRITE_BUFFER = findWriteBuffer();
+
+  private final transient ByteBuffer content;
+  private final transient ByteBuffer gzip;
+  private final transient ByteBuffer deflate;
+  private final String contentEtag;
+
+  private OffHeapCachedResponse(
+      ByteBuffer content,
+      ByteBuffer gzip,
+      ByteBuffer deflate,
+      String contentEtag,
+      Set<String> tags) {
+    super(tags);
+    this.content = content;
+    this.gzip = gzip;
+    this.deflate = deflate;
+    this.contentEtag = contentEtag;
+  }
+
+  private static MethodHandle findWriteBuffer() {
+    try {
+      return MethodHandles.publicLookup()
+          .findVirtual(
+              ServletOutputStream.class,
+              "write",
+              MethodType.methodType(void.class, ByteBuffer.class));
+    } catch (NoSuchMethodException | IllegalAccessException e) {
+      return null;
+    }
+  }
+
+  /** Copies a success response to direct memory, error responses are returned as they are. */
+  static CachedResponse of(CachedResponse response) {
+    if (response.isError() || response instanceof OffHeapCachedResponse) {
+      return response;
+    }
+    byte[] contentBytes = response.getContentBytes();
+    byte[] gzipBytes = response.getContentBytes(GZIP);
+    byte[] deflateBytes = response.getContentBytes(DEFLATE);
+    ByteBuffer buffer = ByteBuffer.allocateDirect((int) response.getSize());
+    return new OffHeapCachedResponse(
+        slice(buffer, contentBytes),
+        slice(buffer, gzipBytes),
+        slice(buffer, deflateBytes),
+        response.getContentEtag(),
+        response.getTags());
+  }
+
+  private static ByteBuffer slice(ByteBuffer buffer, byte[] bytes) {
+    if (bytes == null) {
+      return null;
+    }
+    ByteBuffer slice = buffer.put(bytes).duplicate();
+    slice.position(buffer.position() - bytes.length).limit(buffer.position());
+    return slice.slice().asReadOnlyBuffer();
+  }
+
+  private ByteBuffer variant(String contentEncoding) {
+    if (contentEncoding == null) {
+      return content;
+    }
+    if (GZIP.equals(contentEncoding)) {
+      return gzip;
+    }
+    return DEFLATE.equals(contentEncoding) ? deflate : null;
+  }
+
+  /**
+   * @param contentEncoding {@value #GZIP}, {@value #DEFLATE} or {@literal null} for the
+   *     uncompressed content
+   * @return the length of the content in that encoding
+   */
+  int getContentLength(String contentEncoding) {
+    return variant(contentEncoding).remaining();
+  }
+
+  /**
+   * Writes the content in the given encoding without copying it to the heap when the output stream
+   * supports writing buffers, otherwise through a small transfer buffer.
+   */
+  void writeContent(String contentEncoding, OutputStream outputStream) throws IOException {
+    ByteBuffer buffer = variant(contentEncoding).duplicate();
+    if (WRITE_BUFFER != null && outputStream instanceof ServletOutputStream) {
+      try {
+        WRITE_BUFFER.invoke((ServletOutputStream) outputStream, buffer);
+        return;
+      } catch (IOException | RuntimeException | Error e) {
+        throw e;
+      } catch (Throwable t) {
+        throw new IOException(t);
+      }
+    }
+    byte[] chunk = new byte[Math.min(TRANSFER_CHUNK_SIZE, buffer.remaining())];
+    while (buffer.hasRemaining()) {
+      int length = Math.min(chunk.length, buffer.remaining());
+      buffer.get(chunk, 0, length);
+      outputStream.write(chunk, 0, length);
+    }
+  }
+
+  private static byte[] toBytes(ByteBuffer buffer) {
+    if (buffer == null) {
+      return null;
+    }
+    byte[] bytes = new byte[buffer.remaining()];
+    buffer.duplicate().get(bytes);
+    return bytes;
+  }
+
+  /** @return a heap copy of the content */
+  @Override
+  public byte[] getContentBytes() {
+    return toBytes(content);
+  }
+
+  /** @return a heap copy of the content in the given encoding */
+  @Override
+  public byte[] getContentBytes(String contentEncoding) {
+    return contentEncoding != null ? toBytes(variant(contentEncoding)) : null;
+  }
+
+  @Override
+  public boolean isCompressed() {
+    return gzip != null;
+  }
+
+  @Override
+  public long getSize() {
+    return content.capacity()
+        + (gzip != null ? gzip.capacity() : 0)
+        + (deflate != null ? deflate.capacity() : 0);
+  }
+
+  @Override
+  String getContentEtag() {
+    return contentEtag;
+  }
+
+  @Override
+  public CachedResponse withCompressedContent() {
+    return isCompressed() ? this : of(toHeap().withCompressedContent());
+  }
+
+  @Override
+  public CachedResponse withTags(Collection<String> tags) {
+    return new OffHeapCachedResponse(
+        content,
+        gzip,
+        deflate,
+        contentEtag,
+        tags.isEmpty() ? Collections.emptySet() : Collections.unmodifiableSet(new HashSet<>(tags)));
+  }
+
+  /** @return a copy of this response on the heap */
+  CachedResponse toHeap() {
+    return CachedResponse.ofContent(
+        getContentBytes(), toBytes(gzip), toBytes(deflate), getTags());
+  }
+
+  private Object writeReplace() throws ObjectStreamException {
+    return toHeap();
+  }
+}
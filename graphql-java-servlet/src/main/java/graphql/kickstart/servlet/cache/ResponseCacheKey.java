@@ -0,0 +1,100 @@
+package graphql.kickstart.servlet.cache;
+
+import static graphql.kickstart.execution.preparsed.PersistedQueryDocumentProvider.getPersistedQueryHash;
+
+import graphql.ExecutionInput;
+import graphql.kickstart.execution.input.GraphQLSingleInvocationInput;
+import graphql.schema.GraphQLSchema;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Identifies a cacheable response by schema identity, query (or persisted query hash), operation
+ * name, variables and request scope.
+ */
+final class ResponseCacheKey {
+
+  private final GraphQLSchema schema;
+  private final String query;
+  private final String persistedQueryHash;
+  private final String operationName;
+  private final Map<String, Object> variables;
+  private final Object scope;
+  private final int hash;
+
+  private ResponseCacheKey(GraphQLSingleInvocationInput invocationInput, Object scope) {
+    ExecutionInput executionInput = invocationInput.getExecutionInput();
+    this.schema = invocationInput.getSchema();
+    this.query = executionInput.getQuery();
+    this.persistedQueryHash = getPersistedQueryHash(executionInput.getExtensions());
+    this.operationName = executionInput.getOperationName();
+    this.variables = executionInput.getVariables();
+    this.scope = scope;
+    this.hash =
+        31 * System.identityHashCode(schema)
+            + Objects.hash(query, persistedQueryHash, operationName, variables, scope);
+  }
+
+  static ResponseCacheKey of(GraphQLSingleInvocationInput invocationInput, Object scope) {
+    return new ResponseCacheKey(invocationInput, scope);
+  }
+
+  /**
+   * @return the approximate size in bytes the key keeps alive, counting the characters of the query
+   *     and of the variables
+   */
+  long weight() {
+    return weightOf(query)
+        + weightOf(persistedQueryHash)
+        + weightOf(operationName)
+        + weightOf(variables);
+  }
+
+  private static long weightOf(Object value) {
+    if (value == null) {
+      return 0;
+    }
+    if (value instanceof CharSequence) {
+      return ((CharSequence) value).length();
+    }
+    long weight = 0;
+    if (value instanceof Map) {
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+        weight += weightOf(entry.getKey()) + weightOf(entry.getValue());
+      }
+      return weight;
+    }
+    if (value instanceof Collection) {
+      for (Object element : (Collection<?>) value) {
+        weight += weightOf(element);
+      }
+      return weight;
+    }
+    // numbers, booleans and enum values
+    return 8;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof ResponseCacheKey)) {
+      return false;
+    }
+    ResponseCacheKey other = (ResponseCacheKey) o;
+    return hash == other.hash
+        && schema == other.schema
+        && Objects.equals(query, other.query)
+        && Objects.equals(persistedQueryHash, other.persistedQueryHash)
+        && Objects.equals(operationName, other.operationName)
+        && Objects.equals(variables, other.variables)
+        && Objects.equals(scope, other.scope);
+  }
+
+  @Override
+  public int hashCode() {
+    return hash;
+  }
+}
@@ -0,0 +1,242 @@
+package graphql.kickstart.servlet.cache;
+
+import graphql.kickstart.execution.input.GraphQLInvocationInput;
+import java.time.Duration;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.NonNull;
+
+/**
+ * A {@link GraphQLResponseCacheManager} with two tiers. A small first tier keeps recently cached
+ * responses on the heap. A larger second tier keeps the responses in direct memory, outside of the
+ * heap, and is consulted when the first tier misses.
+ *
+ * <p>Responses are written to both tiers and each tier evicts in least recently used order on its
+ * own bounds, so a response evicted from the first tier is still served from the second tier.
+ * Responses served from the second tier are written to the client straight from direct memory,
+ * without copying them to a heap array of their size, and are copied back to the first tier for
+ * the next lookups.
+ *
+ * <p>Every response written to the second tier allocates a direct buffer of its size, which is
+ * freed only when the garbage collector collects it after its eviction. The weight of the second
+ * tier bounds the responses it holds, not the evicted buffers still waiting for a collection, so
+ * {@code -XX:MaxDirectMemorySize} should leave room above it.
+ */
+public class TieredGraphQLResponseCacheManager implements GraphQLResponseCacheManager {
+
+  private final InMemoryGraphQLResponseCacheManager firstTier;
+  private final InMemoryGraphQLResponseCacheManager secondTier;
+
+  protected TieredGraphQLResponseCacheManager(
+      InMemoryGraphQLResponseCacheManager firstTier,
+      InMemoryGraphQLResponseCacheManager secondTier) {
+    this.firstTier = firstTier;
+    this.secondTier = secondTier;
+  }
+
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  @Override
+  public boolean isCacheable(HttpServletRequest request, GraphQLInvocationInput invocationInput) {
+    return firstTier.isCacheable(request, invocationInput);
+  }
+
+  @Override
+  public CachedResponse get(HttpServletRequest request, GraphQLInvocationInput invocationInput) {
+    CachedResponse cachedResponse = firstTier.get(request, invocationInput);
+    if (cachedResponse != null) {
+      return cachedResponse;
+    }
+    InMemoryGraphQLResponseCacheManager.CacheEntry entry =
+        secondTier.getEntry(request, invocationInput);
+    if (entry == null) {
+      return null;
+    }
+    cachedResponse = entry.getResponse();
+    // the copy keeps the write time, so it expires with the response of the second tier
+    firstTier.put(
+        request,
+        invocationInput,
+        cachedResponse instanceof OffHeapCachedResponse
+            ? ((OffHeapCachedResponse) cachedResponse).toHeap()
+            : cachedResponse,
+        entry.getCreatedAt());
+    return cachedResponse;
+  }
+
+  @Override
+  public void put(
+      HttpServletRequest request,
+      GraphQLInvocationInput invocationInput,
+      CachedResponse cachedResponse) {
+    if (!isCacheable(request, invocationInput)) {
+      return;
+    }
+    firstTier.put(request, invocationInput, cachedResponse);
+    secondTier.put(request, invocationInput, OffHeapCachedResponse.of(cachedResponse));
+  }
+
+  @Override
+  public Object getCacheKey(HttpServletRequest request, GraphQLInvocationInput invocationInput) {
+    return firstTier.getCacheKey(request, invocationInput);
+  }
+
+  /**
+   * Removes the cached responses with the given tag from both tiers.
+   *
+   * @param tag a tag created with {@link CacheTags}
+   * @return the number of removed responses of the second tier, which holds all cached responses
+   */
+  public long invalidateTag(String tag) {
+    // the second tier first, so the lookups missing the first tier meanwhile find no response to
+    // copy back to it
+    long removed = secondTier.invalidateTag(tag);
+    firstTier.invalidateTag(tag);
+    return removed;
+  }
+
+  /**
+   * Removes the cached responses containing an object of the given type from both tiers.
+   *
+   * @param typeName name of an object type
+   * @return the number of removed responses of the second tier
+   */
+  public long invalidateType(String typeName) {
+    return invalidateTag(CacheTags.ofType(typeName));
+  }
+
+  /**
+   * Removes the cached responses selecting the given root field from both tiers.
+   *
+   * @param typeName name of a root operation type, for example {@code Query}
+   * @param fieldName name of a field of that type
+   * @return the number of removed responses of the second tier
+   */
+  public long invalidateField(String typeName, String fieldName) {
+    return invalidateTag(CacheTags.ofField(typeName, fieldName));
+  }
+
+  /** Removes all cached responses from both tiers. */
+  public void invalidateAll() {
+    secondTier.invalidateAll();
+    firstTier.invalidateAll();
+  }
+
+  /** @return the heap tier, for its statistics */
+  public InMemoryGraphQLResponseCacheManager getFirstTier() {
+    return firstTier;
+  }
+
+  /** @return the direct memory tier, for its statistics */
+  public InMemoryGraphQLResponseCacheManager getSecondTier() {
+    return secondTier;
+  }
+
+  /**
+   * @return the number of lookups of cacheable requests that were served from either tier, the sum
+   *     of {@link #getFirstTierHitCount()} and {@link #getSecondTierHitCount()}
+   */
+  public long getHitCount() {
+    return getFirstTierHitCount() + getSecondTierHitCount();
+  }
+
+  /** @return the number of lookups that were served from the heap tier */
+  public long getFirstTierHitCount() {
+    return firstTier.getHitCount();
+  }
+
+  /** @return the number of lookups that were served from the direct memory tier */
+  public long getSecondTierHitCount() {
+    return secondTier.getHitCount();
+  }
+
+  /**
+   * The second tier is only consulted when the first tier misses, so its misses are the lookups
+   * that found no response in either tier.
+   *
+   * @return the number of lookups of cacheable requests that found no response in either tier,
+   *     which added to {@link #getHitCount()} gives the number of all lookups of cacheable requests
+   */
+  public long getMissCount() {
+    return secondTier.getMissCount();
+  }
+
+  public static class Builder {
+
+    private final InMemoryGraphQLResponseCacheManager.Builder firstTier =
+        InMemoryGraphQLResponseCacheManager.newBuilder()
+            .withMaximumSize(1_000)
+            .withMaximumWeight(16L * 1024 * 1024);
+    private final InMemoryGraphQLResponseCacheManager.Builder secondTier =
+        InMemoryGraphQLResponseCacheManager.newBuilder()
+            .withMaximumSize(100_000)
+            .withMaximumWeight(512L * 1024 * 1024);
+
+    /**
+     * @param maximumSize the maximum number of responses on the heap, 1000 by default
+     * @param maximumWeight the maximum total size in bytes of the responses on the heap, 16 MiB by
+     *     default
+     * @return this builder
+     */
+    public Builder withFirstTier(long maximumSize, long maximumWeight) {
+      firstTier.withMaximumSize(maximumSize).withMaximumWeight(maximumWeight);
+      return this;
+    }
+
+    /**
+     * @param maximumSize the maximum number of responses in direct memory, 100000 by default
+     * @param maximumWeight the maximum total size in bytes of the responses in direct memory, 512
+     *     MiB by default. The JVM limits direct memory with {@code -XX:MaxDirectMemorySize}, which
+     *     also has to hold the evicted responses until they are garbage collected.
+     * @return this builder
+     */
+    public Builder withSecondTier(long maximumSize, long maximumWeight) {
+      secondTier.withMaximumSize(maximumSize).withMaximumWeight(maximumWeight);
+      return this;
+    }
+
+    /** @see InMemoryGraphQLResponseCacheManager.Builder#withExpireAfterWrite(Duration) */
+    public Builder withExpireAfterWrite(Duration expireAfterWrite) {
+      firstTier.withExpireAfterWrite(expireAfterWrite);
+      secondTier.withExpireAfterWrite(expireAfterWrite);
+      return this;
+    }
+
+    /** @see InMemoryGraphQLResponseCacheManager.Builder#withConcurrencyLevel(int) */
+    public Builder withConcurrencyLevel(int concurrencyLevel) {
+      firstTier.withConcurrencyLevel(concurrencyLevel);
+      secondTier.withConcurrencyLevel(concurrencyLevel);
+      return this;
+    }
+
+    /** @see InMemoryGraphQLResponseCacheManager.Builder#withScopeKeyProvider(Function) */
+    public Builder withScopeKeyProvider(
+        @NonNull Function<HttpServletRequest, Object> scopeKeyProvider) {
+      firstTier.withScopeKeyProvider(scopeKeyProvider);
+      secondTier.withScopeKeyProvider(scopeKeyProvider);
+      return this;
+    }
+
+    /** @see InMemoryGraphQLResponseCacheManager.Builder#withScopeHeader(String) */
+    public Builder withScopeHeader(@NonNull String headerName) {
+      firstTier.withScopeHeader(headerName);
+      secondTier.withScopeHeader(headerName);
+      return this;
+    }
+
+    /** @see InMemoryGraphQLResponseCacheManager.Builder#withCacheablePredicate(BiPredicate) */
+    public Builder withCacheablePredicate(
+        @NonNull BiPredicate<HttpServletRequest, GraphQLInvocationInput> cacheablePredicate) {
+      firstTier.withCacheablePredicate(cacheablePredicate);
+      secondTier.withCacheablePredicate(cacheablePredicate);
+      return this;
+    }
+
+    public TieredGraphQLResponseCacheManager build() {
+      return new TieredGraphQLResponseCacheManager(firstTier.build(), secondTier.build());
+    }
+  }
+}
@@ -1,5 +1,6 @@
 package graphql.kickstart.servlet.context;
 
+import graphql.kickstart.execution.context.DataLoaderBatchBus;
 import graphql.kickstart.execution.context.DefaultGraphQLContextBuilder;
 import graphql.kickstart.execution.context.GraphQLKickstartContext;
 import java.util.HashMap;
@@ -8,17 +9,34 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.websocket.Session;
 import jakarta.websocket.server.HandshakeRequest;
+import org.dataloader.DataLoaderRegistry;
 
 /** Returns an empty context. */
 public class DefaultGraphQLServletContextBuilder extends DefaultGraphQLContextBuilder
     implements GraphQLServletContextBuilder {
 
+  public DefaultGraphQLServletContextBuilder() {
+    this(null);
+  }
+
+  /**
+   * @param batchBus the bus whose loaders are registered in the registry of every context, or
+   *     {@literal null} for an empty registry
+   */
+  public DefaultGraphQLServletContextBuilder(DataLoaderBatchBus batchBus) {
+    super(batchBus);
+  }
+
+  private DataLoaderRegistry newRegistry() {
+    return getBatchBus() != null ? getBatchBus().newRegistry() : new DataLoaderRegistry();
+  }
+
   @Override
   public GraphQLKickstartContext build(HttpServletRequest request, HttpServletResponse response) {
     Map<Object, Object> map = new HashMap<>();
     map.put(HttpServletRequest.class, request);
     map.put(HttpServletResponse.class, response);
-    return GraphQLKickstartContext.of(map);
+    return GraphQLKickstartContext.of(newRegistry(), map);
   }
 
   @Override
@@ -26,6 +44,6 @@ public class DefaultGraphQLServletContextBuilder extends DefaultGraphQLContextBu
     Map<Object, Object> map = new HashMap<>();
     map.put(Session.class, session);
     map.put(HandshakeRequest.class, handshakeRequest);
-    return GraphQLKickstartContext.of(map);
+    return GraphQLKickstartContext.of(newRegistry(), map);
   }
 }
@@ -14,6 +14,7 @@ import graphql.kickstart.servlet.context.GraphQLServletContextBuilder;
 import graphql.kickstart.servlet.core.DefaultGraphQLRootObjectBuilder;
 import graphql.kickstart.servlet.core.GraphQLServletRootObjectBuilder;
 import graphql.schema.GraphQLSchema;
+import java.util.Iterator;
 import java.util.List;
 import java.util.function.Supplier;
 import jakarta.servlet.http.HttpServletRequest;
@@ -66,6 +67,22 @@ public class GraphQLInvocationInputFactory implements GraphQLSubscriptionInvocat
     return create(contextSetting, graphQLRequests, request, response, false);
   }
 
+  /**
+   * Creates a batch whose requests are read while it is executed, see {@link
+   * ContextSetting#getBatch(Iterator, GraphQLSchema, Supplier, Object)}.
+   */
+  public GraphQLBatchedInvocationInput create(
+      ContextSetting contextSetting,
+      Iterator<GraphQLRequest> graphQLRequests,
+      HttpServletRequest request,
+      HttpServletResponse response) {
+    return contextSetting.getBatch(
+        graphQLRequests,
+        schemaProviderSupplier.get().getSchema(request),
+        () -> contextBuilderSupplier.get().build(request, response),
+        rootObjectBuilderSupplier.get().build(request));
+  }
+
   public GraphQLSingleInvocationInput createReadOnly(
       GraphQLRequest graphQLRequest, HttpServletRequest request, HttpServletResponse response) {
     return create(graphQLRequest, request, response, true);
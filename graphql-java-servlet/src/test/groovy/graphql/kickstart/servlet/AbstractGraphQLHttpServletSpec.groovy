@@ -5,6 +5,7 @@ import graphql.Scalars
 import graphql.execution.ExecutionStepInfo
 import graphql.execution.MergedField
 import graphql.execution.reactive.SingleSubscriberPublisher
+import graphql.kickstart.execution.context.ContextSetting
 import graphql.kickstart.servlet.input.GraphQLInvocationInputFactory
 import graphql.language.Field
 import graphql.schema.GraphQLNonNull
@@ -771,6 +772,121 @@ b
     response.getContentLength() == 0
   }
 
+  def "query over HTTP POST body is parsed from the input stream"() {
+    setup:
+    servlet = TestUtils.createStreamingServlet()
+    request.setContent(("\n  " + mapper.writeValueAsString([
+        query    : 'query Echo($arg: String) { echo(arg:$arg) }',
+        variables: [arg: "test"]
+    ])).bytes)
+    request.setMethod("POST")
+
+    when:
+    servlet.doPost(request, response)
+
+    then:
+    response.getStatus() == STATUS_OK
+    getResponseContent().data.echo == "test"
+  }
+
+  def "batched query over HTTP POST body is parsed from the input stream"() {
+    setup:
+    servlet = TestUtils.createStreamingServlet()
+    request.setContent(' [{ "query": "query { echo(arg:\\"one\\") }" }, { "query": "query { echo(arg:\\"two\\") }" }]'.bytes)
+    request.setMethod("POST")
+
+    when:
+    servlet.doPost(request, response)
+
+    then:
+    response.getStatus() == STATUS_OK
+    getBatchedResponseContent()*.data.echo == ["one", "two"]
+  }
+
+  def "query over HTTP POST with application/graphql is parsed from the input stream"() {
+    setup:
+    servlet = TestUtils.createStreamingServlet()
+    request.addHeader("Content-Type", "application/graphql")
+    request.setContent('# comment\nquery { echo(arg:"test") }'.getBytes("UTF-8"))
+    request.setMethod("POST")
+
+    when:
+    servlet.doPost(request, response)
+
+    then:
+    response.getStatus() == STATUS_OK
+    getResponseContent().data.echo == "test"
+  }
+
+  def "batched query over HTTP POST body is executed incrementally with context setting #contextSetting"() {
+    setup:
+    servlet = TestUtils.createStreamingServlet(Long.MAX_VALUE, true, contextSetting)
+    request.setContent('[{ "query": "query { echo(arg:\\"one\\") }" }, { "query": "query { echo(arg:\\"two\\") }" }, { "query": "query { echo(arg:\\"three\\") }" }]'.bytes)
+    request.setMethod("POST")
+
+    when:
+    servlet.doPost(request, response)
+
+    then:
+    response.getStatus() == STATUS_OK
+    getBatchedResponseContent()*.data.echo == ["one", "two", "three"]
+
+    where:
+    contextSetting << ContextSetting.values()
+  }
+
+  def "batched query over HTTP POST body with a malformed element is rejected when executed incrementally"() {
+    setup:
+    servlet = TestUtils.createStreamingServlet(Long.MAX_VALUE, true)
+    request.setContent('[{ "query": "query { echo(arg:\\"one\\") }" }, { "query": ]'.bytes)
+    request.setMethod("POST")
+
+    when:
+    servlet.doPost(request, response)
+
+    then:
+    response.getStatus() == STATUS_BAD_REQUEST
+  }
+
+  def "query over HTTP POST exceeding the maximum body size is rejected"() {
+    setup:
+    servlet = TestUtils.createStreamingServlet(16)
+    request.setContent(mapper.writeValueAsBytes([query: 'query { echo(arg:"test") }']))
+    request.setMethod("POST")
+
+    when:
+    servlet.doPost(request, response)
+
+    then:
+    response.getStatus() == 413
+  }
+
+  def "query over HTTP POST without content length exceeding the maximum body size in bytes is rejected"() {
+    setup:
+    def body = mapper.writeValueAsBytes([query: 'query { echo(arg:"\u00e9\u00e9\u00e9\u00e9") }'])
+    servlet = GraphQLHttpServlet.with(GraphQLConfiguration
+        .with(TestUtils.createGraphQlSchema())
+        .maxRequestBodySize(body.length - 1)
+        .with(TestUtils.executor())
+        .build())
+    servlet.init()
+    request = new MockHttpServletRequest() {
+      @Override
+      long getContentLengthLong() {
+        -1
+      }
+    }
+    request.setContent(body)
+    request.setMethod("POST")
+
+    when:
+    servlet.doPost(request, response)
+
+    then:
+    new String(body, "UTF-8").length() < body.length - 1
+    response.getStatus() == 413
+  }
+
   def "batched query over HTTP POST body returns data"() {
     setup:
     request.setContent('[{ "query": "query { echo(arg:\\"test\\") }" }, { "query": "query { echo(arg:\\"test\\") }" }]'.bytes)
@@ -0,0 +1,241 @@
+package graphql.kickstart.servlet
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import org.springframework.mock.web.MockHttpServletRequest
+import org.springframework.mock.web.MockHttpServletResponse
+import spock.lang.Specification
+
+import java.util.concurrent.Executor
+import java.util.concurrent.RejectedExecutionException
+
+class AdmissionControlExecutorTest extends Specification {
+
+  List<Runnable> started = []
+  Executor delegate = { Runnable runnable -> started << runnable } as Executor
+
+  def task(String operationName, List<String> log) {
+    new AsyncRequestTask(operationName, { log << "run " + operationName }, { log << "reject " + operationName })
+  }
+
+  def "should start tasks up to the maximum concurrency and queue the rest"() {
+    setup:
+    def executor = AdmissionControlExecutor.newBuilder().withExecutor(delegate).withMaxConcurrency(2).build()
+
+    when:
+    3.times { executor.execute({}) }
+
+    then:
+    started.size() == 2
+    executor.getActiveCount() == 2
+    executor.getQueueSize() == 1
+
+    when:
+    started[0].run()
+
+    then:
+    started.size() == 3
+    executor.getQueueSize() == 0
+    executor.getAdmittedCount() == 1
+  }
+
+  def "should fail fast when the queue is full"() {
+    setup:
+    def executor = AdmissionControlExecutor.newBuilder()
+        .withExecutor(delegate)
+        .withMaxConcurrency(1)
+        .withMaxQueueSize(1)
+        .build()
+    executor.execute({})
+    executor.execute({})
+
+    when:
+    executor.execute({})
+
+    then:
+    thrown(RejectedExecutionException)
+    executor.getRejectedCount() == 1
+    executor.getQueueSize() == 1
+  }
+
+  def "should shed the oldest waiting task when the queue is full"() {
+    setup:
+    def log = []
+    def executor = AdmissionControlExecutor.newBuilder()
+        .withExecutor(delegate)
+        .withMaxConcurrency(1)
+        .withMaxQueueSize(1)
+        .withRejectionPolicy(AdmissionControlExecutor.RejectionPolicy.SHED_OLDEST)
+        .build()
+    executor.execute(task("first", log))
+    executor.execute(task("second", log))
+
+    when:
+    executor.execute(task("third", log))
+    started[0].run()
+    started[1].run()
+
+    then:
+    log == ["reject second", "run first", "run third"]
+  }
+
+  def "should limit the concurrency per operation"() {
+    setup:
+    def log = []
+    def executor = AdmissionControlExecutor.newBuilder()
+        .withExecutor(delegate)
+        .withMaxConcurrency(10)
+        .withOperationLimit("Slow", 1)
+        .build()
+
+    when:
+    executor.execute(task("Slow", log))
+    executor.execute(task("Slow", log))
+    executor.execute(task("Fast", log))
+
+    then:
+    started.size() == 2
+    executor.getQueueSize() == 1
+
+    when:
+    started[0].run()
+
+    then:
+    started.size() == 3
+    log == ["run Slow"]
+  }
+
+  def "should neither start nor reject a cancelled task"() {
+    setup:
+    def log = []
+    def executor = AdmissionControlExecutor.newBuilder()
+        .withExecutor(delegate)
+        .withMaxConcurrency(1)
+        .withMaxQueueSize(1)
+        .withRejectionPolicy(AdmissionControlExecutor.RejectionPolicy.SHED_OLDEST)
+        .build()
+    def second = task("second", log)
+    executor.execute(task("first", log))
+    executor.execute(second)
+
+    when:
+    def cancelled = second.cancel()
+    executor.execute(task("third", log))
+    started[0].run()
+    started[1].run()
+    second.run()
+
+    then:
+    cancelled
+    !second.cancel()
+    log == ["run first", "run third"]
+    executor.getRejectedCount() == 0
+    executor.getActiveCount() == 0
+  }
+
+  def "should not count cancelled tasks toward the queue size"() {
+    setup:
+    def log = []
+    def executor = AdmissionControlExecutor.newBuilder()
+        .withExecutor(delegate)
+        .withMaxConcurrency(1)
+        .withMaxQueueSize(1)
+        .build()
+    def second = task("second", log)
+    executor.execute(task("first", log))
+    executor.execute(second)
+    second.cancel()
+
+    when:
+    executor.execute(task("third", log))
+
+    then:
+    notThrown(RejectedExecutionException)
+    executor.getRejectedCount() == 0
+    executor.getQueueSize() == 1
+
+    when:
+    started[0].run()
+    started[1].run()
+
+    then:
+    log == ["run first", "run third"]
+  }
+
+  def "should skip a cancelled task when starting waiting tasks"() {
+    setup:
+    def log = []
+    def executor = AdmissionControlExecutor.newBuilder().withExecutor(delegate).withMaxConcurrency(1).build()
+    def second = task("second", log)
+    executor.execute(task("first", log))
+    executor.execute(second)
+    executor.execute(task("third", log))
+    second.cancel()
+
+    when:
+    started[0].run()
+    started[1].run()
+
+    then:
+    started.size() == 2
+    log == ["run first", "run third"]
+    executor.getQueueSize() == 0
+  }
+
+  def "should record the queue time"() {
+    setup:
+    def executor = AdmissionControlExecutor.newBuilder().withExecutor(delegate).withMaxConcurrency(1).build()
+    executor.execute({})
+    executor.execute({})
+
+    when:
+    Thread.sleep(20)
+    started[0].run()
+    started[1].run()
+
+    then:
+    executor.getMaxQueueTime().toMillis() >= 20
+    executor.getAverageQueueTime() <= executor.getMaxQueueTime()
+  }
+
+  def "rejected request is answered with status 503"() {
+    setup:
+    def executor = AdmissionControlExecutor.newBuilder()
+        .withExecutor(delegate)
+        .withMaxConcurrency(1)
+        .withMaxQueueSize(0)
+        .build()
+    def servlet = GraphQLHttpServlet.with(GraphQLConfiguration
+        .with(TestUtils.createGraphQlSchema())
+        .with(executor)
+        .build())
+    servlet.init()
+
+    def first = createRequest()
+    def firstResponse = new MockHttpServletResponse()
+    def second = createRequest()
+    def secondResponse = new MockHttpServletResponse()
+
+    when:
+    servlet.doGet(first, firstResponse)
+    servlet.doGet(second, secondResponse)
+
+    then:
+    secondResponse.getStatus() == HttpRequestHandler.STATUS_SERVICE_UNAVAILABLE
+    new ObjectMapper().readValue(secondResponse.getContentAsByteArray(), Map).errors[0].message == "Server is too busy, try again later"
+    !second.isAsyncStarted()
+
+    when:
+    started[0].run()
+
+    then:
+    firstResponse.getStatus() == HttpRequestHandler.STATUS_OK
+  }
+
+  private static def createRequest() {
+    def request = new MockHttpServletRequest()
+    request.setAsyncSupported(true)
+    request.setMethod("GET")
+    request.addParameter("query", 'query { echo(arg:"test") }')
+    return request
+  }
+}
@@ -0,0 +1,60 @@
+package graphql.kickstart.servlet
+
+import graphql.kickstart.execution.GraphQLRequest
+import groovy.util.logging.Slf4j
+import spock.lang.Requires
+import spock.lang.Specification
+
+import java.util.concurrent.CompletableFuture
+
+/**
+ * Compares the throughput of the default platform thread pool and the virtual thread option under
+ * blocking resolver load. Run with {@code -Dgraphql.benchmark=true}, the virtual threads are only
+ * measured on Java 21 and later.
+ */
+@Slf4j
+@Requires({ sys['graphql.benchmark'] })
+class AsyncExecutorBenchmark extends Specification {
+
+  static final int REQUESTS = 2000
+  static final long RESOLVER_SLEEP_MILLIS = 20
+
+  @Requires({ data.supported })
+  def "throughput with #name executor"() {
+    setup:
+    def schema = TestUtils.createGraphQlSchema({ env ->
+      Thread.sleep(RESOLVER_SLEEP_MILLIS)
+      env.arguments.arg
+    })
+    def configuration = builder(GraphQLConfiguration.with(schema)).build()
+    def request = new GraphQLRequest('query { echo(arg:"test") }', [:], [:], null)
+    // warm up
+    run(configuration, request, 200)
+
+    when:
+    long start = System.nanoTime()
+    run(configuration, request, REQUESTS)
+    double seconds = (System.nanoTime() - start) / 1e9
+    log.info(String.format("%s: %d requests in %.2fs, %.0f requests/s",
+        name, REQUESTS, seconds, REQUESTS / seconds))
+
+    then:
+    noExceptionThrown()
+
+    where:
+    name              | supported                    | builder
+    "platform pool"   | true                         | { GraphQLConfiguration.Builder it -> it }
+    // without virtual threads the option falls back to the platform pool, nothing to compare
+    "virtual threads" | VirtualThreads.isSupported() | { GraphQLConfiguration.Builder it -> it.asyncVirtualThreads(true) }
+  }
+
+  private static void run(GraphQLConfiguration configuration, GraphQLRequest request, int count) {
+    def futures = (1..count).collect {
+      CompletableFuture.runAsync({
+        def invocationInput = configuration.getInvocationInputFactory().create(request)
+        configuration.getGraphQLInvoker().query(invocationInput)
+      }, configuration.getAsyncExecutor())
+    }
+    CompletableFuture.allOf(futures as CompletableFuture[]).join()
+  }
+}
@@ -0,0 +1,55 @@
+package graphql.kickstart.servlet
+
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class AsyncExecutorSpec extends Specification {
+
+  def "virtual threads are detected from the runtime version"() {
+    expect:
+    VirtualThreads.isSupported() == (Runtime.version().feature() >= 21)
+  }
+
+  def "async virtual threads option runs tasks through the task decorator"() {
+    setup:
+    def decorated = new CountDownLatch(1)
+    def executed = new CountDownLatch(1)
+    def configuration = GraphQLConfiguration.with(TestUtils.createGraphQlSchema())
+        .asyncVirtualThreads(true)
+        .with({ Runnable runnable -> { -> decorated.countDown(); runnable.run() } } as AsyncTaskDecorator)
+        .build()
+
+    when:
+    configuration.getAsyncExecutor().execute({ executed.countDown() })
+
+    then:
+    decorated.await(5, TimeUnit.SECONDS)
+    executed.await(5, TimeUnit.SECONDS)
+  }
+
+  def "async virtual threads option runs blocking tasks concurrently"() {
+    setup:
+    def configuration = GraphQLConfiguration.with(TestUtils.createGraphQlSchema())
+        .asyncVirtualThreads(true)
+        .asyncMaxPoolSize(50)
+        .build()
+    def started = new CountDownLatch(50)
+    def release = new CountDownLatch(1)
+
+    when:
+    50.times {
+      configuration.getAsyncExecutor().execute({
+        started.countDown()
+        release.await()
+      })
+    }
+
+    then:
+    started.await(5, TimeUnit.SECONDS)
+
+    cleanup:
+    release.countDown()
+  }
+}
@@ -0,0 +1,178 @@
+package graphql.kickstart.servlet
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import jakarta.servlet.ReadListener
+import jakarta.servlet.ServletInputStream
+import org.springframework.mock.web.MockHttpServletRequest
+import org.springframework.mock.web.MockHttpServletResponse
+import spock.lang.Shared
+import spock.lang.Specification
+
+class AsyncRequestBodySpec extends Specification {
+
+  @Shared
+  ObjectMapper mapper = new ObjectMapper()
+
+  AsyncBodyInputStream inputStream = new AsyncBodyInputStream()
+  MockHttpServletRequest request
+  MockHttpServletResponse response = new MockHttpServletResponse()
+
+  def setup() {
+    def asyncInputStream = inputStream
+    request = new MockHttpServletRequest() {
+      @Override
+      ServletInputStream getInputStream() {
+        return asyncInputStream
+      }
+    }
+    request.setAsyncSupported(true)
+    request.setMethod("POST")
+  }
+
+  def "query over HTTP POST is executed once the whole body has been read"() {
+    setup:
+    def servlet = TestUtils.createAsyncRequestBodyServlet(Long.MAX_VALUE, 4)
+    def body = mapper.writeValueAsBytes([query: 'query { echo(arg:"test") }'])
+
+    when:
+    servlet.doPost(request, response)
+
+    then:
+    request.isAsyncStarted()
+    inputStream.listener != null
+
+    when:
+    inputStream.deliver(Arrays.copyOfRange(body, 0, 10))
+    inputStream.deliver(Arrays.copyOfRange(body, 10, body.length))
+
+    then:
+    response.getContentLength() == 0
+    response.getContentAsByteArray().length == 0
+
+    when:
+    inputStream.finish()
+
+    then:
+    response.getStatus() == HttpRequestHandler.STATUS_OK
+    mapper.readValue(response.getContentAsByteArray(), Map).data.echo == "test"
+    !request.isAsyncStarted()
+  }
+
+  def "query over HTTP POST read after the dispatch returned reuses the configured context"() {
+    setup:
+    def servlet = TestUtils.createAsyncRequestBodyServlet()
+    def asyncInputStream = inputStream
+    def strictRequest = new StrictAsyncRequest() {
+      @Override
+      ServletInputStream getInputStream() {
+        return asyncInputStream
+      }
+    }
+    strictRequest.setMethod("POST")
+
+    when:
+    servlet.doPost(strictRequest, response)
+    strictRequest.dispatchReturned = true
+    inputStream.deliver(mapper.writeValueAsBytes([query: 'query { echo(arg:"test") }']))
+    inputStream.finish()
+
+    then:
+    response.getStatus() == HttpRequestHandler.STATUS_OK
+    mapper.readValue(response.getContentAsByteArray(), Map).data.echo == "test"
+    !strictRequest.isAsyncStarted()
+  }
+
+  def "batched query over HTTP POST is executed once the whole body has been read"() {
+    setup:
+    def servlet = TestUtils.createAsyncRequestBodyServlet()
+
+    when:
+    servlet.doPost(request, response)
+    inputStream.deliver('[{ "query": "query { echo(arg:\\"one\\") }" }, { "query": "query { echo(arg:\\"two\\") }" }]'.bytes)
+    inputStream.finish()
+
+    then:
+    response.getStatus() == HttpRequestHandler.STATUS_OK
+    mapper.readValue(response.getContentAsByteArray(), List)*.data.echo == ["one", "two"]
+  }
+
+  def "query over HTTP POST exceeding the maximum body size is rejected while reading"() {
+    setup:
+    def servlet = TestUtils.createAsyncRequestBodyServlet(16)
+
+    when:
+    servlet.doPost(request, response)
+    inputStream.deliver(mapper.writeValueAsBytes([query: 'query { echo(arg:"test") }']))
+
+    then:
+    response.getStatus() == 413
+    !request.isAsyncStarted()
+  }
+
+  def "read error completes the request"() {
+    setup:
+    def servlet = TestUtils.createAsyncRequestBodyServlet()
+
+    when:
+    servlet.doPost(request, response)
+    inputStream.listener.onError(new IOException("connection reset"))
+
+    then:
+    response.getStatus() == HttpRequestHandler.STATUS_BAD_REQUEST
+    !request.isAsyncStarted()
+  }
+
+  def "multipart requests are not read asynchronously"() {
+    setup:
+    def servlet = TestUtils.createAsyncRequestBodyServlet()
+    request.setContentType("multipart/form-data, boundary=test")
+
+    when:
+    servlet.doPost(request, response)
+
+    then:
+    inputStream.listener == null
+  }
+
+  static class AsyncBodyInputStream extends ServletInputStream {
+
+    ReadListener listener
+    ByteArrayInputStream available = new ByteArrayInputStream(new byte[0])
+    boolean finished
+
+    void deliver(byte[] bytes) {
+      available = new ByteArrayInputStream(bytes)
+      listener.onDataAvailable()
+    }
+
+    void finish() {
+      finished = true
+      listener.onAllDataRead()
+    }
+
+    @Override
+    boolean isFinished() {
+      return finished
+    }
+
+    @Override
+    boolean isReady() {
+      return available.available() > 0
+    }
+
+    @Override
+    void setReadListener(ReadListener readListener) {
+      listener = readListener
+    }
+
+    @Override
+    int read() {
+      return available.read()
+    }
+
+    @Override
+    int read(byte[] b, int off, int len) {
+      return available.read(b, off, len)
+    }
+  }
+}
@@ -0,0 +1,192 @@
+package graphql.kickstart.servlet
+
+import graphql.ExecutionInput
+import graphql.execution.preparsed.PreparsedDocumentEntry
+import graphql.kickstart.execution.preparsed.CachingPreparsedDocumentProvider
+import graphql.kickstart.execution.preparsed.QueryNormalizer
+import graphql.parser.Parser
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.time.Duration
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.function.Function
+
+class CachingPreparsedDocumentProviderSpec extends Specification {
+
+  int parses = 0
+  Function<ExecutionInput, PreparsedDocumentEntry> parse = { ExecutionInput input ->
+    parses++
+    new PreparsedDocumentEntry(new Parser().parseDocument(input.query))
+  }
+
+  static ExecutionInput input(String query, String operationName = null) {
+    ExecutionInput.newExecutionInput().query(query).operationName(operationName).build()
+  }
+
+  static PreparsedDocumentEntry document(CompletableFuture<PreparsedDocumentEntry> future) {
+    future.get(5, TimeUnit.SECONDS)
+  }
+
+  @Unroll
+  def "'#query' is normalized to '#expected'"() {
+    expect:
+    QueryNormalizer.normalize(query) == expected
+
+    where:
+    query                                           || expected
+    '  { a,  b }  '                                 || '{ a b }'
+    '{\n  a # comment\n  b\r\n}'                    || '{ a b }'
+    '\uFEFFquery A { a(s: "x,  y") }'               || 'query A { a(s: "x,  y") }'
+    '{ a(s: """ # not a comment\n  """) }'          || '{ a(s: """ # not a comment\n  """) }'
+    '{ a(s: "\\"  # x") }'                          || '{ a(s: "\\"  # x") }'
+    null                                            || ''
+  }
+
+  def "queries differing only in insignificant characters share a document"() {
+    given:
+    def provider = CachingPreparsedDocumentProvider.newBuilder().build()
+
+    when:
+    def first = document(provider.getDocumentAsync(input('{ a b }'), parse))
+    def second = document(provider.getDocumentAsync(input('{\n  a, # comment\n  b\n}'), parse))
+
+    then:
+    first.is(second)
+    parses == 1
+    provider.hitCount == 1
+    provider.missCount == 1
+  }
+
+  def "documents are keyed on the operation name"() {
+    given:
+    def provider = CachingPreparsedDocumentProvider.newBuilder().build()
+    def query = 'query A { a } query B { b }'
+
+    when:
+    provider.getDocumentAsync(input(query, 'A'), parse)
+    provider.getDocumentAsync(input(query, 'B'), parse)
+    provider.getDocumentAsync(input(query, 'A'), parse)
+
+    then:
+    parses == 2
+    provider.size() == 2
+  }
+
+  def "every schema has its own key space sharing the same storage"() {
+    given:
+    def provider = CachingPreparsedDocumentProvider.newBuilder().build()
+    def schema = TestUtils.createGraphQlSchema()
+    def other = TestUtils.createGraphQlSchema()
+
+    when:
+    def first = document(provider.forSchema(schema).getDocumentAsync(input('{ a }'), parse))
+    def second = document(provider.forSchema(schema).getDocumentAsync(input('{ a }'), parse))
+    def third = document(provider.forSchema(other).getDocumentAsync(input('{ a }'), parse))
+    provider.getDocumentAsync(input('{ a }'), parse)
+
+    then:
+    first.is(second)
+    !first.is(third)
+    parses == 3
+    provider.size() == 3
+  }
+
+  def "least recently used document is evicted when the maximum size is exceeded"() {
+    given:
+    def provider = CachingPreparsedDocumentProvider.newBuilder()
+        .withMaximumSize(2)
+        .withConcurrencyLevel(1)
+        .build()
+
+    when:
+    ['{ a }', '{ b }', '{ a }', '{ c }', '{ a }'].each { provider.getDocumentAsync(input(it), parse) }
+
+    then:
+    parses == 3
+    provider.evictionCount == 1
+    provider.size() == 2
+
+    when:
+    provider.getDocumentAsync(input('{ b }'), parse)
+
+    then:
+    parses == 4
+  }
+
+  def "documents are evicted when the maximum weight is exceeded"() {
+    given:
+    def provider = CachingPreparsedDocumentProvider.newBuilder()
+        .withMaximumWeight(12)
+        .withConcurrencyLevel(1)
+        .build()
+
+    when:
+    ['{ a }', '{ b }', '{ c }'].each { provider.getDocumentAsync(input(it), parse) }
+
+    then:
+    provider.size() == 2
+    provider.evictionCount == 1
+  }
+
+  def "expired documents are parsed again"() {
+    given:
+    def provider = CachingPreparsedDocumentProvider.newBuilder()
+        .withExpireAfterWrite(Duration.ofNanos(1))
+        .build()
+
+    when:
+    2.times { provider.getDocumentAsync(input('{ a }'), parse) }
+
+    then:
+    parses == 2
+  }
+
+  def "concurrent requests for the same query wait for a single parse"() {
+    given:
+    def provider = CachingPreparsedDocumentProvider.newBuilder().build()
+    def parsing = new CountDownLatch(1)
+    def release = new CountDownLatch(1)
+    Function<ExecutionInput, PreparsedDocumentEntry> slowParse = { ExecutionInput input ->
+      parsing.countDown()
+      release.await(5, TimeUnit.SECONDS)
+      parse.apply(input)
+    }
+
+    when:
+    def leader = CompletableFuture.supplyAsync({ document(provider.getDocumentAsync(input('{ a }'), slowParse)) })
+    parsing.await(5, TimeUnit.SECONDS)
+    def waiter = provider.getDocumentAsync(input('{ a }'), slowParse)
+
+    then:
+    !waiter.isDone()
+
+    when:
+    release.countDown()
+
+    then:
+    document(waiter).is(leader.get(5, TimeUnit.SECONDS))
+    parses == 1
+  }
+
+  def "failed parses are not cached"() {
+    given:
+    def provider = CachingPreparsedDocumentProvider.newBuilder().build()
+    Function<ExecutionInput, PreparsedDocumentEntry> failing = { throw new IllegalStateException("boom") }
+
+    when:
+    provider.getDocumentAsync(input('{ a }'), failing)
+
+    then:
+    thrown(IllegalStateException)
+    provider.size() == 0
+
+    when:
+    document(provider.getDocumentAsync(input('{ a }'), parse))
+
+    then:
+    parses == 1
+  }
+}
@@ -0,0 +1,177 @@
+package graphql.kickstart.servlet
+
+import graphql.kickstart.execution.context.DataLoaderBatchBus
+import graphql.kickstart.servlet.context.DefaultGraphQLServletContextBuilder
+import org.dataloader.BatchLoader
+import org.springframework.mock.web.MockHttpServletRequest
+import org.springframework.mock.web.MockHttpServletResponse
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionException
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class DataLoaderBatchBusSpec extends Specification {
+
+  List<List<String>> batches = Collections.synchronizedList([])
+
+  def bus(Duration window = Duration.ofMillis(20), int maxBatchSize = Integer.MAX_VALUE) {
+    DataLoaderBatchBus.newBuilder()
+        .withBatchLoader("user", { List<String> keys ->
+          batches.add(new ArrayList<>(keys))
+          CompletableFuture.completedFuture(keys.collect { "user-" + it })
+        } as BatchLoader<String, String>)
+        .withWindow(window)
+        .withMaxBatchSize(maxBatchSize)
+        .build()
+  }
+
+  def "loads of concurrent requests are sent in one batch and handed back to each request"() {
+    given:
+    def bus = bus()
+    def first = bus.newRegistry()
+    def second = bus.newRegistry()
+
+    when:
+    def firstValues = first.getDataLoader("user").loadMany(["1", "2"])
+    def secondValues = second.getDataLoader("user").loadMany(["2", "3"])
+    first.dispatchAll()
+    second.dispatchAll()
+
+    then:
+    firstValues.get(5, TimeUnit.SECONDS) == ["user-1", "user-2"]
+    secondValues.get(5, TimeUnit.SECONDS) == ["user-2", "user-3"]
+    batches == [["1", "2", "3"]]
+  }
+
+  def "each request keeps its own cache"() {
+    given:
+    def bus = bus()
+    def first = bus.newRegistry()
+    def second = bus.newRegistry()
+
+    expect:
+    first.getDataLoader("user") != second.getDataLoader("user")
+
+    when:
+    def loaded = first.getDataLoader("user").load("1")
+    first.dispatchAll()
+    loaded.get(5, TimeUnit.SECONDS)
+    def cached = first.getDataLoader("user").load("1")
+    def other = second.getDataLoader("user").load("1")
+    first.dispatchAll()
+    second.dispatchAll()
+
+    then:
+    cached.get(5, TimeUnit.SECONDS) == "user-1"
+    other.get(5, TimeUnit.SECONDS) == "user-1"
+    batches == [["1"], ["1"]]
+  }
+
+  def "full batch is sent before the window closes"() {
+    given:
+    def bus = bus(Duration.ofHours(1), 2)
+    def first = bus.newRegistry()
+    def second = bus.newRegistry()
+
+    when:
+    def firstValue = first.getDataLoader("user").load("1")
+    def secondValue = second.getDataLoader("user").load("2")
+    first.dispatchAll()
+    second.dispatchAll()
+
+    then:
+    firstValue.get(5, TimeUnit.SECONDS) == "user-1"
+    secondValue.get(5, TimeUnit.SECONDS) == "user-2"
+    batches == [["1", "2"]]
+  }
+
+  def "keys of a request are split at the maximum batch size"() {
+    given:
+    def bus = bus(Duration.ofHours(1), 2)
+    def first = bus.newRegistry()
+    def second = bus.newRegistry()
+
+    when:
+    def firstValues = first.getDataLoader("user").loadMany(["1", "2", "3"])
+    def secondValues = second.getDataLoader("user").loadMany(["3", "4"])
+    first.dispatchAll()
+    second.dispatchAll()
+
+    then:
+    firstValues.get(5, TimeUnit.SECONDS) == ["user-1", "user-2", "user-3"]
+    secondValues.get(5, TimeUnit.SECONDS) == ["user-3", "user-4"]
+    batches == [["1", "2"], ["3", "4"]]
+  }
+
+  def "batches are sent and completed on the executor"() {
+    given:
+    def threads = Collections.synchronizedList([])
+    def executor = Executors.newSingleThreadExecutor({ new Thread(it, "bus") })
+    def bus = DataLoaderBatchBus.newBuilder()
+        .withBatchLoader("user", { List<String> keys ->
+          threads << Thread.currentThread().getName()
+          CompletableFuture.completedFuture(keys)
+        } as BatchLoader<String, String>)
+        .withWindow(Duration.ofMillis(100))
+        .withExecutor(executor)
+        .build()
+    def registry = bus.newRegistry()
+
+    when:
+    def value = registry.getDataLoader("user").load("1")
+        .thenApply({ threads << Thread.currentThread().getName(); it })
+    registry.dispatchAll()
+
+    then:
+    value.get(5, TimeUnit.SECONDS) == "1"
+    threads == ["bus", "bus"]
+
+    cleanup:
+    executor.shutdownNow()
+  }
+
+  def "batch loader failure fails the loads of every request"() {
+    given:
+    def bus = DataLoaderBatchBus.newBuilder()
+        .withBatchLoader("user", { List<String> keys -> throw new IllegalStateException("backend down") } as BatchLoader<String, String>)
+        .build()
+    def registry = bus.newRegistry()
+
+    when:
+    def value = registry.getDataLoader("user").load("1")
+    registry.dispatchAll()
+    value.join()
+
+    then:
+    def e = thrown(CompletionException)
+    e.cause instanceof IllegalStateException
+  }
+
+  def "only loaders registered on the bus are shared"() {
+    given:
+    def bus = bus()
+
+    when:
+    bus.newDataLoader("secret")
+
+    then:
+    thrown(IllegalArgumentException)
+    bus.getNames() == ["user"] as Set
+  }
+
+  def "servlet context builder registers the loaders of the bus"() {
+    given:
+    def builder = new DefaultGraphQLServletContextBuilder(bus())
+
+    when:
+    def context = builder.build(new MockHttpServletRequest(), new MockHttpServletResponse())
+
+    then:
+    context.getDataLoaderRegistry().getKeys() == ["user"] as Set
+    new DefaultGraphQLServletContextBuilder().build(new MockHttpServletRequest(), new MockHttpServletResponse())
+        .getDataLoaderRegistry().getKeys().isEmpty()
+  }
+}
@@ -7,9 +7,11 @@ import graphql.execution.instrumentation.Instrumentation
 import graphql.execution.instrumentation.SimplePerformantInstrumentation
 import graphql.execution.instrumentation.dataloader.DataLoaderDispatcherInstrumentationOptions
 import graphql.kickstart.execution.context.ContextSetting
+import graphql.kickstart.execution.context.DataLoaderBatchBus
 import graphql.kickstart.execution.context.DefaultGraphQLContext
 import graphql.kickstart.execution.context.GraphQLKickstartContext
 import graphql.kickstart.execution.instrumentation.ConfigurableDispatchInstrumentation
+import graphql.kickstart.servlet.context.DefaultGraphQLServletContextBuilder
 import graphql.kickstart.servlet.context.GraphQLServletContextBuilder
 import graphql.schema.DataFetcher
 import graphql.schema.DataFetchingEnvironment
@@ -20,11 +22,13 @@ import org.springframework.mock.web.MockHttpServletRequest
 import org.springframework.mock.web.MockHttpServletResponse
 import spock.lang.Shared
 import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
 
 import jakarta.servlet.http.HttpServletRequest
 import jakarta.servlet.http.HttpServletResponse
 import jakarta.websocket.Session
 import jakarta.websocket.server.HandshakeRequest
+import java.time.Duration
 import java.util.concurrent.CompletableFuture
 import java.util.concurrent.CompletionStage
 import java.util.concurrent.atomic.AtomicInteger
@@ -177,6 +181,44 @@ class DataLoaderDispatchingSpec extends Specification {
     loadCounterC.get() == 2
   }
 
+  def "batched query with per query context and request instrumentation loads the keys of all queries together"() {
+    setup:
+    def bus = DataLoaderBatchBus.newBuilder()
+        .withBatchLoader("A", batchLoaderWithCounter(fetchCounterA))
+        .withBatchLoader("B", batchLoaderWithCounter(fetchCounterB))
+        .withBatchLoader("C", batchLoaderWithCounter(fetchCounterC))
+        // a window too short to collect the loads of separately dispatched queries
+        .withWindow(Duration.ofNanos(1))
+        .build()
+    servlet = TestUtils.createDataLoadingServlet(queryDataFetcher("A", loadCounterA),
+        queryDataFetcher("B", loadCounterB), queryDataFetcher("C", loadCounterC),
+        ContextSetting.PER_QUERY_WITH_REQUEST_INSTRUMENTATION,
+        new DefaultGraphQLServletContextBuilder(bus))
+    request.addParameter('query', '[{ "query": "query { query(arg:\\"test\\") { echo(arg:\\"test\\") { echo(arg:\\"test\\") } }}" }, { "query": "query{query(arg:\\"test\\") { echo (arg:\\"test\\") { echo(arg:\\"test\\")} }}" },' +
+        ' { "query": "query{queryTwo(arg:\\"test\\") { echo (arg:\\"test\\")}}" }, { "query": "query{queryTwo(arg:\\"test\\") { echo (arg:\\"test\\")}}" }]')
+    resetCounters()
+    request.setMethod("GET")
+
+    when:
+    servlet.doGet(request, response)
+
+    then:
+    new PollingConditions(timeout: 5).eventually {
+      assert response.getContentAsByteArray().length > 0
+    }
+    response.getStatus() == STATUS_OK
+    getBatchedResponseContent()[0].data.query.echo.echo == "test"
+    getBatchedResponseContent()[1].data.query.echo.echo == "test"
+    getBatchedResponseContent()[2].data.queryTwo.echo == "test"
+    getBatchedResponseContent()[3].data.queryTwo.echo == "test"
+    fetchCounterA.get() == 1
+    loadCounterA.get() == 2
+    fetchCounterB.get() == 1
+    loadCounterB.get() == 2
+    fetchCounterC.get() == 1
+    loadCounterC.get() == 2
+  }
+
   def unwrapChainedInstrumentations(Instrumentation instrumentation) {
     if (!instrumentation instanceof ChainedInstrumentation) {
       return Collections.singletonList(instrumentation)
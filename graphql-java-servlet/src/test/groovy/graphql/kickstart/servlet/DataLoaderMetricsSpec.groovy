@@ -0,0 +1,176 @@
+package graphql.kickstart.servlet
+
+import graphql.ExecutionInput
+import graphql.GraphQL
+import graphql.execution.ExecutionId
+import graphql.execution.instrumentation.SimplePerformantInstrumentation
+import graphql.execution.instrumentation.dataloader.DataLoaderDispatcherInstrumentationOptions
+import graphql.kickstart.execution.context.ContextSetting
+import graphql.kickstart.execution.instrumentation.ConfigurableDispatchInstrumentation
+import graphql.kickstart.execution.instrumentation.DataLoaderMetrics
+import graphql.kickstart.execution.instrumentation.FieldLevelTrackingApproach
+import graphql.kickstart.execution.instrumentation.StripedDataLoaderMetrics
+import graphql.schema.DataFetcher
+import graphql.schema.idl.RuntimeWiring
+import graphql.schema.idl.SchemaGenerator
+import graphql.schema.idl.SchemaParser
+import org.dataloader.BatchLoader
+import org.dataloader.DataLoaderFactory
+import org.dataloader.DataLoaderOptions
+import org.dataloader.DataLoaderRegistry
+import org.dataloader.stats.SimpleStatisticsCollector
+import spock.lang.Specification
+
+import javax.management.ObjectName
+import javax.management.openmbean.CompositeData
+import java.lang.management.ManagementFactory
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.TimeUnit
+
+class DataLoaderMetricsSpec extends Specification {
+
+  StripedDataLoaderMetrics metrics = new StripedDataLoaderMetrics()
+  ObjectName registeredName
+
+  def cleanup() {
+    if (registeredName != null) {
+      ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredName)
+    }
+  }
+
+  def schema() {
+    def sdl = 'type Query { items(ids: [ID]): [Item] } type Item { id: ID detail: String }'
+    def wiring = RuntimeWiring.newRuntimeWiring()
+        .type("Query", { it.dataFetcher("items", { env -> env.getArgument("ids").collect { [id: it] } } as DataFetcher) })
+        .type("Item", { it.dataFetcher("detail", { env -> env.getDataLoader("detail").load(env.getSource().id) } as DataFetcher) })
+        .build()
+    new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(sdl), wiring)
+  }
+
+  def registry() {
+    def registry = new DataLoaderRegistry()
+    def options = DataLoaderOptions.newOptions().setStatisticsCollector({ new SimpleStatisticsCollector() })
+    registry.register("detail", DataLoaderFactory.newDataLoader({ List<String> keys ->
+      CompletableFuture.completedFuture(keys.collect { "detail-" + it })
+    } as BatchLoader<String, String>, options))
+    registry
+  }
+
+  def input(String operationName, List<String> ids, DataLoaderRegistry registry = registry()) {
+    ExecutionInput.newExecutionInput()
+        .query('query ' + operationName + '($ids: [ID]) { items(ids: $ids) { detail } }')
+        .operationName(operationName)
+        .executionId(ExecutionId.generate())
+        .variables([ids: ids])
+        .dataLoaderRegistry(registry)
+        .build()
+  }
+
+  def "records batches, dispatches and cache hits by loader and operation"() {
+    given:
+    def instrumentation = new ConfigurableDispatchInstrumentation(
+        DataLoaderDispatcherInstrumentationOptions.newOptions(), FieldLevelTrackingApproach::new, null, metrics)
+    def graphQL = GraphQL.newGraphQL(schema()).instrumentation(instrumentation).doNotAddDefaultInstrumentations().build()
+
+    when:
+    def result = graphQL.execute(input("Items", ["1", "2", "3", "1"]))
+
+    then:
+    result.errors.isEmpty()
+    result.data.items*.detail == ["detail-1", "detail-2", "detail-3", "detail-1"]
+    def snapshot = metrics.getMetrics("detail", "Items")
+    snapshot.executions == 1
+    snapshot.dispatchesPerExecution == 1d
+    snapshot.loads == 4
+    snapshot.cacheHits == 1
+    snapshot.cacheHitRatio == 0.25d
+    snapshot.batches == 1
+    snapshot.batchedKeys == 3
+    snapshot.batchSizeHistogram[2] == 1
+    snapshot.batchSizeHistogram.sum() == 1
+    snapshot.maxDispatchDelayNanos > 0
+    metrics.getMetrics("detail", "Other") == null
+  }
+
+  def "batches of a registry shared by different operations are recorded for them together"() {
+    given:
+    def registry = registry()
+    def first = input("First", ["1", "2"], registry)
+    def second = input("Second", ["3"], registry)
+    def instrumentation = ContextSetting.PER_REQUEST_WITH_INSTRUMENTATION.configureInstrumentationForContext(
+        { SimplePerformantInstrumentation.INSTANCE }, [first, second],
+        DataLoaderDispatcherInstrumentationOptions.newOptions(), null, metrics).get()
+    def graphQL = GraphQL.newGraphQL(schema()).instrumentation(instrumentation).doNotAddDefaultInstrumentations().build()
+
+    expect:
+    metrics.getLoaderMetrics().isEmpty()
+
+    when:
+    def firstResult = graphQL.executeAsync(first)
+    def secondResult = graphQL.executeAsync(second)
+
+    then:
+    firstResult.get(5, TimeUnit.SECONDS).data.items*.detail == ["detail-1", "detail-2"]
+    secondResult.get(5, TimeUnit.SECONDS).data.items*.detail == ["detail-3"]
+    metrics.getMetrics("detail", DataLoaderMetrics.SHARED_OPERATIONS).batchedKeys == 3
+    metrics.getMetrics("detail", DataLoaderMetrics.SHARED_OPERATIONS).executions == 1
+    metrics.getMetrics("detail", DataLoaderMetrics.SHARED_OPERATIONS).dispatchesPerExecution == 1d
+    metrics.getMetrics("detail", "First").executions == 1
+  }
+
+  def "operations beyond the maximum number are recorded together"() {
+    given:
+    def limited = new StripedDataLoaderMetrics(2)
+
+    when:
+    ["A", "B", "C", "D", "A"].each {
+      limited.recordExecution(it)
+      limited.recordBatch("detail", it, 1, 0)
+    }
+    limited.recordBatch("detail", null, 1, 0)
+
+    then:
+    limited.getLoaderMetrics().size() == 4
+    limited.getMetrics("detail", "A").batches == 2
+    limited.getMetrics("detail", "B").batches == 1
+    limited.getMetrics("detail", "C") == null
+    limited.getMetrics("detail", StripedDataLoaderMetrics.OTHER_OPERATIONS).batches == 2
+    limited.getMetrics("detail", StripedDataLoaderMetrics.OTHER_OPERATIONS).executions == 2
+    limited.getMetrics("detail", null).batches == 1
+  }
+
+  def "batch sizes are counted in power of two buckets"() {
+    when:
+    [1, 2, 3, 4, 5, 1024, 1025, 100_000].each { metrics.recordBatch("detail", null, it, 0) }
+
+    then:
+    metrics.getMetrics("detail", null).batchSizeHistogram as List == [1, 1, 2, 1, 0, 0, 0, 0, 0, 0, 1, 2]
+    metrics.getMetrics("detail", null).meanBatchSize == 102_064d / 8
+  }
+
+  def "metrics are exported through JMX"() {
+    given:
+    def server = ManagementFactory.getPlatformMBeanServer()
+    registeredName = metrics.registerMBean(server)
+    2.times { metrics.recordExecution("Items") }
+    6.times { metrics.recordBatch("detail", "Items", 1, 0) }
+    metrics.recordLoads("detail", "Items", 6, 2)
+
+    when:
+    CompositeData[] exported = server.getAttribute(registeredName, "LoaderMetrics")
+
+    then:
+    registeredName.toString() == StripedDataLoaderMetrics.OBJECT_NAME
+    exported.length == 1
+    exported[0].get("loaderName") == "detail"
+    exported[0].get("operationName") == "Items"
+    exported[0].get("dispatchesPerExecution") == 3d
+    exported[0].get("cacheHitRatio") == 2d / 6
+
+    when:
+    server.invoke(registeredName, "reset", null, null)
+
+    then:
+    metrics.getLoaderMetrics().isEmpty()
+  }
+}
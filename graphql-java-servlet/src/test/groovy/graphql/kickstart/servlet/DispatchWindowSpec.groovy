@@ -0,0 +1,174 @@
+package graphql.kickstart.servlet
+
+import graphql.ExecutionInput
+import graphql.ExecutionResult
+import graphql.GraphQL
+import graphql.execution.ExecutionId
+import graphql.execution.instrumentation.dataloader.DataLoaderDispatcherInstrumentationOptions
+import graphql.kickstart.execution.instrumentation.ConfigurableDispatchInstrumentation
+import graphql.kickstart.execution.instrumentation.DispatchWindow
+import graphql.kickstart.execution.instrumentation.RequestLevelTrackingApproach
+import graphql.schema.DataFetcher
+import graphql.schema.idl.RuntimeWiring
+import graphql.schema.idl.SchemaGenerator
+import graphql.schema.idl.SchemaParser
+import org.dataloader.BatchLoader
+import org.dataloader.DataLoaderFactory
+import org.dataloader.DataLoaderRegistry
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class DispatchWindowSpec extends Specification {
+
+  ExecutorService executor = Executors.newCachedThreadPool()
+  CountDownLatch slowResolver = new CountDownLatch(1)
+  AtomicInteger batches = new AtomicInteger()
+  DataLoaderRegistry registry = new DataLoaderRegistry()
+
+  def setup() {
+    registry.register("item", DataLoaderFactory.newDataLoader({ List<String> keys ->
+      batches.incrementAndGet()
+      CompletableFuture.completedFuture(keys.collect { "item-" + it })
+    } as BatchLoader<String, String>))
+  }
+
+  def cleanup() {
+    slowResolver.countDown()
+    executor.shutdownNow()
+  }
+
+  def graphQL(RequestLevelTrackingApproach approach, DispatchWindow dispatchWindow) {
+    def sdl = 'type Query { item(id: ID): String items(ids: [ID]): [String] slow: String }'
+    def wiring = RuntimeWiring.newRuntimeWiring()
+        .type("Query", {
+          it.dataFetcher("item", { env -> env.getDataLoader("item").load(env.getArgument("id")) } as DataFetcher)
+              .dataFetcher("items", { env -> env.getDataLoader("item").loadMany(env.getArgument("ids")) } as DataFetcher)
+              .dataFetcher("slow", { env ->
+                slowResolver.await(10, TimeUnit.SECONDS)
+                "slow"
+              } as DataFetcher)
+        })
+        .build()
+    def schema = new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(sdl), wiring)
+    def instrumentation = new ConfigurableDispatchInstrumentation(
+        DataLoaderDispatcherInstrumentationOptions.newOptions(), { approach }, dispatchWindow)
+    return GraphQL.newGraphQL(schema).instrumentation(instrumentation).doNotAddDefaultInstrumentations().build()
+  }
+
+  def input(String query, String id) {
+    ExecutionInput.newExecutionInput()
+        .query(query)
+        .executionId(ExecutionId.from(id))
+        .dataLoaderRegistry(registry)
+        .build()
+  }
+
+  CompletableFuture<ExecutionResult> start(GraphQL graphQL, ExecutionInput input) {
+    CompletableFuture.supplyAsync({ graphQL.executeAsync(input) }, executor).thenCompose({ it })
+  }
+
+  def run(DispatchWindow dispatchWindow, String query) {
+    def fast = input(query, "fast")
+    def slow = input('{ slow }', "slow")
+    def graphQL = graphQL(new RequestLevelTrackingApproach([fast.executionId, slow.executionId], registry), dispatchWindow)
+    def slowResult = start(graphQL, slow)
+    def fastResult = start(graphQL, fast)
+    return [fastResult, slowResult]
+  }
+
+  def "loads wait for a slow resolver of another execution without a dispatch window"() {
+    when:
+    def (fastResult, slowResult) = run(null, '{ item(id: "1") }')
+    Thread.sleep(200)
+
+    then:
+    !fastResult.isDone()
+
+    when:
+    slowResolver.countDown()
+
+    then:
+    fastResult.get(5, TimeUnit.SECONDS).data == [item: "item-1"]
+    slowResult.get(5, TimeUnit.SECONDS).data == [slow: "slow"]
+  }
+
+  def "loads are dispatched when the dispatch window closes"() {
+    given:
+    def dispatchWindow = DispatchWindow.newBuilder().withMaxDelay(Duration.ofMillis(5)).build()
+
+    when:
+    def (fastResult, slowResult) = run(dispatchWindow, '{ item(id: "1") }')
+
+    then:
+    fastResult.get(5, TimeUnit.SECONDS).data == [item: "item-1"]
+    !slowResult.isDone()
+
+    when:
+    slowResolver.countDown()
+
+    then:
+    slowResult.get(5, TimeUnit.SECONDS).data == [slow: "slow"]
+  }
+
+  def "loads are dispatched on the executor when the dispatch window closes"() {
+    given:
+    def dispatchingThreads = Collections.synchronizedSet(new HashSet<String>())
+    registry.register("item", DataLoaderFactory.newDataLoader({ List<String> keys ->
+      dispatchingThreads << Thread.currentThread().getName()
+      CompletableFuture.completedFuture(keys.collect { "item-" + it })
+    } as BatchLoader<String, String>))
+    def dispatcher = Executors.newSingleThreadExecutor({ new Thread(it, "dispatcher") })
+    def dispatchWindow = DispatchWindow.newBuilder()
+        .withMaxDelay(Duration.ofMillis(5))
+        .withExecutor(dispatcher)
+        .build()
+
+    when:
+    def (fastResult, slowResult) = run(dispatchWindow, '{ item(id: "1") }')
+
+    then:
+    fastResult.get(5, TimeUnit.SECONDS).data == [item: "item-1"]
+    dispatchingThreads == ["dispatcher"] as Set
+    !slowResult.isDone()
+
+    cleanup:
+    dispatcher.shutdownNow()
+  }
+
+  def "loads are dispatched when enough keys are pending"() {
+    given:
+    def dispatchWindow = DispatchWindow.newBuilder()
+        .withMaxPendingKeys(3)
+        .withMaxDelay(Duration.ofHours(1))
+        .build()
+
+    when:
+    def (fastResult, slowResult) = run(dispatchWindow, '{ items(ids: ["1", "2", "3"]) }')
+
+    then:
+    fastResult.get(5, TimeUnit.SECONDS).data == [items: ["item-1", "item-2", "item-3"]]
+    batches.get() == 1
+    !slowResult.isDone()
+  }
+
+  def "dispatch window can not be built with invalid bounds"() {
+    when:
+    DispatchWindow.newBuilder().withMaxPendingKeys(0)
+
+    then:
+    thrown(IllegalArgumentException)
+
+    when:
+    DispatchWindow.newBuilder().withMaxDelay(Duration.ZERO)
+
+    then:
+    thrown(IllegalArgumentException)
+  }
+}
@@ -0,0 +1,86 @@
+package graphql.kickstart.servlet
+
+import graphql.execution.instrumentation.Instrumentation
+import graphql.execution.instrumentation.SimplePerformantInstrumentation
+import graphql.kickstart.execution.config.GraphQLBuilder
+import graphql.schema.GraphQLSchema
+import graphql.schema.idl.RuntimeWiring
+import graphql.schema.idl.SchemaGenerator
+import graphql.schema.idl.SchemaParser
+import spock.lang.Specification
+
+import java.util.function.Supplier
+
+class GraphQLBuilderSpec extends Specification {
+
+  int instrumentationCalls = 0
+  GraphQLBuilder builder = new GraphQLBuilder().instrumentation({
+    instrumentationCalls++
+    new SimplePerformantInstrumentation()
+  } as Supplier<Instrumentation>)
+
+  static GraphQLSchema newSchema() {
+    new SchemaGenerator().makeExecutableSchema(
+        new SchemaParser().parse('type Query { echo: String }'),
+        RuntimeWiring.newRuntimeWiring().build())
+  }
+
+  def "instance is built once per schema and the suppliers are called only then"() {
+    given:
+    def schema = newSchema()
+
+    when:
+    def first = builder.build(schema)
+    def second = builder.build(schema)
+
+    then:
+    first.is(second)
+    instrumentationCalls == 1
+    !builder.build(newSchema()).is(first)
+    instrumentationCalls == 2
+  }
+
+  def "replacing a supplier or invalidating rebuilds the instance"() {
+    given:
+    def schema = newSchema()
+    def first = builder.build(schema)
+
+    when:
+    builder.invalidate()
+
+    then:
+    !builder.build(schema).is(first)
+
+    when:
+    def second = builder.build(schema)
+    builder.instrumentation({ SimplePerformantInstrumentation.INSTANCE } as Supplier<Instrumentation>)
+
+    then:
+    !builder.build(schema).is(second)
+  }
+
+  def "least recently used schema is evicted when the limit is reached"() {
+    given:
+    def schemas = (0..<16).collect { newSchema() }
+    def built = schemas.collect { builder.build(it) }
+
+    when:
+    builder.build(schemas[0])
+    builder.build(newSchema())
+
+    then:
+    builder.build(schemas[0]).is(built[0])
+    (2..<16).every { builder.build(schemas[it]).is(built[it]) }
+    !builder.build(schemas[1]).is(built[1])
+  }
+
+  def "instance with its own instrumentation is never cached"() {
+    given:
+    def schema = newSchema()
+    Supplier<Instrumentation> own = { SimplePerformantInstrumentation.INSTANCE }
+
+    expect:
+    !builder.build(schema, own).is(builder.build(schema, own))
+    !builder.build(schema, own).is(builder.build(schema))
+  }
+}
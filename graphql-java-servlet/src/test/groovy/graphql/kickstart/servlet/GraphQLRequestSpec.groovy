@@ -0,0 +1,59 @@
+package graphql.kickstart.servlet
+
+import graphql.kickstart.execution.GraphQLRequest
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class GraphQLRequestSpec extends Specification {
+
+  @Unroll
+  def "operation name of '#query' is #expected"() {
+    expect:
+    GraphQLRequest.createQueryOnlyRequest(query).getOperationName() == expected
+
+    where:
+    query                                                                    || expected
+    'query Users { users { id } }'                                           || "Users"
+    'mutation AddUser($name: String = "query Other") { add(name: $name) }'   || "AddUser"
+    'subscription\n  # query Comment\n  Events { events }'                   || "Events"
+    '\uFEFF query Users @cached(ttl: 5) { users(filter: {name: "}"}) { id } }' || "Users"
+    'query Users { ...F } fragment F on User { id }'                         || "Users"
+    'fragment F on User { id } query Users { ...F }'                         || "Users"
+    'query Users { a(s: """ } query B { """) }'                              || "Users"
+    'query Users { a(s: "\\" }") }'                                          || "Users"
+    'query ($id: ID) { user(id: $id) { id } }'                               || null
+    '{ users { id } }'                                                       || null
+    'query A { a } query B { b }'                                            || null
+    '{ a } query B { b }'                                                    || null
+    'query Users { users { id }'                                             || null
+    'query Users { users { id ) }'                                           || null
+    'type Query { users: [User] }'                                           || null
+    '"description" query Users { users }'                                    || null
+    ''                                                                       || null
+  }
+
+  def "given operation name is used without looking at the query"() {
+    expect:
+    new GraphQLRequest('query A { a } query B { b }', [:], [:], "B").getOperationName() == "B"
+  }
+
+  def "extracted operation name follows changes of the request"() {
+    given:
+    def request = GraphQLRequest.createQueryOnlyRequest('query A { a }')
+
+    expect:
+    request.getOperationName() == "A"
+
+    when:
+    request.setQuery('query B { b }')
+
+    then:
+    request.getOperationName() == "B"
+
+    when:
+    request.setOperationName("C")
+
+    then:
+    request.getOperationName() == "C"
+  }
+}
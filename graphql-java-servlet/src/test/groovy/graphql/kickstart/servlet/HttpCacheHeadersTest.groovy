@@ -0,0 +1,131 @@
+package graphql.kickstart.servlet
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import graphql.ExecutionResultImpl
+import graphql.kickstart.execution.GraphQLObjectMapper
+import graphql.kickstart.execution.input.GraphQLInvocationInput
+import graphql.kickstart.servlet.cache.CacheReader
+import graphql.kickstart.servlet.cache.CachedResponse
+import graphql.kickstart.servlet.cache.GraphQLResponseCacheManager
+import org.springframework.mock.web.MockHttpServletRequest
+import org.springframework.mock.web.MockHttpServletResponse
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class HttpCacheHeadersTest extends Specification {
+
+  def objectMapper = GraphQLObjectMapper.newBuilder().withObjectMapperProvider({ new ObjectMapper() }).build()
+  def result = new ExecutionResultImpl([echo: "test"], [])
+  def response = new MockHttpServletResponse()
+
+  def "should set etag and cache control on GET responses"() {
+    given:
+    def request = new MockHttpServletRequest("GET", "/graphql")
+    def writer = new SingleQueryResponseWriter(result, objectMapper, false, new HttpCacheHeaders(true, "public, max-age=60"))
+
+    when:
+    writer.write(request, response)
+
+    then:
+    response.getStatus() == 200
+    response.getHeader("ETag") == HttpCacheHeaders.etagOf('{"data":{"echo":"test"}}'.bytes)
+    response.getHeader("Cache-Control") == "public, max-age=60"
+    response.getContentAsString() == '{"data":{"echo":"test"}}'
+  }
+
+  def "should answer a matching If-None-Match with 304 and no body"() {
+    given:
+    def request = new MockHttpServletRequest("GET", "/graphql")
+    request.addHeader("If-None-Match", 'W/"other", ' + HttpCacheHeaders.etagOf('{"data":{"echo":"test"}}'.bytes))
+    def writer = new SingleQueryResponseWriter(result, objectMapper, false, new HttpCacheHeaders(true, "max-age=60"))
+
+    when:
+    writer.write(request, response)
+
+    then:
+    response.getStatus() == 304
+    response.getHeader("ETag") != null
+    response.getHeader("Cache-Control") == "max-age=60"
+    response.getContentAsByteArray().length == 0
+  }
+
+  def "should not set headers on POST responses"() {
+    given:
+    def request = new MockHttpServletRequest("POST", "/graphql")
+    request.addHeader("If-None-Match", "*")
+    def writer = new SingleQueryResponseWriter(result, objectMapper, false, new HttpCacheHeaders(true, "max-age=60"))
+
+    when:
+    writer.write(request, response)
+
+    then:
+    response.getStatus() == 200
+    response.getHeader("ETag") == null
+    response.getHeader("Cache-Control") == null
+    response.getContentAsString() == '{"data":{"echo":"test"}}'
+  }
+
+  def "should tag each encoding of a cached response differently"() {
+    given:
+    def cacheManager = Mock(GraphQLResponseCacheManager)
+    def invocationInput = Mock(GraphQLInvocationInput)
+    def cached = CachedResponse.ofContent('{"data":{"echo":"test"}}'.bytes).withCompressedContent()
+    cacheManager.get(_, invocationInput) >> cached
+    def cacheReader = new CacheReader(new HttpCacheHeaders(true, null))
+    def plainRequest = new MockHttpServletRequest("GET", "/graphql")
+    def gzipRequest = new MockHttpServletRequest("GET", "/graphql")
+    gzipRequest.addHeader("Accept-Encoding", "gzip")
+    def gzipResponse = new MockHttpServletResponse()
+
+    when:
+    cacheReader.responseFromCache(invocationInput, plainRequest, response, cacheManager)
+    cacheReader.responseFromCache(invocationInput, gzipRequest, gzipResponse, cacheManager)
+
+    then:
+    response.getHeader("ETag") == HttpCacheHeaders.etagOf(cached.getContentBytes())
+    gzipResponse.getHeader("ETag") == response.getHeader("ETag").replaceAll('"$', '-gzip"')
+    gzipResponse.getHeader("Content-Encoding") == "gzip"
+  }
+
+  def "should answer a conditional request for a cached response with 304"() {
+    given:
+    def cacheManager = Mock(GraphQLResponseCacheManager)
+    def invocationInput = Mock(GraphQLInvocationInput)
+    def cached = CachedResponse.ofContent('{"data":{"echo":"test"}}'.bytes)
+    cacheManager.get(_, invocationInput) >> cached
+    def request = new MockHttpServletRequest("GET", "/graphql")
+    request.addHeader("If-None-Match", cached.getEtag(""))
+
+    when:
+    def served = new CacheReader(new HttpCacheHeaders(true, null))
+        .responseFromCache(invocationInput, request, response, cacheManager)
+
+    then:
+    served
+    response.getStatus() == 304
+    response.getContentAsByteArray().length == 0
+  }
+
+  @Unroll
+  def "If-None-Match '#ifNoneMatch' should match: #expected"() {
+    expect:
+    HttpCacheHeaders.matches(ifNoneMatch, '"1a-abc"') == expected
+
+    where:
+    ifNoneMatch            | expected
+    null                   | false
+    '"1a-abc"'             | true
+    'W/"1a-abc"'           | true
+    '"x", "1a-abc"'        | true
+    '*'                    | true
+    '"1a-abd"'             | false
+    '1a-abc'               | false
+  }
+
+  def "etag should change with the content"() {
+    expect:
+    HttpCacheHeaders.etagOf("abc".bytes) == HttpCacheHeaders.etagOf("abc".bytes)
+    HttpCacheHeaders.etagOf("abc".bytes) != HttpCacheHeaders.etagOf("abd".bytes)
+    HttpCacheHeaders.etagOf("abc".bytes) == '"3-ba7816bf8f01cfea414140de5dae2223"'
+  }
+}
@@ -0,0 +1,130 @@
+package graphql.kickstart.servlet
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import graphql.ExecutionResult
+import graphql.ExecutionResultImpl
+import graphql.kickstart.execution.GraphQLObjectMapper
+import jakarta.servlet.ServletOutputStream
+import jakarta.servlet.WriteListener
+import jakarta.servlet.http.HttpServletRequest
+import jakarta.servlet.http.HttpServletResponse
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+import java.util.concurrent.CompletableFuture
+
+class NonBlockingResponseOutputTest extends Specification {
+
+  def graphQLObjectMapper = GraphQLObjectMapper.newBuilder().withObjectMapperProvider({ new ObjectMapper() }).build()
+
+  def written = new ByteArrayOutputStream()
+  def ready = true
+  WriteListener listener
+  def outputStream = Mock(ServletOutputStream) {
+    setWriteListener(_) >> { WriteListener writeListener -> listener = writeListener }
+    isReady() >> { ready }
+    write(_ as byte[]) >> { byte[] bytes -> written.write(bytes) }
+  }
+  def response = Mock(HttpServletResponse) {
+    getOutputStream() >> outputStream
+  }
+  def request = Mock(HttpServletRequest) {
+    isAsyncStarted() >> true
+  }
+
+  def "should wait for the container before writing"() {
+    given:
+    def output = NonBlockingResponseOutput.start(response)
+
+    when:
+    output.add("abc".bytes)
+    output.close()
+
+    then:
+    written.size() == 0
+    !output.getCompletion().isDone()
+
+    when:
+    listener.onWritePossible()
+
+    then:
+    written.toString() == "abc"
+    output.getCompletion().isDone()
+  }
+
+  def "should resume writing when the container reports the stream as ready again"() {
+    given:
+    def output = NonBlockingResponseOutput.start(response)
+    listener.onWritePossible()
+
+    when:
+    ready = false
+    output.add("abc".bytes)
+    output.add("def".bytes)
+    output.close()
+
+    then:
+    written.size() == 0
+    !output.getCompletion().isDone()
+
+    when:
+    ready = true
+    listener.onWritePossible()
+
+    then:
+    written.toString() == "abcdef"
+    output.getCompletion().isDone()
+  }
+
+  def "should complete exceptionally on a container error"() {
+    given:
+    def output = NonBlockingResponseOutput.start(response)
+
+    when:
+    listener.onError(new IOException("connection reset"))
+
+    then:
+    output.getCompletion().isCompletedExceptionally()
+  }
+
+  def "single query writer should write through the write listener"() {
+    given:
+    def result = new ExecutionResultImpl([k: "ä"], [])
+    def writer = new SingleQueryResponseWriter(result, graphQLObjectMapper, true)
+
+    when:
+    def future = writer.writeAsync(request, response)
+
+    then:
+    !future.isDone()
+
+    when:
+    listener.onWritePossible()
+
+    then:
+    future.isDone()
+    written.toString(StandardCharsets.UTF_8) == """{"data":{"k":"ä"}}"""
+  }
+
+  def "streaming batched writer should hand over each result as it completes"() {
+    given:
+    def first = new CompletableFuture<ExecutionResult>()
+    def second = CompletableFuture.completedFuture(new ExecutionResultImpl([k2: "b"], []) as ExecutionResult)
+    def writer = new StreamingBatchedQueryResponseWriter([first, second], graphQLObjectMapper, false, true)
+
+    when:
+    def future = writer.writeAsync(request, response)
+    listener.onWritePossible()
+
+    then:
+    written.toString() == "["
+    !future.isDone()
+
+    when:
+    first.complete(new ExecutionResultImpl([k1: "a"], []))
+
+    then:
+    future.isDone()
+    written.toString() == """[{"data":{"k1":"a"}},{"data":{"k2":"b"}}]"""
+  }
+}
@@ -205,6 +205,23 @@ class OsgiGraphQLHttpServletSpec extends Specification {
     noExceptionThrown()
   }
 
+  def "configuration is reused until the schema changes"() {
+    setup:
+    def servlet = new OsgiGraphQLHttpServlet()
+    def configuration = servlet.getConfiguration()
+
+    expect:
+    servlet.getConfiguration().is(configuration)
+
+    when:
+    servlet.bindQueryProvider(new TestQueryProvider())
+
+    then:
+    !servlet.getConfiguration().is(configuration)
+    servlet.getConfiguration().is(servlet.getConfiguration())
+    servlet.getConfiguration().asyncExecutor != null
+  }
+
   def "bind query provider adds query objects"() {
     setup:
     def servlet = new OsgiGraphQLHttpServlet()
@@ -0,0 +1,116 @@
+package graphql.kickstart.servlet
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import graphql.kickstart.execution.GraphQLQueryInvoker
+import graphql.kickstart.execution.preparsed.CachingPreparsedDocumentProvider
+import graphql.kickstart.execution.preparsed.PersistedQueryDocumentProvider
+import org.springframework.mock.web.MockHttpServletRequest
+import org.springframework.mock.web.MockHttpServletResponse
+import spock.lang.Shared
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+import java.security.MessageDigest
+
+class PersistedQuerySpec extends Specification {
+
+  static final String QUERY = 'query Echo($arg: String) { echo(arg:$arg) }'
+
+  @Shared
+  ObjectMapper mapper = new ObjectMapper()
+
+  CachingPreparsedDocumentProvider documentProvider
+  GraphQLHttpServlet servlet
+
+  def setup() {
+    documentProvider = CachingPreparsedDocumentProvider.newBuilder().build()
+    def queryInvoker = GraphQLQueryInvoker.newBuilder()
+        .withPreparsedDocumentProvider(PersistedQueryDocumentProvider.newBuilder()
+            .withPreparsedDocumentProvider(documentProvider)
+            .build())
+        .build()
+    servlet = GraphQLHttpServlet.with(GraphQLConfiguration
+        .with(TestUtils.createGraphQlSchema())
+        .with(queryInvoker)
+        .with({ Runnable command -> command.run() } as java.util.concurrent.Executor)
+        .build())
+    servlet.init()
+  }
+
+  static String sha256(String query) {
+    MessageDigest.getInstance("SHA-256").digest(query.getBytes(StandardCharsets.UTF_8)).encodeHex().toString()
+  }
+
+  static Map extensions(String hash) {
+    [persistedQuery: [version: 1, sha256Hash: hash]]
+  }
+
+  Map post(Map body) {
+    def request = new MockHttpServletRequest()
+    request.setMethod("POST")
+    request.setContent(mapper.writeValueAsBytes(body))
+    def response = new MockHttpServletResponse()
+    servlet.doPost(request, response)
+    mapper.readValue(response.getContentAsByteArray(), Map)
+  }
+
+  Map get(Map<String, String> parameters) {
+    def request = new MockHttpServletRequest()
+    request.setMethod("GET")
+    parameters.each { name, value -> request.addParameter(name, value) }
+    def response = new MockHttpServletResponse()
+    servlet.doGet(request, response)
+    mapper.readValue(response.getContentAsByteArray(), Map)
+  }
+
+  def "unknown hash returns PersistedQueryNotFound"() {
+    when:
+    def result = post([extensions: extensions(sha256(QUERY)), variables: [arg: "test"]])
+
+    then:
+    result.data == null
+    result.errors[0].message == "PersistedQueryNotFound"
+  }
+
+  def "query is registered on retry and resolved from the hash afterwards"() {
+    given:
+    def hash = sha256(QUERY)
+
+    when:
+    def registration = post([query: QUERY, extensions: extensions(hash), variables: [arg: "first"]])
+    def missesAfterRegistration = documentProvider.missCount
+    def viaPost = post([extensions: extensions(hash), operationName: "Echo", variables: [arg: "second"]])
+    def missesAfterLookup = documentProvider.missCount
+    def viaGet = get([extensions: mapper.writeValueAsString(extensions(hash)), variables: '{"arg": "third"}'])
+
+    then:
+    registration.data.echo == "first"
+    viaPost.data.echo == "second"
+    missesAfterLookup == missesAfterRegistration
+    viaGet.data.echo == "third"
+  }
+
+  def "hash is matched regardless of its case"() {
+    given:
+    def hash = sha256(QUERY)
+
+    when:
+    def registration = post([query: QUERY, extensions: extensions(hash.toUpperCase()), variables: [arg: "first"]])
+    def lookup = post([extensions: extensions(hash), variables: [arg: "second"]])
+    def mixedCaseLookup = post([extensions: extensions(hash[0..31].toUpperCase() + hash[32..-1]), variables: [arg: "third"]])
+
+    then:
+    registration.data.echo == "first"
+    lookup.data.echo == "second"
+    mixedCaseLookup.data.echo == "third"
+  }
+
+  def "query not matching its hash is rejected"() {
+    when:
+    def result = post([query: QUERY, extensions: extensions(sha256("{ echo }"))])
+
+    then:
+    result.data == null
+    result.errors[0].message == "PersistedQueryIdInvalid"
+  }
+}
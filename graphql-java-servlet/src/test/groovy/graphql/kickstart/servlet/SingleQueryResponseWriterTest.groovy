@@ -2,7 +2,10 @@ package graphql.kickstart.servlet
 
 import com.fasterxml.jackson.databind.ObjectMapper
 import graphql.ExecutionResultImpl
+import graphql.GraphqlErrorBuilder
 import graphql.kickstart.execution.GraphQLObjectMapper
+import org.springframework.mock.web.MockHttpServletRequest
+import org.springframework.mock.web.MockHttpServletResponse
 import spock.lang.Specification
 import spock.lang.Unroll
 
@@ -36,4 +39,24 @@ class SingleQueryResponseWriterTest extends Specification {
     [testValue: "abcde"]  || 30                    | """{"data":{"testValue":"abcde"}}"""
     [testValue: "äöüüöß"] || 37                    | """{"data":{"testValue":"äöüüöß"}}"""
   }
+
+  def "should set cache headers only for results without errors"() {
+    given:
+    def graphQLObjectMapper = GraphQLObjectMapper.newBuilder().withObjectMapperProvider({ new ObjectMapper() }).build()
+    def request = new MockHttpServletRequest("GET", "/graphql")
+    def response = new MockHttpServletResponse()
+
+    when:
+    new SingleQueryResponseWriter(new ExecutionResultImpl([testValue: "a"], errors), graphQLObjectMapper, false,
+        new HttpCacheHeaders(true, "max-age=60")).write(request, response)
+
+    then:
+    (response.getHeader("ETag") != null) == cached
+    (response.getHeader("Cache-Control") != null) == cached
+
+    where:
+    errors                                                     || cached
+    []                                                         || true
+    [GraphqlErrorBuilder.newError().message("failed").build()] || false
+  }
 }
@@ -0,0 +1,73 @@
+package graphql.kickstart.servlet
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import graphql.ExecutionResult
+import graphql.ExecutionResultImpl
+import graphql.kickstart.execution.GraphQLObjectMapper
+import jakarta.servlet.ServletOutputStream
+import jakarta.servlet.WriteListener
+import org.springframework.mock.web.MockHttpServletRequest
+import org.springframework.mock.web.MockHttpServletResponse
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.nio.charset.StandardCharsets
+import java.util.concurrent.CompletableFuture
+
+class StreamingBatchedQueryResponseWriterTest extends Specification {
+
+  def graphQLObjectMapper = GraphQLObjectMapper.newBuilder().withObjectMapperProvider({ new ObjectMapper() }).build()
+
+  def "should write the results in request order on the calling thread as they complete"() {
+    given:
+    def first = new CompletableFuture<ExecutionResult>()
+    def second = CompletableFuture.completedFuture(new ExecutionResultImpl([k2: "ä"], []) as ExecutionResult)
+    def writingThreads = Collections.synchronizedSet(new HashSet<Thread>())
+    def response = new MockHttpServletResponse() {
+      @Override
+      ServletOutputStream getOutputStream() {
+        def delegate = super.getOutputStream()
+        new ServletOutputStream() {
+          boolean isReady() { true }
+
+          void setWriteListener(WriteListener writeListener) {}
+
+          void write(int b) {
+            writingThreads << Thread.currentThread()
+            delegate.write(b)
+          }
+        }
+      }
+    }
+    def writer = new StreamingBatchedQueryResponseWriter([first, second], graphQLObjectMapper, true)
+    def writingThread = new Thread({ writer.write(new MockHttpServletRequest(), response) })
+
+    when:
+    writingThread.start()
+
+    then:
+    new PollingConditions(timeout: 5).eventually { response.getContentAsString() == "[" }
+
+    when:
+    first.complete(new ExecutionResultImpl([k1: "a"], []))
+    writingThread.join(5000)
+
+    then:
+    !writingThread.isAlive()
+    writingThreads == [writingThread] as Set
+    response.getContentLength() == 0
+    response.getContentAsString(StandardCharsets.UTF_8) == """[{"data":{"k1":"a"}},{"data":{"k2":"ä"}}]"""
+  }
+
+  def "should write an empty array for an empty batch"() {
+    given:
+    def response = new MockHttpServletResponse()
+
+    when:
+    new StreamingBatchedQueryResponseWriter([], graphQLObjectMapper, false)
+        .write(new MockHttpServletRequest(), response)
+
+    then:
+    response.getContentAsString() == "[]"
+  }
+}
@@ -0,0 +1,54 @@
+package graphql.kickstart.servlet
+
+import jakarta.servlet.AsyncContext
+import jakarta.servlet.AsyncListener
+import jakarta.servlet.ServletRequest
+import jakarta.servlet.ServletResponse
+import org.springframework.mock.web.MockAsyncContext
+import org.springframework.mock.web.MockHttpServletRequest
+
+/**
+ * Request whose async context, like the one of a container, rejects a timeout or listener once
+ * the dispatch that started it has returned.
+ */
+class StrictAsyncRequest extends MockHttpServletRequest {
+
+  volatile boolean dispatchReturned
+
+  StrictAsyncRequest() {
+    setAsyncSupported(true)
+  }
+
+  @Override
+  AsyncContext startAsync(ServletRequest request, ServletResponse response) {
+    checkDispatch()
+    setAsyncStarted(true)
+    def asyncContext = new MockAsyncContext(request, response) {
+      @Override
+      void setTimeout(long timeout) {
+        checkDispatch()
+        super.setTimeout(timeout)
+      }
+
+      @Override
+      void addListener(AsyncListener listener) {
+        checkDispatch()
+        super.addListener(listener)
+      }
+
+      @Override
+      void addListener(AsyncListener listener, ServletRequest req, ServletResponse resp) {
+        checkDispatch()
+        super.addListener(listener, req, resp)
+      }
+    }
+    setAsyncContext(asyncContext)
+    return asyncContext
+  }
+
+  void checkDispatch() {
+    if (dispatchReturned) {
+      throw new IllegalStateException("The dispatch that started the async context has returned")
+    }
+  }
+}
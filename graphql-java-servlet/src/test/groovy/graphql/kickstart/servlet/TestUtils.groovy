@@ -90,6 +90,34 @@ class TestUtils {
     return servlet
   }
 
+  static def createStreamingServlet(
+      long maxRequestBodySize = Long.MAX_VALUE,
+      boolean incrementalBatchExecution = false,
+      ContextSetting contextSetting = ContextSetting.PER_QUERY_WITH_INSTRUMENTATION) {
+    GraphQLHttpServlet servlet = GraphQLHttpServlet.with(GraphQLConfiguration
+        .with(createGraphQlSchema())
+        .streamingRequestBody(true)
+        .maxRequestBodySize(maxRequestBodySize)
+        .incrementalBatchExecution(incrementalBatchExecution)
+        .with(contextSetting)
+        .with(executor())
+        .build())
+    servlet.init()
+    return servlet
+  }
+
+  static def createAsyncRequestBodyServlet(long maxRequestBodySize = Long.MAX_VALUE, int chunkSize = 8192) {
+    GraphQLHttpServlet servlet = GraphQLHttpServlet.with(GraphQLConfiguration
+        .with(createGraphQlSchema())
+        .asyncRequestBody(true)
+        .requestBodyBufferPool(chunkSize, 16)
+        .maxRequestBodySize(maxRequestBodySize)
+        .with(executor())
+        .build())
+    servlet.init()
+    return servlet
+  }
+
   static def graphQLConfiguration(GraphQLSchema schema, BatchInputPreProcessor batchInputPreProcessor, GraphQLServletListener... listeners) {
     def configBuilder = GraphQLConfiguration.with(schema)
     if (batchInputPreProcessor != null) {
@@ -0,0 +1,180 @@
+package graphql.kickstart.servlet
+
+import graphql.ExecutionInput
+import graphql.GraphQL
+import graphql.execution.ExecutionId
+import graphql.kickstart.execution.instrumentation.AbstractTrackingApproach
+import graphql.kickstart.execution.instrumentation.ConfigurableDispatchInstrumentation
+import graphql.kickstart.execution.instrumentation.FieldLevelTrackingApproach
+import graphql.kickstart.execution.instrumentation.RequestLevelTrackingApproach
+import graphql.schema.DataFetcher
+import graphql.schema.idl.RuntimeWiring
+import graphql.schema.idl.SchemaGenerator
+import graphql.schema.idl.SchemaParser
+import org.dataloader.BatchLoader
+import org.dataloader.DataLoaderFactory
+import org.dataloader.DataLoaderRegistry
+import spock.lang.Specification
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class TrackingApproachConcurrencySpec extends Specification {
+
+  static final int EXECUTIONS = 64
+  static final int IDS = 10
+  static final String QUERY = '''query Items($ids: [ID]) {
+    items(ids: $ids) { id name friend { id name } }
+  }'''
+
+  ExecutorService executions = Executors.newFixedThreadPool(16)
+  ExecutorService loaders = Executors.newFixedThreadPool(16)
+  AtomicInteger batches = new AtomicInteger()
+  AtomicInteger loadedKeys = new AtomicInteger()
+  AtomicInteger dispatchedUnderLock = new AtomicInteger()
+  List<AbstractTrackingApproach> approaches = new CopyOnWriteArrayList<>()
+
+  def cleanup() {
+    executions.shutdownNow()
+    loaders.shutdownNow()
+  }
+
+  def batchLoader(boolean async, Closure<Object> value) {
+    return { List<String> keys ->
+      batches.incrementAndGet()
+      loadedKeys.addAndGet(keys.size())
+      if (approaches.any { Thread.holdsLock(it.getStack()) }) {
+        dispatchedUnderLock.incrementAndGet()
+      }
+      def values = keys.collect(value)
+      async ? CompletableFuture.supplyAsync({ values }, loaders) : CompletableFuture.completedFuture(values)
+    } as BatchLoader<String, Object>
+  }
+
+  def registry(boolean async) {
+    def registry = new DataLoaderRegistry()
+    registry.register("item", DataLoaderFactory.newDataLoader(batchLoader(async, { [id: it] })))
+    registry.register("name", DataLoaderFactory.newDataLoader(batchLoader(async, { "name-" + it })))
+    return registry
+  }
+
+  def graphQL(Closure<AbstractTrackingApproach> approach) {
+    def sdl = '''
+      type Query { items(ids: [ID]): [Item] }
+      type Item { id: ID name: String friend: Item }
+    '''
+    def wiring = RuntimeWiring.newRuntimeWiring()
+        .type("Query", { it.dataFetcher("items", { env ->
+          env.getDataLoader("item").loadMany(env.getArgument("ids"))
+        } as DataFetcher) })
+        .type("Item", {
+          it.dataFetcher("name", { env -> env.getDataLoader("name").load(env.source.id) } as DataFetcher)
+              .dataFetcher("friend", { env -> env.getDataLoader("item").load("f" + env.source.id) } as DataFetcher)
+        })
+        .build()
+    def schema = new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(sdl), wiring)
+    return GraphQL.newGraphQL(schema)
+        .instrumentation(new ConfigurableDispatchInstrumentation({ registry ->
+          def created = approach(registry)
+          approaches.add(created)
+          created
+        }))
+        .doNotAddDefaultInstrumentations()
+        .build()
+  }
+
+  def input(DataLoaderRegistry registry, int execution) {
+    def ids = (0..<IDS).collect { "$execution-$it".toString() }
+    return ExecutionInput.newExecutionInput()
+        .query(QUERY)
+        .variables([ids: ids])
+        .executionId(ExecutionId.from("execution-" + execution))
+        .dataLoaderRegistry(registry)
+        .build()
+  }
+
+  def runAll(GraphQL graphQL, List<ExecutionInput> inputs) {
+    def futures = inputs.collect { input ->
+      CompletableFuture.supplyAsync({ graphQL.executeAsync(input) }, executions).thenCompose({ it })
+    }
+    return futures.collect { it.get(30, TimeUnit.SECONDS) }
+  }
+
+  void assertResults(List results) {
+    results.eachWithIndex { result, execution ->
+      assert result.errors.isEmpty()
+      def items = result.data.items
+      assert items.size() == IDS
+      items.eachWithIndex { item, i ->
+        assert item.id == "$execution-$i".toString()
+        assert item.name == "name-$execution-$i".toString()
+        assert item.friend == [id: "f$execution-$i".toString(), name: "name-f$execution-$i".toString()]
+      }
+    }
+  }
+
+  def "field level tracking of concurrent executions completes every execution"() {
+    setup:
+    def graphQL = graphQL({ new FieldLevelTrackingApproach(it) })
+
+    when:
+    def results = runAll(graphQL, (0..<EXECUTIONS).collect { input(registry(async), it) })
+
+    then:
+    assertResults(results)
+    dispatchedUnderLock.get() == 0
+    batches.get() < loadedKeys.get()
+
+    where:
+    async << [true, false]
+  }
+
+  def "request level tracking of concurrent executions completes every execution"() {
+    setup:
+    def registry = registry(async)
+    def inputs = (0..<EXECUTIONS).collect { input(registry, it) }
+    def approach = new RequestLevelTrackingApproach(inputs*.executionId, registry)
+    def graphQL = graphQL({ approach })
+
+    when:
+    def results = runAll(graphQL, inputs)
+
+    then:
+    assertResults(results)
+    dispatchedUnderLock.get() == 0
+    batches.get() < loadedKeys.get()
+
+    where:
+    async << [true, false]
+  }
+
+  def "dispatch requested while dispatching runs once the current dispatch is done"() {
+    setup:
+    def registry = new DataLoaderRegistry()
+    def approach = new FieldLevelTrackingApproach(registry)
+    approaches.add(approach)
+    def second = DataLoaderFactory.newDataLoader(batchLoader(false, { it }))
+    def secondValue = null
+    def first = DataLoaderFactory.newDataLoader({ List<String> keys ->
+      // a loader that queues a load and asks for a dispatch while the registry is dispatching
+      second.load("second").thenAccept({ secondValue = it })
+      approach.dispatch()
+      CompletableFuture.completedFuture(keys)
+    } as BatchLoader<String, String>)
+    registry.register("first", first)
+    registry.register("second", second)
+
+    when:
+    def firstValue = first.load("first")
+    approach.dispatch()
+
+    then:
+    firstValue.get(1, TimeUnit.SECONDS) == "first"
+    secondValue == "second"
+    batches.get() == 1
+  }
+}
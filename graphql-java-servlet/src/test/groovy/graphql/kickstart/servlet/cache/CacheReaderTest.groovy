@@ -2,6 +2,9 @@ package graphql.kickstart.servlet.cache
 
 import graphql.kickstart.execution.input.GraphQLInvocationInput
 import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.util.zip.GZIPInputStream
 
 import jakarta.servlet.ServletOutputStream
 import jakarta.servlet.http.HttpServletRequest
@@ -71,6 +74,76 @@ class CacheReaderTest extends Specification {
     1 * outputStream.write([00, 01, 02])
   }
 
+  def "should send gzip compressed content when accepted"() {
+    given:
+    def outputStream = new ByteArrayOutputStream()
+    def servletOutputStream = Mock(ServletOutputStream) {
+      write(_ as byte[]) >> { byte[] bytes -> outputStream.write(bytes) }
+    }
+    def content = '{"data":{"echo":"test"}}'.bytes
+    request.getHeader("Accept-Encoding") >> "gzip, deflate, br"
+    response.getOutputStream() >> servletOutputStream
+    cacheManager.get(request, invocationInput) >> CachedResponse.ofContent(content).withCompressedContent()
+
+    when:
+    def result = cacheReader.responseFromCache(invocationInput, request, response, cacheManager)
+
+    then:
+    result
+    1 * response.addHeader("Vary", "Accept-Encoding")
+    1 * response.setHeader("Content-Encoding", "gzip")
+    new GZIPInputStream(new ByteArrayInputStream(outputStream.toByteArray())).bytes == content
+  }
+
+  def "should send uncompressed content when no encoding is accepted"() {
+    given:
+    def outputStream = Mock(ServletOutputStream)
+    def content = '{"data":{"echo":"test"}}'.bytes
+    response.getOutputStream() >> outputStream
+    cacheManager.get(request, invocationInput) >> CachedResponse.ofContent(content).withCompressedContent()
+
+    when:
+    cacheReader.responseFromCache(invocationInput, request, response, cacheManager)
+
+    then:
+    1 * response.addHeader("Vary", "Accept-Encoding")
+    0 * response.setHeader("Content-Encoding", _)
+    1 * response.setContentLength(content.length)
+    1 * outputStream.write(content)
+  }
+
+  @Unroll
+  def "should negotiate #expected for Accept-Encoding '#acceptEncoding'"() {
+    expect:
+    CacheReader.negotiateContentEncoding(acceptEncoding) == expected
+
+    where:
+    acceptEncoding               | expected
+    null                         | null
+    "identity"                   | null
+    "gzip"                       | "gzip"
+    "x-gzip"                     | "gzip"
+    "deflate"                    | "deflate"
+    "deflate, gzip"              | "gzip"
+    "gzip;q=0.5, deflate"        | "deflate"
+    "gzip;q=0, deflate;q=0"      | null
+    "*"                          | "gzip"
+    "*;q=0.1, gzip;q=0"          | "deflate"
+    "br, GZIP ; q=0.8"           | "gzip"
+  }
+
+  def "should only compress responses reaching the threshold"() {
+    given:
+    def content = CachedResponse.ofContent("0123456789".bytes)
+
+    expect:
+    !CachingQueryResponseWriter.compress(content, -1).isCompressed()
+    !CachingQueryResponseWriter.compress(content, 11).isCompressed()
+    CachingQueryResponseWriter.compress(content, 10).isCompressed()
+    CachingQueryResponseWriter.compress(content, 10).getSize() > 10
+    !CachingQueryResponseWriter.compress(CachedResponse.ofError(500, "error"), 0).isCompressed()
+  }
+
   def "should return false if exception is thrown"() {
     given:
     cacheManager.get(request, invocationInput) >> { throw new RuntimeException() }
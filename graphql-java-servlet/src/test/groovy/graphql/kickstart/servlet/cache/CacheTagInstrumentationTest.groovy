@@ -0,0 +1,128 @@
+package graphql.kickstart.servlet.cache
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import graphql.kickstart.execution.GraphQLQueryInvoker
+import graphql.kickstart.execution.GraphQLRequest
+import graphql.kickstart.servlet.GraphQLConfiguration
+import graphql.kickstart.servlet.GraphQLHttpServlet
+import graphql.kickstart.servlet.input.GraphQLInvocationInputFactory
+import graphql.schema.GraphQLSchema
+import graphql.schema.idl.RuntimeWiring
+import graphql.schema.idl.SchemaGenerator
+import graphql.schema.idl.SchemaParser
+import org.springframework.mock.web.MockHttpServletRequest
+import org.springframework.mock.web.MockHttpServletResponse
+import spock.lang.Specification
+
+import java.util.concurrent.Executor
+import java.util.concurrent.atomic.AtomicInteger
+
+class CacheTagInstrumentationTest extends Specification {
+
+  def executions = new AtomicInteger()
+  def mapper = new ObjectMapper()
+  def cacheManager = InMemoryGraphQLResponseCacheManager.newBuilder().build()
+  GraphQLSchema schema
+  GraphQLHttpServlet servlet
+
+  def setup() {
+    def sdl = '''
+      type Query { order: Order, customer: Customer }
+      type Order { id: ID, customer: Customer }
+      type Customer { name: String }
+    '''
+    def wiring = RuntimeWiring.newRuntimeWiring()
+        .type("Query", { builder ->
+          builder.dataFetcher("order", { env -> executions.incrementAndGet(); [id: "1", customer: [name: "A"]] })
+              .dataFetcher("customer", { env -> executions.incrementAndGet(); [name: "B"] })
+        })
+        .build()
+    schema = new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(sdl), wiring)
+    servlet = createServlet(cacheManager)
+  }
+
+  def createServlet(GraphQLResponseCacheManager responseCacheManager) {
+    def servlet = GraphQLHttpServlet.with(GraphQLConfiguration.with(schema)
+        .with(GraphQLQueryInvoker.newBuilder().withInstrumentation(new CacheTagInstrumentation()).build())
+        .with(responseCacheManager)
+        .with({ Runnable runnable -> runnable.run() } as Executor)
+        .build())
+    servlet.init()
+    return servlet
+  }
+
+  def query(String query) {
+    def request = new MockHttpServletRequest("GET", "/graphql")
+    request.setAsyncSupported(true)
+    request.addParameter("query", query)
+    def response = new MockHttpServletResponse()
+    servlet.doGet(request, response)
+    return mapper.readValue(response.getContentAsByteArray(), Map).data
+  }
+
+  def "should tag cached responses with the types and root fields they touched"() {
+    given:
+    CachedResponse cached = null
+    def tagging = Spy(cacheManager)
+    servlet = createServlet(tagging)
+
+    when:
+    query("{ order { id customer { name } } }")
+
+    then:
+    1 * tagging.put(_, _, _) >> { args -> cached = args[2]; callRealMethod() }
+    cached.getTags() == ["Query.order", "Order", "Customer"] as Set
+  }
+
+  def "should evict the responses depending on an invalidated type"() {
+    given:
+    query("{ order { id customer { name } } }")
+    query("{ customer { name } }")
+    query("{ order { id } }")
+
+    when:
+    def removed = cacheManager.invalidateType("Customer")
+
+    then:
+    removed == 2
+    cacheManager.size() == 1
+
+    when:
+    query("{ order { id customer { name } } }")
+    query("{ order { id } }")
+
+    then:
+    executions.get() == 4
+  }
+
+  def "should evict the responses selecting an invalidated root field"() {
+    given:
+    query("{ order { id } }")
+    query("{ customer { name } }")
+
+    expect:
+    cacheManager.invalidateField("Query", "customer") == 1
+    cacheManager.invalidateField("Query", "customer") == 0
+    cacheManager.size() == 1
+    cacheManager.invalidateTag("Order") == 1
+    cacheManager.size() == 0
+  }
+
+  def "should keep the tag index consistent with evictions"() {
+    given:
+    def small = InMemoryGraphQLResponseCacheManager.newBuilder().withMaximumSize(1).build()
+    def request = new MockHttpServletRequest("GET", "/graphql")
+    def invocationInputFactory = GraphQLInvocationInputFactory.newBuilder(schema).build()
+    def input = { String query ->
+      invocationInputFactory.create(new GraphQLRequest(query, [:], [:], null), request, new MockHttpServletResponse())
+    }
+    small.put(request, input("{ order { id } }"), CachedResponse.ofContent("1".bytes).withTags(["Order"]))
+    small.put(request, input("{ customer { name } }"), CachedResponse.ofContent("2".bytes).withTags(["Customer"]))
+
+    expect:
+    small.size() == 1
+    small.invalidateType("Order") == 0
+    small.invalidateType("Customer") == 1
+    small.size() == 0
+  }
+}
@@ -11,6 +11,7 @@ import graphql.kickstart.servlet.HttpRequestInvoker
 import graphql.kickstart.servlet.ListenerHandler
 import spock.lang.Specification
 
+import jakarta.servlet.AsyncContext
 import jakarta.servlet.ServletOutputStream
 import jakarta.servlet.http.HttpServletRequest
 import jakarta.servlet.http.HttpServletResponse
@@ -77,6 +78,20 @@ class CachingHttpRequestInvokerTest extends Specification {
     0 * httpRequestInvokerMock.execute(invocationInputMock, requestMock, responseMock, listenerHandlerMock)
   }
 
+  def "should complete the async context started for reading the body when cache exists"() {
+    given:
+    def asyncContext = Mock(AsyncContext)
+    cacheReaderMock.responseFromCache(invocationInputMock, requestMock, responseMock, responseCacheManagerMock) >> true
+    requestMock.isAsyncStarted() >> true
+    requestMock.getAsyncContext() >> asyncContext
+
+    when:
+    cachingInvoker.execute(invocationInputMock, requestMock, responseMock, listenerHandlerMock)
+
+    then:
+    1 * asyncContext.complete()
+  }
+
   def "should return bad request response when ioexception"() {
     given:
     cacheReaderMock.responseFromCache(invocationInputMock, requestMock, responseMock, responseCacheManagerMock) >> { throw new IOException() }
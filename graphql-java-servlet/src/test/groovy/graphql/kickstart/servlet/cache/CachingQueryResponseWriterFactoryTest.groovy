@@ -0,0 +1,147 @@
+package graphql.kickstart.servlet.cache
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import graphql.ExecutionResultImpl
+import graphql.GraphqlErrorBuilder
+import graphql.kickstart.execution.GraphQLObjectMapper
+import graphql.kickstart.execution.GraphQLQueryResult
+import graphql.kickstart.execution.input.GraphQLInvocationInput
+import graphql.kickstart.servlet.GraphQLConfiguration
+import jakarta.servlet.ServletOutputStream
+import jakarta.servlet.WriteListener
+import jakarta.servlet.http.HttpServletRequest
+import jakarta.servlet.http.HttpServletResponse
+import org.springframework.mock.web.MockHttpServletRequest
+import org.springframework.mock.web.MockHttpServletResponse
+import spock.lang.Specification
+
+class CachingQueryResponseWriterFactoryTest extends Specification {
+
+  def cacheManager = Mock(GraphQLResponseCacheManager)
+  def invocationInput = Mock(GraphQLInvocationInput)
+  def configuration = Mock(GraphQLConfiguration) {
+    getResponseCacheManager() >> cacheManager
+    getObjectMapper() >> GraphQLObjectMapper.newBuilder().withObjectMapperProvider({ new ObjectMapper() }).build()
+  }
+  def request = new MockHttpServletRequest()
+  def response = new MockHttpServletResponse()
+
+  def "should cache the bytes written for a single result"() {
+    given:
+    def queryResult = GraphQLQueryResult.create(new ExecutionResultImpl([echo: "test"], []))
+    def writer = new CachingQueryResponseWriterFactory().createWriter(invocationInput, queryResult, configuration)
+    cacheManager.isCacheable(request, invocationInput) >> true
+    CachedResponse cached = null
+
+    when:
+    writer.write(request, response)
+
+    then:
+    1 * cacheManager.put(request, invocationInput, _ as CachedResponse) >> { args -> cached = args[2] }
+    response.getContentAsString() == '{"data":{"echo":"test"}}'
+    response.getContentLength() == cached.getContentBytes().length
+    new String(cached.getContentBytes()) == '{"data":{"echo":"test"}}'
+  }
+
+  def "should not cache a single result of a request that is not cacheable"() {
+    given:
+    def queryResult = GraphQLQueryResult.create(new ExecutionResultImpl([echo: "test"], []))
+    def writer = new CachingQueryResponseWriterFactory().createWriter(invocationInput, queryResult, configuration)
+    cacheManager.isCacheable(request, invocationInput) >> false
+
+    when:
+    writer.write(request, response)
+
+    then:
+    0 * cacheManager.put(*_)
+    response.getContentAsString() == '{"data":{"echo":"test"}}'
+  }
+
+  def "should not cache a single result with errors"() {
+    given:
+    def error = GraphqlErrorBuilder.newError().message("failed").build()
+    def queryResult = GraphQLQueryResult.create(new ExecutionResultImpl([echo: "test"], [error]))
+    def writer = new CachingQueryResponseWriterFactory().createWriter(invocationInput, queryResult, configuration)
+    cacheManager.isCacheable(request, invocationInput) >> true
+
+    when:
+    writer.write(request, response)
+
+    then:
+    0 * cacheManager.put(*_)
+    response.getContentAsString().contains('"failed"')
+  }
+
+  def "should cache a result written without blocking once it has been written"() {
+    given:
+    def written = new ByteArrayOutputStream()
+    WriteListener listener = null
+    def outputStream = new ServletOutputStream() {
+      boolean isReady() { true }
+
+      void setWriteListener(WriteListener writeListener) { listener = writeListener }
+
+      void write(int b) { written.write(b) }
+    }
+    def asyncResponse = Mock(HttpServletResponse) {
+      getOutputStream() >> outputStream
+    }
+    def asyncRequest = Mock(HttpServletRequest) {
+      isAsyncStarted() >> true
+    }
+    def nonBlockingConfiguration = Mock(GraphQLConfiguration) {
+      getResponseCacheManager() >> cacheManager
+      getObjectMapper() >> configuration.getObjectMapper()
+      isNonBlockingResponse() >> true
+    }
+    def queryResult = GraphQLQueryResult.create(new ExecutionResultImpl([echo: "test"], []))
+    def writer = new CachingQueryResponseWriterFactory().createWriter(invocationInput, queryResult, nonBlockingConfiguration)
+    cacheManager.isCacheable(asyncRequest, invocationInput) >> true
+
+    when:
+    def completion = writer.writeAsync(asyncRequest, asyncResponse)
+
+    then:
+    !completion.isDone()
+    0 * cacheManager.put(*_)
+
+    when:
+    listener.onWritePossible()
+
+    then:
+    completion.isDone()
+    1 * cacheManager.put(asyncRequest, invocationInput, { new String(it.getContentBytes()) == '{"data":{"echo":"test"}}' })
+    written.toString() == '{"data":{"echo":"test"}}'
+  }
+
+  def "should cache batched results through the buffered response"() {
+    given:
+    def queryResult = GraphQLQueryResult.create([new ExecutionResultImpl([echo: "one"], []), new ExecutionResultImpl([echo: "two"], [])])
+    def writer = new CachingQueryResponseWriterFactory().createWriter(invocationInput, queryResult, configuration)
+    cacheManager.isCacheable(request, invocationInput) >> true
+    CachedResponse cached = null
+
+    when:
+    writer.write(request, response)
+
+    then:
+    1 * cacheManager.put(request, invocationInput, _ as CachedResponse) >> { args -> cached = args[2] }
+    new String(cached.getContentBytes()) == response.getContentAsString()
+  }
+
+  def "buffered response should keep the content without copying when the length is known"() {
+    given:
+    def buffered = new BufferedHttpServletResponse(response)
+    def content = "0123456789".bytes
+
+    when:
+    buffered.setContentLength(content.length)
+    buffered.getOutputStream().write(content, 0, 4)
+    buffered.getOutputStream().write(content, 4, 6)
+
+    then:
+    buffered.getContentAsByteArray() == content
+    buffered.getContentAsByteArray().is(buffered.getContentAsByteArray())
+    response.getContentAsByteArray() == content
+  }
+}
@@ -0,0 +1,142 @@
+package graphql.kickstart.servlet.cache
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import graphql.kickstart.servlet.GraphQLConfiguration
+import graphql.kickstart.servlet.GraphQLHttpServlet
+import graphql.kickstart.servlet.TestUtils
+import org.springframework.mock.web.MockHttpServletRequest
+import org.springframework.mock.web.MockHttpServletResponse
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.Executor
+import java.util.concurrent.atomic.AtomicInteger
+
+class InMemoryGraphQLResponseCacheManagerTest extends Specification {
+
+  def executions = new AtomicInteger()
+  def mapper = new ObjectMapper()
+
+  def createServlet(InMemoryGraphQLResponseCacheManager cacheManager) {
+    def schema = TestUtils.createGraphQlSchema({ env ->
+      executions.incrementAndGet()
+      env.arguments.arg
+    })
+    def servlet = GraphQLHttpServlet.with(GraphQLConfiguration.with(schema)
+        .with(cacheManager)
+        .with({ Runnable runnable -> runnable.run() } as Executor)
+        .build())
+    servlet.init()
+    return servlet
+  }
+
+  def query(GraphQLHttpServlet servlet, String method, String arg, Map<String, String> headers = [:]) {
+    def request = new MockHttpServletRequest()
+    request.setAsyncSupported(true)
+    request.setMethod(method)
+    headers.each { name, value -> request.addHeader(name, value) }
+    if (method == "GET") {
+      request.addParameter("query", 'query Echo($arg: String) { echo(arg: $arg) }')
+      request.addParameter("variables", mapper.writeValueAsString([arg: arg]))
+    } else {
+      request.setContent(mapper.writeValueAsBytes([query: 'query Echo($arg: String) { echo(arg: $arg) }', variables: [arg: arg]]))
+    }
+    def response = new MockHttpServletResponse()
+    servlet.doGet(request, response)
+    return mapper.readValue(response.getContentAsByteArray(), Map).data.echo
+  }
+
+  def "should serve identical GET queries from the cache"() {
+    setup:
+    def cacheManager = InMemoryGraphQLResponseCacheManager.newBuilder().build()
+    def servlet = createServlet(cacheManager)
+
+    expect:
+    query(servlet, "GET", "one") == "one"
+    query(servlet, "GET", "one") == "one"
+    query(servlet, "GET", "two") == "two"
+    executions.get() == 2
+    cacheManager.getHitCount() == 1
+    cacheManager.getMissCount() == 2
+    cacheManager.size() == 2
+    cacheManager.weight() > 0
+  }
+
+  def "should not cache POST queries by default"() {
+    setup:
+    def cacheManager = InMemoryGraphQLResponseCacheManager.newBuilder().build()
+    def servlet = createServlet(cacheManager)
+
+    expect:
+    query(servlet, "POST", "one") == "one"
+    query(servlet, "POST", "one") == "one"
+    executions.get() == 2
+    cacheManager.size() == 0
+  }
+
+  def "should separate responses by scope"() {
+    setup:
+    def cacheManager = InMemoryGraphQLResponseCacheManager.newBuilder().withScopeHeader("Authorization").build()
+    def servlet = createServlet(cacheManager)
+
+    expect:
+    query(servlet, "GET", "one", [Authorization: "a"]) == "one"
+    query(servlet, "GET", "one", [Authorization: "b"]) == "one"
+    query(servlet, "GET", "one", [Authorization: "a"]) == "one"
+    executions.get() == 2
+  }
+
+  def "should evict the least recently used response when the weight is exceeded"() {
+    setup:
+    def cacheManager = InMemoryGraphQLResponseCacheManager.newBuilder()
+        .withConcurrencyLevel(1)
+        .withMaximumWeight(160)
+        .build()
+    def servlet = createServlet(cacheManager)
+
+    when:
+    query(servlet, "GET", "one")
+    query(servlet, "GET", "two")
+    query(servlet, "GET", "one")
+    query(servlet, "GET", "three")
+
+    then:
+    cacheManager.size() == 2
+    cacheManager.getEvictionCount() == 1
+    query(servlet, "GET", "one") == "one"
+    executions.get() == 3
+  }
+
+  def "should count the query and variables of the key in the weight"() {
+    setup:
+    def cacheManager = InMemoryGraphQLResponseCacheManager.newBuilder().build()
+    def servlet = createServlet(cacheManager)
+    def request = new MockHttpServletRequest()
+    request.setMethod("GET")
+    request.addParameter("query", 'query Echo($arg: String) { echo(arg: $arg) }')
+    request.addParameter("variables", mapper.writeValueAsString([arg: "one", unused: "x" * 1000]))
+    def response = new MockHttpServletResponse()
+
+    when:
+    servlet.doGet(request, response)
+
+    then:
+    cacheManager.size() == 1
+    cacheManager.weight() == response.getContentAsByteArray().length + 44 + "Echo".length() + "argoneunused".length() + 1000
+  }
+
+  def "should expire responses"() {
+    setup:
+    def cacheManager = InMemoryGraphQLResponseCacheManager.newBuilder().withExpireAfterWrite(Duration.ofMillis(1)).build()
+    def servlet = createServlet(cacheManager)
+
+    when:
+    query(servlet, "GET", "one")
+    Thread.sleep(5)
+    query(servlet, "GET", "one")
+
+    then:
+    executions.get() == 2
+    cacheManager.getEvictionCount() == 1
+  }
+}
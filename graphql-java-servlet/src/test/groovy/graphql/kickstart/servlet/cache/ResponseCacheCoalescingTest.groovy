@@ -0,0 +1,189 @@
+package graphql.kickstart.servlet.cache
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import graphql.kickstart.servlet.GraphQLConfiguration
+import graphql.kickstart.servlet.GraphQLHttpServlet
+import graphql.kickstart.servlet.StrictAsyncRequest
+import graphql.kickstart.servlet.TestUtils
+import graphql.kickstart.servlet.core.GraphQLServletListener
+import graphql.schema.DataFetcher
+import jakarta.servlet.http.HttpServletRequest
+import jakarta.servlet.http.HttpServletResponse
+import org.springframework.mock.web.MockHttpServletRequest
+import org.springframework.mock.web.MockHttpServletResponse
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executor
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class ResponseCacheCoalescingTest extends Specification {
+
+  def mapper = new ObjectMapper()
+  def conditions = new PollingConditions(timeout: 5)
+  def executions = new AtomicInteger()
+  def leaderStarted = new CountDownLatch(1)
+  def releaseLeader = new CountDownLatch(1)
+  def callbacks = Collections.synchronizedList([])
+  def listener = new GraphQLServletListener() {
+    @Override
+    GraphQLServletListener.RequestCallback onRequest(HttpServletRequest request, HttpServletResponse response) {
+      new GraphQLServletListener.RequestCallback() {
+        @Override
+        void onSuccess(HttpServletRequest req, HttpServletResponse resp) {
+          callbacks << "success"
+        }
+
+        @Override
+        void onFinally(HttpServletRequest req, HttpServletResponse resp) {
+          callbacks << "finally"
+        }
+      }
+    }
+  }
+
+  def createServlet(long coalescingTimeout, DataFetcher dataFetcher = { env -> env.arguments.arg }) {
+    def schema = TestUtils.createGraphQlSchema({ env ->
+      if (executions.incrementAndGet() == 1) {
+        leaderStarted.countDown()
+        releaseLeader.await(5, TimeUnit.SECONDS)
+      }
+      dataFetcher.get(env)
+    })
+    def servlet = GraphQLHttpServlet.with(GraphQLConfiguration.with(schema)
+        .with(InMemoryGraphQLResponseCacheManager.newBuilder().build())
+        .responseCacheCoalescingTimeout(coalescingTimeout)
+        .with([listener as GraphQLServletListener])
+        .with({ Runnable runnable -> runnable.run() } as Executor)
+        .build())
+    servlet.init()
+    return servlet
+  }
+
+  static def createRequest(boolean asyncSupported = true) {
+    def request = new MockHttpServletRequest()
+    request.setAsyncSupported(asyncSupported)
+    request.setMethod("GET")
+    request.addParameter("query", 'query { echo(arg: "test") }')
+    return request
+  }
+
+  def "identical concurrent requests wait for a single execution"() {
+    setup:
+    def servlet = createServlet(5000)
+    def leaderResponse = new MockHttpServletResponse()
+    def followerResponse = new MockHttpServletResponse()
+
+    when:
+    def leader = CompletableFuture.runAsync({ servlet.doGet(createRequest(), leaderResponse) })
+    leaderStarted.await(5, TimeUnit.SECONDS)
+    servlet.doGet(createRequest(), followerResponse)
+
+    then:
+    followerResponse.getContentAsByteArray().length == 0
+
+    when:
+    releaseLeader.countDown()
+    leader.join()
+
+    then:
+    conditions.eventually {
+      assert followerResponse.getContentAsByteArray().length > 0
+    }
+    mapper.readValue(followerResponse.getContentAsByteArray(), Map).data.echo == "test"
+    mapper.readValue(leaderResponse.getContentAsByteArray(), Map).data.echo == "test"
+    executions.get() == 1
+    conditions.eventually {
+      assert callbacks.sort() == ["finally", "finally", "success", "success"]
+    }
+  }
+
+  def "requests that cannot go async are not coalesced"() {
+    setup:
+    def servlet = createServlet(5000)
+    def response = new MockHttpServletResponse()
+
+    when:
+    def leader = CompletableFuture.runAsync({ servlet.doGet(createRequest(), new MockHttpServletResponse()) })
+    leaderStarted.await(5, TimeUnit.SECONDS)
+    servlet.doGet(createRequest(false), response)
+
+    then:
+    mapper.readValue(response.getContentAsByteArray(), Map).data.echo == "test"
+    executions.get() == 2
+
+    cleanup:
+    releaseLeader.countDown()
+    leader.join()
+  }
+
+  def "waiting request executes on its own after the timeout"() {
+    setup:
+    def servlet = createServlet(50)
+    def followerResponse = new MockHttpServletResponse()
+
+    when:
+    def leader = CompletableFuture.runAsync({ servlet.doGet(createRequest(), new MockHttpServletResponse()) })
+    leaderStarted.await(5, TimeUnit.SECONDS)
+    servlet.doGet(createRequest(), followerResponse)
+
+    then:
+    conditions.eventually {
+      assert followerResponse.getContentAsByteArray().length > 0
+    }
+    mapper.readValue(followerResponse.getContentAsByteArray(), Map).data.echo == "test"
+    executions.get() == 2
+
+    cleanup:
+    releaseLeader.countDown()
+    leader.join()
+  }
+
+  def "waiting request configures its async context before the dispatch returns"() {
+    setup:
+    def servlet = createServlet(200)
+    def follower = new StrictAsyncRequest()
+    follower.setMethod("GET")
+    follower.addParameter("query", 'query { echo(arg: "test") }')
+    def followerResponse = new MockHttpServletResponse()
+
+    when:
+    def leader = CompletableFuture.runAsync({ servlet.doGet(createRequest(), new MockHttpServletResponse()) })
+    leaderStarted.await(5, TimeUnit.SECONDS)
+    servlet.doGet(follower, followerResponse)
+    follower.dispatchReturned = true
+
+    then:
+    conditions.eventually {
+      assert followerResponse.getContentAsByteArray().length > 0
+    }
+    mapper.readValue(followerResponse.getContentAsByteArray(), Map).data.echo == "test"
+    !follower.isAsyncStarted()
+
+    cleanup:
+    releaseLeader.countDown()
+    leader.join()
+  }
+
+  def "requests are not coalesced by default"() {
+    setup:
+    def servlet = createServlet(0)
+    def response = new MockHttpServletResponse()
+
+    when:
+    def leader = CompletableFuture.runAsync({ servlet.doGet(createRequest(), new MockHttpServletResponse()) })
+    leaderStarted.await(5, TimeUnit.SECONDS)
+    servlet.doGet(createRequest(), response)
+
+    then:
+    mapper.readValue(response.getContentAsByteArray(), Map).data.echo == "test"
+    executions.get() == 2
+
+    cleanup:
+    releaseLeader.countDown()
+    leader.join()
+  }
+}
@@ -0,0 +1,203 @@
+package graphql.kickstart.servlet.cache
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import graphql.kickstart.servlet.GraphQLConfiguration
+import graphql.kickstart.servlet.GraphQLHttpServlet
+import graphql.kickstart.servlet.TestUtils
+import org.springframework.mock.web.MockHttpServletRequest
+import org.springframework.mock.web.MockHttpServletResponse
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.Executor
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.zip.GZIPInputStream
+
+class TieredGraphQLResponseCacheManagerTest extends Specification {
+
+  def executions = new AtomicInteger()
+  def mapper = new ObjectMapper()
+
+  def createServlet(TieredGraphQLResponseCacheManager cacheManager) {
+    def schema = TestUtils.createGraphQlSchema({ env ->
+      executions.incrementAndGet()
+      env.arguments.arg
+    })
+    def servlet = GraphQLHttpServlet.with(GraphQLConfiguration.with(schema)
+        .with(cacheManager)
+        .with({ Runnable runnable -> runnable.run() } as Executor)
+        .build())
+    servlet.init()
+    return servlet
+  }
+
+  def query(GraphQLHttpServlet servlet, String arg) {
+    def request = new MockHttpServletRequest("GET", "/graphql")
+    request.setAsyncSupported(true)
+    request.addParameter("query", 'query Echo($arg: String) { echo(arg: $arg) }')
+    request.addParameter("variables", mapper.writeValueAsString([arg: arg]))
+    def response = new MockHttpServletResponse()
+    servlet.doGet(request, response)
+    return mapper.readValue(response.getContentAsByteArray(), Map).data.echo
+  }
+
+  def "should serve responses evicted from the heap tier from direct memory"() {
+    setup:
+    def cacheManager = TieredGraphQLResponseCacheManager.newBuilder()
+        .withConcurrencyLevel(1)
+        .withFirstTier(1, 1024)
+        .build()
+    def servlet = createServlet(cacheManager)
+
+    expect:
+    query(servlet, "one") == "one"
+    query(servlet, "two") == "two"
+    query(servlet, "two") == "two"
+    query(servlet, "one") == "one"
+    executions.get() == 2
+    cacheManager.getFirstTierHitCount() == 1
+    cacheManager.getSecondTierHitCount() == 1
+    cacheManager.getMissCount() == 2
+    cacheManager.getFirstTier().size() == 1
+    cacheManager.getSecondTier().size() == 2
+  }
+
+  def "should promote responses served from direct memory to the heap tier"() {
+    setup:
+    def cacheManager = TieredGraphQLResponseCacheManager.newBuilder()
+        .withConcurrencyLevel(1)
+        .withFirstTier(1, 1024)
+        .build()
+    def servlet = createServlet(cacheManager)
+
+    when:
+    query(servlet, "one")
+    query(servlet, "two")
+    query(servlet, "one")
+    query(servlet, "one")
+
+    then:
+    executions.get() == 2
+    cacheManager.getSecondTierHitCount() == 1
+    cacheManager.getFirstTierHitCount() == 1
+    cacheManager.getHitCount() == 2
+    cacheManager.getMissCount() == 2
+  }
+
+  def "should expire promoted responses with the direct memory tier"() {
+    setup:
+    def cacheManager = TieredGraphQLResponseCacheManager.newBuilder()
+        .withConcurrencyLevel(1)
+        .withFirstTier(1, 1024)
+        .withExpireAfterWrite(Duration.ofMillis(200))
+        .build()
+    def servlet = createServlet(cacheManager)
+
+    when:
+    query(servlet, "one")
+    query(servlet, "two")
+    Thread.sleep(120)
+    query(servlet, "one")
+    Thread.sleep(120)
+    query(servlet, "one")
+
+    then:
+    cacheManager.getSecondTierHitCount() == 1
+    executions.get() == 3
+  }
+
+  def "should evict from both tiers by type and field"() {
+    setup:
+    def cacheManager = TieredGraphQLResponseCacheManager.newBuilder().build()
+    def tagged = Spy(cacheManager) {
+      put(_, _, _) >> { args -> callRealMethodWithArgs(args[0], args[1], args[2].withTags(["Query", "Query.echo"])) }
+    }
+    def servlet = createServlet(tagged)
+
+    when:
+    query(servlet, "one")
+
+    then:
+    cacheManager.invalidateField("Query", "echo") == 1
+    cacheManager.getFirstTier().size() == 0
+
+    when:
+    query(servlet, "two")
+
+    then:
+    cacheManager.invalidateType("Query") == 1
+    cacheManager.getFirstTier().size() == 0
+    cacheManager.getSecondTier().size() == 0
+  }
+
+  def "should evict from both tiers by tag"() {
+    setup:
+    def cacheManager = TieredGraphQLResponseCacheManager.newBuilder().build()
+    def tagged = Spy(cacheManager) {
+      put(_, _, _) >> { args -> callRealMethodWithArgs(args[0], args[1], args[2].withTags(["Query.echo"])) }
+    }
+    def servlet = createServlet(tagged)
+
+    when:
+    query(servlet, "one")
+    query(servlet, "two")
+
+    then:
+    cacheManager.invalidateTag("Query.echo") == 2
+    cacheManager.getFirstTier().size() == 0
+    cacheManager.getSecondTier().size() == 0
+  }
+
+  def "off heap response should write large content in every encoding"() {
+    given:
+    def content = ("x" * 20000).bytes
+    def response = OffHeapCachedResponse.of(CachedResponse.ofContent(content).withCompressedContent().withTags(["A"]))
+    def plain = new ByteArrayOutputStream()
+    def gzip = new ByteArrayOutputStream()
+
+    when:
+    response.writeContent(null, plain)
+    response.writeContent(CachedResponse.GZIP, gzip)
+
+    then:
+    response instanceof OffHeapCachedResponse
+    plain.toByteArray() == content
+    new GZIPInputStream(new ByteArrayInputStream(gzip.toByteArray())).bytes == content
+    response.getContentLength(null) == content.length
+    response.getContentBytes() == content
+    response.getEtag("") == CachedResponse.ofContent(content).getEtag("")
+    response.getTags() == ["A"] as Set
+    response.getSize() == CachedResponse.ofContent(content).withCompressedContent().getSize()
+  }
+
+  def "off heap response should serialize as a heap response"() {
+    given:
+    def content = '{"data":{"echo":"one"}}'.bytes
+    def response = OffHeapCachedResponse.of(CachedResponse.ofContent(content).withCompressedContent())
+    def bytes = new ByteArrayOutputStream()
+
+    when:
+    new ObjectOutputStream(bytes).writeObject(response)
+    def copy = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject() as CachedResponse
+
+    then:
+    !(copy instanceof OffHeapCachedResponse)
+    copy.getContentBytes() == content
+    copy.isCompressed()
+  }
+
+  def "cache reader should write off heap responses"() {
+    given:
+    def content = '{"data":{"echo":"one"}}'.bytes
+    def request = new MockHttpServletRequest("GET", "/graphql")
+    def response = new MockHttpServletResponse()
+
+    when:
+    new CacheReader().write(request, response, OffHeapCachedResponse.of(CachedResponse.ofContent(content)))
+
+    then:
+    response.getContentAsByteArray() == content
+    response.getContentLength() == content.length
+    response.getContentType() == "application/json;charset=UTF-8"
+  }
+}